@@ -16,13 +16,18 @@ package org.janusgraph.diskstorage;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.google.common.collect.ImmutableList;
 import org.janusgraph.JanusGraphBaseStoreFeaturesTest;
 import org.janusgraph.TestCategory;
+import org.janusgraph.core.schema.JanusGraphManagement;
 import org.janusgraph.diskstorage.configuration.Configuration;
+import org.janusgraph.diskstorage.configuration.WriteConfiguration;
+import org.janusgraph.diskstorage.configuration.backend.CommonsConfiguration;
 import org.janusgraph.diskstorage.keycolumnvalue.scan.ScanJob;
 import org.janusgraph.diskstorage.keycolumnvalue.scan.ScanMetrics;
 import org.janusgraph.diskstorage.keycolumnvalue.scan.StandardScanner;
@@ -43,6 +48,7 @@ import org.janusgraph.diskstorage.keycolumnvalue.*;
 import org.janusgraph.testutil.RandomGenerator;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 public abstract class KeyColumnValueStoreTest extends AbstractKCVSTest implements JanusGraphBaseStoreFeaturesTest {
 
@@ -1169,6 +1175,227 @@ public abstract class KeyColumnValueStoreTest extends AbstractKCVSTest implement
         SimpleScanJob.runBasicTests(keys, columns, runner);
     }
 
+    /**
+     * Loads keys which are spread over the entire key space so that they fall into different key ranges
+     */
+    private void loadSpreadKeys(int keys, int columns) throws BackendException {
+        for (int i = 0; i < keys; i++) {
+            List<Entry> additions = new ArrayList<>(columns);
+            for (int j = 0; j < columns; j++) {
+                additions.add(StaticArrayEntry.of(BufferUtil.getIntBuffer(j), BufferUtil.getIntBuffer(i)));
+            }
+            store.mutate(BufferUtil.getLongBuffer(Long.reverse(i + 1L)), additions, KeyColumnValueStore.NO_DELETIONS, tx);
+        }
+        clopen();
+    }
+
+    @Test
+    public void scanTestWithKeyRanges() throws Exception {
+        int keys = 1000, columns = 10;
+        loadSpreadKeys(keys, columns);
+
+        StandardScanner scanner = new StandardScanner(manager);
+        List<SliceQuery> allColumns = ImmutableList.of(new SliceQuery(BufferUtil.zeroBuffer(1), BufferUtil.oneBuffer(128)));
+        List<SliceQuery> twoQueries = ImmutableList.of(
+                new SliceQuery(BufferUtil.zeroBuffer(1), BufferUtil.oneBuffer(128)).setLimit(1),
+                new SliceQuery(BufferUtil.getIntBuffer(0), BufferUtil.getIntBuffer(5)));
+        for (int numRanges : new int[]{1, 7, 64}) {
+            ScanMetrics result = runKeyRangeJob(scanner, new SimpleScanJob(allColumns, k -> true), numRanges);
+            assertEquals(keys, result.getCustom(SimpleScanJob.KEY_COUNT));
+            assertEquals(keys * columns, result.getCustom(SimpleScanJob.TOTAL_COUNT));
+            assertEquals(keys, result.get(ScanMetrics.Metric.SUCCESS));
+
+            result = runKeyRangeJob(scanner, new SimpleScanJob(twoQueries, k -> true), numRanges);
+            assertEquals(keys, result.getCustom(SimpleScanJob.KEY_COUNT));
+            assertEquals(keys * 6, result.getCustom(SimpleScanJob.TOTAL_COUNT));
+        }
+    }
+
+    @Test
+    public void scanTestResumesFromCheckpoint() throws Exception {
+        //Checkpointing requires ordered scans
+        assumeTrue(storeFeatures().hasOrderedScan());
+        int keys = 1000, columns = 2;
+        loadSpreadKeys(keys, columns);
+
+        StandardScanner scanner = new StandardScanner(manager);
+        WriteConfiguration checkpoints = new CommonsConfiguration();
+        Set<StaticBuffer> processedKeys = ConcurrentHashMap.newKeySet();
+        CountDownLatch halfProcessed = new CountDownLatch(keys / 2);
+        ScanJob job = new KeyCollectingJob(processedKeys, halfProcessed);
+
+        JanusGraphManagement.IndexJobFuture future = buildCheckpointedJob(scanner, job, checkpoints).execute();
+        assertTrue(halfProcessed.await(60, TimeUnit.SECONDS));
+        future.cancel(true);
+        assertThrows(CancellationException.class, future::get);
+        //Wait for the executor to persist its final checkpoint after processing the queued rows
+        long deadline = System.currentTimeMillis() + 10000;
+        int firstRun;
+        do {
+            firstRun = processedKeys.size();
+            Thread.sleep(200);
+        } while (firstRun != processedKeys.size() && System.currentTimeMillis() < deadline);
+        assertTrue(firstRun < keys);
+        assertTrue(checkpoints.getKeys("").iterator().hasNext());
+
+        Set<StaticBuffer> firstRunKeys = new HashSet<>(processedKeys);
+        processedKeys.clear();
+        ScanMetrics result = buildCheckpointedJob(scanner, new KeyCollectingJob(processedKeys, new CountDownLatch(0)),
+                checkpoints).execute().get();
+        //The resumed job only processes the keys which have not been processed before
+        assertTrue(processedKeys.size() < keys);
+        processedKeys.addAll(firstRunKeys);
+        assertEquals(keys, processedKeys.size());
+        assertTrue(result.get(ScanMetrics.Metric.SUCCESS) >= keys);
+        assertFalse(checkpoints.getKeys("").iterator().hasNext());
+    }
+
+    @Test
+    public void scanTestCheckpointsOnlyCompletedWorkBlocks() throws Exception {
+        assumeTrue(storeFeatures().hasOrderedScan());
+        int keys = 1000, columns = 2;
+        loadSpreadKeys(keys, columns);
+
+        StandardScanner scanner = new StandardScanner(manager);
+        WriteConfiguration checkpoints = new CommonsConfiguration();
+        Set<StaticBuffer> committedKeys = ConcurrentHashMap.newKeySet();
+        AtomicBoolean crashed = new AtomicBoolean(false);
+        CountDownLatch halfProcessed = new CountDownLatch(keys / 2);
+
+        StandardScanner.Builder firstRun = buildCheckpointedJob(scanner,
+                new BlockCommittingJob(committedKeys, crashed, halfProcessed), checkpoints);
+        firstRun.setWorkBlockSize(100);
+        JanusGraphManagement.IndexJobFuture future = firstRun.execute();
+        assertTrue(halfProcessed.await(60, TimeUnit.SECONDS));
+        //Blocks which have not ended yet are lost, like uncommitted writes of a job which is killed
+        crashed.set(true);
+        future.cancel(true);
+        assertThrows(CancellationException.class, future::get);
+        //Wait for the executor to persist its final checkpoint
+        long deadline = System.currentTimeMillis() + 10000;
+        Map<String, String> checkpoint;
+        do {
+            checkpoint = snapshot(checkpoints);
+            Thread.sleep(200);
+        } while (!checkpoint.equals(snapshot(checkpoints)) && System.currentTimeMillis() < deadline);
+        assertTrue(committedKeys.size() < keys);
+
+        crashed.set(false);
+        StandardScanner.Builder secondRun = buildCheckpointedJob(scanner,
+                new BlockCommittingJob(committedKeys, crashed, new CountDownLatch(0)), checkpoints);
+        secondRun.setWorkBlockSize(100);
+        secondRun.execute().get();
+        //Every key is committed by either run since the checkpoint only covers committed work blocks
+        assertEquals(keys, committedKeys.size());
+    }
+
+    private static Map<String, String> snapshot(WriteConfiguration config) {
+        final Map<String, String> snapshot = new HashMap<>();
+        for (String key : config.getKeys("")) snapshot.put(key, config.get(key, String.class));
+        return snapshot;
+    }
+
+    private StandardScanner.Builder buildCheckpointedJob(StandardScanner scanner, ScanJob job, WriteConfiguration checkpoints) {
+        StandardScanner.Builder jobBuilder = scanner.build();
+        jobBuilder.setStoreName(store.getName());
+        jobBuilder.setNumProcessingThreads(2);
+        jobBuilder.setNumKeyRanges(4);
+        jobBuilder.setJobId("checkpointed-job");
+        jobBuilder.setCheckpointing(checkpoints, Duration.ofMillis(20));
+        jobBuilder.setTimestampProvider(times);
+        jobBuilder.setJob(job);
+        return jobBuilder;
+    }
+
+    private static class KeyCollectingJob implements ScanJob {
+
+        private final Set<StaticBuffer> processedKeys;
+        private final CountDownLatch processed;
+
+        private KeyCollectingJob(Set<StaticBuffer> processedKeys, CountDownLatch processed) {
+            this.processedKeys = processedKeys;
+            this.processed = processed;
+        }
+
+        @Override
+        public void process(StaticBuffer key, Map<SliceQuery, EntryList> entries, ScanMetrics metrics) {
+            processedKeys.add(key);
+            processed.countDown();
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        }
+
+        @Override
+        public List<SliceQuery> getQueries() {
+            return ImmutableList.of(new SliceQuery(BufferUtil.zeroBuffer(1), BufferUtil.oneBuffer(128)));
+        }
+
+        @Override
+        public KeyCollectingJob clone() {
+            return new KeyCollectingJob(processedKeys, processed);
+        }
+    }
+
+    /**
+     * Only commits the keys of a work block at its end, like the index jobs commit their transactions
+     */
+    private static class BlockCommittingJob implements ScanJob {
+
+        private final Set<StaticBuffer> committedKeys;
+        private final AtomicBoolean crashed;
+        private final CountDownLatch processed;
+        private final List<StaticBuffer> blockKeys = new ArrayList<>();
+
+        private BlockCommittingJob(Set<StaticBuffer> committedKeys, AtomicBoolean crashed, CountDownLatch processed) {
+            this.committedKeys = committedKeys;
+            this.crashed = crashed;
+            this.processed = processed;
+        }
+
+        @Override
+        public void process(StaticBuffer key, Map<SliceQuery, EntryList> entries, ScanMetrics metrics) {
+            blockKeys.add(key);
+            processed.countDown();
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        }
+
+        @Override
+        public void workerIterationEnd(ScanMetrics metrics) {
+            final List<StaticBuffer> block = new ArrayList<>(blockKeys);
+            blockKeys.clear();
+            if (block.isEmpty()) return;
+            if (crashed.get()) throw new IllegalStateException("Could not commit work block");
+            committedKeys.addAll(block);
+        }
+
+        @Override
+        public List<SliceQuery> getQueries() {
+            return ImmutableList.of(new SliceQuery(BufferUtil.zeroBuffer(1), BufferUtil.oneBuffer(128)));
+        }
+
+        @Override
+        public BlockCommittingJob clone() {
+            return new BlockCommittingJob(committedKeys, crashed, processed);
+        }
+    }
+
+    private ScanMetrics runKeyRangeJob(StandardScanner scanner, ScanJob job, int numRanges) throws BackendException, ExecutionException, InterruptedException {
+        StandardScanner.Builder jobBuilder = scanner.build();
+        jobBuilder.setStoreName(store.getName());
+        jobBuilder.setNumProcessingThreads(2);
+        jobBuilder.setNumKeyRanges(numRanges);
+        jobBuilder.setTimestampProvider(times);
+        jobBuilder.setJob(job);
+        return jobBuilder.execute().get();
+    }
+
     private ScanMetrics runSimpleJob(StandardScanner scanner, ScanJob job, Configuration jobConf) throws BackendException, ExecutionException, InterruptedException {
         StandardScanner.Builder jobBuilder = scanner.build();
         jobBuilder.setStoreName(store.getName());
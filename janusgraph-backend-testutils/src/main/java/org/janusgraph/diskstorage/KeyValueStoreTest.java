@@ -15,6 +15,7 @@
 package org.janusgraph.diskstorage;
 
 
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -38,6 +39,7 @@ import org.janusgraph.diskstorage.keycolumnvalue.StoreTransaction;
 import org.janusgraph.diskstorage.util.RecordIterator;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 public abstract class KeyValueStoreTest extends AbstractKCVSTest implements JanusGraphBaseStoreFeaturesTest {
 
@@ -281,5 +283,60 @@ public abstract class KeyValueStoreTest extends AbstractKCVSTest implements Janu
 
     }
 
+    @Test
+    public void mutateManyTest() throws BackendException {
+        String[] values = generateValues();
+        //Add the keys in descending order with an outdated value for every tenth key which is overwritten later on
+        final List<KeyValueEntry> additions = Lists.newArrayList();
+        for (int i = numKeys - 1; i >= 0; i--) {
+            if (i % 10 == 0) additions.add(new KeyValueEntry(KeyValueStoreUtil.getBuffer(i), KeyValueStoreUtil.getBuffer("outdated")));
+        }
+        for (int i = numKeys - 1; i >= 0; i--) {
+            additions.add(new KeyValueEntry(KeyValueStoreUtil.getBuffer(i), KeyValueStoreUtil.getBuffer(values[i])));
+        }
+        final Map<String, KVMutation> mutations = new HashMap<>();
+        mutations.put(store.getName(), new KVMutation(additions, Lists.newArrayList()));
+        manager.mutateMany(mutations, tx);
+        clopen();
+        checkValues(values);
+        checkSlice(values, new HashSet<>(), 0, numKeys, -1);
+
+        final Set<Integer> removed = new HashSet<>();
+        final List<StaticBuffer> deletions = Lists.newArrayList();
+        for (int i = 3; i < numKeys; i += 7) {
+            removed.add(i);
+            deletions.add(KeyValueStoreUtil.getBuffer(i));
+        }
+        mutations.put(store.getName(), new KVMutation(Lists.newArrayList(), deletions));
+        manager.mutateMany(mutations, tx);
+        clopen();
+        checkValues(values, removed);
+    }
+
+    @Test
+    public void multiSliceTest() throws BackendException {
+        assumeTrue(manager.getFeatures().hasMultiQuery());
+        String[] values = generateValues();
+        loadValues(values);
+        deleteValues(0, 10);
+        clopen();
+        //Unordered, overlapping, adjacent, nested, empty and limited queries as well as queries past the last key
+        final int[][] ranges = {{500, 600, -1}, {5, 25, -1}, {20, 40, 5}, {25, 30, -1}, {550, 560, -1}, {10, 11, -1},
+                {40, 45, -1}, {45, 50, 2}, {100, 100, -1}, {50, 20, -1}, {1990, 2500, -1}, {3000, 3100, -1}, {5, 25, 3}};
+        final List<KVQuery> queries = Lists.newArrayList();
+        for (int[] range : ranges) {
+            final StaticBuffer start = KeyValueStoreUtil.getBuffer(range[0]), end = KeyValueStoreUtil.getBuffer(range[1]);
+            queries.add(range[2] > 0 ? new KVQuery(start, end, range[2]) : new KVQuery(start, end));
+        }
+        final Map<KVQuery, RecordIterator<KeyValueEntry>> results = store.getSlices(queries, tx);
+        assertEquals(queries.size(), results.size());
+        for (int i = 0; i < ranges.length; i++) {
+            final StaticBuffer start = KeyValueStoreUtil.getBuffer(ranges[i][0]), end = KeyValueStoreUtil.getBuffer(ranges[i][1]);
+            final EntryList expected = ranges[i][2] > 0 ? KVUtil.getSlice(store, start, end, ranges[i][2], tx)
+                    : KVUtil.getSlice(store, start, end, tx);
+            assertEquals(expected, KVUtil.convert(results.get(queries.get(i))));
+        }
+    }
+
 
 }
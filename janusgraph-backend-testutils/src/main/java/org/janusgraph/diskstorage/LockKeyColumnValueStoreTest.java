@@ -123,6 +123,7 @@ public abstract class LockKeyColumnValueStoreTest extends AbstractKCVSTest {
             sc.set(GraphDatabaseConfiguration.UNIQUE_INSTANCE_ID,"inst"+i);
             sc.set(GraphDatabaseConfiguration.LOCK_RETRY,10);
             sc.set(GraphDatabaseConfiguration.LOCK_EXPIRE, Duration.ofMillis(EXPIRE_MS));
+            configureLocking(sc);
 
             manager[i] = openStorageManager(i, sc);
             StoreFeatures storeFeatures = manager[i].getFeatures();
@@ -143,6 +144,12 @@ public abstract class LockKeyColumnValueStoreTest extends AbstractKCVSTest {
         }
     }
 
+    /**
+     * Allows subclasses to adjust the locking configuration of every opened store manager.
+     */
+    protected void configureLocking(ModifiableConfiguration config) {
+    }
+
     public StoreTransaction newTransaction(KeyColumnValueStoreManager manager) throws BackendException {
         StoreTransaction transaction = manager.beginTransaction(getTxConfig());
         if (!manager.getFeatures().hasLocking() && manager.getFeatures().isKeyConsistent()) {
@@ -269,6 +276,24 @@ public abstract class LockKeyColumnValueStoreTest extends AbstractKCVSTest {
         tx[0][0] = null;
     }
 
+    @Test
+    public void singleTransactionWithManyLocks() throws BackendException {
+        final int numLocks = 20;
+        for (int i = 0; i < numLocks; i++) {
+            store[0].acquireLock(k, KeyValueStoreUtil.getBuffer("col" + i), null, tx[0][0]);
+        }
+        for (int i = 0; i < numLocks; i++) {
+            final StaticBuffer col = KeyValueStoreUtil.getBuffer("col" + i);
+            store[0].mutate(k, Collections.singletonList(StaticArrayEntry.of(col, v1)), NO_DELETIONS, tx[0][0]);
+        }
+        tx[0][0].commit();
+
+        tx[0][0] = newTransaction(manager[0]);
+        for (int i = 0; i < numLocks; i++) {
+            assertEquals(v1, KCVSUtil.get(store[0], k, KeyValueStoreUtil.getBuffer("col" + i), tx[0][0]));
+        }
+    }
+
     @Test
     public void twoLocalTransactionsWithIndependentLocks() throws BackendException {
         tryWrites(store[0], manager[0], tx[0][0], store[0], tx[0][1]);
@@ -393,6 +393,44 @@ public abstract class JanusGraphOperationCountingTest extends JanusGraphBaseTest
         verifyStoreMetrics(METRICS_STOREMANAGER_NAME, ImmutableMap.of(M_MUTATE, 1L));
     }
 
+    @Test
+    public void testIndexPropertyPrefetching() {
+        checkIndexPropertyPrefetching(0);
+    }
+
+    @Test
+    public void testIndexPropertyPrefetchingInChunks() {
+        checkIndexPropertyPrefetching(10);
+    }
+
+    public void checkIndexPropertyPrefetching(int prefetchSize) {
+        makeVertexIndexedKey("group", String.class);
+        makeKey("name", String.class);
+        finishSchema();
+
+        clopen(option(INDEX_PROPERTY_PREFETCH_SIZE), prefetchSize);
+        metricsPrefix = "checkIndexPropertyPrefetching"+prefetchSize;
+
+        final int numV = 25;
+        JanusGraphTransaction tx = graph.buildTransaction().groupName(metricsPrefix).start();
+        for (int i = 0; i < numV; i++) {
+            tx.addVertex("group", "g1", "name", "v" + i);
+        }
+        tx.commit();
+        verifyStoreMetrics(EDGESTORE_NAME);
+
+        tx = graph.buildTransaction().groupName(metricsPrefix).start();
+        final List<Map<Object, Object>> values = tx.traversal().V().has("group", "g1").valueMap("name").toList();
+        assertEquals(numV, values.size());
+        values.forEach(v -> assertEquals(1, ((List) v.get("name")).size()));
+        tx.commit();
+        //One batched call per chunk of vertices instead of one call per vertex. Stores without multi-query support
+        //answer a batch with one call per vertex, but the properties must not be read again for valueMap()
+        final long expectedCalls = prefetchSize > 0 && features.hasMultiQuery() ? (numV + prefetchSize - 1) / prefetchSize : numV;
+        verifyStoreMetrics(EDGESTORE_NAME, ImmutableMap.of(M_GET_SLICE, expectedCalls));
+        verifyStoreMetrics(INDEXSTORE_NAME, ImmutableMap.of(M_GET_SLICE, 1L));
+    }
+
     private String metricsPrefix;
 
     public void verifyStoreMetrics(String storeName) {
@@ -143,6 +143,7 @@ import org.janusgraph.diskstorage.log.kcvs.KCVSLog;
 import org.janusgraph.diskstorage.util.time.TimestampProvider;
 import org.janusgraph.example.GraphOfTheGodsFactory;
 import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
+import org.janusgraph.graphdb.query.index.CostBasedIndexSelectionStrategy;
 import org.janusgraph.graphdb.database.EdgeSerializer;
 import org.janusgraph.graphdb.database.StandardJanusGraph;
 import org.janusgraph.graphdb.database.log.LogTxMeta;
@@ -157,6 +158,7 @@ import org.janusgraph.graphdb.internal.OrderList;
 import org.janusgraph.graphdb.internal.RelationCategory;
 import org.janusgraph.graphdb.log.StandardTransactionLogProcessor;
 import org.janusgraph.graphdb.olap.job.IndexRemoveJob;
+import org.janusgraph.graphdb.olap.job.IndexStatisticsJob;
 import org.janusgraph.graphdb.olap.job.IndexRepairJob;
 import org.janusgraph.graphdb.query.graph.GraphCentricQueryBuilder;
 import org.janusgraph.graphdb.query.profile.QueryProfiler;
@@ -1341,6 +1343,77 @@ public abstract class JanusGraphTest extends JanusGraphBaseTest {
         assertNotEquals(0, graphMetrics.get().getCustom(IndexRemoveJob.DELETED_RECORDS_COUNT));
     }
 
+    @Test
+    public void testCostBasedIndexSelection() throws InterruptedException, ExecutionException {
+        clopen(option(INDEX_SELECT_STRATEGY), CostBasedIndexSelectionStrategy.NAME);
+        final PropertyKey status = makeKey("status", String.class);
+        final PropertyKey group = makeKey("group", String.class);
+        mgmt.buildIndex("byStatus", Vertex.class).addKey(status).buildCompositeIndex();
+        mgmt.buildIndex("byGroup", Vertex.class).addKey(group).buildCompositeIndex();
+        finishSchema();
+
+        // Almost all vertices share the same status while the groups are evenly distributed
+        final int numV = 200, numGroups = 4;
+        for (int i = 0; i < numV; i++) {
+            tx.addVertex("status", i == 0 ? "rare" : "common", "group", "g" + (i % numGroups));
+        }
+        newTx();
+
+        // Without statistics both indexes are intersected
+        assertEquals(2, getBackendQueryCount(graph.traversal().V().has("status", "rare").has("group", "g0")));
+
+        for (String indexName : new String[]{"byStatus", "byGroup"}) {
+            final ScanMetrics metrics = mgmt.updateIndex(mgmt.getGraphIndex(indexName), SchemaAction.UPDATE_STATISTICS).get();
+            assertEquals(numV, metrics.getCustom(IndexStatisticsJob.ENTRIES_COUNT));
+        }
+        finishSchema();
+        assertEquals(2, Iterables.size(graph.getBackend().getGlobalSystemConfig().getKeys(
+            CostBasedIndexSelectionStrategy.INDEX_STATISTICS_NS.toStringWithoutRoot())));
+
+        // The rare status is selective enough to filter its only vertex in memory
+        assertEquals(1, getBackendQueryCount(graph.traversal().V().has("status", "rare").has("group", "g0")));
+        assertEquals(1, graph.traversal().V().has("status", "rare").has("group", "g0").count().next().longValue());
+        // The group is more selective than the common status, but not by enough to skip the status index
+        assertEquals(2, getBackendQueryCount(graph.traversal().V().has("status", "common").has("group", "g1")));
+        assertEquals(numV / numGroups, graph.traversal().V().has("status", "common").has("group", "g1").count().next().longValue());
+    }
+
+    @Test
+    public void testIndexPropertyPrefetching() {
+        clopen(option(INDEX_PROPERTY_PREFETCH_SIZE), 7);
+        final PropertyKey group = makeKey("group", String.class);
+        makeKey("name", String.class);
+        mgmt.buildIndex("byGroup", Vertex.class).addKey(group).buildCompositeIndex();
+        finishSchema();
+
+        final int numV = 30;
+        for (int i = 0; i < numV; i++) {
+            tx.addVertex("group", "g" + (i % 2), "name", "v" + i);
+        }
+        newTx();
+
+        Traversal<?, ?> t = tx.traversal().V().has("group", "g0").values("name").profile("~metrics");
+        final Set<Object> names = new HashSet<>();
+        t.forEachRemaining(names::add);
+        assertEquals(numV / 2, names.size());
+        assertTrue(queryProfilerAnnotationIsPresent(t, QueryProfiler.MULTIPREFETCH_ANNOTATION));
+
+        t = tx.traversal().V().has("group", "g1").valueMap("name").profile("~metrics");
+        assertEquals(numV / 2, Iterators.size(t));
+        assertTrue(queryProfilerAnnotationIsPresent(t, QueryProfiler.MULTIPREFETCH_ANNOTATION));
+
+        // Properties are not pre-fetched if the next step does not read them
+        t = tx.traversal().V().has("group", "g1").out().profile("~metrics");
+        assertEquals(0, Iterators.size(t));
+        assertFalse(queryProfilerAnnotationIsPresent(t, QueryProfiler.MULTIPREFETCH_ANNOTATION));
+    }
+
+    private static long getBackendQueryCount(Traversal<?, ?> traversal) {
+        final TraversalMetrics profile = traversal.asAdmin().profile().next();
+        return profile.getMetrics().stream().findFirst().get().getNested().stream()
+            .filter(m -> m.getName().equals("backend-query")).count();
+    }
+
     @Test
     public void testVertexCentricEdgeIndexOnSimpleMultiplicityShouldWork() {
         clopen(option(LOG_SEND_DELAY, MANAGEMENT_LOG), Duration.ofMillis(0),
@@ -1716,6 +1789,45 @@ public abstract class JanusGraphTest extends JanusGraphBaseTest {
 
     }
 
+    @Tag(TestCategory.BRITTLE_TESTS)
+    @Test
+    public void testCacheInvalidationWithMultipleInstances() throws InterruptedException {
+        clopen(option(DB_CACHE), true,
+                option(DB_CACHE_TIME), 0L,
+                option(DB_CACHE_INVALIDATION_LOG), true,
+                option(LOG_SEND_DELAY, CACHE_INVALIDATION_LOG), Duration.ofMillis(0),
+                option(KCVSLog.LOG_READ_LAG_TIME, CACHE_INVALIDATION_LOG), Duration.ofMillis(50),
+                option(LOG_READ_INTERVAL, CACHE_INVALIDATION_LOG), Duration.ofMillis(250)
+        );
+        StandardJanusGraph graph2 = (StandardJanusGraph) JanusGraphFactory.open(config);
+
+        mgmt.makePropertyKey("name").dataType(String.class).cardinality(Cardinality.SINGLE).make();
+        finishSchema();
+        final long vid = getId(tx.addVertex("name", "v1"));
+        newTx();
+
+        //Cache the vertex in the second instance
+        JanusGraphTransaction tx2 = graph2.newTransaction();
+        assertEquals("v1", getV(tx2, vid).value("name"));
+        tx2.commit();
+
+        getV(tx, vid).property("name", "v2");
+        newTx();
+
+        //The cache entries never expire, hence the second instance only sees the update once it has been invalidated
+        final long deadline = System.currentTimeMillis() + TestGraphConfigs.getSchemaConvergenceTime(ChronoUnit.MILLIS);
+        String name;
+        do {
+            Thread.sleep(50);
+            tx2 = graph2.newTransaction();
+            name = getV(tx2, vid).value("name");
+            tx2.commit();
+        } while (!"v2".equals(name) && System.currentTimeMillis() < deadline);
+        assertEquals("v2", name);
+
+        graph2.close();
+    }
+
     @Tag(TestCategory.BRITTLE_TESTS)
     @Test
     public void testIndexShouldRegisterWhenWeRemoveAnInstance() throws InterruptedException {
@@ -4029,6 +4141,31 @@ public abstract class JanusGraphTest extends JanusGraphBaseTest {
         assertFalse(graph.traversal().V(vertexIdToBeDeleted).hasNext());
     }
 
+    @Test
+    public void testPrimitiveVertexCache() {
+        clopen(option(TX_CACHE_PRIMITIVE), true, option(TX_CACHE_SIZE), 100);
+        assertTrue(graph.getConfiguration().isTxVertexCachePrimitive());
+        int numVertices = 500;
+        List<Long> vertexIds = new ArrayList<>();
+        for (int i = 0; i < numVertices; i++) {
+            vertexIds.add(graph.addVertex("uid", i).longId());
+        }
+        graph.tx().commit();
+
+        // modify vertices, then evict them from the tx cache by reading all other vertices
+        graph.traversal().V(vertexIds.get(0)).next().property("uid", -1);
+        graph.traversal().V(vertexIds.get(1)).next().remove();
+        assertEquals(numVertices - 1, graph.traversal().V(vertexIds).toList().size());
+
+        // the modifications must still be visible
+        assertEquals(-1, (int) graph.traversal().V(vertexIds.get(0)).values("uid").next());
+        assertFalse(graph.traversal().V(vertexIds.get(1)).hasNext());
+        graph.tx().commit();
+
+        assertEquals(numVertices - 1, (long) graph.traversal().V().count().next());
+        assertEquals(-1, (int) graph.traversal().V(vertexIds.get(0)).values("uid").next());
+    }
+
     @Test
     public void testNestedContainPredicates() {
         int graphSize = 10;
@@ -5490,6 +5627,42 @@ public abstract class JanusGraphTest extends JanusGraphBaseTest {
         assertCount(multiplier, graph.query().has("sid", 11).has("color", colors[3]).vertices());
     }
 
+    @Test
+    public void testParallelPrepareCommit() {
+        clopen(option(PARALLEL_PREPARE_COMMIT), true);
+        makeVertexIndexedKey("sid", Integer.class);
+        makeLabel("knows");
+        finishSchema();
+
+        //Large enough to be prepared in parallel
+        int numV = 2000, sids = 4;
+        JanusGraphTransaction bulkTx = graph.newTransaction();
+        JanusGraphVertex previous = null;
+        for (int i = 0; i < numV; i++) {
+            JanusGraphVertex v = bulkTx.addVertex("sid", i % sids);
+            if (previous != null) previous.addEdge("knows", v);
+            previous = v;
+        }
+        bulkTx.commit();
+        assertCount(numV / sids, graph.query().has("sid", 0).vertices());
+        assertCount(numV - 1, graph.query().edges());
+
+        graph.tx().rollback();
+        bulkTx = graph.newTransaction();
+        Lists.newArrayList(bulkTx.query().has("sid", 0).vertices()).forEach(JanusGraphVertex::remove);
+        bulkTx.commit();
+
+        assertCount(0, graph.query().has("sid", 0).vertices());
+        assertCount(numV / sids, graph.query().has("sid", 1).vertices());
+        //The first vertex has a single edge, all other removed vertices have two
+        assertCount(numV - 1 - (2 * (numV / sids) - 1), graph.query().edges());
+
+        //Thread-bound transactions are single-threaded and thus always prepared on the committing thread
+        for (int i = 0; i < numV; i++) graph.addVertex("sid", sids);
+        graph.tx().commit();
+        assertCount(numV, graph.query().has("sid", sids).vertices());
+    }
+
 
     @Test
     public void testIndexQueryWithLabelsAndContainsIN() {
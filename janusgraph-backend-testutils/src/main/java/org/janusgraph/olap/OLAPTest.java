@@ -21,9 +21,12 @@ import org.janusgraph.core.JanusGraphVertex;
 import org.janusgraph.core.Multiplicity;
 import org.janusgraph.core.PropertyKey;
 import org.janusgraph.core.Transaction;
+import org.janusgraph.diskstorage.configuration.ModifiableConfiguration;
 import org.janusgraph.diskstorage.keycolumnvalue.scan.ScanJob;
 import org.janusgraph.diskstorage.keycolumnvalue.scan.ScanMetrics;
 import org.janusgraph.graphdb.JanusGraphBaseTest;
+import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
+import org.janusgraph.graphdb.database.StandardJanusGraph;
 import org.janusgraph.graphdb.olap.QueryContainer;
 import org.janusgraph.graphdb.olap.VertexJobConverter;
 import org.janusgraph.graphdb.olap.VertexScanJob;
@@ -59,19 +62,26 @@ import com.google.common.collect.Iterables;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInfo;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -280,8 +290,9 @@ public abstract class OLAPTest extends JanusGraphBaseTest {
         System.out.println(g.V().count().next());
     }
 
-    @Test
-    public void degreeCounting() throws Exception {
+    @ParameterizedTest
+    @EnumSource(JanusGraphComputer.VertexMemoryType.class)
+    public void degreeCounting(JanusGraphComputer.VertexMemoryType vertexMemoryType) throws Exception {
         int numV = 200;
         int numE = generateRandomGraph(numV);
         clopen();
@@ -289,6 +300,7 @@ public abstract class OLAPTest extends JanusGraphBaseTest {
         final JanusGraphComputer computer = graph.compute();
         computer.resultMode(JanusGraphComputer.ResultMode.NONE);
         computer.workers(4);
+        computer.vertexMemory(vertexMemoryType);
         computer.program(new DegreeCounter());
         computer.mapReduce(new DegreeMapper());
         ComputerResult result = computer.submit().get();
@@ -309,6 +321,44 @@ public abstract class OLAPTest extends JanusGraphBaseTest {
         assertEquals(1,result.memory().getIteration());
     }
 
+    @ParameterizedTest
+    @EnumSource(JanusGraphComputer.VertexMemoryType.class)
+    public void testSpilling(JanusGraphComputer.VertexMemoryType vertexMemoryType) throws Exception {
+        int numV = 200;
+        generateRandomGraph(numV);
+        clopen();
+
+        final File spillDirectory = Files.createTempDirectory("fulgora").toFile();
+        final ModifiableConfiguration config = GraphDatabaseConfiguration.buildGraphConfiguration();
+        //Smaller than a single chunk of the primitive vertex memory
+        config.set(GraphDatabaseConfiguration.COMPUTER_SPILL_HEAP_BUDGET, 1024L);
+        config.set(GraphDatabaseConfiguration.COMPUTER_SPILL_DIRECTORY, spillDirectory.getAbsolutePath());
+        final JanusGraphComputer computer = new FulgoraGraphComputer((StandardJanusGraph) graph, config);
+        computer.resultMode(JanusGraphComputer.ResultMode.NONE);
+        computer.workers(4);
+        computer.vertexMemory(vertexMemoryType);
+        computer.program(new DegreeCounter());
+        computer.mapReduce(new DegreeMapper());
+        computer.mapReduce(new DegreeSumMapper());
+        ComputerResult result = computer.submit().get();
+
+        Map<Long,Integer> degrees = result.memory().get(DegreeMapper.DEGREE_RESULT);
+        assertEquals(numV,degrees.size());
+        final Map<Integer,Integer> expectedSums = new HashMap<>();
+        for (Map.Entry<Long,Integer> entry : degrees.entrySet()) {
+            final int uid = getV(tx, entry.getKey()).value("uid");
+            assertEquals(uid,entry.getValue().intValue());
+            expectedSums.merge(uid % DegreeSumMapper.NUM_GROUPS, uid, Integer::sum);
+        }
+        Map<Integer,Integer> sums = result.memory().get(DegreeSumMapper.DEGREE_SUM_RESULT);
+        assertEquals(expectedSums,sums);
+        //Reduce output is sorted by key
+        assertEquals(new ArrayList<>(new TreeMap<>(expectedSums).keySet()),new ArrayList<>(sums.keySet()));
+        //All spill files have been deleted
+        assertEquals(0,spillDirectory.listFiles().length);
+        spillDirectory.delete();
+    }
+
     @Test
     public void vertexProgramExceptionPropagatesToCaller() throws InterruptedException
     {
@@ -540,6 +590,47 @@ public abstract class OLAPTest extends JanusGraphBaseTest {
 
     }
 
+    public static class DegreeSumMapper extends StaticMapReduce<Integer,Integer,Integer,Integer,Map<Integer,Integer>> {
+
+        public static final String DEGREE_SUM_RESULT = "degreesums";
+        public static final int NUM_GROUPS = 7;
+
+        @Override
+        public boolean doStage(Stage stage) {
+            return stage==Stage.MAP || stage==Stage.REDUCE;
+        }
+
+        @Override
+        public void map(Vertex vertex, MapEmitter<Integer, Integer> emitter) {
+            emitter.emit(vertex.<Integer>value("uid") % NUM_GROUPS,vertex.value(DegreeCounter.DEGREE));
+        }
+
+        @Override
+        public void reduce(Integer key, Iterator<Integer> values, ReduceEmitter<Integer, Integer> emitter) {
+            int sum = 0;
+            while (values.hasNext()) sum += values.next();
+            emitter.emit(key,sum);
+        }
+
+        @Override
+        public Optional<Comparator<Integer>> getReduceKeySort() {
+            return Optional.of(Comparator.naturalOrder());
+        }
+
+        @Override
+        public Map<Integer, Integer> generateFinalResult(Iterator<KeyValue<Integer, Integer>> keyValues) {
+            Map<Integer,Integer> result = new LinkedHashMap<>();
+            keyValues.forEachRemaining(kv -> result.put(kv.getKey(),kv.getValue()));
+            return result;
+        }
+
+        @Override
+        public String getMemoryKey() {
+            return DEGREE_SUM_RESULT;
+        }
+
+    }
+
     public static class Degree {
         public int in;
         public int out;
@@ -586,8 +677,9 @@ public abstract class OLAPTest extends JanusGraphBaseTest {
         }
     }
 
-    @Test
-    public void testPageRank() throws ExecutionException, InterruptedException {
+    @ParameterizedTest
+    @EnumSource(JanusGraphComputer.VertexMemoryType.class)
+    public void testPageRank(JanusGraphComputer.VertexMemoryType vertexMemoryType) throws ExecutionException, InterruptedException {
         mgmt.makePropertyKey("distance").dataType(Integer.class).cardinality(Cardinality.SINGLE).make();
         mgmt.makeEdgeLabel("knows").multiplicity(Multiplicity.MULTI).make();
         mgmt.makeEdgeLabel("likes").multiplicity(Multiplicity.MULTI).make();
@@ -620,6 +712,7 @@ public abstract class OLAPTest extends JanusGraphBaseTest {
         final JanusGraphComputer computer = graph.compute();
         computer.resultMode(JanusGraphComputer.ResultMode.NONE);
         computer.workers(4);
+        computer.vertexMemory(vertexMemoryType);
         computer.program(PageRankVertexProgram.build().iterations(10).vertexCount(numV).dampingFactor(alpha).create(graph));
         computer.mapReduce(PageRankMapReduce.build().create());
         ComputerResult result = computer.submit().get();
@@ -654,8 +747,9 @@ public abstract class OLAPTest extends JanusGraphBaseTest {
         assertEquals(correctPRSum, computedPRSum, 0.001);
     }
 
-    @Test
-    public void testShortestDistance() throws Exception {
+    @ParameterizedTest
+    @EnumSource(JanusGraphComputer.VertexMemoryType.class)
+    public void testShortestDistance(JanusGraphComputer.VertexMemoryType vertexMemoryType) throws Exception {
         PropertyKey distance = mgmt.makePropertyKey("distance").dataType(Integer.class).cardinality(Cardinality.SINGLE).make();
         mgmt.makeEdgeLabel("connect").signature(distance).multiplicity(Multiplicity.MULTI).make();
         finishSchema();
@@ -677,6 +771,7 @@ public abstract class OLAPTest extends JanusGraphBaseTest {
         final JanusGraphComputer computer = graph.compute();
         computer.resultMode(JanusGraphComputer.ResultMode.NONE);
         computer.workers(4);
+        computer.vertexMemory(vertexMemoryType);
         computer.program(ShortestDistanceVertexProgram.build().seed((long)vertex.id()).maxDepth(maxDepth + 4).create(graph));
         computer.mapReduce(ShortestDistanceMapReduce.build().create());
         ComputerResult result = computer.submit().get();
@@ -0,0 +1,30 @@
+// Copyright 2020 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph;
+
+import org.openjdk.jmh.Main;
+
+/**
+ * Runs the JMH benchmarks of this module. All arguments are passed to the JMH command line, e.g. a regular expression
+ * selecting the benchmarks to run followed by options such as {@code -f 1 -wi 3}. Arguments given as a single
+ * whitespace separated string (as passed by {@code mvn exec:exec -Dbenchmark.args=...}) are split up.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        final String arguments = String.join(" ", args).trim();
+        Main.main(arguments.isEmpty() ? new String[0] : arguments.split("\\s+"));
+    }
+}
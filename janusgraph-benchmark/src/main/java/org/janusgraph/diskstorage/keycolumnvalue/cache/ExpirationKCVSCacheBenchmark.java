@@ -0,0 +1,125 @@
+// Copyright 2020 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.keycolumnvalue.cache;
+
+import org.janusgraph.diskstorage.BackendException;
+import org.janusgraph.diskstorage.Entry;
+import org.janusgraph.diskstorage.EntryList;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.inmemory.InMemoryStoreManager;
+import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStore;
+import org.janusgraph.diskstorage.keycolumnvalue.KeySliceQuery;
+import org.janusgraph.diskstorage.keycolumnvalue.StoreTransaction;
+import org.janusgraph.diskstorage.util.BufferUtil;
+import org.janusgraph.diskstorage.util.StandardBaseTransactionConfig;
+import org.janusgraph.diskstorage.util.StaticArrayEntry;
+import org.janusgraph.diskstorage.util.time.TimestampProviders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the hit and miss paths of {@link ExpirationKCVSCache} in front of an inmemory store. Misses are produced
+ * by a cache whose size bound is too small to retain any slice.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class ExpirationKCVSCacheBenchmark {
+
+    private static final String STORE_NAME = "store";
+    private static final int NUM_KEYS = 1000;
+    private static final long CACHE_TIME_MS = Duration.ofDays(1).toMillis();
+
+    @Param({"10", "100"})
+    public int numColumns;
+
+    private InMemoryStoreManager storeManager;
+    private KeyColumnValueStore store;
+    private ExpirationKCVSCache hitCache;
+    private ExpirationKCVSCache missCache;
+    private CacheTransaction tx;
+    private KeySliceQuery[] queries;
+    private int next;
+
+    @Setup
+    public void setup() throws BackendException {
+        storeManager = new InMemoryStoreManager();
+        store = storeManager.openDatabase(STORE_NAME);
+        final StoreTransaction storeTx = storeManager.beginTransaction(StandardBaseTransactionConfig.of(TimestampProviders.MICRO));
+        queries = new KeySliceQuery[NUM_KEYS];
+        for (int i = 0; i < NUM_KEYS; i++) {
+            final StaticBuffer key = BufferUtil.getIntBuffer(i);
+            final List<Entry> additions = new ArrayList<>(numColumns);
+            for (int j = 0; j < numColumns; j++) {
+                additions.add(StaticArrayEntry.of(BufferUtil.getIntBuffer(j), BufferUtil.getLongBuffer(j)));
+            }
+            store.mutate(key, additions, KeyColumnValueStore.NO_DELETIONS, storeTx);
+            queries[i] = new KeySliceQuery(key, BufferUtil.zeroBuffer(4), BufferUtil.oneBuffer(4));
+        }
+        storeTx.commit();
+
+        hitCache = new ExpirationKCVSCache(store, "benchmark-hit", CACHE_TIME_MS, 0, Long.MAX_VALUE);
+        missCache = new ExpirationKCVSCache(store, "benchmark-miss", CACHE_TIME_MS, 0, 1);
+        tx = new CacheTransaction(storeManager.beginTransaction(StandardBaseTransactionConfig.of(TimestampProviders.MICRO)),
+            storeManager, 1024, Duration.ofSeconds(10), false);
+        for (KeySliceQuery query : queries) hitCache.getSlice(query, tx);
+    }
+
+    @TearDown
+    public void tearDown() throws BackendException {
+        tx.rollback();
+        hitCache.close();
+        missCache.close();
+        storeManager.close();
+    }
+
+    private KeySliceQuery nextQuery() {
+        next = (next + 1) % NUM_KEYS;
+        return queries[next];
+    }
+
+    @Benchmark
+    public EntryList hit() throws BackendException {
+        return hitCache.getSlice(nextQuery(), tx);
+    }
+
+    @Benchmark
+    public EntryList miss() throws BackendException {
+        return missCache.getSlice(nextQuery(), tx);
+    }
+
+    @Benchmark
+    public EntryList uncached() throws BackendException {
+        return store.getSlice(nextQuery(), tx.getWrappedTransaction());
+    }
+}
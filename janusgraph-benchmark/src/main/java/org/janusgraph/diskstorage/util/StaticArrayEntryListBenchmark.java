@@ -0,0 +1,124 @@
+// Copyright 2020 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.util;
+
+import org.janusgraph.diskstorage.Entry;
+import org.janusgraph.diskstorage.EntryList;
+import org.janusgraph.diskstorage.EntryMetaData;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the construction of {@link StaticArrayEntryList}s, which happens for every slice returned by a storage
+ * backend, and the iteration over their entries.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class StaticArrayEntryListBenchmark {
+
+    @Param({"10", "1000"})
+    public int size;
+
+    @Param({"8", "64"})
+    public int valueLength;
+
+    private List<Entry> entries;
+    private List<StaticBuffer[]> columnValues;
+    private EntryList entryList;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+        entries = new ArrayList<>(size);
+        columnValues = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            final byte[] value = new byte[valueLength];
+            random.nextBytes(value);
+            final StaticBuffer column = BufferUtil.getLongBuffer(i);
+            final StaticBuffer valueBuffer = StaticArrayBuffer.of(value);
+            entries.add(StaticArrayEntry.of(column, valueBuffer));
+            columnValues.add(new StaticBuffer[]{column, valueBuffer});
+        }
+        entryList = StaticArrayEntryList.of(entries);
+    }
+
+    @Benchmark
+    public EntryList ofEntries() {
+        return StaticArrayEntryList.of(entries);
+    }
+
+    @Benchmark
+    public EntryList ofStaticBuffers() {
+        return StaticArrayEntryList.ofStaticBuffer(columnValues, ColumnValueGetter.INSTANCE);
+    }
+
+    @Benchmark
+    public void iterate(Blackhole blackhole) {
+        for (Entry entry : entryList) {
+            blackhole.consume(entry.getColumn());
+            blackhole.consume(entry.getValue());
+        }
+    }
+
+    @Benchmark
+    public void toAndFromBytes(Blackhole blackhole) {
+        blackhole.consume(StaticArrayEntryList.fromBytes(StaticArrayEntryList.toBytes(entryList)));
+    }
+
+    private enum ColumnValueGetter implements StaticArrayEntry.GetColVal<StaticBuffer[], StaticBuffer> {
+
+        INSTANCE;
+
+        @Override
+        public StaticBuffer getColumn(StaticBuffer[] element) {
+            return element[0];
+        }
+
+        @Override
+        public StaticBuffer getValue(StaticBuffer[] element) {
+            return element[1];
+        }
+
+        @Override
+        public EntryMetaData[] getMetaSchema(StaticBuffer[] element) {
+            return StaticArrayEntry.EMPTY_SCHEMA;
+        }
+
+        @Override
+        public Object getMetaData(StaticBuffer[] element, EntryMetaData meta) {
+            throw new UnsupportedOperationException("Unsupported meta data: " + meta);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+// Copyright 2020 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.database;
+
+import org.janusgraph.core.JanusGraphFactory;
+import org.janusgraph.core.JanusGraphRelation;
+import org.janusgraph.core.JanusGraphTransaction;
+import org.janusgraph.core.JanusGraphVertex;
+import org.janusgraph.core.Multiplicity;
+import org.janusgraph.core.schema.JanusGraphManagement;
+import org.janusgraph.diskstorage.Entry;
+import org.janusgraph.graphdb.internal.InternalRelation;
+import org.janusgraph.graphdb.relations.RelationCache;
+import org.janusgraph.graphdb.transaction.StandardJanusGraphTx;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the serialization of edges and properties into entries by {@link EdgeSerializer#writeRelation} and
+ * their deserialization by {@link EdgeSerializer#parseRelation}, which {@link EdgeSerializer#readRelation} delegates
+ * to for entries that have not been deserialized before. Each invocation processes all {@link #NUM_EDGES} edges and
+ * the properties of a single vertex.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class EdgeSerializerBenchmark {
+
+    private static final int NUM_EDGES = 1000;
+
+    private StandardJanusGraph graph;
+    private StandardJanusGraphTx tx;
+    private EdgeSerializer edgeSerializer;
+    private List<InternalRelation> relations;
+    private List<Entry> entries;
+
+    @Setup
+    public void setup() {
+        graph = (StandardJanusGraph) JanusGraphFactory.build().set("storage.backend", "inmemory").open();
+        final JanusGraphManagement mgmt = graph.openManagement();
+        mgmt.makePropertyKey("name").dataType(String.class).make();
+        mgmt.makePropertyKey("time").dataType(Long.class).make();
+        mgmt.makePropertyKey("weight").dataType(Double.class).make();
+        mgmt.makeEdgeLabel("knows").multiplicity(Multiplicity.MULTI).make();
+        mgmt.commit();
+
+        final JanusGraphTransaction loadTx = graph.newTransaction();
+        final JanusGraphVertex vertex = loadTx.addVertex("name", "v");
+        for (int i = 0; i < NUM_EDGES; i++) {
+            final JanusGraphVertex other = loadTx.addVertex("name", "u" + i);
+            vertex.addEdge("knows", other, "time", (long) i, "weight", i / 10.0);
+        }
+        loadTx.commit();
+
+        edgeSerializer = graph.getEdgeSerializer();
+        tx = (StandardJanusGraphTx) graph.newTransaction();
+        relations = new ArrayList<>();
+        final JanusGraphVertex v = tx.getVertex((long) vertex.id());
+        for (JanusGraphRelation relation : v.query().direction(Direction.OUT).relations()) {
+            relations.add((InternalRelation) relation);
+        }
+        entries = new ArrayList<>(relations.size());
+        for (InternalRelation relation : relations) {
+            entries.add(edgeSerializer.writeRelation(relation, 0, tx));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        tx.rollback();
+        graph.close();
+    }
+
+    @Benchmark
+    public void writeRelation(Blackhole blackhole) {
+        for (InternalRelation relation : relations) {
+            blackhole.consume(edgeSerializer.writeRelation(relation, 0, tx));
+        }
+    }
+
+    @Benchmark
+    public void parseRelation(Blackhole blackhole) {
+        for (Entry entry : entries) {
+            final RelationCache relation = edgeSerializer.parseRelation(entry, false, tx);
+            blackhole.consume(relation);
+        }
+    }
+
+    @Benchmark
+    public void parseRelationHeader(Blackhole blackhole) {
+        for (Entry entry : entries) {
+            blackhole.consume(edgeSerializer.parseRelation(entry, true, tx));
+        }
+    }
+}
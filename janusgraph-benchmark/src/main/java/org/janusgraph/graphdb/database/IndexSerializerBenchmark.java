@@ -0,0 +1,122 @@
+// Copyright 2020 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.database;
+
+import org.janusgraph.core.JanusGraphEdge;
+import org.janusgraph.core.JanusGraphFactory;
+import org.janusgraph.core.JanusGraphVertex;
+import org.janusgraph.core.Multiplicity;
+import org.janusgraph.core.PropertyKey;
+import org.janusgraph.core.schema.JanusGraphManagement;
+import org.janusgraph.graphdb.internal.InternalRelation;
+import org.janusgraph.graphdb.internal.InternalVertex;
+import org.janusgraph.graphdb.transaction.StandardJanusGraphTx;
+import org.apache.tinkerpop.gremlin.structure.Edge;
+import org.apache.tinkerpop.gremlin.structure.Vertex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the computation of composite index updates for new vertices and edges by
+ * {@link IndexSerializer#getIndexUpdates}, which is done for every added or removed property and edge when a
+ * transaction commits. The vertices are indexed by a single key index and a joint index, the edges by a single key
+ * index. Each invocation computes the updates of {@link #NUM_ELEMENTS} vertices or of the edges connecting them
+ * in a chain.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class IndexSerializerBenchmark {
+
+    private static final int NUM_ELEMENTS = 1000;
+
+    private StandardJanusGraph graph;
+    private StandardJanusGraphTx tx;
+    private IndexSerializer indexSerializer;
+    private List<InternalVertex> vertices;
+    private List<List<InternalRelation>> vertexProperties;
+    private List<InternalRelation> edges;
+
+    @Setup
+    public void setup() {
+        graph = (StandardJanusGraph) JanusGraphFactory.build().set("storage.backend", "inmemory").open();
+        final JanusGraphManagement mgmt = graph.openManagement();
+        final PropertyKey name = mgmt.makePropertyKey("name").dataType(String.class).make();
+        final PropertyKey age = mgmt.makePropertyKey("age").dataType(Integer.class).make();
+        final PropertyKey time = mgmt.makePropertyKey("time").dataType(Long.class).make();
+        mgmt.makeEdgeLabel("knows").multiplicity(Multiplicity.MULTI).make();
+        mgmt.buildIndex("byName", Vertex.class).addKey(name).buildCompositeIndex();
+        mgmt.buildIndex("byNameAndAge", Vertex.class).addKey(name).addKey(age).buildCompositeIndex();
+        mgmt.buildIndex("byTime", Edge.class).addKey(time).buildCompositeIndex();
+        mgmt.commit();
+
+        indexSerializer = graph.getIndexSerializer();
+        //The elements are never committed so that their relations remain new
+        tx = (StandardJanusGraphTx) graph.newTransaction();
+        vertices = new ArrayList<>(NUM_ELEMENTS);
+        vertexProperties = new ArrayList<>(NUM_ELEMENTS);
+        edges = new ArrayList<>(NUM_ELEMENTS);
+        JanusGraphVertex previous = null;
+        for (int i = 0; i < NUM_ELEMENTS; i++) {
+            final JanusGraphVertex vertex = tx.addVertex("name", "v" + i, "age", i % 100);
+            final List<InternalRelation> properties = new ArrayList<>();
+            vertex.query().properties().forEach(p -> properties.add((InternalRelation) p));
+            vertices.add((InternalVertex) vertex);
+            vertexProperties.add(properties);
+            if (previous != null) {
+                final JanusGraphEdge edge = previous.addEdge("knows", vertex, "time", (long) i);
+                edges.add((InternalRelation) edge);
+            }
+            previous = vertex;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        tx.rollback();
+        graph.close();
+    }
+
+    @Benchmark
+    public void vertexIndexUpdates(Blackhole blackhole) {
+        for (int i = 0; i < vertices.size(); i++) {
+            blackhole.consume(indexSerializer.getIndexUpdates(vertices.get(i), vertexProperties.get(i)));
+        }
+    }
+
+    @Benchmark
+    public void edgeIndexUpdates(Blackhole blackhole) {
+        for (InternalRelation edge : edges) {
+            blackhole.consume(indexSerializer.getIndexUpdates(edge));
+        }
+    }
+}
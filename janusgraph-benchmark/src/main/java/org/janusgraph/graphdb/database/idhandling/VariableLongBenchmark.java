@@ -0,0 +1,115 @@
+// Copyright 2020 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.database.idhandling;
+
+import org.janusgraph.diskstorage.ReadBuffer;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.WriteBuffer;
+import org.janusgraph.diskstorage.util.WriteByteBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the variable length encoding of longs used for ids and relation columns. Each invocation encodes or
+ * decodes {@link #NUM_VALUES} values whose bit length is bounded by {@link #bits}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class VariableLongBenchmark {
+
+    private static final int NUM_VALUES = 1024;
+
+    @Param({"7", "21", "42", "63"})
+    public int bits;
+
+    private long[] values;
+    private StaticBuffer positiveEncoded;
+    private StaticBuffer signedEncoded;
+    private StaticBuffer backwardEncoded;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+        values = new long[NUM_VALUES];
+        for (int i = 0; i < NUM_VALUES; i++) {
+            values[i] = random.nextLong() >>> (64 - bits);
+        }
+        positiveEncoded = writePositive();
+        signedEncoded = writeSigned();
+        backwardEncoded = writePositiveBackward();
+    }
+
+    @Benchmark
+    public StaticBuffer writePositive() {
+        final WriteBuffer out = new WriteByteBuffer(NUM_VALUES * 10);
+        for (long value : values) VariableLong.writePositive(out, value);
+        return out.getStaticBuffer();
+    }
+
+    @Benchmark
+    public long readPositive() {
+        final ReadBuffer in = positiveEncoded.asReadBuffer();
+        long sum = 0;
+        for (int i = 0; i < NUM_VALUES; i++) sum += VariableLong.readPositive(in);
+        return sum;
+    }
+
+    @Benchmark
+    public StaticBuffer writeSigned() {
+        final WriteBuffer out = new WriteByteBuffer(NUM_VALUES * 10);
+        for (long value : values) VariableLong.write(out, -value);
+        return out.getStaticBuffer();
+    }
+
+    @Benchmark
+    public long readSigned() {
+        final ReadBuffer in = signedEncoded.asReadBuffer();
+        long sum = 0;
+        for (int i = 0; i < NUM_VALUES; i++) sum += VariableLong.read(in);
+        return sum;
+    }
+
+    @Benchmark
+    public StaticBuffer writePositiveBackward() {
+        final WriteBuffer out = new WriteByteBuffer(NUM_VALUES * 10);
+        for (long value : values) VariableLong.writePositiveBackward(out, value);
+        return out.getStaticBuffer();
+    }
+
+    @Benchmark
+    public long readPositiveBackward() {
+        final ReadBuffer in = backwardEncoded.asReadBuffer();
+        in.movePositionTo(backwardEncoded.length());
+        long sum = 0;
+        for (int i = 0; i < NUM_VALUES; i++) sum += VariableLong.readPositiveBackward(in);
+        return sum;
+    }
+}
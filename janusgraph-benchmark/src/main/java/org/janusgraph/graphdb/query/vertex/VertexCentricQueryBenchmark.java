@@ -0,0 +1,142 @@
+// Copyright 2020 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.query.vertex;
+
+import org.janusgraph.core.EdgeLabel;
+import org.janusgraph.core.JanusGraph;
+import org.janusgraph.core.JanusGraphEdge;
+import org.janusgraph.core.JanusGraphFactory;
+import org.janusgraph.core.JanusGraphTransaction;
+import org.janusgraph.core.JanusGraphVertex;
+import org.janusgraph.core.Multiplicity;
+import org.janusgraph.core.PropertyKey;
+import org.janusgraph.core.schema.JanusGraphManagement;
+import org.apache.tinkerpop.gremlin.process.traversal.Order;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.apache.tinkerpop.gremlin.structure.Direction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures vertex-centric queries end-to-end against the inmemory backend, from query construction through the
+ * storage backend to the deserialization of the returned edges. The queried vertex has {@link #numEdges} outgoing
+ * edges which are covered by a vertex-centric index on their "time" property. Every invocation uses a new
+ * transaction so that results are not served from the transaction cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class VertexCentricQueryBenchmark {
+
+    private static final int RANGE_SIZE = 100;
+
+    @Param({"1000", "10000"})
+    public int numEdges;
+
+    private JanusGraph graph;
+    private long vertexId;
+    private JanusGraphTransaction tx;
+    private JanusGraphVertex vertex;
+
+    @Setup
+    public void setup() {
+        graph = JanusGraphFactory.build().set("storage.backend", "inmemory").open();
+        final JanusGraphManagement mgmt = graph.openManagement();
+        final PropertyKey time = mgmt.makePropertyKey("time").dataType(Long.class).make();
+        final EdgeLabel knows = mgmt.makeEdgeLabel("knows").multiplicity(Multiplicity.MULTI).make();
+        mgmt.makeEdgeLabel("likes").multiplicity(Multiplicity.MULTI).make();
+        mgmt.buildEdgeIndex(knows, "knowsByTime", Direction.OUT, Order.desc, time);
+        mgmt.commit();
+
+        final JanusGraphTransaction loadTx = graph.newTransaction();
+        final JanusGraphVertex v = loadTx.addVertex();
+        for (int i = 0; i < numEdges; i++) {
+            final JanusGraphVertex other = loadTx.addVertex();
+            v.addEdge("knows", other, "time", (long) i);
+            if (i % 10 == 0) v.addEdge("likes", other);
+        }
+        loadTx.commit();
+        vertexId = (long) v.id();
+    }
+
+    @TearDown
+    public void tearDown() {
+        graph.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void openTransaction() {
+        tx = graph.newTransaction();
+        vertex = tx.getVertex(vertexId);
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeTransaction() {
+        tx.rollback();
+    }
+
+    @Benchmark
+    public void sortKeyRange(Blackhole blackhole) {
+        final long start = numEdges / 2;
+        for (JanusGraphEdge edge : vertex.query().labels("knows").direction(Direction.OUT)
+                .interval("time", start, start + RANGE_SIZE).edges()) {
+            blackhole.consume(edge);
+        }
+    }
+
+    @Benchmark
+    public void sortKeyLimit(Blackhole blackhole) {
+        for (JanusGraphEdge edge : vertex.query().labels("knows").direction(Direction.OUT).limit(10).edges()) {
+            blackhole.consume(edge);
+        }
+    }
+
+    @Benchmark
+    public void labelScan(Blackhole blackhole) {
+        for (JanusGraphEdge edge : vertex.query().labels("likes").direction(Direction.OUT).edges()) {
+            blackhole.consume(edge);
+        }
+    }
+
+    @Benchmark
+    public void fullAdjacency(Blackhole blackhole) {
+        for (JanusGraphVertex neighbor : vertex.query().direction(Direction.OUT).vertices()) {
+            blackhole.consume(neighbor);
+        }
+    }
+
+    @Benchmark
+    public long traversalRangeCount() {
+        final long start = numEdges / 2;
+        return tx.traversal().V(vertexId).outE("knows").has("time", P.between(start, start + RANGE_SIZE)).count().next();
+    }
+}
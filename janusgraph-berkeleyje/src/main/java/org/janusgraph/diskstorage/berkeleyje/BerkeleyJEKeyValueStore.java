@@ -22,6 +22,7 @@ import org.janusgraph.diskstorage.PermanentBackendException;
 import org.janusgraph.diskstorage.StaticBuffer;
 import org.janusgraph.diskstorage.keycolumnvalue.StoreTransaction;
 import org.janusgraph.diskstorage.keycolumnvalue.keyvalue.KVQuery;
+import org.janusgraph.diskstorage.keycolumnvalue.keyvalue.KVUtil;
 import org.janusgraph.diskstorage.keycolumnvalue.keyvalue.KeySelector;
 import org.janusgraph.diskstorage.keycolumnvalue.keyvalue.KeyValueEntry;
 import org.janusgraph.diskstorage.keycolumnvalue.keyvalue.OrderedKeyValueStore;
@@ -32,6 +33,10 @@ import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -203,9 +208,58 @@ public class BerkeleyJEKeyValueStore implements OrderedKeyValueStore {
         };
     }
 
+    /**
+     * Executes all queries with a single cursor. The queries are visited in the order of their start keys so that the
+     * cursor only hops forward through the database. If the cursor is already positioned on the first key of a query
+     * because the previous query ended right before it, the search for that key is skipped. Since the cursor is
+     * reused, the results of each query are read eagerly.
+     */
     @Override
     public Map<KVQuery,RecordIterator<KeyValueEntry>> getSlices(List<KVQuery> queries, StoreTransaction txh) throws BackendException {
-        throw new UnsupportedOperationException();
+        log.trace("beginning db={}, op=getSlices, queries={}, tx={}", name, queries.size(), txh);
+        final List<KVQuery> sortedQueries = new ArrayList<>(queries);
+        sortedQueries.sort(Comparator.comparing(KVQuery::getStart));
+        final Map<KVQuery,RecordIterator<KeyValueEntry>> results = new HashMap<>(queries.size());
+        final ReadOptions readOptions = getReadOptions(txh);
+        final DatabaseEntry foundKey = new DatabaseEntry();
+        final DatabaseEntry foundData = new DatabaseEntry();
+        final Cursor cursor = openCursor(txh);
+        try {
+            //The cursor is positioned on the first key after lowerBound (inclusive if searched, exclusive if read)
+            //or past the last key if current is null
+            StaticBuffer lowerBound = null;
+            boolean searched = false;
+            StaticBuffer current = null;
+            for (KVQuery query : sortedQueries) {
+                final StaticBuffer keyStart = query.getStart();
+                final StaticBuffer keyEnd = query.getEnd();
+                final KeySelector selector = query.getKeySelector();
+                final boolean positioned = lowerBound != null
+                        && (searched ? keyStart.compareTo(lowerBound) >= 0 : keyStart.compareTo(lowerBound) > 0)
+                        && (current == null || keyStart.compareTo(current) <= 0);
+                if (!positioned) {
+                    final DatabaseEntry searchKey = keyStart.as(ENTRY_FACTORY);
+                    current = cursor.get(searchKey, foundData, Get.SEARCH_GTE, readOptions) == null ? null : getBuffer(searchKey);
+                    lowerBound = keyStart;
+                    searched = true;
+                }
+                final List<KeyValueEntry> entries = new ArrayList<>();
+                while (current != null && current.compareTo(keyEnd) < 0 && !selector.reachedLimit()) {
+                    if (selector.include(current)) {
+                        entries.add(new KeyValueEntry(current, getBuffer(foundData)));
+                    }
+                    lowerBound = current;
+                    searched = false;
+                    current = cursor.get(foundKey, foundData, Get.NEXT, readOptions) == null ? null : getBuffer(foundKey);
+                }
+                results.put(query, entries.isEmpty() ? KVUtil.EMPTY_ITERATOR : new EntryListIterator(entries));
+            }
+        } catch (DatabaseException e) {
+            throw new PermanentBackendException(e);
+        } finally {
+            closeCursor(txh, cursor);
+        }
+        return results;
     }
 
     @Override
@@ -239,6 +293,29 @@ public class BerkeleyJEKeyValueStore implements OrderedKeyValueStore {
         }
     }
 
+    /**
+     * Inserts all given entries through a single cursor, overwriting existing values. The entries are written in the
+     * given order, hence entries which are sorted by key are appended to the same leaf nodes one after the other.
+     */
+    public void insert(List<KeyValueEntry> entries, StoreTransaction txh) throws BackendException {
+        log.trace("db={}, op=insert, entries={}, tx={}", name, entries.size(), txh);
+        final Cursor cursor = openCursor(txh);
+        try {
+            final WriteOptions writeOptions = getWriteOptions(txh);
+            for (KeyValueEntry entry : entries) {
+                final Integer ttl = entry.getTtl();
+                writeOptions.setTTL(ttl != null && ttl > 0 ? ttlConverter.apply(ttl) : 0, TimeUnit.HOURS);
+                OperationResult result = cursor.put(entry.getKey().as(ENTRY_FACTORY), entry.getValue().as(ENTRY_FACTORY),
+                        Put.OVERWRITE, writeOptions);
+                EnvironmentFailureException.assertState(result != null);
+            }
+        } catch (DatabaseException e) {
+            throw new PermanentBackendException(e);
+        } finally {
+            closeCursor(txh, cursor);
+        }
+    }
+
     @Override
     public void delete(StaticBuffer key, StoreTransaction txh) throws BackendException {
         log.trace("Deletion");
@@ -254,6 +331,35 @@ public class BerkeleyJEKeyValueStore implements OrderedKeyValueStore {
         }
     }
 
+    private static class EntryListIterator implements RecordIterator<KeyValueEntry> {
+
+        private final Iterator<KeyValueEntry> entries;
+
+        private EntryListIterator(List<KeyValueEntry> entries) {
+            this.entries = entries.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return entries.hasNext();
+        }
+
+        @Override
+        public KeyValueEntry next() {
+            return entries.next();
+        }
+
+        @Override
+        public void close() {
+            //Results are read eagerly, hence there is nothing to release
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
     private static StaticBuffer getBuffer(DatabaseEntry entry) {
         return new StaticArrayBuffer(entry.getData(),entry.getOffset(),entry.getOffset()+entry.getSize());
     }
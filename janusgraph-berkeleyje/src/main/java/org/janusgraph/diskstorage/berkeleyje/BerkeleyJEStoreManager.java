@@ -38,6 +38,8 @@ import org.janusgraph.util.system.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -94,6 +96,7 @@ public class BerkeleyJEStoreManager extends LocalStoreManager implements Ordered
 
         features = new StandardStoreFeatures.Builder()
                     .orderedScan(true)
+                    .multiQuery(true)
                     .transactional(transactional)
                     .keyConsistent(GraphDatabaseConfiguration.buildGraphConfiguration())
                     .locking(true)
@@ -219,10 +222,18 @@ public class BerkeleyJEStoreManager extends LocalStoreManager implements Ordered
             }
 
             if (mutationValue.hasAdditions()) {
-                for (KeyValueEntry entry : mutationValue.getAdditions()) {
+                final List<KeyValueEntry> additions = mutationValue.getAdditions();
+                if (additions.size() == 1) {
+                    final KeyValueEntry entry = additions.get(0);
                     store.insert(entry.getKey(),entry.getValue(),txh, entry.getTtl());
-                    log.trace("Insertion on {}: {}", mutation.getKey(), entry);
+                } else {
+                    //Writing the additions in key order through one cursor keeps consecutive writes on the same
+                    //leaf nodes. The sort is stable so that the last of several additions of the same key wins.
+                    final List<KeyValueEntry> sortedAdditions = new ArrayList<>(additions);
+                    sortedAdditions.sort(Comparator.comparing(KeyValueEntry::getKey));
+                    store.insert(sortedAdditions, txh);
                 }
+                log.trace("Insertions on {}: {}", mutation.getKey(), additions.size());
             }
             if (mutationValue.hasDeletions()) {
                 for (StaticBuffer del : mutationValue.getDeletions()) {
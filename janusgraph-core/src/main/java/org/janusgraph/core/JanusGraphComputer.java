@@ -44,9 +44,40 @@ public interface JanusGraphComputer extends GraphComputer {
 
     }
 
+    /**
+     * How the vertex compute keys and messages of a vertex program are kept in memory
+     */
+    enum VertexMemoryType {
+        /**
+         * One state object per vertex
+         */
+        OBJECT,
+        /**
+         * Column-wise primitive arrays for numeric values and lock-free message combining, which needs considerably
+         * less memory for programs with numeric compute keys and messages such as PageRank. Messages and numeric
+         * compute keys can be spilled to disk by configuring {@code computer.spill-heap-budget}.
+         */
+        PRIMITIVE
+    }
+
     @Override
     JanusGraphComputer workers(int threads);
 
+    /**
+     * Configures how the vertex memory of this computer is stored, {@link VertexMemoryType#OBJECT} by default.
+     * Computers which only support the default type reject all other types.
+     *
+     * @param type
+     * @return this computer
+     * @throws UnsupportedOperationException if the computer does not support the given type
+     */
+    default JanusGraphComputer vertexMemory(VertexMemoryType type) {
+        if (type != VertexMemoryType.OBJECT) {
+            throw new UnsupportedOperationException("Vertex memory type is not supported by this computer: " + type);
+        }
+        return this;
+    }
+
     default JanusGraphComputer resultMode(ResultMode mode) {
         result(mode.toResultGraph());
         persist(mode.toPersist());
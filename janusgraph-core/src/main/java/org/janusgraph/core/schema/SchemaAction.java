@@ -48,7 +48,13 @@ public enum SchemaAction {
     /**
      * Removes the index from the graph (optional operation)
      */
-    REMOVE_INDEX(Collections.singleton(SchemaStatus.DISABLED), Arrays.asList(SchemaStatus.REGISTERED,SchemaStatus.INSTALLED,SchemaStatus.ENABLED));
+    REMOVE_INDEX(Collections.singleton(SchemaStatus.DISABLED), Arrays.asList(SchemaStatus.REGISTERED,SchemaStatus.INSTALLED,SchemaStatus.ENABLED)),
+
+    /**
+     * Collects statistics about the data distribution of a composite index which are used by the cost-based index
+     * selection strategy (optional operation)
+     */
+    UPDATE_STATISTICS(Collections.singleton(SchemaStatus.ENABLED), Arrays.asList(SchemaStatus.INSTALLED, SchemaStatus.DISABLED));
 
     private final Set<SchemaStatus> applicableStatuses;
     private final Set<SchemaStatus> failureStatuses;
@@ -119,12 +119,14 @@ public enum ReflectiveConfigOptionLoader {
             "org.janusgraph.diskstorage.cql.CQLConfigOptions",
             "org.janusgraph.diskstorage.es.ElasticSearchIndex",
             "org.janusgraph.diskstorage.solr.SolrIndex",
+            "org.janusgraph.diskstorage.lucene.LuceneIndex",
             "org.janusgraph.diskstorage.log.kcvs.KCVSLog",
             "org.janusgraph.diskstorage.log.kcvs.KCVSLogManager",
             "org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration",
             "org.janusgraph.graphdb.database.idassigner.placement.SimpleBulkPlacementStrategy",
             "org.janusgraph.graphdb.database.idassigner.VertexIDAssigner",
             "org.janusgraph.graphdb.query.index.ThresholdBasedIndexSelectionStrategy",
+            "org.janusgraph.graphdb.query.index.CostBasedIndexSelectionStrategy",
             //"org.janusgraph.graphdb.TestMockIndexProvider",
             //"org.janusgraph.graphdb.TestMockLog",
             "org.janusgraph.diskstorage.berkeleyje.BerkeleyJEStoreManager"));
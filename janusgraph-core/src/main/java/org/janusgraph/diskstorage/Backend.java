@@ -30,10 +30,12 @@ import org.janusgraph.diskstorage.configuration.backend.builder.KCVSConfiguratio
 import org.janusgraph.diskstorage.idmanagement.ConsistentKeyIDAuthority;
 import org.janusgraph.diskstorage.indexing.*;
 import org.janusgraph.diskstorage.keycolumnvalue.*;
+import org.janusgraph.diskstorage.keycolumnvalue.cache.CacheInvalidationLog;
 import org.janusgraph.diskstorage.keycolumnvalue.cache.CacheTransaction;
 import org.janusgraph.diskstorage.keycolumnvalue.cache.ExpirationKCVSCache;
 import org.janusgraph.diskstorage.keycolumnvalue.cache.KCVSCache;
 import org.janusgraph.diskstorage.keycolumnvalue.cache.NoKCVSCache;
+import org.janusgraph.diskstorage.keycolumnvalue.cache.OffHeapKCVSCache;
 import org.janusgraph.diskstorage.keycolumnvalue.keyvalue.OrderedKeyValueStoreManager;
 import org.janusgraph.diskstorage.keycolumnvalue.keyvalue.OrderedKeyValueStoreManagerAdapter;
 import org.janusgraph.diskstorage.keycolumnvalue.scan.StandardScanner;
@@ -43,6 +45,7 @@ import org.janusgraph.diskstorage.locking.consistentkey.ConsistentKeyLocker;
 import org.janusgraph.diskstorage.locking.consistentkey.ExpectedValueCheckingStoreManager;
 import org.janusgraph.diskstorage.log.Log;
 import org.janusgraph.diskstorage.log.LogManager;
+import org.janusgraph.diskstorage.log.ReadMarker;
 import org.janusgraph.diskstorage.log.kcvs.KCVSLog;
 import org.janusgraph.diskstorage.log.kcvs.KCVSLogManager;
 import org.janusgraph.diskstorage.util.BackendOperation;
@@ -103,6 +106,7 @@ public class Backend implements LockerProvider, AutoCloseable {
 
     public static final String SYSTEM_TX_LOG_NAME = "txlog";
     public static final String SYSTEM_MGMT_LOG_NAME = "systemlog";
+    public static final String SYSTEM_CACHE_INVALIDATION_LOG_NAME = "cachelog";
 
     public static final double EDGESTORE_CACHE_PERCENT = 0.8;
     public static final double INDEXSTORE_CACHE_PERCENT = 0.2;
@@ -155,6 +159,7 @@ public class Backend implements LockerProvider, AutoCloseable {
     private IDAuthority idAuthority;
     private KCVSConfiguration systemConfig;
     private KCVSConfiguration userConfig;
+    private KCVSConfiguration scanCheckpoints;
     private boolean hasAttemptedClose;
 
     private final StandardScanner scanner;
@@ -162,6 +167,8 @@ public class Backend implements LockerProvider, AutoCloseable {
     private final KCVSLogManager managementLogManager;
     private final KCVSLogManager txLogManager;
     private final LogManager userLogManager;
+    private final KCVSLogManager cacheInvalidationLogManager;
+    private CacheInvalidationLog cacheInvalidationLog;
 
 
     private final Map<String, IndexProvider> indexes;
@@ -171,6 +178,8 @@ public class Backend implements LockerProvider, AutoCloseable {
     private final Duration maxReadTime;
     private final boolean cacheEnabled;
     private final ExecutorService threadPool;
+    private final boolean writeBehind;
+    private final int writeBehindMaxPending;
 
     private final Function<String, Locker> lockerCreator;
     private final ConcurrentHashMap<String, Locker> lockers = new ConcurrentHashMap<>();
@@ -192,6 +201,7 @@ public class Backend implements LockerProvider, AutoCloseable {
         managementLogManager = getKCVSLogManager(MANAGEMENT_LOG);
         txLogManager = getKCVSLogManager(TRANSACTION_LOG);
         userLogManager = getLogManager(USER_LOG);
+        cacheInvalidationLogManager = getKCVSLogManager(CACHE_INVALIDATION_LOG);
 
 
         cacheEnabled = !configuration.get(STORAGE_BATCH) && configuration.get(DB_CACHE);
@@ -220,6 +230,12 @@ public class Backend implements LockerProvider, AutoCloseable {
             threadPool = null;
         }
 
+        writeBehind = configuration.get(STORAGE_WRITE_BEHIND);
+        writeBehindMaxPending = configuration.get(STORAGE_WRITE_BEHIND_MAX_PENDING);
+        if (writeBehind && threadPool == null) {
+            log.warn("Write-behind requires parallel backend operations, mutations are persisted synchronously");
+        }
+
         final String lockBackendName = configuration.get(LOCK_BACKEND);
         if (REGISTERED_LOCKERS.containsKey(lockBackendName)) {
             lockerCreator = REGISTERED_LOCKERS.get(lockBackendName);
@@ -299,8 +315,20 @@ public class Backend implements LockerProvider, AutoCloseable {
                 long edgeStoreCacheSize = Math.round(cacheSizeBytes * EDGESTORE_CACHE_PERCENT);
                 long indexStoreCacheSize = Math.round(cacheSizeBytes * INDEXSTORE_CACHE_PERCENT);
 
-                edgeStore = new ExpirationKCVSCache(edgeStoreRaw,getMetricsCacheName(EDGESTORE_NAME),expirationTime,cleanWaitTime,edgeStoreCacheSize);
-                indexStore = new ExpirationKCVSCache(indexStoreRaw,getMetricsCacheName(INDEXSTORE_NAME),expirationTime,cleanWaitTime,indexStoreCacheSize);
+                if (configuration.get(DB_CACHE_OFF_HEAP)) {
+                    edgeStore = new OffHeapKCVSCache(edgeStoreRaw,getMetricsCacheName(EDGESTORE_NAME),expirationTime,cleanWaitTime,edgeStoreCacheSize);
+                    indexStore = new OffHeapKCVSCache(indexStoreRaw,getMetricsCacheName(INDEXSTORE_NAME),expirationTime,cleanWaitTime,indexStoreCacheSize);
+                } else {
+                    edgeStore = new ExpirationKCVSCache(edgeStoreRaw,getMetricsCacheName(EDGESTORE_NAME),expirationTime,cleanWaitTime,edgeStoreCacheSize);
+                    indexStore = new ExpirationKCVSCache(indexStoreRaw,getMetricsCacheName(INDEXSTORE_NAME),expirationTime,cleanWaitTime,indexStoreCacheSize);
+                }
+
+                if (configuration.get(DB_CACHE_INVALIDATION_LOG)) {
+                    Log invalidations = cacheInvalidationLogManager.openLog(SYSTEM_CACHE_INVALIDATION_LOG_NAME);
+                    cacheInvalidationLog = new CacheInvalidationLog(invalidations, configuration.get(UNIQUE_INSTANCE_ID),
+                            edgeStore, indexStore);
+                    invalidations.registerReader(ReadMarker.fromNow(), cacheInvalidationLog);
+                }
             } else {
                 edgeStore = new NoKCVSCache(edgeStoreRaw);
                 indexStore = new NoKCVSCache(indexStoreRaw);
@@ -339,6 +367,17 @@ public class Backend implements LockerProvider, AutoCloseable {
                     //Do nothing, storeManager is closed explicitly by Backend
                 }
             },systemConfigStore,USER_CONFIGURATION_IDENTIFIER,configuration);
+            scanCheckpoints = kcvsConfigurationBuilder.buildConfiguration(new BackendOperation.TransactionalProvider() {
+                @Override
+                public StoreTransaction openTx() throws BackendException {
+                    return storeManagerLocking.beginTransaction(StandardBaseTransactionConfig.of(configuration.get(TIMESTAMP_PROVIDER)));
+                }
+
+                @Override
+                public void close() throws BackendException {
+                    //Do nothing, storeManager is closed explicitly by Backend
+                }
+            },systemConfigStore,SCAN_CHECKPOINT_IDENTIFIER,configuration);
 
         } catch (BackendException e) {
             throw new JanusGraphException("Could not initialize backend", e);
@@ -395,6 +434,19 @@ public class Backend implements LockerProvider, AutoCloseable {
                 .setWorkBlockSize(this.configuration.get(PAGE_SIZE));
     }
 
+    /**
+     * Enables checkpointing for the given scan job if
+     * {@link org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration#SCAN_CHECKPOINT_INTERVAL} is configured.
+     * The checkpoints are persisted in the system store so that the job can be resumed by running it again with the
+     * same job id if it does not complete.
+     */
+    public StandardScanner.Builder configureScanCheckpointing(StandardScanner.Builder builder) {
+        if (configuration.has(SCAN_CHECKPOINT_INTERVAL)) {
+            builder.setCheckpointing(scanCheckpoints, configuration.get(SCAN_CHECKPOINT_INTERVAL));
+        }
+        return builder;
+    }
+
     public JanusGraphManagement.IndexJobFuture getScanJobStatus(Object jobId) {
         return scanner.getRunningJob(jobId);
     }
@@ -526,7 +578,9 @@ public class Backend implements LockerProvider, AutoCloseable {
         StoreTransaction tx = storeManagerLocking.beginTransaction(configuration);
 
         // Cache
-        CacheTransaction cacheTx = new CacheTransaction(tx, storeManagerLocking, bufferSize, maxWriteTime, configuration.hasEnabledBatchLoading());
+        CacheTransaction cacheTx = new CacheTransaction(tx, storeManagerLocking, bufferSize, maxWriteTime,
+            configuration.hasEnabledBatchLoading(), 2, writeBehind ? threadPool : null, writeBehindMaxPending,
+            cacheInvalidationLog);
 
         // Index transactions
         final Map<String, IndexTransaction> indexTx = new HashMap<>(indexes.size());
@@ -545,6 +599,7 @@ public class Backend implements LockerProvider, AutoCloseable {
             managementLogManager.close();
             txLogManager.close();
             userLogManager.close();
+            cacheInvalidationLogManager.close();
 
             scanner.close();
             if (edgeStore != null) edgeStore.close();
@@ -552,6 +607,7 @@ public class Backend implements LockerProvider, AutoCloseable {
             if (idAuthority != null) idAuthority.close();
             if (systemConfig != null) systemConfig.close();
             if (userConfig != null) userConfig.close();
+            if (scanCheckpoints != null) scanCheckpoints.close();
             storeManager.close();
             if(threadPool != null) {
             	threadPool.shutdown();
@@ -576,6 +632,7 @@ public class Backend implements LockerProvider, AutoCloseable {
             managementLogManager.close();
             txLogManager.close();
             userLogManager.close();
+            cacheInvalidationLogManager.close();
 
             scanner.close();
             edgeStore.close();
@@ -583,6 +640,7 @@ public class Backend implements LockerProvider, AutoCloseable {
             idAuthority.close();
             systemConfig.close();
             userConfig.close();
+            scanCheckpoints.close();
             storeManager.clearStorage();
             storeManager.close();
             //Indexes
@@ -19,8 +19,12 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
@@ -99,6 +103,14 @@ public class BackendTransaction implements LoggableTransaction {
         this.threadPool = threadPool;
     }
 
+    /**
+     * Returns the executor used to run independent backend queries concurrently, or null if
+     * parallel backend operations are disabled.
+     */
+    public Executor getThreadPool() {
+        return threadPool;
+    }
+
     public boolean hasAcquiredLock() {
         return acquiredLock;
     }
@@ -133,22 +145,88 @@ public class BackendTransaction implements LoggableTransaction {
         storeTx.commit();
     }
 
+    /**
+     * Commits all index transactions and collects the exceptions thrown by individual indexes.
+     * If a thread pool is configured and there are multiple index transactions, they are committed concurrently.
+     *
+     * @return a map from index name to the exception that caused its commit to fail
+     */
     public Map<String,Throwable> commitIndexes() {
-        final Map<String,Throwable> exceptions = new HashMap<>(indexTx.size());
-        for (Map.Entry<String,IndexTransaction> indexTransactionEntry : indexTx.entrySet()) {
-            try {
-                indexTransactionEntry.getValue().commit();
-            } catch (Throwable e) {
-                exceptions.put(indexTransactionEntry.getKey(),e);
+        if (threadPool == null || indexTx.size() < MIN_TASKS_TO_PARALLELIZE) {
+            final Map<String,Throwable> exceptions = new HashMap<>(indexTx.size());
+            for (Map.Entry<String,IndexTransaction> indexTransactionEntry : indexTx.entrySet()) {
+                try {
+                    indexTransactionEntry.getValue().commit();
+                } catch (Throwable e) {
+                    exceptions.put(indexTransactionEntry.getKey(),e);
+                }
             }
+            return exceptions;
         }
-        return exceptions;
+        return awaitIndexCommits(submitIndexCommits());
     }
 
+    /**
+     * Commits the storage and all index transactions. Since this is only used when all non-system mutations have
+     * already been persisted, the index transactions are committed concurrently with the storage transaction
+     * if a thread pool is configured. Storage exceptions take priority on re-throw.
+     * @throws BackendException
+     */
     @Override
     public void commit() throws BackendException {
-        storeTx.commit();
-        for (IndexTransaction itx : indexTx.values()) itx.commit();
+        if (threadPool == null || indexTx.isEmpty()) {
+            storeTx.commit();
+            for (IndexTransaction itx : indexTx.values()) itx.commit();
+            return;
+        }
+        final Map<String,FutureTask<Void>> indexCommits = submitIndexCommits();
+        try {
+            storeTx.commit();
+        } catch (Throwable e) {
+            awaitIndexCommits(indexCommits);
+            throw e;
+        }
+        final Map<String,Throwable> exceptions = awaitIndexCommits(indexCommits);
+        if (!exceptions.isEmpty()) { //throw any encountered index transaction commit exceptions
+            final Throwable exception = exceptions.values().iterator().next();
+            if (exception instanceof BackendException) throw (BackendException)exception;
+            else throw new PermanentBackendException("Unexpected exception",exception);
+        }
+    }
+
+    private Map<String,FutureTask<Void>> submitIndexCommits() {
+        final Map<String,FutureTask<Void>> commits = new HashMap<>(indexTx.size());
+        for (Map.Entry<String,IndexTransaction> indexTransactionEntry : indexTx.entrySet()) {
+            final IndexTransaction itx = indexTransactionEntry.getValue();
+            final FutureTask<Void> commit = new FutureTask<>(() -> {
+                itx.commit();
+                return null;
+            });
+            commits.put(indexTransactionEntry.getKey(), commit);
+            threadPool.execute(commit);
+        }
+        return commits;
+    }
+
+    private static Map<String,Throwable> awaitIndexCommits(Map<String,FutureTask<Void>> commits) {
+        final Map<String,Throwable> exceptions = new HashMap<>(commits.size());
+        boolean interrupted = false;
+        for (Map.Entry<String,FutureTask<Void>> commit : commits.entrySet()) {
+            while (true) {
+                try {
+                    commit.getValue().get();
+                    break;
+                } catch (InterruptedException e) {
+                    //The index commit is already in flight, so keep waiting and restore the interrupt afterwards
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    exceptions.put(commit.getKey(), e.getCause());
+                    break;
+                }
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        return exceptions;
     }
 
     /**
@@ -279,6 +357,29 @@ public class BackendTransaction implements LoggableTransaction {
         });
     }
 
+    /**
+     * Asynchronous variant of {@link #edgeStoreQuery(KeySliceQuery)} which does not block the calling thread if the
+     * underlying store supports asynchronous reads. Unlike the blocking variant, failed reads are not retried; the
+     * returned future is completed exceptionally with a {@link JanusGraphException} wrapping the backend exception.
+     *
+     * @param query Query to get results for
+     * @return Future of the list of entries
+     */
+    public CompletableFuture<EntryList> edgeStoreQueryAsync(final KeySliceQuery query) {
+        final CompletableFuture<EntryList> result = new CompletableFuture<>();
+        (cacheEnabled?edgeStore.getSliceAsync(query, storeTx):
+                      edgeStore.getSliceNoCacheAsync(query, storeTx)).whenComplete((entries, e) -> {
+            if (e == null) {
+                result.complete(entries);
+            } else {
+                final Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                result.completeExceptionally(cause instanceof JanusGraphException ? cause
+                        : new JanusGraphException("Could not execute operation due to backend exception", cause));
+            }
+        });
+        return result;
+    }
+
     public Map<StaticBuffer,EntryList> edgeStoreMultiQuery(final List<StaticBuffer> keys, final SliceQuery query) {
         if (storeFeatures.hasMultiQuery()) {
             return executeRead(new Callable<Map<StaticBuffer,EntryList>>() {
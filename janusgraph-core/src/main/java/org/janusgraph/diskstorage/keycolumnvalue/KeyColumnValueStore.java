@@ -22,6 +22,7 @@ import org.janusgraph.diskstorage.StaticBuffer;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Interface to a data store that has a BigTable like representation of its data. In other words, the data store is comprised of a set of rows
@@ -52,6 +53,29 @@ public interface KeyColumnValueStore {
      */
     EntryList getSlice(KeySliceQuery query, StoreTransaction txh) throws BackendException;
 
+    /**
+     * Asynchronous variant of {@link #getSlice(KeySliceQuery, StoreTransaction)}. The returned future is completed
+     * with the list of entries or exceptionally with the {@link BackendException} that caused the retrieval to fail.
+     * <p>
+     * Stores which can issue reads without blocking the calling thread should override this method. The default
+     * implementation executes {@link #getSlice(KeySliceQuery, StoreTransaction)} on the calling thread and returns
+     * an already completed future.
+     *
+     * @param query Query to get results for
+     * @param txh   Transaction
+     * @return Future of the list of entries up to a maximum of "limit" entries
+     * @see #getSlice(KeySliceQuery, StoreTransaction)
+     */
+    default CompletableFuture<EntryList> getSliceAsync(KeySliceQuery query, StoreTransaction txh) {
+        final CompletableFuture<EntryList> result = new CompletableFuture<>();
+        try {
+            result.complete(getSlice(query, txh));
+        } catch (BackendException | RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
     /**
      * Retrieves the list of entries (i.e. column-value pairs) as specified by the given {@link SliceQuery} for all
      * of the given keys together.
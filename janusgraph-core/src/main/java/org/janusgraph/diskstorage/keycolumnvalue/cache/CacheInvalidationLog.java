@@ -0,0 +1,122 @@
+// Copyright 2020 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.keycolumnvalue.cache;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterables;
+import org.janusgraph.diskstorage.ReadBuffer;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.log.Log;
+import org.janusgraph.diskstorage.log.Message;
+import org.janusgraph.diskstorage.log.MessageReader;
+import org.janusgraph.diskstorage.util.BufferUtil;
+import org.janusgraph.diskstorage.util.StaticArrayBuffer;
+import org.janusgraph.diskstorage.util.WriteByteBuffer;
+import org.janusgraph.graphdb.database.idhandling.VariableLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the database-level caches of multiple JanusGraph instances coherent. Every instance publishes the keys mutated
+ * by its transactions to a shared {@link Log} once they have been committed, and every instance reads the keys
+ * published by all other instances from that log and invalidates them in its own {@link KCVSCache}s.
+ * <p>
+ * Hence, a cache entry is stale for at most the time it takes for an invalidation to be sent and read from the log in
+ * addition to the invalidation grace period of the cache, rather than for the entire cache expiration time.
+ */
+public class CacheInvalidationLog implements MessageReader {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationLog.class);
+
+    /**
+     * The maximum number of keys published in a single message
+     */
+    static final int MAX_KEYS_PER_MESSAGE = 1000;
+
+    private final Log invalidations;
+    private final String senderId;
+    private final Map<String, KCVSCache> caches;
+
+    /**
+     * @param invalidations the log to publish the mutated keys to and read the keys of other instances from
+     * @param senderId the unique id of this instance which the log records as the sender of its messages
+     * @param caches the caches to keep coherent
+     */
+    public CacheInvalidationLog(Log invalidations, String senderId, KCVSCache... caches) {
+        Preconditions.checkArgument(invalidations != null && senderId != null);
+        this.invalidations = invalidations;
+        this.senderId = senderId;
+        this.caches = new HashMap<>(caches.length);
+        for (KCVSCache cache : caches) {
+            this.caches.put(cache.getName(), cache);
+        }
+    }
+
+    /**
+     * Returns whether mutations of the given cache need to be published
+     */
+    boolean isTracked(KCVSCache cache) {
+        return caches.get(cache.getName()) == cache;
+    }
+
+    /**
+     * Publishes the given keys which have been mutated by a transaction of this instance. Every message contains the
+     * name of a store followed by up to {@link #MAX_KEYS_PER_MESSAGE} keys of that store.
+     */
+    void publish(Map<KCVSCache, ? extends Collection<StaticBuffer>> mutatedKeys) {
+        for (Map.Entry<KCVSCache, ? extends Collection<StaticBuffer>> storeKeys : mutatedKeys.entrySet()) {
+            final StaticBuffer storeName = StaticArrayBuffer.of(storeKeys.getKey().getName().getBytes(StandardCharsets.UTF_8));
+            for (List<StaticBuffer> keys : Iterables.partition(storeKeys.getValue(), MAX_KEYS_PER_MESSAGE)) {
+                final WriteByteBuffer out = new WriteByteBuffer();
+                writeBuffer(out, storeName);
+                for (StaticBuffer key : keys) writeBuffer(out, key);
+                invalidations.add(out.getStaticBuffer());
+            }
+        }
+    }
+
+    private static void writeBuffer(WriteByteBuffer out, StaticBuffer buffer) {
+        VariableLong.writePositive(out, buffer.length());
+        out.putBytes(buffer);
+    }
+
+    @Override
+    public void read(Message message) {
+        //Mutations of this instance have already been invalidated when they were persisted
+        if (senderId.equals(message.getSenderId())) return;
+        final ReadBuffer in = message.getContent().asReadBuffer();
+        final String storeName = new String(BufferUtil.readBuffer(in).as(StaticBuffer.ARRAY_FACTORY), StandardCharsets.UTF_8);
+        final KCVSCache cache = caches.get(storeName);
+        if (cache == null) {
+            log.debug("Ignoring invalidations of unknown store [{}] from {}", storeName, message.getSenderId());
+            return;
+        }
+        while (in.hasRemaining()) {
+            cache.invalidate(BufferUtil.readBuffer(in), Collections.emptyList());
+        }
+    }
+
+    @Override
+    public void updateState() {
+        //Invalidations are applied as soon as they are read
+    }
+}
@@ -28,8 +28,22 @@ import org.janusgraph.graphdb.database.serialize.DataOutput;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 
 /**
+ * Buffers the mutations of a transaction and persists them against the storage backend in chunks of at most
+ * {@code persistChunkSize} mutations when batch loading or on commit.
+ * <p>
+ * When batch loading with a write-behind executor, full chunks are persisted asynchronously and in order on that
+ * executor while the transaction keeps collecting mutations. At most {@code maxPendingPersists} chunks may be in flight,
+ * after which {@link #mutate(KCVSCache, StaticBuffer, List, List)} blocks. A failure to persist a chunk is thrown by the
+ * next call to mutate or {@link #commit()}.
+ * <p>
+ * If a {@link CacheInvalidationLog} is given, the keys invalidated in the caches of this instance are published to the
+ * other instances once the transaction has been committed.
+ *
  * @author Matthias Broecheler (me@matthiasb.com)
  */
 public class CacheTransaction implements StoreTransaction, LoggableTransaction {
@@ -39,9 +53,14 @@ public class CacheTransaction implements StoreTransaction, LoggableTransaction {
     private final boolean batchLoading;
     private final int persistChunkSize;
     private final Duration maxWriteTime;
+    private final Executor writeBehindExecutor;
+    private final int maxPendingPersists;
+    private final CacheInvalidationLog invalidationLog;
+    private final Map<KCVSCache, Set<StaticBuffer>> invalidatedKeys;
 
     private int numMutations;
-    private final Map<KCVSCache, Map<StaticBuffer, KCVEntryMutation>> mutations;
+    private Map<KCVSCache, Map<StaticBuffer, KCVEntryMutation>> mutations;
+    private final Deque<CompletableFuture<Void>> pendingPersists;
 
     public CacheTransaction(StoreTransaction tx, KeyColumnValueStoreManager manager,
                              int persistChunkSize, Duration maxWriteTime, boolean batchLoading) {
@@ -50,7 +69,21 @@ public class CacheTransaction implements StoreTransaction, LoggableTransaction {
 
     public CacheTransaction(StoreTransaction tx, KeyColumnValueStoreManager manager, int persistChunkSize,
                             Duration maxWriteTime, boolean batchLoading, int expectedNumStores) {
+        this(tx, manager, persistChunkSize, maxWriteTime, batchLoading, expectedNumStores, null, 1);
+    }
+
+    public CacheTransaction(StoreTransaction tx, KeyColumnValueStoreManager manager, int persistChunkSize,
+                            Duration maxWriteTime, boolean batchLoading, int expectedNumStores,
+                            Executor writeBehindExecutor, int maxPendingPersists) {
+        this(tx, manager, persistChunkSize, maxWriteTime, batchLoading, expectedNumStores, writeBehindExecutor,
+            maxPendingPersists, null);
+    }
+
+    public CacheTransaction(StoreTransaction tx, KeyColumnValueStoreManager manager, int persistChunkSize,
+                            Duration maxWriteTime, boolean batchLoading, int expectedNumStores,
+                            Executor writeBehindExecutor, int maxPendingPersists, CacheInvalidationLog invalidationLog) {
         Preconditions.checkArgument(tx != null && manager != null && persistChunkSize > 0);
+        Preconditions.checkArgument(maxPendingPersists > 0, "Invalid number of pending persists: %s", maxPendingPersists);
         this.tx = tx;
         this.manager = manager;
         this.batchLoading = batchLoading;
@@ -58,6 +91,11 @@ public class CacheTransaction implements StoreTransaction, LoggableTransaction {
         this.persistChunkSize = persistChunkSize;
         this.maxWriteTime = maxWriteTime;
         this.mutations = new HashMap<>(expectedNumStores);
+        this.writeBehindExecutor = batchLoading ? writeBehindExecutor : null;
+        this.maxPendingPersists = maxPendingPersists;
+        this.pendingPersists = new ArrayDeque<>(maxPendingPersists);
+        this.invalidationLog = invalidationLog;
+        this.invalidatedKeys = invalidationLog == null ? null : new HashMap<>(expectedNumStores);
     }
 
     public StoreTransaction getWrappedTransaction() {
@@ -67,6 +105,7 @@ public class CacheTransaction implements StoreTransaction, LoggableTransaction {
     void mutate(KCVSCache store, StaticBuffer key, List<Entry> additions, List<Entry> deletions) throws BackendException {
         Preconditions.checkNotNull(store);
         if (additions.isEmpty() && deletions.isEmpty()) return;
+        awaitPendingPersists(maxPendingPersists);
 
         KCVEntryMutation m = new KCVEntryMutation(additions, deletions);
         final Map<StaticBuffer, KCVEntryMutation> storeMutation = mutations.computeIfAbsent(store, k -> new HashMap<>());
@@ -80,7 +119,47 @@ public class CacheTransaction implements StoreTransaction, LoggableTransaction {
         numMutations += m.getTotalMutations();
 
         if (batchLoading && numMutations >= persistChunkSize) {
-            flushInternal();
+            if (writeBehindExecutor != null) flushBehind();
+            else flushInternal();
+        }
+    }
+
+    /**
+     * Hands the current mutations to the write-behind executor. Chunks are chained so that they are persisted in the
+     * order in which they were collected and a chunk is not persisted if a previous one failed.
+     */
+    private void flushBehind() throws BackendException {
+        //Apply back-pressure before another chunk gets in flight
+        awaitPendingPersists(maxPendingPersists - 1);
+        final Map<KCVSCache, Map<StaticBuffer, KCVEntryMutation>> chunk = mutations;
+        mutations = new HashMap<>(chunk.size());
+        numMutations = 0;
+
+        final Runnable persistChunk = () -> persistAndInvalidate(chunk);
+        final CompletableFuture<Void> previous = pendingPersists.peekLast();
+        pendingPersists.addLast(previous == null ? CompletableFuture.runAsync(persistChunk, writeBehindExecutor)
+            : previous.thenRunAsync(persistChunk, writeBehindExecutor));
+    }
+
+    /**
+     * Waits until at most the given number of persists are pending and throws the failure of any finished persist.
+     */
+    private void awaitPendingPersists(int maxPending) throws BackendException {
+        while (!pendingPersists.isEmpty() && (pendingPersists.size() > maxPending || pendingPersists.peekFirst().isDone())) {
+            try {
+                pendingPersists.peekFirst().get();
+                pendingPersists.pollFirst();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new PermanentBackendException("Interrupted while waiting for mutations to be persisted", e);
+            } catch (ExecutionException e) {
+                //All later chunks depend on the failed one and fail as well
+                pendingPersists.clear();
+                final Throwable cause = e.getCause();
+                if (cause instanceof BackendException) throw (BackendException) cause;
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                throw new PermanentBackendException("Could not persist mutations", cause);
+            }
         }
     }
 
@@ -120,52 +199,62 @@ public class CacheTransaction implements StoreTransaction, LoggableTransaction {
 
     private void flushInternal() throws BackendException {
         if (numMutations > 0) {
-            //Consolidate all mutations prior to persistence to ensure that no addition accidentally gets swallowed by a delete
-            for (Map<StaticBuffer, KCVEntryMutation> store : mutations.values()) {
-                for (KCVEntryMutation mut : store.values()) mut.consolidate();
+            persistAndInvalidate(mutations);
+            clear();
+        }
+    }
+
+    private void persistAndInvalidate(Map<KCVSCache, Map<StaticBuffer, KCVEntryMutation>> mutations) {
+        //Consolidate all mutations prior to persistence to ensure that no addition accidentally gets swallowed by a delete
+        for (Map<StaticBuffer, KCVEntryMutation> store : mutations.values()) {
+            for (KCVEntryMutation mut : store.values()) mut.consolidate();
+        }
+
+        //Chunk up mutations
+        final Map<String, Map<StaticBuffer, KCVMutation>> subMutations = new HashMap<>(mutations.size());
+        int numSubMutations = 0;
+        for (Map.Entry<KCVSCache,Map<StaticBuffer, KCVEntryMutation>> storeMutations : mutations.entrySet()) {
+            final Map<StaticBuffer, KCVMutation> sub = new HashMap<>();
+            subMutations.put(storeMutations.getKey().getName(),sub);
+            for (Map.Entry<StaticBuffer,KCVEntryMutation> mutationsForKey : storeMutations.getValue().entrySet()) {
+                if (mutationsForKey.getValue().isEmpty()) continue;
+                sub.put(mutationsForKey.getKey(), convert(mutationsForKey.getValue()));
+                numSubMutations+=mutationsForKey.getValue().getTotalMutations();
+                if (numSubMutations>= persistChunkSize) {
+                    numSubMutations = persist(subMutations);
+                    sub.clear();
+                    subMutations.put(storeMutations.getKey().getName(),sub);
+                }
             }
+        }
+        if (numSubMutations>0) persist(subMutations);
 
-            //Chunk up mutations
-            final Map<String, Map<StaticBuffer, KCVMutation>> subMutations = new HashMap<>(mutations.size());
-            int numSubMutations = 0;
-            for (Map.Entry<KCVSCache,Map<StaticBuffer, KCVEntryMutation>> storeMutations : mutations.entrySet()) {
-                final Map<StaticBuffer, KCVMutation> sub = new HashMap<>();
-                subMutations.put(storeMutations.getKey().getName(),sub);
-                for (Map.Entry<StaticBuffer,KCVEntryMutation> mutationsForKey : storeMutations.getValue().entrySet()) {
-                    if (mutationsForKey.getValue().isEmpty()) continue;
-                    sub.put(mutationsForKey.getKey(), convert(mutationsForKey.getValue()));
-                    numSubMutations+=mutationsForKey.getValue().getTotalMutations();
-                    if (numSubMutations>= persistChunkSize) {
-                        numSubMutations = persist(subMutations);
-                        sub.clear();
-                        subMutations.put(storeMutations.getKey().getName(),sub);
-                    }
+
+        for (Map.Entry<KCVSCache,Map<StaticBuffer, KCVEntryMutation>> storeMutations : mutations.entrySet()) {
+            final KCVSCache cache = storeMutations.getKey();
+            if (invalidationLog != null && invalidationLog.isTracked(cache)) {
+                //Chunks may be persisted by the write-behind executor
+                synchronized (invalidatedKeys) {
+                    invalidatedKeys.computeIfAbsent(cache, k -> new HashSet<>()).addAll(storeMutations.getValue().keySet());
                 }
             }
-            if (numSubMutations>0) persist(subMutations);
-
-
-            for (Map.Entry<KCVSCache,Map<StaticBuffer, KCVEntryMutation>> storeMutations : mutations.entrySet()) {
-                final KCVSCache cache = storeMutations.getKey();
-                for (Map.Entry<StaticBuffer,KCVEntryMutation> mutationsForKey : storeMutations.getValue().entrySet()) {
-                    if (cache.hasValidateKeysOnly()) {
-                        cache.invalidate(mutationsForKey.getKey(), Collections.EMPTY_LIST);
-                    } else {
-                        final KCVEntryMutation m = mutationsForKey.getValue();
-                        final List<CachableStaticBuffer> entries = new ArrayList<>(m.getTotalMutations());
-                        for (final Entry e : m.getAdditions()) {
-                            assert e instanceof CachableStaticBuffer;
-                            entries.add((CachableStaticBuffer)e);
-                        }
-                        for (final StaticBuffer e : m.getDeletions()) {
-                            assert e instanceof CachableStaticBuffer;
-                            entries.add((CachableStaticBuffer)e);
-                        }
-                        cache.invalidate(mutationsForKey.getKey(),entries);
+            for (Map.Entry<StaticBuffer,KCVEntryMutation> mutationsForKey : storeMutations.getValue().entrySet()) {
+                if (cache.hasValidateKeysOnly()) {
+                    cache.invalidate(mutationsForKey.getKey(), Collections.EMPTY_LIST);
+                } else {
+                    final KCVEntryMutation m = mutationsForKey.getValue();
+                    final List<CachableStaticBuffer> entries = new ArrayList<>(m.getTotalMutations());
+                    for (final Entry e : m.getAdditions()) {
+                        assert e instanceof CachableStaticBuffer;
+                        entries.add((CachableStaticBuffer)e);
+                    }
+                    for (final StaticBuffer e : m.getDeletions()) {
+                        assert e instanceof CachableStaticBuffer;
+                        entries.add((CachableStaticBuffer)e);
                     }
+                    cache.invalidate(mutationsForKey.getKey(),entries);
                 }
             }
-            clear();
         }
     }
 
@@ -199,14 +288,34 @@ public class CacheTransaction implements StoreTransaction, LoggableTransaction {
 
     @Override
     public void commit() throws BackendException {
+        awaitPendingPersists(0);
         flushInternal();
         tx.commit();
+        publishInvalidations();
     }
 
     @Override
     public void rollback() throws BackendException {
+        //Chunks which are already in flight cannot be stopped, hence wait for them but ignore their failures
+        try {
+            awaitPendingPersists(0);
+        } catch (BackendException | RuntimeException e) {
+            pendingPersists.clear();
+        }
         clear();
         tx.rollback();
+        //Chunks persisted while batch loading are not rolled back
+        publishInvalidations();
+    }
+
+    private void publishInvalidations() {
+        if (invalidationLog == null) return;
+        synchronized (invalidatedKeys) {
+            if (!invalidatedKeys.isEmpty()) {
+                invalidationLog.publish(invalidatedKeys);
+                invalidatedKeys.clear();
+            }
+        }
     }
 
     @Override
@@ -17,6 +17,8 @@ package org.janusgraph.diskstorage.keycolumnvalue.cache;
 import com.google.common.base.Preconditions;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
 import org.janusgraph.core.JanusGraphException;
 import org.janusgraph.diskstorage.*;
 import org.janusgraph.diskstorage.keycolumnvalue.*;
@@ -26,13 +28,23 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.janusgraph.util.datastructures.ByteSize.*;
 
 /**
+ * A {@link KCVSCache} which holds query results on heap until they expire after the configured cache time or get
+ * evicted due to space constraints.
+ * <p>
+ * All cached queries are indexed by their key such that invalidating a key immediately evicts exactly the queries
+ * cached for that key. Results of reads which began before the latest invalidation of their key are evicted again once
+ * they have been installed, since the invalidation may have missed them while they were loading. Invalidated keys are
+ * additionally bypassed for the configured invalidation grace period.
+ *
  * @author Matthias Broecheler (me@matthiasb.com)
  */
 public class ExpirationKCVSCache extends KCVSCache {
@@ -40,18 +52,18 @@ public class ExpirationKCVSCache extends KCVSCache {
     //Weight estimation
     private static final int STATIC_ARRAY_BUFFER_SIZE = STATICARRAYBUFFER_RAW_SIZE + 10; // 10 = last number is average length
     private static final int KEY_QUERY_SIZE = OBJECT_HEADER + 4 + 1 + 3 * (OBJECT_REFERENCE + STATIC_ARRAY_BUFFER_SIZE); // object_size + int + boolean + 3 static buffers
+    private static final int KEY_INDEX_ENTRY_SIZE = 2 * (OBJECT_HEADER + 4 * OBJECT_REFERENCE); // entry in the key index set and map
 
-    private static final int INVALIDATE_KEY_FRACTION_PENALTY = 1000;
-    private static final int PENALTY_THRESHOLD = 5;
-
-    private volatile CountDownLatch penaltyCountdown;
+    private static final int MIN_EXPIRED_KEYS_PURGE_THRESHOLD = 1000;
 
     private final Cache<KeySliceQuery,EntryList> cache;
+    private final ConcurrentHashMap<StaticBuffer,Set<KeySliceQuery>> keyIndex;
     private final ConcurrentHashMap<StaticBuffer,Long> expiredKeys;
+    private final AtomicInteger expiredKeysPurgeThreshold;
+    private final InvalidationClock invalidations = new InvalidationClock();
 
     private final long cacheTimeMS;
     private final long invalidationGracePeriodMS;
-    private final CleanupThread cleanupThread;
 
 
     public ExpirationKCVSCache(final KeyColumnValueStore store, String metricsName, final long cacheTimeMS, final long invalidationGracePeriodMS, final long maximumByteSize) {
@@ -67,14 +79,16 @@ public class ExpirationKCVSCache extends KCVSCache {
                 .concurrencyLevel(concurrencyLevel)
                 .initialCapacity(1000)
                 .expireAfterWrite(cacheTimeMS, TimeUnit.MILLISECONDS)
-                .weigher((keySliceQuery, entries) -> GUAVA_CACHE_ENTRY_SIZE + KEY_QUERY_SIZE + entries.getByteSize());
+                .weigher((KeySliceQuery keySliceQuery, EntryList entries) -> GUAVA_CACHE_ENTRY_SIZE + KEY_QUERY_SIZE + KEY_INDEX_ENTRY_SIZE + entries.getByteSize())
+                .removalListener((RemovalNotification<KeySliceQuery,EntryList> notification) -> {
+                    //Replaced entries are still cached under the same query
+                    if (notification.getCause() != RemovalCause.REPLACED) removeFromIndex(notification.getKey());
+                });
 
         cache = cachebuilder.build();
+        keyIndex = new ConcurrentHashMap<>(1000, 0.75f, concurrencyLevel);
         expiredKeys = new ConcurrentHashMap<>(50, 0.75f, concurrencyLevel);
-        penaltyCountdown = new CountDownLatch(PENALTY_THRESHOLD);
-
-        cleanupThread = new CleanupThread();
-        cleanupThread.start();
+        expiredKeysPurgeThreshold = new AtomicInteger(MIN_EXPIRED_KEYS_PURGE_THRESHOLD);
     }
 
     @Override
@@ -85,11 +99,17 @@ public class ExpirationKCVSCache extends KCVSCache {
             return store.getSlice(query, unwrapTx(txh));
         }
 
+        final long readStart = invalidations.now();
         try {
-            return cache.get(query, () -> {
+            final EntryList result = cache.get(query, () -> {
                 incActionBy(1, CacheMetricsAction.MISS,txh);
-                return store.getSlice(query, unwrapTx(txh));
+                final EntryList loaded = store.getSlice(query, unwrapTx(txh));
+                addToIndex(query);
+                return loaded;
             });
+            //Invalidations of loading entries are ignored by the cache
+            if (!invalidations.isCurrent(query.getKey(), readStart)) cache.invalidate(query);
+            return result;
         } catch (Exception e) {
             if (e instanceof JanusGraphException) throw (JanusGraphException)e;
             else if (e.getCause() instanceof JanusGraphException) throw (JanusGraphException)e.getCause();
@@ -97,6 +117,25 @@ public class ExpirationKCVSCache extends KCVSCache {
         }
     }
 
+    @Override
+    public CompletableFuture<EntryList> getSliceAsync(final KeySliceQuery query, final StoreTransaction txh) {
+        incActionBy(1, CacheMetricsAction.RETRIEVAL,txh);
+        if (isExpired(query)) {
+            incActionBy(1, CacheMetricsAction.MISS,txh);
+            return store.getSliceAsync(query, unwrapTx(txh));
+        }
+
+        final EntryList cached = cache.getIfPresent(query);
+        if (cached!=null) return CompletableFuture.completedFuture(cached);
+
+        incActionBy(1, CacheMetricsAction.MISS,txh);
+        final long readStart = invalidations.now();
+        return store.getSliceAsync(query, unwrapTx(txh)).thenApply(result -> {
+            put(query, result, readStart);
+            return result;
+        });
+    }
+
     @Override
     public Map<StaticBuffer,EntryList> getSlice(final List<StaticBuffer> keys, final SliceQuery query, final StoreTransaction txh) throws BackendException {
         final Map<StaticBuffer,EntryList> results = new HashMap<>(keys.size());
@@ -116,13 +155,14 @@ public class ExpirationKCVSCache extends KCVSCache {
         //Request remaining ones from backend
         if (!remainingKeys.isEmpty()) {
             incActionBy(remainingKeys.size(), CacheMetricsAction.MISS,txh);
+            final long readStart = invalidations.now();
             Map<StaticBuffer,EntryList> subresults = store.getSlice(remainingKeys, query, unwrapTx(txh));
             for (int i=0;i<keys.size();i++) {
                 StaticBuffer key = keys.get(i);
                 EntryList subresult = subresults.get(key);
                 if (subresult!=null) {
                     results.put(key,subresult);
-                    if (ksqs[i]!=null) cache.put(ksqs[i],subresult);
+                    if (ksqs[i]!=null) put(ksqs[i],subresult,readStart);
                 }
             }
         }
@@ -132,21 +172,44 @@ public class ExpirationKCVSCache extends KCVSCache {
     @Override
     public void clearCache() {
         cache.invalidateAll();
+        keyIndex.clear();
         expiredKeys.clear();
-        penaltyCountdown = new CountDownLatch(PENALTY_THRESHOLD);
     }
 
     @Override
     public void invalidate(StaticBuffer key, List<CachableStaticBuffer> entries) {
         Preconditions.checkArgument(!hasValidateKeysOnly() || entries.isEmpty());
-        expiredKeys.put(key,getExpirationTime());
-        if (Math.random()<1.0/INVALIDATE_KEY_FRACTION_PENALTY) penaltyCountdown.countDown();
+        invalidations.invalidate(key);
+        final long now = System.currentTimeMillis();
+        if (invalidationGracePeriodMS>0) {
+            expiredKeys.put(key,now+invalidationGracePeriodMS);
+            if (expiredKeys.size()>expiredKeysPurgeThreshold.get()) purgeExpiredKeys(now);
+        }
+        final Set<KeySliceQuery> queries = keyIndex.remove(key);
+        if (queries!=null) cache.invalidateAll(queries);
     }
 
-    @Override
-    public void close() throws BackendException {
-        cleanupThread.stopThread();
-        super.close();
+    private void put(final KeySliceQuery query, final EntryList result, final long readStart) {
+        if (!invalidations.isCurrent(query.getKey(), readStart)) return;
+        cache.put(query,result);
+        addToIndex(query);
+        //The key may have been invalidated before the result was indexed
+        if (!invalidations.isCurrent(query.getKey(), readStart)) cache.invalidate(query);
+    }
+
+    private void addToIndex(final KeySliceQuery query) {
+        keyIndex.compute(query.getKey(), (key, queries) -> {
+            if (queries==null) queries = ConcurrentHashMap.newKeySet();
+            queries.add(query);
+            return queries;
+        });
+    }
+
+    private void removeFromIndex(final KeySliceQuery query) {
+        keyIndex.computeIfPresent(query.getKey(), (key, queries) -> {
+            queries.remove(query);
+            return queries.isEmpty()?null:queries;
+        });
     }
 
     private boolean isExpired(final KeySliceQuery query) {
@@ -156,70 +219,19 @@ public class ExpirationKCVSCache extends KCVSCache {
             expiredKeys.remove(query.getKey(),until);
             return false;
         }
-        //We suffer a cache miss, hence decrease the count down
-        penaltyCountdown.countDown();
         return true;
     }
 
-    private long getExpirationTime() {
-        return System.currentTimeMillis()+cacheTimeMS;
+    /**
+     * Removes the markers of keys whose grace period has passed but which have not been read since.
+     */
+    private void purgeExpiredKeys(long now) {
+        expiredKeys.values().removeIf(until -> until<now);
+        expiredKeysPurgeThreshold.set(Math.max(MIN_EXPIRED_KEYS_PURGE_THRESHOLD, 2*expiredKeys.size()));
     }
 
     private boolean isBeyondExpirationTime(long until) {
         return until<System.currentTimeMillis();
     }
 
-    private long getAge(long until) {
-        long age = System.currentTimeMillis() - (until-cacheTimeMS);
-        assert age>=0;
-        return age;
-    }
-
-    private class CleanupThread extends Thread {
-
-        private boolean stop = false;
-
-        public CleanupThread() {
-            this.setDaemon(true);
-            this.setName("ExpirationStoreCache-" + getId());
-        }
-
-        @Override
-        public void run() {
-            while (true) {
-                if (stop) return;
-                try {
-
-                    penaltyCountdown.await();
-                } catch (InterruptedException e) {
-                    if (stop) return;
-                    else throw new RuntimeException("Cleanup thread got interrupted",e);
-                }
-                //Do clean up work by invalidating all entries for expired keys
-                final Map<StaticBuffer,Long> expiredKeysCopy = new HashMap<>(expiredKeys.size());
-                for (Map.Entry<StaticBuffer,Long> expKey : expiredKeys.entrySet()) {
-                    if (isBeyondExpirationTime(expKey.getValue()))
-                        expiredKeys.remove(expKey.getKey(), expKey.getValue());
-                    else if (getAge(expKey.getValue())>= invalidationGracePeriodMS)
-                        expiredKeysCopy.put(expKey.getKey(),expKey.getValue());
-                }
-                for (KeySliceQuery ksq : cache.asMap().keySet()) {
-                    if (expiredKeysCopy.containsKey(ksq.getKey())) cache.invalidate(ksq);
-                }
-                penaltyCountdown = new CountDownLatch(PENALTY_THRESHOLD);
-                for (Map.Entry<StaticBuffer,Long> expKey : expiredKeysCopy.entrySet()) {
-                    expiredKeys.remove(expKey.getKey(),expKey.getValue());
-                }
-            }
-        }
-
-        void stopThread() {
-            stop = true;
-            this.interrupt();
-        }
-    }
-
-
-
-
 }
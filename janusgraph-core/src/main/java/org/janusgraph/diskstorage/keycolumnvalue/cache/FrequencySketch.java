@@ -0,0 +1,107 @@
+// Copyright 2020 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.keycolumnvalue.cache;
+
+/**
+ * A count-min sketch with 4-bit counters which estimates the recent access frequency of cache entries. It is used
+ * as the admission filter of {@link OffHeapKCVSCache} (TinyLFU). The counters are halved once the number of recorded
+ * accesses reaches ten times the configured capacity so that the sketch ages out old access patterns.
+ * <p>
+ * This class is not thread-safe.
+ */
+class FrequencySketch {
+
+    private static final long[] SEEDS = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+    private static final int MAX_TABLE_SIZE = 1 << 30;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int size;
+
+    /**
+     * @param capacity the expected maximum number of entries in the cache
+     */
+    FrequencySketch(long capacity) {
+        final int maximum = (int) Math.min(Math.max(capacity, 16), MAX_TABLE_SIZE);
+        table = new long[Integer.highestOneBit(maximum - 1) << 1];
+        tableMask = table.length - 1;
+        sampleSize = 10 * maximum;
+    }
+
+    /**
+     * Returns the estimated number of recent accesses of the given element, at most 15.
+     */
+    int frequency(Object element) {
+        final int hash = spread(element.hashCode());
+        final int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            final int index = indexOf(hash, i);
+            final int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Records an access of the given element.
+     */
+    void increment(Object element) {
+        final int hash = spread(element.hashCode());
+        final int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++size == sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        final int offset = counter << 2;
+        final long mask = 0xfL << offset;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    private void reset() {
+        int odd = 0;
+        for (int i = 0; i < table.length; i++) {
+            odd += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size >>> 1) - (odd >>> 2);
+    }
+
+    private int indexOf(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return ((int) h) & tableMask;
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
@@ -0,0 +1,67 @@
+// Copyright 2020 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.keycolumnvalue.cache;
+
+import org.janusgraph.diskstorage.StaticBuffer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the order in which keys are invalidated so that a cache can tell whether a result read from the store may
+ * predate the latest invalidation of its key. Such a result must not be cached since the invalidation may already have
+ * evicted the cached queries of the key before the result got installed.
+ * <p>
+ * A read obtains its start time from {@link #now()} before it queries the store and checks {@link #isCurrent(StaticBuffer, long)}
+ * once it has installed the result. Only the most recent invalidations are remembered. Reads which began before the
+ * oldest remembered invalidation are therefore never current.
+ */
+final class InvalidationClock {
+
+    private static final int MAX_TRACKED_KEYS = 10000;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final ConcurrentHashMap<StaticBuffer,Long> invalidations = new ConcurrentHashMap<>();
+    private final AtomicLong forgottenUpTo = new AtomicLong();
+
+    /**
+     * Returns the start time of a read which is about to query the store
+     */
+    long now() {
+        return clock.get();
+    }
+
+    /**
+     * Records an invalidation of the given key. Must be called before the cached queries of the key are evicted.
+     */
+    void invalidate(StaticBuffer key) {
+        final long time = clock.incrementAndGet();
+        invalidations.merge(key, time, Math::max);
+        if (invalidations.size() > MAX_TRACKED_KEYS) {
+            forgottenUpTo.accumulateAndGet(time, Math::max);
+            invalidations.values().removeIf(invalidated -> invalidated <= time);
+        }
+    }
+
+    /**
+     * Returns whether the result of a read of the given key which began at the given time reflects all invalidations
+     * of the key and may hence be cached
+     */
+    boolean isCurrent(StaticBuffer key, long readStart) {
+        final Long invalidated = invalidations.get(key);
+        if (invalidated != null) return invalidated <= readStart;
+        return readStart >= forgottenUpTo.get();
+    }
+}
@@ -0,0 +1,435 @@
+// Copyright 2020 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.keycolumnvalue.cache;
+
+import com.google.common.base.Preconditions;
+import org.janusgraph.diskstorage.BackendException;
+import org.janusgraph.diskstorage.EntryList;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStore;
+import org.janusgraph.diskstorage.keycolumnvalue.KeySliceQuery;
+import org.janusgraph.diskstorage.keycolumnvalue.SliceQuery;
+import org.janusgraph.diskstorage.keycolumnvalue.StoreTransaction;
+import org.janusgraph.diskstorage.util.CacheMetricsAction;
+import org.janusgraph.diskstorage.util.StaticArrayEntryList;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A {@link KCVSCache} which keeps the serialized query results in direct (off-heap) memory such that large caches
+ * do not add to the garbage collection load of the JVM.
+ * <p>
+ * The cache is split into segments by key. Each segment manages a fixed budget of equally sized memory blocks which are
+ * allocated lazily in pages. Entries are first inserted into a small LRU window and then compete for a place in the main
+ * LRU region where a candidate is only admitted if its estimated access frequency is higher than the one of the entry it
+ * would replace (W-TinyLFU). Each segment indexes its entries by key so that invalidating a key only touches the queries
+ * cached for that key.
+ * <p>
+ * Results of reads which began before the latest invalidation of their key are not cached. Invalidated keys are
+ * additionally bypassed for the configured invalidation grace period.
+ */
+public class OffHeapKCVSCache extends KCVSCache {
+
+    public static final int BLOCK_SIZE = 256;
+
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_BLOCKS_PER_SEGMENT = 64;
+    private static final int MAX_PAGE_SIZE = 4 * 1024 * 1024;
+    private static final double WINDOW_PERCENT = 0.01;
+    private static final int MIN_EXPIRED_KEYS_PURGE_THRESHOLD = 1024;
+
+    private final long cacheTimeMS;
+    private final long invalidationGracePeriodMS;
+    private final Segment[] segments;
+    private final InvalidationClock invalidations = new InvalidationClock();
+
+    public OffHeapKCVSCache(final KeyColumnValueStore store, String metricsName, final long cacheTimeMS, final long invalidationGracePeriodMS, final long maximumByteSize) {
+        super(store, metricsName);
+        Preconditions.checkArgument(cacheTimeMS > 0, "Cache expiration must be positive: %s", cacheTimeMS);
+        Preconditions.checkArgument(System.currentTimeMillis()+1000L*3600*24*365*100+cacheTimeMS>0,"Cache expiration time too large, overflow may occur: %s",cacheTimeMS);
+        Preconditions.checkArgument(invalidationGracePeriodMS >=0,"Invalid expiration grace period: %s", invalidationGracePeriodMS);
+        Preconditions.checkArgument(maximumByteSize >= BLOCK_SIZE * MIN_BLOCKS_PER_SEGMENT, "Cache size is too small: %s", maximumByteSize);
+        this.cacheTimeMS = cacheTimeMS;
+        this.invalidationGracePeriodMS = invalidationGracePeriodMS;
+
+        final long totalBlocks = maximumByteSize / BLOCK_SIZE;
+        final int numSegments = Integer.highestOneBit((int) Math.max(1, Math.min(MAX_SEGMENTS, totalBlocks / MIN_BLOCKS_PER_SEGMENT)));
+        final int blocksPerSegment = (int) Math.min(Integer.MAX_VALUE, totalBlocks / numSegments);
+        segments = new Segment[numSegments];
+        for (int i = 0; i < numSegments; i++) {
+            segments[i] = new Segment(blocksPerSegment);
+        }
+    }
+
+    @Override
+    public EntryList getSlice(final KeySliceQuery query, final StoreTransaction txh) throws BackendException {
+        incActionBy(1, CacheMetricsAction.RETRIEVAL,txh);
+        final Segment segment = getSegment(query.getKey());
+        final byte[] cached = segment.get(query);
+        if (cached != null) return StaticArrayEntryList.fromBytes(cached);
+
+        incActionBy(1, CacheMetricsAction.MISS,txh);
+        final long readStart = invalidations.now();
+        final EntryList result = store.getSlice(query, unwrapTx(txh));
+        segment.put(query, result, readStart);
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<EntryList> getSliceAsync(final KeySliceQuery query, final StoreTransaction txh) {
+        incActionBy(1, CacheMetricsAction.RETRIEVAL,txh);
+        final Segment segment = getSegment(query.getKey());
+        final byte[] cached = segment.get(query);
+        if (cached != null) return CompletableFuture.completedFuture(StaticArrayEntryList.fromBytes(cached));
+
+        incActionBy(1, CacheMetricsAction.MISS,txh);
+        final long readStart = invalidations.now();
+        return store.getSliceAsync(query, unwrapTx(txh)).thenApply(result -> {
+            segment.put(query, result, readStart);
+            return result;
+        });
+    }
+
+    @Override
+    public Map<StaticBuffer,EntryList> getSlice(final List<StaticBuffer> keys, final SliceQuery query, final StoreTransaction txh) throws BackendException {
+        final Map<StaticBuffer,EntryList> results = new HashMap<>(keys.size());
+        final List<StaticBuffer> remainingKeys = new ArrayList<>(keys.size());
+        incActionBy(keys.size(), CacheMetricsAction.RETRIEVAL,txh);
+        //Find all cached queries
+        for (final StaticBuffer key : keys) {
+            final byte[] cached = getSegment(key).get(new KeySliceQuery(key, query));
+            if (cached != null) results.put(key, StaticArrayEntryList.fromBytes(cached));
+            else remainingKeys.add(key);
+        }
+        //Request remaining ones from backend
+        if (!remainingKeys.isEmpty()) {
+            incActionBy(remainingKeys.size(), CacheMetricsAction.MISS,txh);
+            final long readStart = invalidations.now();
+            final Map<StaticBuffer,EntryList> subresults = store.getSlice(remainingKeys, query, unwrapTx(txh));
+            for (final StaticBuffer key : remainingKeys) {
+                final EntryList subresult = subresults.get(key);
+                if (subresult != null) {
+                    results.put(key, subresult);
+                    getSegment(key).put(new KeySliceQuery(key, query), subresult, readStart);
+                }
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public void clearCache() {
+        for (final Segment segment : segments) segment.clear();
+    }
+
+    @Override
+    public void invalidate(StaticBuffer key, List<CachableStaticBuffer> entries) {
+        Preconditions.checkArgument(!hasValidateKeysOnly() || entries.isEmpty());
+        invalidations.invalidate(key);
+        getSegment(key).invalidate(key, System.currentTimeMillis() + invalidationGracePeriodMS);
+    }
+
+    @Override
+    public void close() throws BackendException {
+        clearCache();
+        super.close();
+    }
+
+    /**
+     * Returns the number of bytes of direct memory currently used to hold cached entries.
+     */
+    public long getUsedBytes() {
+        long usedBlocks = 0;
+        for (final Segment segment : segments) usedBlocks += segment.getUsedBlocks();
+        return usedBlocks * BLOCK_SIZE;
+    }
+
+    private Segment getSegment(StaticBuffer key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return segments[hash & (segments.length - 1)];
+    }
+
+    private static final class Node {
+
+        private final KeySliceQuery query;
+        private final int[] blocks;
+        private final int length;
+        private final long expirationTime;
+        private boolean inWindow = true;
+
+        private Node(KeySliceQuery query, int[] blocks, int length, long expirationTime) {
+            this.query = query;
+            this.blocks = blocks;
+            this.length = length;
+            this.expirationTime = expirationTime;
+        }
+    }
+
+    private final class Segment {
+
+        private final int maxBlocks;
+        private final int windowMaxBlocks;
+        private final int blocksPerPage;
+
+        private final List<ByteBuffer> pages = new ArrayList<>();
+        private final int[] freeBlocks;
+        private int numFreeBlocks = 0;
+        private int numAllocatedBlocks = 0;
+
+        private final LinkedHashMap<KeySliceQuery,Node> window = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<KeySliceQuery,Node> main = new LinkedHashMap<>(16, 0.75f, true);
+        private int windowBlocks = 0;
+        private int mainBlocks = 0;
+
+        private final Map<StaticBuffer,Set<KeySliceQuery>> keyIndex = new HashMap<>();
+        private final Map<StaticBuffer,Long> expiredKeys = new HashMap<>();
+        private int expiredKeysPurgeThreshold = MIN_EXPIRED_KEYS_PURGE_THRESHOLD;
+
+        private final FrequencySketch sketch;
+
+        private Segment(int maxBlocks) {
+            this.maxBlocks = maxBlocks;
+            this.windowMaxBlocks = Math.max(1, (int) (maxBlocks * WINDOW_PERCENT));
+            this.blocksPerPage = Math.min(maxBlocks, MAX_PAGE_SIZE / BLOCK_SIZE);
+            this.freeBlocks = new int[maxBlocks];
+            //Each entry occupies at least one block
+            this.sketch = new FrequencySketch(maxBlocks);
+        }
+
+        private synchronized int getUsedBlocks() {
+            return windowBlocks + mainBlocks;
+        }
+
+        private synchronized byte[] get(KeySliceQuery query) {
+            sketch.increment(query);
+            final long now = System.currentTimeMillis();
+            if (isExpired(query.getKey(), now)) return null;
+            Node node = window.get(query);
+            if (node == null) node = main.get(query);
+            if (node == null) return null;
+            if (node.expirationTime < now) {
+                remove(node);
+                return null;
+            }
+            return read(node);
+        }
+
+        private void put(KeySliceQuery query, EntryList entries, long readStart) {
+            //Serialize outside of the lock
+            final byte[] bytes = StaticArrayEntryList.toBytes(entries);
+            final int numBlocks = (bytes.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            if (numBlocks > maxBlocks / 2) return;
+            synchronized (this) {
+                final long now = System.currentTimeMillis();
+                //Results read before the latest invalidation of their key must not be cached
+                if (!invalidations.isCurrent(query.getKey(), readStart) || isExpired(query.getKey(), now)) return;
+                Node node = window.get(query);
+                if (node == null) node = main.get(query);
+                if (node != null) remove(node);
+
+                //Make room in the window first so that the entries it pushes out compete for admission into the
+                //main region, and only evict from the main region directly if an oversized entry still does not fit
+                rebalance(numBlocks);
+                while (maxBlocks - windowBlocks - mainBlocks < numBlocks) evict();
+                node = new Node(query, allocate(numBlocks), bytes.length, now + cacheTimeMS);
+                write(node, bytes);
+                window.put(query, node);
+                windowBlocks += numBlocks;
+                keyIndex.computeIfAbsent(query.getKey(), k -> new HashSet<>()).add(query);
+            }
+        }
+
+        private synchronized void invalidate(StaticBuffer key, long expirationTime) {
+            final Set<KeySliceQuery> queries = keyIndex.remove(key);
+            if (queries != null) {
+                for (final KeySliceQuery query : queries) {
+                    Node node = window.remove(query);
+                    if (node != null) {
+                        windowBlocks -= node.blocks.length;
+                    } else {
+                        node = main.remove(query);
+                        mainBlocks -= node.blocks.length;
+                    }
+                    release(node.blocks);
+                }
+            }
+            final long now = System.currentTimeMillis();
+            if (expirationTime > now) {
+                expiredKeys.put(key, expirationTime);
+                if (expiredKeys.size() > expiredKeysPurgeThreshold) {
+                    expiredKeys.values().removeIf(until -> until < now);
+                    expiredKeysPurgeThreshold = Math.max(MIN_EXPIRED_KEYS_PURGE_THRESHOLD, 2 * expiredKeys.size());
+                }
+            }
+        }
+
+        private synchronized void clear() {
+            window.clear();
+            main.clear();
+            windowBlocks = 0;
+            mainBlocks = 0;
+            keyIndex.clear();
+            expiredKeys.clear();
+            expiredKeysPurgeThreshold = MIN_EXPIRED_KEYS_PURGE_THRESHOLD;
+            //Drop the pages so that the direct memory can be reclaimed
+            pages.clear();
+            numFreeBlocks = 0;
+            numAllocatedBlocks = 0;
+        }
+
+        private boolean isExpired(StaticBuffer key, long now) {
+            final Long until = expiredKeys.get(key);
+            if (until == null) return false;
+            if (until < now) {
+                expiredKeys.remove(key);
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * Moves entries out of the window until it has room for the given number of blocks, or is empty, and offers
+         * them to the main region. If the main region is full, the least recently
+         * used entries that would have to make room for a candidate are selected first, and the candidate is only
+         * admitted (evicting them) if it has been accessed more frequently than each of them. Otherwise the candidate
+         * is dropped and the main region is left untouched.
+         */
+        private void rebalance(int reservedBlocks) {
+            final int mainMaxBlocks = maxBlocks - windowMaxBlocks;
+            while (!window.isEmpty() && windowBlocks + reservedBlocks > windowMaxBlocks) {
+                final Node candidate = eldest(window);
+                window.remove(candidate.query);
+                windowBlocks -= candidate.blocks.length;
+
+                final List<Node> victims = admissionVictims(candidate, mainMaxBlocks);
+                if (victims != null) {
+                    for (Node victim : victims) remove(victim);
+                    candidate.inWindow = false;
+                    main.put(candidate.query, candidate);
+                    mainBlocks += candidate.blocks.length;
+                } else {
+                    removeFromIndex(candidate.query);
+                    release(candidate.blocks);
+                }
+            }
+        }
+
+        /**
+         * Returns the main region entries that have to be evicted to admit the given candidate, or null if the
+         * candidate is rejected because one of them is accessed at least as frequently or the region cannot fit it.
+         */
+        private List<Node> admissionVictims(Node candidate, int mainMaxBlocks) {
+            if (mainBlocks + candidate.blocks.length <= mainMaxBlocks) return Collections.emptyList();
+            final int candidateFrequency = sketch.frequency(candidate.query);
+            final List<Node> victims = new ArrayList<>();
+            int freedBlocks = 0;
+            //Iterating an access-ordered map does not count as an access, so the order is preserved
+            final Iterator<Node> eldest = main.values().iterator();
+            while (mainBlocks - freedBlocks + candidate.blocks.length > mainMaxBlocks) {
+                if (!eldest.hasNext()) return null;
+                final Node victim = eldest.next();
+                if (sketch.frequency(victim.query) >= candidateFrequency) return null;
+                victims.add(victim);
+                freedBlocks += victim.blocks.length;
+            }
+            return victims;
+        }
+
+        private void evict() {
+            //The window has already been emptied by rebalance, hence the main region holds the remaining entries
+            remove(eldest(main));
+        }
+
+        private Node eldest(LinkedHashMap<KeySliceQuery,Node> region) {
+            return region.values().iterator().next();
+        }
+
+        private void remove(Node node) {
+            if (node.inWindow) {
+                window.remove(node.query);
+                windowBlocks -= node.blocks.length;
+            } else {
+                main.remove(node.query);
+                mainBlocks -= node.blocks.length;
+            }
+            removeFromIndex(node.query);
+            release(node.blocks);
+        }
+
+        private void removeFromIndex(KeySliceQuery query) {
+            final Set<KeySliceQuery> queries = keyIndex.get(query.getKey());
+            if (queries != null && queries.remove(query) && queries.isEmpty()) {
+                keyIndex.remove(query.getKey());
+            }
+        }
+
+        private int[] allocate(int numBlocks) {
+            final int[] blocks = new int[numBlocks];
+            for (int i = 0; i < numBlocks; i++) {
+                if (numFreeBlocks == 0) addPage();
+                blocks[i] = freeBlocks[--numFreeBlocks];
+            }
+            return blocks;
+        }
+
+        private void release(int[] blocks) {
+            for (final int block : blocks) freeBlocks[numFreeBlocks++] = block;
+        }
+
+        private void addPage() {
+            final int numBlocks = Math.min(blocksPerPage, maxBlocks - numAllocatedBlocks);
+            assert numBlocks > 0;
+            pages.add(ByteBuffer.allocateDirect(numBlocks * BLOCK_SIZE));
+            //Push in reverse order so that blocks are handed out sequentially
+            for (int i = numBlocks - 1; i >= 0; i--) freeBlocks[numFreeBlocks++] = numAllocatedBlocks + i;
+            numAllocatedBlocks += numBlocks;
+        }
+
+        private void write(Node node, byte[] bytes) {
+            int offset = 0;
+            for (final int block : node.blocks) {
+                final ByteBuffer page = pages.get(block / blocksPerPage);
+                page.position((block % blocksPerPage) * BLOCK_SIZE);
+                final int length = Math.min(BLOCK_SIZE, bytes.length - offset);
+                page.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        private byte[] read(Node node) {
+            final byte[] bytes = new byte[node.length];
+            int offset = 0;
+            for (final int block : node.blocks) {
+                final ByteBuffer page = pages.get(block / blocksPerPage);
+                page.position((block % blocksPerPage) * BLOCK_SIZE);
+                final int length = Math.min(BLOCK_SIZE, bytes.length - offset);
+                page.get(bytes, offset, length);
+                offset += length;
+            }
+            return bytes;
+        }
+    }
+}
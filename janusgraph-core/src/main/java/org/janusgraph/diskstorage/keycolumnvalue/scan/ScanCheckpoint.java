@@ -0,0 +1,156 @@
+// Copyright 2020 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.keycolumnvalue.scan;
+
+import com.google.common.base.Preconditions;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.configuration.WriteConfiguration;
+import org.janusgraph.diskstorage.util.Hex;
+import org.janusgraph.diskstorage.util.StaticArrayBuffer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The progress of a {@link ScanJob} which is persisted periodically so that the job can be resumed if it does not
+ * complete. For every key range of the scan, the checkpoint records the last key up to which all rows have been
+ * processed and whether the key range has been processed entirely. It also records the {@link ScanMetrics} accumulated
+ * so far.
+ * <p>
+ * Since rows are processed concurrently, the recorded metrics may include rows after the recorded keys which are
+ * processed again when the job is resumed.
+ */
+class ScanCheckpoint {
+
+    private static final String VERSION = "1";
+    private static final String SECTION_SEPARATOR = "|";
+    private static final String ELEMENT_SEPARATOR = ";";
+    private static final String FIELD_SEPARATOR = ":";
+    private static final String NONE = "-";
+
+    private final List<Range> ranges;
+    private final Map<ScanMetrics.Metric, Long> metrics;
+    private final Map<String, Long> customMetrics;
+
+    ScanCheckpoint(List<Range> ranges, Map<ScanMetrics.Metric, Long> metrics, Map<String, Long> customMetrics) {
+        this.ranges = ranges;
+        this.metrics = metrics;
+        this.customMetrics = customMetrics;
+    }
+
+    List<Range> getRanges() {
+        return Collections.unmodifiableList(ranges);
+    }
+
+    Map<ScanMetrics.Metric, Long> getMetrics() {
+        return Collections.unmodifiableMap(metrics);
+    }
+
+    Map<String, Long> getCustomMetrics() {
+        return Collections.unmodifiableMap(customMetrics);
+    }
+
+    /**
+     * Returns the checkpoint of the job with the given id or null if no checkpoint exists.
+     */
+    static ScanCheckpoint read(WriteConfiguration checkpoints, String jobId) {
+        final String encoded = checkpoints.get(jobId, String.class);
+        return encoded == null ? null : decode(encoded);
+    }
+
+    void write(WriteConfiguration checkpoints, String jobId) {
+        checkpoints.set(jobId, encode());
+    }
+
+    static void remove(WriteConfiguration checkpoints, String jobId) {
+        checkpoints.remove(jobId);
+    }
+
+    String encode() {
+        final List<String> encodedRanges = new ArrayList<>(ranges.size());
+        for (Range range : ranges) {
+            encodedRanges.add(String.join(FIELD_SEPARATOR, encode(range.start), encode(range.end),
+                    range.processedUntil == null ? NONE : encode(range.processedUntil),
+                    range.completed ? "1" : "0"));
+        }
+        final List<String> encodedMetrics = new ArrayList<>(metrics.size());
+        metrics.forEach((metric, value) -> encodedMetrics.add(metric.name() + FIELD_SEPARATOR + value));
+        final List<String> encodedCustomMetrics = new ArrayList<>(customMetrics.size());
+        customMetrics.forEach((metric, value) -> encodedCustomMetrics.add(
+                Hex.bytesToHex(metric.getBytes(StandardCharsets.UTF_8)) + FIELD_SEPARATOR + value));
+        return String.join(SECTION_SEPARATOR, VERSION, String.join(ELEMENT_SEPARATOR, encodedRanges),
+                String.join(ELEMENT_SEPARATOR, encodedMetrics), String.join(ELEMENT_SEPARATOR, encodedCustomMetrics));
+    }
+
+    static ScanCheckpoint decode(String encoded) {
+        final String[] sections = encoded.split("\\" + SECTION_SEPARATOR, -1);
+        Preconditions.checkArgument(sections.length == 4 && VERSION.equals(sections[0]),
+                "Invalid scan checkpoint: %s", encoded);
+        final List<Range> ranges = new ArrayList<>();
+        for (String[] fields : elements(sections[1])) {
+            ranges.add(new Range(decodeBuffer(fields[0]), decodeBuffer(fields[1]),
+                    NONE.equals(fields[2]) ? null : decodeBuffer(fields[2]), "1".equals(fields[3])));
+        }
+        final Map<ScanMetrics.Metric, Long> metrics = new EnumMap<>(ScanMetrics.Metric.class);
+        for (String[] fields : elements(sections[2])) {
+            metrics.put(ScanMetrics.Metric.valueOf(fields[0]), Long.parseLong(fields[1]));
+        }
+        final Map<String, Long> customMetrics = new HashMap<>();
+        for (String[] fields : elements(sections[3])) {
+            customMetrics.put(new String(Hex.hexToBytes(fields[0]), StandardCharsets.UTF_8), Long.parseLong(fields[1]));
+        }
+        return new ScanCheckpoint(ranges, metrics, customMetrics);
+    }
+
+    private static List<String[]> elements(String section) {
+        final List<String[]> elements = new ArrayList<>();
+        if (section.isEmpty()) return elements;
+        for (String element : section.split(ELEMENT_SEPARATOR)) {
+            elements.add(element.split(FIELD_SEPARATOR));
+        }
+        return elements;
+    }
+
+    private static String encode(StaticBuffer buffer) {
+        return Hex.bytesToHex(buffer.as(StaticBuffer.ARRAY_FACTORY));
+    }
+
+    private static StaticBuffer decodeBuffer(String hex) {
+        return StaticArrayBuffer.of(Hex.hexToBytes(hex));
+    }
+
+    /**
+     * The progress of a single key range [start, end).
+     */
+    static class Range {
+
+        final StaticBuffer start;
+        final StaticBuffer end;
+        final StaticBuffer processedUntil;
+        final boolean completed;
+
+        Range(StaticBuffer start, StaticBuffer end, StaticBuffer processedUntil, boolean completed) {
+            this.start = start;
+            this.end = end;
+            this.processedUntil = processedUntil;
+            this.completed = completed;
+        }
+    }
+}
@@ -18,6 +18,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
@@ -84,5 +86,18 @@ public class StandardScanMetrics implements ScanMetrics {
         metrics.get(metric).incrementAndGet();
     }
 
+    void increment(Metric metric, long delta) {
+        metrics.get(metric).addAndGet(delta);
+    }
+
+    /**
+     * Returns a snapshot of all custom counters.
+     */
+    Map<String,Long> getCustomMetrics() {
+        final Map<String,Long> snapshot = new HashMap<>(customMetrics.size());
+        customMetrics.forEach((metric, counter) -> snapshot.put(metric, counter.get()));
+        return snapshot;
+    }
+
 
 }
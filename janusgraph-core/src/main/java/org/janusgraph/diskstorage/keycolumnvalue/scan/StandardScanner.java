@@ -23,8 +23,12 @@ import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStoreManager;
 import org.janusgraph.diskstorage.keycolumnvalue.StoreTransaction;
 import org.janusgraph.diskstorage.util.StandardBaseTransactionConfig;
 import org.janusgraph.diskstorage.util.time.TimestampProvider;
+import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
 import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -38,6 +42,8 @@ import java.util.function.Consumer;
  */
 public class StandardScanner  {
 
+    private static final Logger log = LoggerFactory.getLogger(StandardScanner.class);
+
     private final KeyColumnValueStoreManager manager;
     private final Set<KeyColumnValueStore> openStores;
     private final ConcurrentMap<Object,StandardScannerExecutor> runningJobs;
@@ -87,16 +93,20 @@ public class StandardScanner  {
         private ScanJob job;
         private int numProcessingThreads;
         private int workBlockSize;
+        private Integer numKeyRanges;
         private TimestampProvider times;
         private Configuration graphConfiguration;
         private Configuration jobConfiguration;
         private String dbName;
         private Consumer<ScanMetrics> finishJob;
         private Object jobId;
+        private WriteConfiguration checkpoints;
+        private Duration checkpointInterval;
 
         private Builder() {
             numProcessingThreads = 1;
             workBlockSize = DEFAULT_WORKBLOCK_SIZE;
+            numKeyRanges = null;
             job = null;
             times = null;
             graphConfiguration = Configuration.EMPTY;
@@ -104,6 +114,8 @@ public class StandardScanner  {
             dbName = null;
             jobId = jobCounter.incrementAndGet();
             finishJob = m -> {} ;
+            checkpoints = null;
+            checkpointInterval = null;
         }
 
         public Builder setNumProcessingThreads(int numThreads) {
@@ -119,6 +131,16 @@ public class StandardScanner  {
             return this;
         }
 
+        /**
+         * Sets the number of key ranges which are read concurrently. Defaults to
+         * {@link GraphDatabaseConfiguration#SCAN_KEY_RANGES} of the graph configuration.
+         */
+        public Builder setNumKeyRanges(int numRanges) {
+            Preconditions.checkArgument(numRanges>0, "Need to specify a positive number of key ranges: %s",numRanges);
+            this.numKeyRanges = numRanges;
+            return this;
+        }
+
         public Builder setTimestampProvider(TimestampProvider times) {
             this.times = Preconditions.checkNotNull(times);
             return this;
@@ -163,6 +185,22 @@ public class StandardScanner  {
             return this;
         }
 
+        /**
+         * Enables checkpointing for this job. The progress of the job is persisted under the job's class and id in the
+         * given configuration in the given interval and when the job fails or gets interrupted. If a checkpoint of a
+         * previous run of the same kind of job with the same id exists, the job resumes from that checkpoint instead of
+         * starting from the first key. Hence, the job id should be set explicitly to be able to resume a job.
+         * <p>
+         * Checkpointing requires the store to support ordered scans and is ignored otherwise.
+         */
+        public Builder setCheckpointing(WriteConfiguration checkpoints, Duration interval) {
+            Preconditions.checkArgument(interval != null && !interval.isNegative() && !interval.isZero(),
+                    "Need to specify a positive checkpoint interval: %s", interval);
+            this.checkpoints = Preconditions.checkNotNull(checkpoints);
+            this.checkpointInterval = interval;
+            return this;
+        }
+
         public JanusGraphManagement.IndexJobFuture execute() throws BackendException {
             Preconditions.checkNotNull(job,"Need to specify a job to execute");
             Preconditions.checkArgument(StringUtils.isNotBlank(dbName),"Need to specify a database to execute against");
@@ -195,13 +233,29 @@ public class StandardScanner  {
 //                txBuilder.customOptions(customConf);
 //            }
 
+            //Different kinds of jobs may be started with the same id, e.g. the id of the index they operate on
+            final String checkpointId = job.getClass().getName() + "@" + jobId;
+            WriteConfiguration jobCheckpoints = checkpoints;
+            ScanCheckpoint checkpoint = null;
+            if (jobCheckpoints != null) {
+                if (manager.getFeatures().hasOrderedScan()) {
+                    checkpoint = ScanCheckpoint.read(jobCheckpoints, checkpointId);
+                } else {
+                    log.warn("Store does not support ordered scans, hence job [{}] cannot be checkpointed", checkpointId);
+                    jobCheckpoints = null;
+                }
+            }
+
             StoreTransaction storeTx = manager.beginTransaction(txBuilder.build());
             KeyColumnValueStore kcvs = manager.openDatabase(dbName);
 
             openStores.add(kcvs);
             try {
                 StandardScannerExecutor executor = new StandardScannerExecutor(job, finishJob, kcvs, storeTx,
-                        manager.getFeatures(), numProcessingThreads, workBlockSize, jobConfiguration, graphConfiguration);
+                        manager.getFeatures(), numProcessingThreads, workBlockSize,
+                        numKeyRanges != null ? numKeyRanges : graphConfiguration.get(GraphDatabaseConfiguration.SCAN_KEY_RANGES),
+                        jobConfiguration, graphConfiguration,
+                        jobCheckpoints, checkpointInterval, checkpointId, checkpoint);
                 addJob(jobId,executor);
                 new Thread(executor).start();
                 return executor;
@@ -19,22 +19,35 @@ import com.google.common.util.concurrent.AbstractFuture;
 import org.janusgraph.core.schema.JanusGraphManagement;
 import org.janusgraph.diskstorage.*;
 import org.janusgraph.diskstorage.configuration.Configuration;
+import org.janusgraph.diskstorage.configuration.WriteConfiguration;
 import org.janusgraph.diskstorage.keycolumnvalue.*;
 import org.janusgraph.diskstorage.util.BufferUtil;
 import org.janusgraph.diskstorage.util.EntryArrayList;
 import org.janusgraph.diskstorage.util.RecordIterator;
+import org.janusgraph.diskstorage.util.StaticArrayBuffer;
 import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
 import org.janusgraph.util.system.Threads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
 /**
+ * Executes a {@link ScanJob} against a store. The rows of the store are read by one data puller thread per query of the
+ * job and merged into a single stream of rows which is processed by the configured number of processor threads.
+ * <p>
+ * If the store supports ordered scans, the key space can be split into multiple key ranges. Each key range is then read
+ * by its own set of data pullers and merged by its own thread so that the rows of the ranges are read concurrently.
+ * <p>
+ * If checkpointing is enabled, the progress of every key range is tracked and periodically persisted as a
+ * {@link ScanCheckpoint}. A job which is started with a checkpoint only reads the keys after the last keys recorded in
+ * the checkpoint.
+ *
  * @author Matthias Broecheler (me@matthiasb.com)
  */
 class StandardScannerExecutor extends AbstractFuture<ScanMetrics> implements JanusGraphManagement.IndexJobFuture, Runnable {
@@ -45,6 +58,7 @@ class StandardScannerExecutor extends AbstractFuture<ScanMetrics> implements Jan
     private static final int TIMEOUT_MS = 180000; // 60 seconds
     private static final int TIME_PER_TRY = 10; // 10 milliseconds
     private static final int MAX_KEY_LENGTH = 128; //in bytes
+    private static final int MAX_KEY_RANGES = 1 << 16; //the key space is split on the first two bytes of the keys
 
     private final ScanJob job;
     private final Consumer<ScanMetrics> finishJob;
@@ -53,22 +67,31 @@ class StandardScannerExecutor extends AbstractFuture<ScanMetrics> implements Jan
     private final KeyColumnValueStore store;
     private final int numProcessors;
     private final int workBlockSize;
+    private final int numKeyRanges;
     private final Configuration jobConfiguration;
     private final Configuration graphConfiguration;
-    private final ScanMetrics metrics;
+    private final StandardScanMetrics metrics;
+    private final WriteConfiguration checkpoints;
+    private final Duration checkpointInterval;
+    private final String checkpointId;
+    private final ScanCheckpoint resumeFrom;
 
     private boolean hasCompleted = false;
-    private boolean interrupted = false;
+    private volatile boolean interrupted = false;
+    private volatile Throwable failure = null;
 
-    private List<BlockingQueue<SliceResult>> dataQueues;
-    private DataPuller[] pullThreads;
+    private List<KeyRangeScan> rangeScans;
+    private final List<ScanCheckpoint.Range> completedRanges = new ArrayList<>();
+    private final List<DataPuller> pullThreads = new CopyOnWriteArrayList<>();
 
     StandardScannerExecutor(final ScanJob job, final Consumer<ScanMetrics> finishJob,
                             final KeyColumnValueStore store, final StoreTransaction storeTx,
                             final StoreFeatures storeFeatures,
-                            final int numProcessors, final int workBlockSize,
+                            final int numProcessors, final int workBlockSize, final int numKeyRanges,
                             final Configuration jobConfiguration,
-                            final Configuration graphConfiguration) {
+                            final Configuration graphConfiguration,
+                            final WriteConfiguration checkpoints, final Duration checkpointInterval,
+                            final String checkpointId, final ScanCheckpoint resumeFrom) {
         this.job = job;
         this.finishJob = finishJob;
         this.store = store;
@@ -76,24 +99,68 @@ class StandardScannerExecutor extends AbstractFuture<ScanMetrics> implements Jan
         this.storeFeatures = storeFeatures;
         this.numProcessors = numProcessors;
         this.workBlockSize = workBlockSize;
+        this.numKeyRanges = numKeyRanges;
         this.jobConfiguration = jobConfiguration;
         this.graphConfiguration = graphConfiguration;
+        this.checkpoints = checkpoints;
+        this.checkpointInterval = checkpointInterval;
+        this.checkpointId = checkpointId;
+        this.resumeFrom = resumeFrom;
 
         metrics = new StandardScanMetrics();
+        if (resumeFrom != null) {
+            resumeFrom.getMetrics().forEach(metrics::increment);
+            resumeFrom.getCustomMetrics().forEach(metrics::incrementCustom);
+        }
     }
 
-    private DataPuller addDataPuller(SliceQuery sq, StoreTransaction stx, int pos) throws BackendException {
+    private DataPuller addDataPuller(SliceQuery sq, KeyRange keyRange, StoreTransaction stx, String name) throws BackendException {
         final BlockingQueue<SliceResult> queue = new LinkedBlockingQueue<>(
                 this.graphConfiguration.get(GraphDatabaseConfiguration.PAGE_SIZE));
-        dataQueues.add(queue);
 
-        DataPuller dp = new DataPuller(sq, queue,
-                KCVSUtil.getKeys(store,sq,storeFeatures,MAX_KEY_LENGTH,stx),job.getKeyFilter());
-        dp.setName("data-puller-" + pos); // setting the name for thread dumps!
+        final KeyIterator keys = keyRange == null ?
+                KCVSUtil.getKeys(store,sq,storeFeatures,MAX_KEY_LENGTH,stx) :
+                store.getKeys(new KeyRangeQuery(keyRange.getStart(),keyRange.getEnd(),sq),stx);
+        DataPuller dp = new DataPuller(sq, queue, keys, job.getKeyFilter());
+        dp.setName(name); // setting the name for thread dumps!
+        pullThreads.add(dp);
         dp.start();
         return dp;
     }
 
+    /**
+     * Returns the key ranges to read concurrently. A single null range stands for the entire key space which is read
+     * without restricting the keys.
+     */
+    private List<KeyRange> getKeyRanges() {
+        //Checkpoints record the progress per key range, hence the key space is always split into explicit ranges
+        if (checkpoints != null) return splitKeySpace(numKeyRanges);
+        if (numKeyRanges <= 1) return Collections.singletonList(null);
+        if (!storeFeatures.hasOrderedScan()) {
+            log.warn("Store does not support ordered scans, hence the key space cannot be split into {} ranges", numKeyRanges);
+            return Collections.singletonList(null);
+        }
+        return splitKeySpace(numKeyRanges);
+    }
+
+    /**
+     * Splits the key space into the given number of ranges of equal width based on the first two bytes of the keys.
+     */
+    static List<KeyRange> splitKeySpace(int numRanges) {
+        Preconditions.checkArgument(numRanges > 0, "Invalid number of key ranges: %s", numRanges);
+        numRanges = Math.min(numRanges, MAX_KEY_RANGES);
+        final List<KeyRange> ranges = new ArrayList<>(numRanges);
+        StaticBuffer start = BufferUtil.zeroBuffer(1);
+        for (int i = 1; i < numRanges; i++) {
+            final int prefix = (int) ((long) i * MAX_KEY_RANGES / numRanges);
+            final StaticBuffer end = new StaticArrayBuffer(new byte[]{(byte) (prefix >>> 8), (byte) prefix});
+            ranges.add(new KeyRange(start, end));
+            start = end;
+        }
+        ranges.add(new KeyRange(start, BufferUtil.oneBuffer(MAX_KEY_LENGTH)));
+        return ranges;
+    }
+
     @Override
     public void run() {
         final List<SliceQuery> queries;
@@ -114,11 +181,19 @@ class StandardScannerExecutor extends AbstractFuture<ScanMetrics> implements Jan
                 Preconditions.checkArgument(end.equals(BufferUtil.oneBuffer(end.length())),
                         "Expected end of first query to be all 1s: %s",end);
             }
-            dataQueues = new ArrayList<>(numQueries);
-            pullThreads = new DataPuller[numQueries];
-
-            for (int pos = 0; pos< numQueries; pos++) {
-                pullThreads[pos] = addDataPuller(queries.get(pos), storeTx, pos);
+            rangeScans = new ArrayList<>();
+            if (resumeFrom != null) {
+                for (ScanCheckpoint.Range range : resumeFrom.getRanges()) {
+                    if (range.completed) completedRanges.add(range);
+                    else rangeScans.add(new KeyRangeScan(queries, new KeyRange(range.start, range.end),
+                            range.processedUntil, rangeScans.size()));
+                }
+                log.info("Resuming scan job [{}] with {} of {} key ranges remaining", checkpointId,
+                        rangeScans.size(), resumeFrom.getRanges().size());
+            } else {
+                for (KeyRange keyRange : getKeyRanges()) {
+                    rangeScans.add(new KeyRangeScan(queries, keyRange, null, rangeScans.size()));
+                }
             }
         }  catch (Throwable e) {
             log.error("Exception trying to setup the job:", e);
@@ -138,50 +213,23 @@ class StandardScannerExecutor extends AbstractFuture<ScanMetrics> implements Jan
         }
 
         try {
-            SliceResult[] currentResults = new SliceResult[numQueries];
-            while (!interrupted) {
-                for (int i = 0; i < numQueries; i++) {
-                    if (currentResults[i]!=null) continue;
-                    BlockingQueue<SliceResult> queue = dataQueues.get(i);
-
-                    SliceResult qr = queue.poll(TIME_PER_TRY,TimeUnit.MILLISECONDS); //Try very short time to see if we are done
-                    if (qr==null) {
-                        if (pullThreads[i].isFinished()) continue; //No more data to be expected
-                        while (!pullThreads[i].isFinished() && qr == null) {
-                            qr = queue.poll(TIME_PER_TRY, TimeUnit.MILLISECONDS);
-                        }
-                        if (qr==null && !pullThreads[i].isFinished())
-                            throw new TemporaryBackendException("Timed out waiting for next row data - storage error likely");
-                    }
-                    currentResults[i]=qr;
-                }
-                SliceResult conditionQuery = currentResults[0];
-                if (conditionQuery==null) break; //Termination condition - primary query has no more data
-                final StaticBuffer key = conditionQuery.key;
-
-                Map<SliceQuery,EntryList> queryResults = new HashMap<>(numQueries);
-                for (int i=0;i<currentResults.length;i++) {
-                    SliceQuery query = queries.get(i);
-                    EntryList entries = EntryList.EMPTY_LIST;
-                    if (currentResults[i]!=null && currentResults[i].key.equals(key)) {
-                        assert query.equals(currentResults[i].query);
-                        entries = currentResults[i].entries;
-                        currentResults[i]=null;
-                    }
-                    queryResults.put(query,entries);
-                }
-                processorQueue.put(new Row(key, queryResults));
+            for (KeyRangeScan rangeScan : rangeScans) {
+                rangeScan.start(processorQueue);
             }
+            for (KeyRangeScan rangeScan : rangeScans) {
+                while (!rangeScan.join()) writeCheckpoint();
+            }
+            if (failure != null) throw failure;
 
-            for (int i = 0; i < pullThreads.length; i++) {
-                pullThreads[i].join(10);
-                if (pullThreads[i].isAlive()) {
-                    log.warn("Data pulling thread [{}] did not terminate. Forcing termination",i);
+            for (DataPuller pullThread : pullThreads) {
+                pullThread.join(10);
+                if (pullThread.isAlive()) {
+                    log.warn("Data pulling thread [{}] did not terminate. Forcing termination",pullThread.getName());
                     if (storeFeatures.supportsInterruption()) {
-                        pullThreads[i].interrupt();
+                        pullThread.interrupt();
                     } else {
-                        log.warn("Store does not support interruption, so data pulling thread [{}] cannot be interrupted", i);
-                        pullThreads[i].finished = true;
+                        log.warn("Store does not support interruption, so data pulling thread [{}] cannot be interrupted", pullThread.getName());
+                        pullThread.finished = true;
                     }
                 }
             }
@@ -200,13 +248,16 @@ class StandardScannerExecutor extends AbstractFuture<ScanMetrics> implements Jan
             }
 
             if (interrupted) {
+                writeCheckpoint();
                 setException(new InterruptedException("Scanner got interrupted"));
             } else {
+                if (checkpoints != null) ScanCheckpoint.remove(checkpoints, checkpointId);
                 finishJob.accept(metrics);
                 set(metrics);
             }
         } catch (Throwable e) {
             log.error("Exception occurred during job execution:", e);
+            writeCheckpoint();
             job.workerIterationEnd(metrics);
             setException(e);
         } finally {
@@ -215,6 +266,26 @@ class StandardScannerExecutor extends AbstractFuture<ScanMetrics> implements Jan
         }
     }
 
+    /**
+     * Persists the progress of all key ranges and the metrics accumulated so far if checkpointing is enabled.
+     */
+    private void writeCheckpoint() {
+        if (checkpoints == null) return;
+        try {
+            final List<ScanCheckpoint.Range> ranges = new ArrayList<>(completedRanges);
+            for (KeyRangeScan rangeScan : rangeScans) {
+                ranges.add(rangeScan.checkpoint());
+            }
+            final Map<ScanMetrics.Metric, Long> standardMetrics = new EnumMap<>(ScanMetrics.Metric.class);
+            for (ScanMetrics.Metric metric : ScanMetrics.Metric.values()) {
+                standardMetrics.put(metric, metrics.get(metric));
+            }
+            new ScanCheckpoint(ranges, standardMetrics, metrics.getCustomMetrics()).write(checkpoints, checkpointId);
+        } catch (Throwable e) {
+            log.warn("Could not persist checkpoint of scan job [" + checkpointId + "]", e);
+        }
+    }
+
     @Override
     protected void interruptTask() {
         interrupted = true;
@@ -223,15 +294,13 @@ class StandardScannerExecutor extends AbstractFuture<ScanMetrics> implements Jan
     private void cleanup() throws BackendException {
         if (!hasCompleted) {
             hasCompleted = true;
-            if (pullThreads!=null) {
-                for (DataPuller pullThread : pullThreads) {
-                    if (pullThread.isAlive()) {
-                        if (storeFeatures.supportsInterruption()) {
-                            pullThread.interrupt();
-                        } else {
-                            log.warn("Store does not support interruption, so data pulling thread cannot be interrupted");
-                            pullThread.finished = true;
-                        }
+            for (DataPuller pullThread : pullThreads) {
+                if (pullThread.isAlive()) {
+                    if (storeFeatures.supportsInterruption()) {
+                        pullThread.interrupt();
+                    } else {
+                        log.warn("Store does not support interruption, so data pulling thread cannot be interrupted");
+                        pullThread.finished = true;
                     }
                 }
             }
@@ -252,23 +321,167 @@ class StandardScannerExecutor extends AbstractFuture<ScanMetrics> implements Jan
         return metrics;
     }
 
+    /**
+     * Reads the rows of one key range with one data puller per query and merges the results of all queries for each
+     * key into a single row.
+     * <p>
+     * If checkpointing is enabled, the rows are numbered in the order they are read. The key of the last row up to
+     * which all rows have been processed is the progress of the key range.
+     */
+    private class KeyRangeScan {
+
+        private final List<SliceQuery> queries;
+        private final KeyRange keyRange;
+        private final List<BlockingQueue<SliceResult>> dataQueues;
+        private final DataPuller[] pullThreads;
+        private final String name;
+        private Thread merger;
+
+        private final ConcurrentSkipListMap<Long, StaticBuffer> inFlight = new ConcurrentSkipListMap<>();
+        private final ConcurrentSkipListMap<Long, StaticBuffer> processed = new ConcurrentSkipListMap<>();
+        private long nextSequence = 0;
+        private volatile boolean exhausted = false;
+        private StaticBuffer processedUntil;
+
+        /**
+         * @param keyRange the key range to read or null to read the entire key space
+         * @param processedUntil the key up to which the key range has already been processed or null
+         */
+        private KeyRangeScan(List<SliceQuery> queries, KeyRange keyRange, StaticBuffer processedUntil, int rangeNo)
+                throws BackendException {
+            this.queries = queries;
+            this.keyRange = keyRange;
+            this.processedUntil = processedUntil;
+            this.name = keyRange == null ? "" : "-" + rangeNo;
+            KeyRange remaining = keyRange;
+            if (processedUntil != null) {
+                //Appending a zero byte yields the smallest key which is greater than the last processed key
+                final byte[] next = Arrays.copyOf(processedUntil.as(StaticBuffer.ARRAY_FACTORY), processedUntil.length() + 1);
+                remaining = new KeyRange(new StaticArrayBuffer(next), keyRange.getEnd());
+            }
+            dataQueues = new ArrayList<>(queries.size());
+            pullThreads = new DataPuller[queries.size()];
+            for (int pos = 0; pos < queries.size(); pos++) {
+                pullThreads[pos] = addDataPuller(queries.get(pos), remaining, storeTx, "data-puller" + name + "-" + pos);
+                dataQueues.add(pullThreads[pos].queue);
+            }
+        }
+
+        private void start(BlockingQueue<Row> processorQueue) {
+            merger = new Thread(() -> {
+                try {
+                    merge(processorQueue);
+                } catch (Throwable e) {
+                    if (failure == null) failure = e;
+                }
+            }, "data-merger" + name);
+            merger.start();
+        }
+
+        /**
+         * Waits for all rows of the key range to be read, or for the checkpoint interval to pass if checkpointing is
+         * enabled. Returns whether all rows have been read.
+         */
+        private boolean join() throws InterruptedException {
+            if (checkpoints == null) merger.join();
+            else merger.join(checkpointInterval.toMillis());
+            return !merger.isAlive();
+        }
+
+        private Row row(StaticBuffer key, Map<SliceQuery,EntryList> entries) {
+            final long sequence = nextSequence++;
+            if (checkpoints != null) inFlight.put(sequence, key);
+            return new Row(key, entries, this, sequence);
+        }
+
+        private void processed(Row row) {
+            if (checkpoints == null) return;
+            processed.put(row.sequence, row.key);
+            inFlight.remove(row.sequence);
+        }
+
+        private synchronized ScanCheckpoint.Range checkpoint() {
+            final boolean allRead = exhausted;
+            final Map.Entry<Long, StaticBuffer> oldestInFlight = inFlight.firstEntry();
+            final NavigableMap<Long, StaticBuffer> done = oldestInFlight == null ?
+                    processed : processed.headMap(oldestInFlight.getKey(), false);
+            final Map.Entry<Long, StaticBuffer> last = done.lastEntry();
+            if (last != null) {
+                processedUntil = last.getValue();
+                done.headMap(last.getKey(), true).clear();
+            }
+            return new ScanCheckpoint.Range(keyRange.getStart(), keyRange.getEnd(), processedUntil,
+                    allRead && inFlight.isEmpty());
+        }
+
+        private void merge(BlockingQueue<Row> processorQueue) throws BackendException, InterruptedException {
+            final int numQueries = queries.size();
+            SliceResult[] currentResults = new SliceResult[numQueries];
+            while (!interrupted && failure == null) {
+                for (int i = 0; i < numQueries; i++) {
+                    if (currentResults[i]!=null) continue;
+                    BlockingQueue<SliceResult> queue = dataQueues.get(i);
+
+                    SliceResult qr = queue.poll(TIME_PER_TRY,TimeUnit.MILLISECONDS); //Try very short time to see if we are done
+                    if (qr==null) {
+                        if (pullThreads[i].isFinished()) continue; //No more data to be expected
+                        while (!pullThreads[i].isFinished() && qr == null) {
+                            qr = queue.poll(TIME_PER_TRY, TimeUnit.MILLISECONDS);
+                        }
+                        if (qr==null && !pullThreads[i].isFinished())
+                            throw new TemporaryBackendException("Timed out waiting for next row data - storage error likely");
+                    }
+                    currentResults[i]=qr;
+                }
+                SliceResult conditionQuery = currentResults[0];
+                if (conditionQuery==null) { //Termination condition - primary query has no more data
+                    exhausted = true;
+                    break;
+                }
+                final StaticBuffer key = conditionQuery.key;
+
+                Map<SliceQuery,EntryList> queryResults = new HashMap<>(numQueries);
+                for (int i=0;i<currentResults.length;i++) {
+                    SliceQuery query = queries.get(i);
+                    EntryList entries = EntryList.EMPTY_LIST;
+                    if (currentResults[i]!=null && currentResults[i].key.equals(key)) {
+                        assert query.equals(currentResults[i].query);
+                        entries = currentResults[i].entries;
+                        currentResults[i]=null;
+                    }
+                    queryResults.put(query,entries);
+                }
+                processorQueue.put(row(key, queryResults));
+            }
+        }
+    }
+
     private static class Row {
 
         final StaticBuffer key;
         final Map<SliceQuery,EntryList> entries;
+        final KeyRangeScan range;
+        final long sequence;
 
-        private Row(StaticBuffer key, Map<SliceQuery, EntryList> entries) {
+        private Row(StaticBuffer key, Map<SliceQuery, EntryList> entries, KeyRangeScan range, long sequence) {
             this.key = key;
             this.entries = entries;
+            this.range = range;
+            this.sequence = sequence;
         }
     }
 
 
 
+    /**
+     * Processes rows in work blocks of {@link #workBlockSize} rows. Jobs may defer writes until the end of a work
+     * block, hence the rows of a block only count as processed for checkpointing once the block ended successfully.
+     */
     private class Processor extends Thread {
 
         private ScanJob job;
         private final BlockingQueue<Row> processorQueue;
+        private final List<Row> block = new ArrayList<>();
 
         private volatile boolean finished;
         private int numProcessed;
@@ -291,7 +504,7 @@ class StandardScannerExecutor extends AbstractFuture<ScanMetrics> implements Jan
                     while ((row=processorQueue.poll(TIME_PER_TRY,TimeUnit.MILLISECONDS))!=null) {
                         if (numProcessed>=workBlockSize) {
                             //Setup new chunk of work
-                            job.workerIterationEnd(metrics);
+                            endBlock();
                             job = job.clone();
                             job.workerIterationStart(jobConfiguration, graphConfiguration, metrics);
                             numProcessed=0;
@@ -303,6 +516,7 @@ class StandardScannerExecutor extends AbstractFuture<ScanMetrics> implements Jan
                             log.error("Exception processing row ["+row.key+"]: ",ex);
                             metrics.increment(ScanMetrics.Metric.FAILURE);
                         }
+                        block.add(row);
                         numProcessed++;
                     }
                 }
@@ -311,10 +525,17 @@ class StandardScannerExecutor extends AbstractFuture<ScanMetrics> implements Jan
             } catch (Throwable e) {
                 log.error("Unexpected error processing data: {}",e);
             } finally {
-                job.workerIterationEnd(metrics);
+                endBlock();
             }
         }
 
+        private void endBlock() {
+            final List<Row> rows = new ArrayList<>(block);
+            block.clear();
+            job.workerIterationEnd(metrics);
+            for (Row row : rows) row.range.processed(row);
+        }
+
         public void finish() {
             this.finished=true;
         }
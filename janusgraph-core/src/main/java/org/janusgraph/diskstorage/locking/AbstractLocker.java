@@ -286,6 +286,25 @@ public abstract class AbstractLocker<S extends LockStatus> implements Locker {
      */
     protected abstract void deleteSingleLock(KeyColumn lockID, S lockStatus, StoreTransaction tx) throws Throwable;
 
+    /**
+     * Try to verify that all locks written by {@code tx} are held by {@code tx}.
+     * The default implementation calls
+     * {@link #checkSingleLock(KeyColumn, LockStatus, StoreTransaction)} for
+     * each lock in turn. Implementations which can check several locks at
+     * the cost of one may override this method.
+     *
+     * @param locks the locks written by {@code tx} and the results of the
+     *              corresponding {@code writeSingleLock(...)} calls
+     * @param tx    identifies the process claiming these locks
+     * @throws Throwable if any lock fails the check or if the attempted check
+     *                   encountered an error
+     */
+    protected void checkAllLocks(Map<KeyColumn, S> locks, StoreTransaction tx) throws Throwable {
+        for (final Map.Entry<KeyColumn, S> entry : locks.entrySet()) {
+            checkSingleLock(entry.getKey(), entry.getValue(), tx);
+        }
+    }
+
     @Override
     public void writeLock(KeyColumn lockID, StoreTransaction tx) throws TemporaryLockingException, PermanentLockingException {
 
@@ -347,9 +366,7 @@ public abstract class AbstractLocker<S extends LockStatus> implements Locker {
         // interrupt
         boolean ok = false;
         try {
-            for (final Map.Entry<KeyColumn, S> entry : m.entrySet()) {
-                checkSingleLock(entry.getKey(), entry.getValue(), tx);
-            }
+            checkAllLocks(m, tx);
             ok = true;
         } catch (TemporaryLockingException | PermanentLockingException | AssertionError tle) {
             throw tle;
@@ -397,7 +414,7 @@ public abstract class AbstractLocker<S extends LockStatus> implements Locker {
         return lockLocally(lockID, times.getTime().plus(lockExpire), tx);
     }
 
-    private boolean lockLocally(KeyColumn lockID, Instant expire, StoreTransaction tx) {
+    protected boolean lockLocally(KeyColumn lockID, Instant expire, StoreTransaction tx) {
         return llm.lock(lockID, tx, expire);
     }
 
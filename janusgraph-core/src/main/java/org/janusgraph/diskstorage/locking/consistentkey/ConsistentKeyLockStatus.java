@@ -26,8 +26,8 @@ import java.time.Instant;
  */
 public class ConsistentKeyLockStatus implements LockStatus {
 
-    private final Instant write;
-    private final Instant expire;
+    private Instant write;
+    private Instant expire;
     private boolean checked;
 
     public ConsistentKeyLockStatus(Instant written, Instant expire) {
@@ -42,10 +42,23 @@ public class ConsistentKeyLockStatus implements LockStatus {
     }
 
 
+    /**
+     * @return the timestamp of the lock column written to the store, or null if the lock claim has not
+     *         been written yet
+     */
     public Instant getWriteTimestamp() {
         return write;
     }
 
+    public boolean isWritten() {
+        return null != write;
+    }
+
+    void setWritten(Instant written, Instant expire) {
+        this.write = written;
+        this.expire = expire;
+    }
+
     public boolean isChecked() {
         return checked;
     }
@@ -35,8 +35,12 @@ import org.slf4j.LoggerFactory;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.janusgraph.util.encoding.StringEncoding.UTF8_CHARSET;
 
@@ -113,6 +117,14 @@ import static org.janusgraph.util.encoding.StringEncoding.UTF8_CHARSET;
  * {@code rid} is only unique at the process level.  Without a mediator, distinct
  * threads could write lock columns with the same {@code rid} and be unable to
  * tell their lock claims apart.
+ * <p>
+ * <h4>Batch locking</h4>
+ * <p>
+ * If batch locking is enabled, the first step only takes the intra-process
+ * lock. The columns of all locks taken by a transaction are then written in a
+ * single mutation when the locks are checked, all using the same timestamp.
+ * Consequently, the locker waits for {@code lockWait} only once and reads all
+ * lock rows with a single multi-key slice, independent of the number of locks.
  */
 public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus> implements Locker {
 
@@ -130,6 +142,11 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
 
     private final int lockRetryCount;
 
+    /**
+     * Whether lock columns are written and read for all locks of a transaction at once.
+     */
+    private final boolean batchLocking;
+
     /**
      * Expired lock cleaner in charge of {@link #store}.
      */
@@ -167,6 +184,8 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
     public static final StaticBuffer LOCK_COL_START = BufferUtil.zeroBuffer(1);
     public static final StaticBuffer LOCK_COL_END   = BufferUtil.oneBuffer(9);
 
+    private static final SliceQuery LOCK_COL_SLICE = new SliceQuery(LOCK_COL_START, LOCK_COL_END);
+
     private static final Logger log = LoggerFactory.getLogger(ConsistentKeyLocker.class);
 
     public static class Builder extends AbstractLocker.Builder<ConsistentKeyLockStatus, Builder> {
@@ -177,6 +196,7 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
         // Optional (has default)
         private Duration lockWait;
         private int lockRetryCount;
+        private boolean batchLocking;
 
         private enum CleanerConfig {
             NONE,
@@ -192,6 +212,7 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
             this.manager = manager;
             this.lockWait = GraphDatabaseConfiguration.LOCK_WAIT.getDefaultValue();
             this.lockRetryCount = GraphDatabaseConfiguration.LOCK_RETRY.getDefaultValue();
+            this.batchLocking = GraphDatabaseConfiguration.LOCK_BATCH.getDefaultValue();
         }
 
         public Builder lockWait(Duration d) {
@@ -204,6 +225,11 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
             return self();
         }
 
+        public Builder batchLocking(boolean batch) {
+            this.batchLocking = batch;
+            return self();
+        }
+
         public Builder standardCleaner() {
             this.cleanerConfig = CleanerConfig.STANDARD;
             this.customCleanerService = null;
@@ -233,6 +259,8 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
 
             lockExpire(config.get(GraphDatabaseConfiguration.LOCK_EXPIRE));
 
+            batchLocking(config.get(GraphDatabaseConfiguration.LOCK_BATCH));
+
             if (config.get(GraphDatabaseConfiguration.LOCK_CLEAN_EXPIRED)) {
                 standardCleaner();
             }
@@ -262,6 +290,7 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
                     serializer, llm,
                     lockWait,
                     lockRetryCount,
+                    batchLocking,
                     lockExpire,
                     lockState, cleaner);
         }
@@ -284,7 +313,7 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
     private ConsistentKeyLocker(KeyColumnValueStore store, StoreManager manager, StaticBuffer rid,
                                 TimestampProvider times, ConsistentKeyLockerSerializer serializer,
                                 LocalLockMediator<StoreTransaction> llm, Duration lockWait,
-                                int lockRetryCount, Duration lockExpire,
+                                int lockRetryCount, boolean batchLocking, Duration lockExpire,
                                 LockerState<ConsistentKeyLockStatus> lockState,
                                 LockCleanerService cleanerService) {
         super(rid, times, serializer, llm, lockState, lockExpire, log);
@@ -292,6 +321,7 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
         this.manager = manager;
         this.lockWait = lockWait;
         this.lockRetryCount = lockRetryCount;
+        this.batchLocking = batchLocking;
         this.cleanerService = cleanerService;
     }
 
@@ -305,6 +335,9 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
      * exception or a {@link org.janusgraph.diskstorage.PermanentBackendException}, then we'll try to
      * delete whatever we added and return without further retries.
      *
+     * If batch locking is enabled, nothing is written and the lock column is
+     * written by {@link #checkAllLocks(Map, StoreTransaction)} instead.
+     *
      * @param lockID lock to acquire
      * @param txh    transaction
      * @return the timestamp, in nanoseconds since UNIX Epoch, on the lock
@@ -315,21 +348,36 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
      */
     @Override
     protected ConsistentKeyLockStatus writeSingleLock(KeyColumn lockID, StoreTransaction txh) throws Throwable {
+        if (batchLocking) {
+            return new ConsistentKeyLockStatus(null, times.getTime().plus(lockExpire));
+        }
+        final Instant writeInstant = writeLocks(Collections.singletonList(lockID), txh);
+        return new ConsistentKeyLockStatus(writeInstant, writeInstant.plus(lockExpire));
+    }
 
-        final StaticBuffer lockKey = serializer.toLockKey(lockID.getKey(), lockID.getColumn());
+    /**
+     * Write a lock column with the same timestamp for each of the given locks,
+     * retrying as described in {@link #writeSingleLock(KeyColumn, StoreTransaction)}.
+     *
+     * @return the timestamp on the lock columns that we successfully wrote to the store
+     */
+    private Instant writeLocks(List<KeyColumn> lockIDs, StoreTransaction txh) throws Throwable {
+
+        final List<StaticBuffer> lockKeys = new ArrayList<>(lockIDs.size());
+        for (final KeyColumn lockID : lockIDs) {
+            lockKeys.add(serializer.toLockKey(lockID.getKey(), lockID.getColumn()));
+        }
         StaticBuffer oldLockCol = null;
 
         for (int i = 0; i < lockRetryCount; i++) {
-            WriteResult wr = tryWriteLockOnce(lockKey, oldLockCol, txh);
+            WriteResult wr = tryWriteLockOnce(lockKeys, oldLockCol, txh);
             if (wr.isSuccessful() && wr.getDuration().compareTo(lockWait) <= 0) {
-                final Instant writeInstant = wr.getWriteTimestamp();
-                final Instant expireInstant = writeInstant.plus(lockExpire);
-                return new ConsistentKeyLockStatus(writeInstant, expireInstant);
+                return wr.getWriteTimestamp();
             }
             oldLockCol = wr.getLockCol();
-            handleMutationFailure(lockID, lockKey, wr, txh);
+            handleMutationFailure(lockIDs, lockKeys, wr, txh);
         }
-        tryDeleteLockOnce(lockKey, oldLockCol, txh);
+        tryDeleteLockOnce(lockKeys, oldLockCol, txh);
         // TODO log exception or successful too-slow write here
         throw new TemporaryBackendException("Lock write retry count exceeded");
     }
@@ -340,16 +388,16 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
      * but took longer to complete than configured lock wait time, or that
      * the call to mutate threw something.
      *
-     * @param lockID  coordinates identifying the lock we tried but failed to
-     *                acquire
-     * @param lockKey the byte value of the key that we mutated or attempted to
-     *                mutate in the lock store
-     * @param wr      result of the mutation
-     * @param txh     transaction attempting the lock
+     * @param lockIDs  coordinates identifying the locks we tried but failed to
+     *                 acquire
+     * @param lockKeys the byte values of the keys that we mutated or attempted to
+     *                 mutate in the lock store
+     * @param wr       result of the mutation
+     * @param txh      transaction attempting the lock
      * @throws Throwable if {@link WriteResult#getThrowable()} is not an instance of
      *                   {@link org.janusgraph.diskstorage.TemporaryBackendException}
      */
-    private void handleMutationFailure(KeyColumn lockID, StaticBuffer lockKey, WriteResult wr,
+    private void handleMutationFailure(Collection<KeyColumn> lockIDs, List<StaticBuffer> lockKeys, WriteResult wr,
                                        StoreTransaction txh) throws Throwable {
         Throwable error = wr.getThrowable();
         if (null != error) {
@@ -363,10 +411,10 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
                  * we have retries left.
                  */
                 log.error("Fatal exception encountered during attempted lock write", error);
-                WriteResult dwr = tryDeleteLockOnce(lockKey, wr.getLockCol(), txh);
+                WriteResult dwr = tryDeleteLockOnce(lockKeys, wr.getLockCol(), txh);
                 if (!dwr.isSuccessful()) {
                     log.warn("Failed to delete lock write: abandoning potentially-unreleased lock on {}",
-                        lockID, dwr.getThrowable());
+                        lockIDs.size() == 1 ? lockIDs.iterator().next() : lockIDs, dwr.getThrowable());
                 }
                 throw error;
             }
@@ -376,14 +424,14 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
         }
     }
 
-    private WriteResult tryWriteLockOnce(StaticBuffer key, StaticBuffer del, StoreTransaction txh) {
+    private WriteResult tryWriteLockOnce(List<StaticBuffer> keys, StaticBuffer del, StoreTransaction txh) {
         Throwable t = null;
         final Timer writeTimer = times.getTimer().start();
         StaticBuffer newLockCol = serializer.toLockCol(writeTimer.getStartTime(), rid, times);
         Entry newLockEntry = StaticArrayEntry.of(newLockCol, zeroBuf);
         try {
             final StoreTransaction newTx = overrideTimestamp(txh, writeTimer.getStartTime());
-            store.mutate(key, Collections.singletonList(newLockEntry),
+            mutateLockRows(keys, Collections.singletonList(newLockEntry),
                 null == del ? KeyColumnValueStore.NO_DELETIONS : Collections.singletonList(del), newTx);
         } catch (BackendException e) {
             log.debug("Lock write attempt failed with exception", e);
@@ -394,12 +442,12 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
         return new WriteResult(writeTimer.elapsed(), writeTimer.getStartTime(), newLockCol, t);
     }
 
-    private WriteResult tryDeleteLockOnce(StaticBuffer key, StaticBuffer col, StoreTransaction txh) {
+    private WriteResult tryDeleteLockOnce(List<StaticBuffer> keys, StaticBuffer col, StoreTransaction txh) {
         Throwable t = null;
         final Timer delTimer = times.getTimer().start();
         try {
             final StoreTransaction newTx = overrideTimestamp(txh, delTimer.getStartTime());
-            store.mutate(key, Collections.emptyList(), Collections.singletonList(col), newTx);
+            mutateLockRows(keys, Collections.emptyList(), Collections.singletonList(col), newTx);
         } catch (BackendException e) {
             t = e;
         }
@@ -408,6 +456,27 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
         return new WriteResult(delTimer.elapsed(), delTimer.getStartTime(), null, t);
     }
 
+    /**
+     * Apply the same additions and deletions to each of the given lock rows, using a single batch mutation
+     * if the store manager supports it.
+     */
+    private void mutateLockRows(List<StaticBuffer> keys, List<Entry> additions, List<StaticBuffer> deletions,
+                                StoreTransaction tx) throws BackendException {
+        if (keys.size() == 1) {
+            store.mutate(keys.get(0), additions, deletions, tx);
+        } else if (manager instanceof KeyColumnValueStoreManager && manager.getFeatures().hasBatchMutation()) {
+            final Map<StaticBuffer, KCVMutation> mutations = new HashMap<>(keys.size());
+            for (final StaticBuffer key : keys) {
+                mutations.put(key, new KCVMutation(additions, deletions));
+            }
+            ((KeyColumnValueStoreManager) manager).mutateMany(Collections.singletonMap(store.getName(), mutations), tx);
+        } else {
+            for (final StaticBuffer key : keys) {
+                store.mutate(key, additions, deletions, tx);
+            }
+        }
+    }
+
     @Override
     protected void checkSingleLock(final KeyColumn kc, final ConsistentKeyLockStatus ls,
                                    final StoreTransaction tx) throws BackendException, InterruptedException {
@@ -422,7 +491,68 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
         // Slice the store
         KeySliceQuery ksq = new KeySliceQuery(serializer.toLockKey(kc.getKey(), kc.getColumn()), LOCK_COL_START,
             LOCK_COL_END);
-        List<Entry> claimEntries = getSliceWithRetries(ksq, tx);
+        List<Entry> claimEntries = readWithRetries(() -> store.getSlice(ksq, tx));
+
+        checkClaims(kc, ls, now, claimEntries, tx);
+    }
+
+    /**
+     * If batch locking is enabled, write the lock columns of all locks that
+     * have not been written yet in a single mutation, wait for {@code lockWait}
+     * once and then read the lock rows of all locks that have not been
+     * checked yet with a single multi-key slice.
+     */
+    @Override
+    protected void checkAllLocks(Map<KeyColumn, ConsistentKeyLockStatus> locks, StoreTransaction tx) throws Throwable {
+        if (!batchLocking) {
+            super.checkAllLocks(locks, tx);
+            return;
+        }
+
+        final List<KeyColumn> unwritten = new ArrayList<>();
+        for (final Map.Entry<KeyColumn, ConsistentKeyLockStatus> entry : locks.entrySet()) {
+            if (!entry.getValue().isWritten()) unwritten.add(entry.getKey());
+        }
+        if (!unwritten.isEmpty()) {
+            final Instant writeInstant = writeLocks(unwritten, tx);
+            final Instant expireInstant = writeInstant.plus(lockExpire);
+            for (final KeyColumn kc : unwritten) {
+                locks.get(kc).setWritten(writeInstant, expireInstant);
+                lockLocally(kc, expireInstant, tx); // update local lock expiration time
+            }
+        }
+
+        final Map<StaticBuffer, KeyColumn> unchecked = new LinkedHashMap<>();
+        Instant latestWrite = null;
+        for (final Map.Entry<KeyColumn, ConsistentKeyLockStatus> entry : locks.entrySet()) {
+            final ConsistentKeyLockStatus ls = entry.getValue();
+            if (ls.isChecked()) continue;
+            final KeyColumn kc = entry.getKey();
+            unchecked.put(serializer.toLockKey(kc.getKey(), kc.getColumn()), kc);
+            if (null == latestWrite || latestWrite.isBefore(ls.getWriteTimestamp())) latestWrite = ls.getWriteTimestamp();
+        }
+        if (unchecked.isEmpty()) return;
+
+        // Sleep once for all locks
+        final Instant now = times.sleepPast(latestWrite.plus(lockWait));
+
+        // Slice all lock rows at once
+        final List<StaticBuffer> lockKeys = new ArrayList<>(unchecked.keySet());
+        final Map<StaticBuffer, EntryList> claims = readWithRetries(() -> store.getSlice(lockKeys, LOCK_COL_SLICE, tx));
+
+        for (final Map.Entry<StaticBuffer, KeyColumn> entry : unchecked.entrySet()) {
+            final EntryList claimEntries = claims.get(entry.getKey());
+            final KeyColumn kc = entry.getValue();
+            checkClaims(kc, locks.get(kc), now, null == claimEntries ? EntryList.EMPTY_LIST : claimEntries, tx);
+        }
+    }
+
+    /**
+     * Check that the lock claims read from the lock row of {@code kc} at time {@code now} show that
+     * {@code tx} holds the lock.
+     */
+    private void checkClaims(KeyColumn kc, ConsistentKeyLockStatus ls, Instant now, List<Entry> claimEntries,
+                             StoreTransaction tx) throws BackendException {
 
         // Extract timestamp and rid from the column in each returned Entry...
         final Iterable<TimestampRid> iterable = Iterables.transform(claimEntries,
@@ -454,13 +584,13 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
         ls.setChecked();
     }
 
-    private List<Entry> getSliceWithRetries(KeySliceQuery ksq, StoreTransaction tx) throws BackendException {
+    private <R> R readWithRetries(LockRead<R> read) throws BackendException {
 
         for (int i = 0; i < lockRetryCount; i++) {
             // TODO either make this like writeLock so that it handles all Throwable types (and pull that logic out
             // into a shared method) or make writeLock like this in that it only handles Temporary/PermanentSE
             try {
-                return store.getSlice(ksq, tx);
+                return read.call();
             } catch (PermanentBackendException e) {
                 log.error("Failed to check locks", e);
                 throw new PermanentLockingException(e);
@@ -530,6 +660,8 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
 
     @Override
     protected void deleteSingleLock(KeyColumn kc, ConsistentKeyLockStatus ls, StoreTransaction tx) {
+        if (!ls.isWritten())
+            return; // the lock column of a batched lock has not been written, e.g. because the transaction was rolled back
         List<StaticBuffer> deletions = Collections.singletonList(serializer.toLockCol(ls.getWriteTimestamp(), rid, times));
         for (int i = 0; i < lockRetryCount; i++) {
             try {
@@ -553,6 +685,11 @@ public class ConsistentKeyLocker extends AbstractLocker<ConsistentKeyLockStatus>
         return manager.beginTransaction(newCfg);
     }
 
+    @FunctionalInterface
+    private interface LockRead<R> {
+        R call() throws BackendException;
+    }
+
     private static class WriteResult {
         private final Duration duration;
         private final Instant writeTimestamp;
@@ -19,6 +19,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.janusgraph.diskstorage.BackendException;
 import org.janusgraph.diskstorage.Entry;
@@ -108,6 +109,26 @@ public class MetricInstrumentedStore implements KeyColumnValueStore {
         });
     }
 
+    @Override
+    public CompletableFuture<EntryList> getSliceAsync(final KeySliceQuery query, final StoreTransaction txh) {
+        if (!txh.getConfiguration().hasGroupName()) {
+            return backend.getSliceAsync(query, txh);
+        }
+        final String prefix = txh.getConfiguration().getGroupName();
+        final MetricManager mgr = MetricManager.INSTANCE;
+        mgr.getCounter(prefix, metricsStoreName, M_GET_SLICE, M_CALLS).inc();
+        final Timer.Context tc = mgr.getTimer(prefix, metricsStoreName, M_GET_SLICE, M_TIME).time();
+
+        return backend.getSliceAsync(query, txh).whenComplete((result, e) -> {
+            tc.stop();
+            if (e != null) {
+                mgr.getCounter(prefix, metricsStoreName, M_GET_SLICE, M_EXCEPTIONS).inc();
+            } else {
+                recordSliceMetrics(txh, result);
+            }
+        });
+    }
+
     @Override
     public Map<StaticBuffer,EntryList> getSlice(final List<StaticBuffer> keys,
                                       final SliceQuery query,
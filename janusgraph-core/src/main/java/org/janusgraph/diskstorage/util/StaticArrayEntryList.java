@@ -451,6 +451,52 @@ public class StaticArrayEntryList extends AbstractList<Entry> implements EntryLi
         return newData;
     }
 
+    /* #########################################
+            Serialization
+     ########################################### */
+
+    /**
+     * Serializes the given entry list into a byte array from which an equal entry list can be restored via
+     * {@link #fromBytes(byte[])}. The relation caches attached to the entries are not serialized.
+     *
+     * @param entries entry list to serialize
+     * @return serialized representation of the entry list
+     */
+    public static byte[] toBytes(EntryList entries) {
+        if (entries.isEmpty()) return new byte[4];
+        final StaticArrayEntryList list = entries instanceof StaticArrayEntryList
+                ? (StaticArrayEntryList) entries : (StaticArrayEntryList) of(entries);
+        final int num = list.limitAndValuePos.length;
+        final int dataLength = getLimit(list.limitAndValuePos[num-1]);
+        final ByteBuffer out = ByteBuffer.allocate(4 + 1 + list.metaDataSchema.length + num*8 + dataLength);
+        out.putInt(num);
+        out.put((byte) list.metaDataSchema.length);
+        for (EntryMetaData meta : list.metaDataSchema) out.put((byte) meta.ordinal());
+        for (long lvp : list.limitAndValuePos) out.putLong(lvp);
+        out.put(list.data, 0, dataLength);
+        assert !out.hasRemaining();
+        return out.array();
+    }
+
+    /**
+     * Restores an entry list from the byte representation produced by {@link #toBytes(EntryList)}.
+     *
+     * @param bytes serialized representation of an entry list
+     * @return the entry list
+     */
+    public static EntryList fromBytes(byte[] bytes) {
+        final ByteBuffer in = ByteBuffer.wrap(bytes);
+        final int num = in.getInt();
+        if (num==0) return EMPTY_LIST;
+        final EntryMetaData[] metaDataSchema = new EntryMetaData[in.get()];
+        for (int i = 0; i < metaDataSchema.length; i++) metaDataSchema[i] = EntryMetaData.values()[in.get()];
+        final long[] limitAndValuePos = new long[num];
+        for (int i = 0; i < num; i++) limitAndValuePos[i] = in.getLong();
+        final byte[] data = new byte[in.remaining()];
+        in.get(data);
+        return new StaticArrayEntryList(data,limitAndValuePos,metaDataSchema);
+    }
+
     /* #########################################
             Meta Data Management
      ########################################### */
@@ -24,6 +24,7 @@ import org.janusgraph.diskstorage.configuration.converter.ReadConfigurationConve
 import org.janusgraph.graphdb.configuration.converter.RegisteredAttributeClassesConverter;
 import org.janusgraph.graphdb.query.index.ApproximateIndexSelectionStrategy;
 import org.janusgraph.graphdb.query.index.BruteForceIndexSelectionStrategy;
+import org.janusgraph.graphdb.query.index.CostBasedIndexSelectionStrategy;
 import org.janusgraph.graphdb.query.index.IndexSelectionStrategy;
 import org.janusgraph.graphdb.query.index.ThresholdBasedIndexSelectionStrategy;
 import org.janusgraph.graphdb.tinkerpop.JanusGraphDefaultSchemaMaker;
@@ -206,6 +207,21 @@ public class GraphDatabaseConfiguration {
             "How the graph computer should return the computed results. 'persist' for writing them into the graph, " +
                     "'localtx' for writing them into the local transaction, or 'none' (default)", ConfigOption.Type.MASKABLE, "none");
 
+    public static final ConfigOption<Long> COMPUTER_SPILL_HEAP_BUDGET = new ConfigOption<>(COMPUTER_NS,"spill-heap-budget",
+            "The approximate number of bytes of heap a graph computer job may use for vertex compute keys, messages and " +
+                    "map-reduce output before it spills them to files in the spill directory. Map-reduce output is written " +
+                    "to sorted run files which are merged when the output is read. With the PRIMITIVE vertex memory, " +
+                    "numeric compute keys and messages are stored in memory-mapped files and other messages are written to " +
+                    "spill files once the budget is exhausted. Values of types the graph's serializer does not support, " +
+                    "other compute keys and the OBJECT vertex memory are kept on heap. Set to 0 (default) to keep " +
+                    "everything on heap.",
+            ConfigOption.Type.MASKABLE, 0L, ConfigOption.nonnegativeLong());
+
+    public static final ConfigOption<String> COMPUTER_SPILL_DIRECTORY = new ConfigOption<>(COMPUTER_NS,"spill-directory",
+            "Local directory to which the graph computer spills vertex memory, messages and map-reduce output. Defaults to the directory " +
+                    "given by the java.io.tmpdir system property.",
+            ConfigOption.Type.MASKABLE, String.class);
+
 
     // ################ Transaction #######################
     // ################################################
@@ -223,6 +239,14 @@ public class GraphDatabaseConfiguration {
                     "Must be longer than the maximum allowed write time.",
             ConfigOption.Type.GLOBAL, Duration.ofSeconds(10));
 
+    public static final ConfigOption<Boolean> PARALLEL_PREPARE_COMMIT = new ConfigOption<>(TRANSACTION_NS,"parallel-prepare-commit",
+            "Whether the storage and index mutations of large transactions should be serialized in parallel on the " +
+                    "common fork-join pool when committing. This only applies to transactions which add or remove at least " +
+                    "1000 relations and are not single-threaded, i.e. transactions opened through graph.newTransaction() or " +
+                    "graph.buildTransaction(). Thread-bound transactions such as graph.tx() and the ones used by g.addV() " +
+                    "are always prepared on the committing thread, hence bulk loaders using them do not benefit from this option.",
+            ConfigOption.Type.MASKABLE, false);
+
 
     public static final ConfigNamespace TRANSACTION_RECOVERY_NS = new ConfigNamespace(TRANSACTION_NS,"recovery",
             "Configuration options for transaction recovery processes");
@@ -271,9 +295,12 @@ public class GraphDatabaseConfiguration {
             String.format("Name of the index selection strategy or full class name. Following shorthands can be used: <br>" +
                     "- `%s` (Try all combinations of index candidates and pick up optimal one)<br>" +
                     "- `%s` (Use greedy algorithm to pick up approximately optimal index candidate)<br>" +
-                    "- `%s` (Use index-select-threshold to pick up either `%s` or `%s` strategy on runtime)",
+                    "- `%s` (Use index-select-threshold to pick up either `%s` or `%s` strategy on runtime)<br>" +
+                    "- `%s` (Pick up the index candidates which are estimated to return the fewest elements based on " +
+                    "index statistics, falls back to `%s` if no estimates are available)",
                     BruteForceIndexSelectionStrategy.NAME, ApproximateIndexSelectionStrategy.NAME, ThresholdBasedIndexSelectionStrategy.NAME,
-                    ApproximateIndexSelectionStrategy.NAME, ThresholdBasedIndexSelectionStrategy.NAME),
+                    ApproximateIndexSelectionStrategy.NAME, ThresholdBasedIndexSelectionStrategy.NAME,
+                    CostBasedIndexSelectionStrategy.NAME, ThresholdBasedIndexSelectionStrategy.NAME),
             ConfigOption.Type.MASKABLE, ThresholdBasedIndexSelectionStrategy.NAME);
 
     public static final ConfigOption<Boolean> BATCH_PROPERTY_PREFETCHING = new ConfigOption<>(QUERY_NS,"batch-property-prefetch",
@@ -282,6 +309,12 @@ public class GraphDatabaseConfiguration {
                     "lead to significant performance improvement if there are many edges to adjacent vertices and there is a non-trivial latency to the backend.",
             ConfigOption.Type.MASKABLE, false);
 
+    public static final ConfigOption<Integer> INDEX_PROPERTY_PREFETCH_SIZE = new ConfigOption<>(QUERY_NS,"index-property-prefetch-size",
+            "The number of vertices returned by a graph-centric query whose properties are pre-fetched with a single batched call against " +
+                    "the storage backend if the query is followed by a step which reads vertex properties, such as values() or valueMap(). " +
+                    "The results of the query are pulled in chunks of this size. Setting this to 0 disables the pre-fetching.",
+            ConfigOption.Type.MASKABLE, 0, ConfigOption.nonnegativeInt());
+
     // ################ SCHEMA #######################
     // ################################################
 
@@ -349,6 +382,18 @@ public class GraphDatabaseConfiguration {
             "of VM heap, while larger values are interpreted as an absolute size in bytes.",
             ConfigOption.Type.MASKABLE, 0.3);
 
+    /**
+     * Whether the database level cache keeps the cached query results in direct memory outside of the JVM heap.
+     * This reduces garbage collection pauses for large cache sizes at the expense of (de-)serializing the cached
+     * results on every cache access.
+     */
+    public static final ConfigOption<Boolean> DB_CACHE_OFF_HEAP = new ConfigOption<>(CACHE_NS,"db-cache-off-heap",
+            "Whether JanusGraph's database level cache stores the cached query results off-heap in direct memory. " +
+            "Off-heap caching avoids long garbage collection pauses for large values of " +
+            "cache.db-cache-size but requires the JVM to be configured with sufficient direct memory " +
+            "(-XX:MaxDirectMemorySize).",
+            ConfigOption.Type.MASKABLE, false);
+
     /**
      * How long the database level cache will keep keys expired while the mutations that triggered the expiration
      * are being persisted. This value should be larger than the time it takes for persisted mutations to become visible.
@@ -374,6 +419,13 @@ public class GraphDatabaseConfiguration {
             "triggers eviction when set to 0).",
             ConfigOption.Type.GLOBAL_OFFLINE, 10000L);
 
+    public static final ConfigOption<Boolean> DB_CACHE_INVALIDATION_LOG = new ConfigOption<>(CACHE_NS,"db-cache-invalidation-log",
+            "Whether JanusGraph instances publish the keys mutated by their transactions to a shared log and invalidate " +
+            "the keys published by other instances in their database-level cache. This keeps the caches of multiple " +
+            "instances coherent up to the send delay and read interval of the log (configured in the log.cache " +
+            "namespace), which allows for long values of cache.db-cache-time.",
+            ConfigOption.Type.GLOBAL_OFFLINE, false);
+
     /**
      * Configures the maximum number of recently-used vertices cached by a transaction. The smaller the cache size, the
      * less memory a transaction can consume at maximum. For many concurrent, long running transactions in memory constraint
@@ -388,6 +440,17 @@ public class GraphDatabaseConfiguration {
             "Maximum size of the transaction-level cache of recently-used vertices.",
             ConfigOption.Type.MASKABLE, 20000);
 
+    /**
+     * Whether transactions cache recently-used vertices in a hash table keyed by the primitive vertex id which evicts
+     * vertices using the CLOCK algorithm instead of a Guava cache. This avoids boxing the vertex id on every cache
+     * access and keeps vertices which are accessed repeatedly cached while many other vertices are visited only once.
+     */
+    public static final ConfigOption<Boolean> TX_CACHE_PRIMITIVE = new ConfigOption<>(CACHE_NS,"tx-cache-primitive",
+            "Whether the transaction-level cache of recently-used vertices is a hash table keyed by primitive vertex ids " +
+            "with CLOCK eviction instead of a Guava cache. This avoids allocations on cache access and keeps frequently " +
+            "accessed vertices cached when a transaction visits many vertices only once.",
+            ConfigOption.Type.MASKABLE, false);
+
     /**
      * Configures the initial size of the dirty (modified) vertex map used by a transaction.  All vertices created or
      * updated by a transaction are held in that transaction's dirty vertex map until the transaction commits.
@@ -486,6 +549,20 @@ public class GraphDatabaseConfiguration {
             "Size of the batch in which mutations are persisted",
             ConfigOption.Type.MASKABLE, 1024, ConfigOption.positiveInt());
 
+    /**
+     * When batch loading, persists full buffers of mutations asynchronously on the backend operations thread pool
+     * so that the transaction can keep building the next buffer in the meantime.
+     */
+    public static final ConfigOption<Boolean> STORAGE_WRITE_BEHIND = new ConfigOption<>(STORAGE_NS,"write-behind",
+            "Whether full buffers of mutations should be persisted asynchronously while batch loading so that the committing " +
+            "thread can keep building mutations. Requires storage.batch-loading and storage.parallel-backend-ops.",
+            ConfigOption.Type.MASKABLE, false);
+
+    public static final ConfigOption<Integer> STORAGE_WRITE_BEHIND_MAX_PENDING = new ConfigOption<>(STORAGE_NS,"write-behind-max-pending",
+            "Maximum number of buffers of mutations per transaction which may be persisted asynchronously at the same time " +
+            "when storage.write-behind is enabled. Further mutations block until a buffer has been persisted.",
+            ConfigOption.Type.MASKABLE, 2, ConfigOption.positiveInt());
+
     /*
      * Number of times the database attempts to persist the transactional state to the storage layer.
      * Persisting the state of a committed transaction might fail for various reasons, some of which are
@@ -588,6 +665,29 @@ public class GraphDatabaseConfiguration {
             "up to this many elements.",
             ConfigOption.Type.MASKABLE, 100);
 
+    /**
+     * Number of key ranges the key space of a store is split into when it is scanned by a
+     * {@link org.janusgraph.diskstorage.keycolumnvalue.scan.ScanJob}, e.g. to reindex or for OLAP queries. The rows of
+     * the key ranges are read concurrently.
+     */
+    public static final ConfigOption<Integer> SCAN_KEY_RANGES = new ConfigOption<>(STORAGE_NS,"scan-key-ranges",
+            "Number of key ranges that scan jobs, such as reindexing and OLAP jobs, split the key space into. " +
+            "The rows of each key range are read concurrently by separate threads. The key space is split into ranges " +
+            "of equal width based on the first two bytes of the keys, hence this only applies to storage backends " +
+            "which support ordered scans.",
+            ConfigOption.Type.MASKABLE, 1, ConfigOption.positiveInt());
+
+    /**
+     * Interval in which reindexing and index removal jobs persist their progress. A job which does not complete
+     * resumes from its last checkpoint when it is started again.
+     */
+    public static final ConfigOption<Duration> SCAN_CHECKPOINT_INTERVAL = new ConfigOption<>(STORAGE_NS,"scan-checkpoint-interval",
+            "Interval in which reindexing and index removal jobs persist the last key processed in every key range " +
+            "together with the metrics accumulated so far. If a job does not complete, running it again for the same " +
+            "index resumes it from its last checkpoint. Checkpointing is disabled if this option is not set and " +
+            "requires a storage backend which supports ordered scans.",
+            ConfigOption.Type.MASKABLE, Duration.class);
+
     public static final ConfigOption<Boolean> DROP_ON_CLEAR = new ConfigOption<>(STORAGE_NS, "drop-on-clear",
             "Whether to drop the graph database (true) or delete rows (false) when clearing storage. " +
             "Note that some backends always drop the graph database when clearing storage. Also note that indices are " +
@@ -640,6 +740,16 @@ public class GraphDatabaseConfiguration {
             "Whether to delete expired locks from the storage backend",
             ConfigOption.Type.MASKABLE, false);
 
+    /**
+     * Whether to write and verify all lock claims of a transaction in one batch.
+     */
+    public static final ConfigOption<Boolean> LOCK_BATCH = new ConfigOption<>(LOCK_NS, "batch",
+            "Whether the lock claims of a transaction are written to the storage backend in a single batch when the " +
+            "transaction commits and verified with a single multi-key read after waiting for " +
+            "storage.lock.wait-time once. Otherwise, each lock claim is written when the lock is acquired and " +
+            "verified individually. Only applies to the consistentkey locker.",
+            ConfigOption.Type.MASKABLE, false);
+
     /**
      * Locker type to use.  The supported types are in {@link org.janusgraph.diskstorage.Backend}.
      */
@@ -757,6 +867,19 @@ public class GraphDatabaseConfiguration {
             "This helps avoid transaction commits waiting on ID reservation even if the block size is relatively small.",
             ConfigOption.Type.MASKABLE, 0.3);
 
+    /**
+     * The number of id blocks that are kept pre-fetched for each id pool. If positive, ids are handed out by a
+     * lock-free id pool which only makes callers wait if all pre-fetched blocks have been used up, and
+     * {@link #IDS_RENEW_BUFFER_PERCENTAGE} is ignored. If 0, a single block is renewed when the current block drops below
+     * the renew buffer.
+     */
+    public static final ConfigOption<Integer> IDS_PREFETCH_BLOCKS = new ConfigOption<>(IDS_NS,"prefetch-blocks",
+            "The number of ID blocks that are reserved ahead of time for each ID pool. When positive, IDs are handed out " +
+            "without locking and commits only wait on ID reservation if all of the reserved blocks have been used up, " +
+            "in which case renew-percentage is ignored. Reserved but unused blocks are lost when the graph instance shuts down. " +
+            "When 0, a single block is reserved as configured by renew-percentage.",
+            ConfigOption.Type.MASKABLE, 0, ConfigOption.nonnegativeInt());
+
     // ################ IDAUTHORITY ###################
     // ################################################
 
@@ -893,8 +1016,10 @@ public class GraphDatabaseConfiguration {
     public static final String TRANSACTION_LOG = "tx";
     public static final String USER_LOG = "user";
     public static final String USER_LOG_PREFIX = "ulog_";
+    public static final String CACHE_INVALIDATION_LOG = "cache";
 
     public static final Duration TRANSACTION_LOG_DEFAULT_TTL = Duration.ofDays(7);
+    public static final Duration CACHE_INVALIDATION_LOG_DEFAULT_TTL = Duration.ofDays(1);
 
     public static final ConfigOption<String> LOG_BACKEND = new ConfigOption<>(LOG_NS,"backend",
             "Define the log backed to use",
@@ -1138,11 +1263,13 @@ public class GraphDatabaseConfiguration {
     public static final String SYSTEM_PROPERTIES_STORE_NAME = "system_properties";
     public static final String SYSTEM_CONFIGURATION_IDENTIFIER = "configuration";
     public static final String USER_CONFIGURATION_IDENTIFIER = "userconfig";
+    public static final String SCAN_CHECKPOINT_IDENTIFIER = "scancheckpoints";
 
     private static final Map<String, String> REGISTERED_INDEX_SELECTION_STRATEGIES = new HashMap() {{
         put(ThresholdBasedIndexSelectionStrategy.NAME, ThresholdBasedIndexSelectionStrategy.class.getName());
         put(BruteForceIndexSelectionStrategy.NAME, BruteForceIndexSelectionStrategy.class.getName());
         put(ApproximateIndexSelectionStrategy.NAME, ApproximateIndexSelectionStrategy.class.getName());
+        put(CostBasedIndexSelectionStrategy.NAME, CostBasedIndexSelectionStrategy.class.getName());
     }};
 
     private final Configuration configuration;
@@ -1155,6 +1282,7 @@ public class GraphDatabaseConfiguration {
     private boolean forceIndexUsage;
     private boolean batchLoading;
     private int txVertexCacheSize;
+    private boolean txVertexCachePrimitive;
     private int txDirtyVertexSize;
     private DefaultSchemaMaker defaultSchemaMaker;
     private boolean hasDisabledSchemaConstraints;
@@ -1163,8 +1291,10 @@ public class GraphDatabaseConfiguration {
     private Boolean useMultiQuery;
     private IndexSelectionStrategy indexSelectionStrategy;
     private Boolean batchPropertyPrefetching;
+    private int indexPropertyPrefetchSize;
     private boolean allowVertexIdSetting;
     private boolean logTransactions;
+    private boolean parallelPrepareCommit;
     private String metricsPrefix;
     private String unknownIndexKeyName;
 
@@ -1201,6 +1331,10 @@ public class GraphDatabaseConfiguration {
         return txVertexCacheSize;
     }
 
+    public boolean isTxVertexCachePrimitive() {
+        return txVertexCachePrimitive;
+    }
+
     public int getTxDirtyVertexSize() {
         return txDirtyVertexSize;
     }
@@ -1257,6 +1391,10 @@ public class GraphDatabaseConfiguration {
         return batchPropertyPrefetching;
     }
 
+    public int getIndexPropertyPrefetchSize() {
+        return indexPropertyPrefetchSize;
+    }
+
     public boolean adjustQueryLimit() {
         return adjustQueryLimit;
     }
@@ -1269,6 +1407,10 @@ public class GraphDatabaseConfiguration {
         return logTransactions;
     }
 
+    public boolean hasParallelPrepareCommit() {
+        return parallelPrepareCommit;
+    }
+
     public TimestampProvider getTimestampProvider() {
         return configuration.get(TIMESTAMP_PROVIDER);
     }
@@ -1356,6 +1498,7 @@ public class GraphDatabaseConfiguration {
         hasDisabledSchemaConstraints = !configuration.get(SCHEMA_CONSTRAINTS);
 
         txVertexCacheSize = configuration.get(TX_CACHE_SIZE);
+        txVertexCachePrimitive = configuration.get(TX_CACHE_PRIMITIVE);
         //Check for explicit dirty vertex cache size first, then fall back on batch-loading-dependent default
         if (configuration.has(TX_DIRTY_SIZE)) {
             txDirtyVertexSize = configuration.get(TX_DIRTY_SIZE);
@@ -1370,9 +1513,11 @@ public class GraphDatabaseConfiguration {
         indexSelectionStrategy = Backend.getImplementationClass(configuration, configuration.get(INDEX_SELECT_STRATEGY),
             REGISTERED_INDEX_SELECTION_STRATEGIES);
         batchPropertyPrefetching = configuration.get(BATCH_PROPERTY_PREFETCHING);
+        indexPropertyPrefetchSize = configuration.get(INDEX_PROPERTY_PREFETCH_SIZE);
         adjustQueryLimit = configuration.get(ADJUST_LIMIT);
         allowVertexIdSetting = configuration.get(ALLOW_SETTING_VERTEX_ID);
         logTransactions = configuration.get(SYSTEM_LOG_TRANSACTIONS);
+        parallelPrepareCommit = configuration.get(PARALLEL_PREPARE_COMMIT);
 
         unknownIndexKeyName = configuration.get(IGNORE_UNKNOWN_INDEX_FIELD) ? UNKNOWN_FIELD_NAME : null;
 
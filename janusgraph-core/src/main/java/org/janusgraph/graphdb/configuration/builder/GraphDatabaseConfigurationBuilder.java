@@ -66,6 +66,7 @@ public class GraphDatabaseConfigurationBuilder {
 
         checkAndOverwriteTransactionLogConfiguration(combinedConfig, overwrite, storeFeatures);
         checkAndOverwriteSystemManagementLogConfiguration(combinedConfig, overwrite);
+        checkAndOverwriteCacheInvalidationLogConfiguration(combinedConfig, overwrite, storeFeatures);
 
         MergedConfiguration configuration = new MergedConfiguration(overwrite,combinedConfig);
 
@@ -109,4 +110,14 @@ public class GraphDatabaseConfigurationBuilder {
         overwrite.set(KCVSLogManager.LOG_FIXED_PARTITION,true,MANAGEMENT_LOG);
     }
 
+    private void checkAndOverwriteCacheInvalidationLogConfiguration(Configuration combinedConfig, ModifiableConfiguration overwrite, StoreFeatures storeFeatures){
+
+        //CACHE INVALIDATION LOG: backend=default and ttl=1day
+        Preconditions.checkArgument(combinedConfig.get(LOG_BACKEND,CACHE_INVALIDATION_LOG).equals(LOG_BACKEND.getDefaultValue()),
+            "Must use default log backend for cache invalidation log");
+        if (!combinedConfig.has(LOG_STORE_TTL,CACHE_INVALIDATION_LOG) && TTLKCVSManager.supportsAnyTTL(storeFeatures)) {
+            overwrite.set(LOG_STORE_TTL,CACHE_INVALIDATION_LOG_DEFAULT_TTL,CACHE_INVALIDATION_LOG);
+        }
+    }
+
 }
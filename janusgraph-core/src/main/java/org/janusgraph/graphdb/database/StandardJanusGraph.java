@@ -29,6 +29,8 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategies;
 import org.apache.tinkerpop.gremlin.structure.Direction;
 import org.apache.tinkerpop.gremlin.structure.Graph;
@@ -43,6 +45,7 @@ import org.janusgraph.diskstorage.configuration.ModifiableConfiguration;
 import org.janusgraph.diskstorage.indexing.IndexEntry;
 import org.janusgraph.diskstorage.indexing.IndexTransaction;
 import org.janusgraph.diskstorage.keycolumnvalue.*;
+import org.janusgraph.diskstorage.keycolumnvalue.cache.KCVEntryMutation;
 import org.janusgraph.diskstorage.keycolumnvalue.cache.KCVSCache;
 import org.janusgraph.diskstorage.log.Log;
 import org.janusgraph.diskstorage.log.Message;
@@ -98,6 +101,10 @@ public class StandardJanusGraph extends JanusGraphBlueprintsGraph {
     private static final Logger log =
             LoggerFactory.getLogger(StandardJanusGraph.class);
 
+    /**
+     * Commits with fewer relations are prepared on the committing thread even if parallel preparation is enabled
+     */
+    private static final int MIN_RELATIONS_FOR_PARALLEL_PREPARE_COMMIT = 1000;
 
     static {
         TraversalStrategies graphStrategies =
@@ -546,10 +553,12 @@ public class StandardJanusGraph extends JanusGraphBlueprintsGraph {
                                      final boolean acquireLocks) throws BackendException {
 
 
+        final boolean parallel = isParallelPrepareCommit(addedRelations, deletedRelations, tx);
         ListMultimap<Long, InternalRelation> mutations = ArrayListMultimap.create();
         ListMultimap<InternalVertex, InternalRelation> mutatedProperties = ArrayListMultimap.create();
+        List<InternalRelation> indexedRelations = new ArrayList<>();
         List<IndexSerializer.IndexUpdate> indexUpdates = Lists.newArrayList();
-        //1) Collect deleted edges and their index updates and acquire edge locks
+        //1) Collect deleted edges and acquire edge locks
         for (InternalRelation del : Iterables.filter(deletedRelations,filter)) {
             Preconditions.checkArgument(del.isRemoved());
             for (int pos = 0; pos < del.getLen(); pos++) {
@@ -563,10 +572,10 @@ public class StandardJanusGraph extends JanusGraphBlueprintsGraph {
                     mutator.acquireEdgeLock(idManager.getKey(vertex.longId()), entry);
                 }
             }
-            indexUpdates.addAll(indexSerializer.getIndexUpdates(del));
+            indexedRelations.add(del);
         }
 
-        //2) Collect added edges and their index updates and acquire edge locks
+        //2) Collect added edges and acquire edge locks
         for (InternalRelation add : Iterables.filter(addedRelations,filter)) {
             Preconditions.checkArgument(add.isNew());
 
@@ -581,12 +590,17 @@ public class StandardJanusGraph extends JanusGraphBlueprintsGraph {
                     mutator.acquireEdgeLock(idManager.getKey(vertex.longId()), entry.getColumn());
                 }
             }
-            indexUpdates.addAll(indexSerializer.getIndexUpdates(add));
+            indexedRelations.add(add);
         }
 
-        //3) Collect all index update for vertices
-        for (InternalVertex v : mutatedProperties.keySet()) {
-            indexUpdates.addAll(indexSerializer.getIndexUpdates(v,mutatedProperties.get(v)));
+        //3) Collect all index updates for the deleted and added edges, then for vertices
+        for (Collection<IndexSerializer.IndexUpdate> updates : mapInOrder(indexedRelations, indexSerializer::getIndexUpdates, parallel)) {
+            indexUpdates.addAll(updates);
+        }
+        final List<InternalVertex> mutatedVertices = new ArrayList<>(mutatedProperties.keySet());
+        for (Collection<IndexSerializer.IndexUpdate> updates : mapInOrder(mutatedVertices,
+                v -> indexSerializer.getIndexUpdates(v, mutatedProperties.get(v)), parallel)) {
+            indexUpdates.addAll(updates);
         }
         //4) Acquire index locks (deletions first)
         for (IndexSerializer.IndexUpdate update : indexUpdates) {
@@ -605,39 +619,13 @@ public class StandardJanusGraph extends JanusGraphBlueprintsGraph {
         }
 
         //5) Add relation mutations
-        for (Long vertexId : mutations.keySet()) {
-            Preconditions.checkArgument(vertexId > 0, "Vertex has no id: %s", vertexId);
-            final List<InternalRelation> edges = mutations.get(vertexId);
-            final List<Entry> additions = new ArrayList<>(edges.size());
-            final List<Entry> deletions = new ArrayList<>(Math.max(10, edges.size() / 10));
-            for (final InternalRelation edge : edges) {
-                final InternalRelationType baseType = (InternalRelationType) edge.getType();
-                assert baseType.getBaseType()==null;
-
-                for (InternalRelationType type : baseType.getRelationIndexes()) {
-                    if (type.getStatus()== SchemaStatus.DISABLED) continue;
-                    for (int pos = 0; pos < edge.getArity(); pos++) {
-                        if (!type.isUnidirected(Direction.BOTH) && !type.isUnidirected(EdgeDirection.fromPosition(pos)))
-                            continue; //Directionality is not covered
-                        if (edge.getVertex(pos).longId()==vertexId) {
-                            StaticArrayEntry entry = edgeSerializer.writeRelation(edge, type, pos, tx);
-                            if (edge.isRemoved()) {
-                                deletions.add(entry);
-                            } else {
-                                Preconditions.checkArgument(edge.isNew());
-                                int ttl = getTTL(edge);
-                                if (ttl > 0) {
-                                    entry.setMetaData(EntryMetaData.TTL, ttl);
-                                }
-                                additions.add(entry);
-                            }
-                        }
-                    }
-                }
-            }
-
-            StaticBuffer vertexKey = idManager.getKey(vertexId);
-            mutator.mutateEdges(vertexKey, additions, deletions);
+        final List<Long> vertexIds = new ArrayList<>(mutations.keySet());
+        final List<KCVEntryMutation> edgeMutations = mapInOrder(vertexIds,
+                vertexId -> getEdgeMutation(vertexId, mutations.get(vertexId), tx), parallel);
+        for (int i = 0; i < vertexIds.size(); i++) {
+            final KCVEntryMutation edgeMutation = edgeMutations.get(i);
+            StaticBuffer vertexKey = idManager.getKey(vertexIds.get(i));
+            mutator.mutateEdges(vertexKey, edgeMutation.getAdditions(), edgeMutation.getDeletions());
         }
 
         //6) Add index updates
@@ -664,6 +652,64 @@ public class StandardJanusGraph extends JanusGraphBlueprintsGraph {
         return new ModificationSummary(!mutations.isEmpty(),has2iMods);
     }
 
+    private KCVEntryMutation getEdgeMutation(long vertexId, List<InternalRelation> edges, StandardJanusGraphTx tx) {
+        Preconditions.checkArgument(vertexId > 0, "Vertex has no id: %s", vertexId);
+        final List<Entry> additions = new ArrayList<>(edges.size());
+        final List<Entry> deletions = new ArrayList<>(Math.max(10, edges.size() / 10));
+        for (final InternalRelation edge : edges) {
+            final InternalRelationType baseType = (InternalRelationType) edge.getType();
+            assert baseType.getBaseType()==null;
+
+            for (InternalRelationType type : baseType.getRelationIndexes()) {
+                if (type.getStatus()== SchemaStatus.DISABLED) continue;
+                for (int pos = 0; pos < edge.getArity(); pos++) {
+                    if (!type.isUnidirected(Direction.BOTH) && !type.isUnidirected(EdgeDirection.fromPosition(pos)))
+                        continue; //Directionality is not covered
+                    if (edge.getVertex(pos).longId()==vertexId) {
+                        StaticArrayEntry entry = edgeSerializer.writeRelation(edge, type, pos, tx);
+                        if (edge.isRemoved()) {
+                            deletions.add(entry);
+                        } else {
+                            Preconditions.checkArgument(edge.isNew());
+                            int ttl = getTTL(edge);
+                            if (ttl > 0) {
+                                entry.setMetaData(EntryMetaData.TTL, ttl);
+                            }
+                            additions.add(entry);
+                        }
+                    }
+                }
+            }
+        }
+        return new KCVEntryMutation(additions, deletions);
+    }
+
+    /**
+     * Whether the mutations and index updates of a commit should be computed on the fork-join pool. This requires
+     * the transaction to support concurrent access since serialization may look up schema elements and properties
+     * through the transaction's caches. Thread-bound transactions such as {@code graph.tx()} are single-threaded and
+     * hence always prepared on the committing thread.
+     */
+    boolean isParallelPrepareCommit(final Collection<InternalRelation> addedRelations,
+                                            final Collection<InternalRelation> deletedRelations,
+                                            final StandardJanusGraphTx tx) {
+        return config.hasParallelPrepareCommit() && !tx.getConfiguration().isSingleThreaded()
+            && addedRelations.size() + deletedRelations.size() >= MIN_RELATIONS_FOR_PARALLEL_PREPARE_COMMIT;
+    }
+
+    /**
+     * Applies the function to all elements and returns the results in the order of the elements, computing them
+     * on the common fork-join pool if requested.
+     */
+    private static <E,R> List<R> mapInOrder(List<E> elements, Function<E,R> function, boolean parallel) {
+        if (!parallel) {
+            final List<R> results = new ArrayList<>(elements.size());
+            for (E element : elements) results.add(function.apply(element));
+            return results;
+        }
+        return elements.parallelStream().map(function).collect(Collectors.toList());
+    }
+
     private static final Predicate<InternalRelation> SCHEMA_FILTER =
         internalRelation -> internalRelation.getType() instanceof BaseRelationType && internalRelation.getVertex(0) instanceof JanusGraphSchemaVertex;
 
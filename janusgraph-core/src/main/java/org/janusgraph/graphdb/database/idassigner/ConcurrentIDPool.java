@@ -0,0 +1,248 @@
+// Copyright 2020 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.janusgraph.graphdb.database.idassigner;
+
+import com.codahale.metrics.Timer;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Stopwatch;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.janusgraph.core.JanusGraphException;
+import org.janusgraph.diskstorage.IDAuthority;
+import org.janusgraph.diskstorage.IDBlock;
+import org.janusgraph.util.stats.MetricManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An {@link IDPool} which hands out ids without locking. Ids are taken from the current block by atomically
+ * incrementing a counter on that block, hence concurrent callers only synchronize when the current block is
+ * exhausted and has to be replaced.
+ * <p>
+ * In contrast to {@link StandardIDPool}, which renews a single block once the current block drops below the renew
+ * buffer, this pool always keeps the configured number of blocks pre-fetched. Callers only wait for the id authority
+ * if all of those blocks have been used up before the next one could be acquired. The time spent switching blocks is
+ * reported as a {@link Timer} if a metrics prefix is given. Pre-fetched blocks which have not been used when the pool
+ * is closed are lost.
+ */
+public class ConcurrentIDPool implements IDPool {
+
+    private static final Logger log = LoggerFactory.getLogger(ConcurrentIDPool.class);
+
+    public static final String METRICS_NAME = "idpool";
+    public static final String M_BLOCK_WAIT = "blockWait";
+
+    private static final BlockCursor UNINITIALIZED_CURSOR = new BlockCursor(null, 0);
+
+    private final IDAuthority idAuthority;
+    private final long idUpperBound; //exclusive
+    private final int partition;
+    private final int idNamespace;
+    private final Duration renewTimeout;
+    private final int prefetchBlocks;
+    private final Timer blockWaitTimer;
+
+    private volatile BlockCursor current;
+    //Renewals in the order in which they were submitted - guarded by this
+    private final Deque<BlockRenewal> renewals;
+    private final ThreadPoolExecutor exec;
+    private final Queue<Future<?>> closeBlockers;
+
+    private volatile boolean closed;
+
+    /**
+     * @param prefetchBlocks the number of id blocks which are acquired ahead of time
+     * @param metricsPrefix the prefix of the block wait metric or null if no metrics should be reported
+     */
+    public ConcurrentIDPool(IDAuthority idAuthority, int partition, int idNamespace, long idUpperBound,
+                            Duration renewTimeout, int prefetchBlocks, String metricsPrefix) {
+        Preconditions.checkArgument(idUpperBound > 0);
+        Preconditions.checkArgument(partition >= 0);
+        Preconditions.checkArgument(idNamespace >= 0);
+        Preconditions.checkArgument(!renewTimeout.isZero(), "Renew-timeout must be positive");
+        Preconditions.checkArgument(prefetchBlocks > 0, "Number of pre-fetched blocks must be positive: %s", prefetchBlocks);
+        this.idAuthority = idAuthority;
+        this.partition = partition;
+        this.idNamespace = idNamespace;
+        this.idUpperBound = idUpperBound;
+        this.renewTimeout = renewTimeout;
+        this.prefetchBlocks = prefetchBlocks;
+        this.blockWaitTimer = metricsPrefix == null ? null : MetricManager.INSTANCE.getTimer(metricsPrefix,
+                METRICS_NAME, String.valueOf(idNamespace), M_BLOCK_WAIT);
+
+        current = UNINITIALIZED_CURSOR;
+        renewals = new ArrayDeque<>(prefetchBlocks);
+        exec = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new ThreadFactoryBuilder()
+                        .setDaemon(false)
+                        .setNameFormat("JanusGraphID(" + partition + ")(" + idNamespace + ")[%d]")
+                        .build());
+        closeBlockers = new ArrayDeque<>(4);
+        closed = false;
+    }
+
+    @Override
+    public long nextID() {
+        while (true) {
+            final BlockCursor cursor = current;
+            final long index = cursor.nextIndex.getAndIncrement();
+            if (index < cursor.numIds) {
+                final long returnId = cursor.block.getId(index);
+                if (returnId >= idUpperBound) throw new IDPoolExhaustedException("Reached id upper bound of " + idUpperBound);
+                log.trace("partition({})-namespace({}) Returned id: {}", partition, idNamespace, returnId);
+                return returnId;
+            }
+            nextBlock(cursor);
+        }
+    }
+
+    private synchronized void nextBlock(BlockCursor exhausted) {
+        //Another caller already replaced the exhausted block while we were waiting for the lock
+        if (current != exhausted) return;
+        Preconditions.checkState(!closed, "ID Pool has been closed for partition(%s)-namespace(%s) - cannot apply for new id block",
+                partition, idNamespace);
+
+        startIDBlockGetters();
+        final Stopwatch sw = Stopwatch.createStarted();
+        final IDBlock block;
+        try {
+            block = waitForIDBlockGetter();
+        } catch (InterruptedException e) {
+            throw new JanusGraphException("Could not renew id block due to interruption", e);
+        } finally {
+            if (blockWaitTimer != null) blockWaitTimer.update(sw.elapsed(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        }
+
+        if (block == StandardIDPool.ID_POOL_EXHAUSTION)
+            throw new IDPoolExhaustedException("Exhausted ID Pool for partition(" + partition + ")-namespace(" + idNamespace + ")");
+
+        assert block.numIds() > 0;
+        current = new BlockCursor(block, block.numIds());
+        log.debug("ID partition({})-namespace({}) acquired block: [{}]", partition, idNamespace, block);
+        //Replace the block we just took so that the configured number of blocks stays pre-fetched
+        startIDBlockGetters();
+    }
+
+    private IDBlock waitForIDBlockGetter() throws InterruptedException {
+        assert Thread.holdsLock(this) && !renewals.isEmpty();
+        final BlockRenewal renewal = renewals.removeFirst();
+        final Stopwatch sw = Stopwatch.createStarted();
+        try {
+            return renewal.future.get(renewTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            String msg = String.format("ID block allocation on partition(%d)-namespace(%d) failed with an exception in %s",
+                    partition, idNamespace, sw.stop());
+            throw new JanusGraphException(msg, e);
+        } catch (TimeoutException e) {
+            String msg = String.format("ID block allocation on partition(%d)-namespace(%d) timed out in %s",
+                    partition, idNamespace, sw.stop());
+            stop(renewal);
+            throw new JanusGraphException(msg, e);
+        } catch (CancellationException e) {
+            String msg = String.format("ID block allocation on partition(%d)-namespace(%d) was cancelled after %s",
+                    partition, idNamespace, sw.stop());
+            throw new JanusGraphException(msg, e);
+        }
+        // Allow InterruptedException to propagate up the stack
+    }
+
+    private void startIDBlockGetters() {
+        assert Thread.holdsLock(this);
+        while (!closed && renewals.size() < prefetchBlocks) {
+            log.debug("Starting id block renewal on partition({})-namespace({})", partition, idNamespace);
+            final StandardIDPool.IDBlockGetter getter = new StandardIDPool.IDBlockGetter(idAuthority, partition,
+                    idNamespace, renewTimeout);
+            renewals.addLast(new BlockRenewal(getter, exec.submit(getter)));
+        }
+    }
+
+    private void stop(BlockRenewal renewal) {
+        renewal.getter.stopRequested();
+        if (idAuthority.supportsInterruption()) {
+            renewal.future.cancel(true);
+        } else {
+            // Attempt to clean one dead element out of closeBlockers every time we append to it
+            final Future<?> f = closeBlockers.peek();
+            if (null != f && f.isDone()) closeBlockers.remove();
+            closeBlockers.add(renewal.future);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        //Renewals which have not started yet abort immediately, the running one is allowed to finish
+        for (BlockRenewal renewal : renewals) renewal.getter.stopRequested();
+        for (BlockRenewal renewal : renewals) {
+            try {
+                renewal.future.get(renewTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                throw new JanusGraphException("Interrupted while waiting for id renewer thread to finish", e);
+            } catch (ExecutionException | CancellationException e) {
+                log.debug("Pre-fetched ID block renewal completed with exception", e);
+            } catch (TimeoutException e) {
+                stop(renewal);
+            }
+        }
+        renewals.clear();
+
+        for (Future<?> closeBlocker : closeBlockers) {
+            try {
+                closeBlocker.get();
+            } catch (InterruptedException e) {
+                throw new JanusGraphException("Interrupted while waiting for runaway ID renewer task " + closeBlocker, e);
+            } catch (ExecutionException | CancellationException e) {
+                log.debug("Runaway ID renewer task completed with exception", e);
+            }
+        }
+        exec.shutdownNow();
+    }
+
+    private static class BlockCursor {
+
+        private final IDBlock block;
+        private final long numIds;
+        private final AtomicLong nextIndex = new AtomicLong(0);
+
+        private BlockCursor(IDBlock block, long numIds) {
+            this.block = block;
+            this.numIds = numIds;
+        }
+    }
+
+    private static class BlockRenewal {
+
+        private final StandardIDPool.IDBlockGetter getter;
+        private final Future<IDBlock> future;
+
+        private BlockRenewal(StandardIDPool.IDBlockGetter getter, Future<IDBlock> future) {
+            this.getter = getter;
+            this.future = future;
+        }
+    }
+}
@@ -48,7 +48,7 @@ public class StandardIDPool implements IDPool {
             LoggerFactory.getLogger(StandardIDPool.class);
 
 
-    private static final IDBlock ID_POOL_EXHAUSTION = new IDBlock() {
+    static final IDBlock ID_POOL_EXHAUSTION = new IDBlock() {
         @Override
         public long numIds() {
             throw new UnsupportedOperationException();
@@ -252,7 +252,7 @@ public class StandardIDPool implements IDPool {
         idBlockFuture = exec.submit(idBlockGetter);
     }
 
-    private static class IDBlockGetter implements Callable<IDBlock> {
+    static class IDBlockGetter implements Callable<IDBlock> {
 
         private final Stopwatch alive;
         private final IDAuthority idAuthority;
@@ -261,7 +261,7 @@ public class StandardIDPool implements IDPool {
         private final Duration renewTimeout;
         private volatile boolean stopRequested;
 
-        public IDBlockGetter(IDAuthority idAuthority, int partition, int idNamespace, Duration renewTimeout) {
+        IDBlockGetter(IDAuthority idAuthority, int partition, int idNamespace, Duration renewTimeout) {
             this.idAuthority = idAuthority;
             this.partition = partition;
             this.idNamespace = idNamespace;
@@ -269,7 +269,7 @@ public class StandardIDPool implements IDPool {
             this.alive = Stopwatch.createStarted();
         }
 
-        private void stopRequested()
+        void stopRequested()
         {
             this.stopRequested = true;
         }
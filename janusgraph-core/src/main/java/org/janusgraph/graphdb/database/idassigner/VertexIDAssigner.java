@@ -59,16 +59,18 @@ public class VertexIDAssigner implements AutoCloseable {
     private static final Map<String,String> REGISTERED_PLACEMENT_STRATEGIES = Collections.singletonMap("simple", SimpleBulkPlacementStrategy.class.getName());
 
     final ConcurrentMap<Integer,PartitionIDPool> idPools;
-    final StandardIDPool schemaIdPool;
-    final StandardIDPool partitionVertexIdPool;
+    final IDPool schemaIdPool;
+    final IDPool partitionVertexIdPool;
 
     private final IDAuthority idAuthority;
     private final IDManager idManager;
     private final IDPlacementStrategy placementStrategy;
 
-    //For StandardIDPool
+    //For StandardIDPool and ConcurrentIDPool
     private final Duration renewTimeoutMS;
     private final double renewBufferPercentage;
+    private final int prefetchBlocks;
+    private final String metricsPrefix;
 
     private final int partitionIdBound;
     private final boolean hasLocalPartitions;
@@ -94,15 +96,25 @@ public class VertexIDAssigner implements AutoCloseable {
 
         renewTimeoutMS = config.get(IDS_RENEW_TIMEOUT);
         renewBufferPercentage = config.get(IDS_RENEW_BUFFER_PERCENTAGE);
+        prefetchBlocks = config.get(IDS_PREFETCH_BLOCKS);
+        metricsPrefix = config.get(BASIC_METRICS) ? config.get(METRICS_PREFIX) : null;
 
         idPools = new ConcurrentHashMap<>(partitionIdBound);
-        schemaIdPool = new StandardIDPool(idAuthority, IDManager.SCHEMA_PARTITION, PoolType.SCHEMA.getIDNamespace(),
-                IDManager.getSchemaCountBound(), renewTimeoutMS, renewBufferPercentage);
-        partitionVertexIdPool = new StandardIDPool(idAuthority, IDManager.PARTITIONED_VERTEX_PARTITION, PoolType.PARTITIONED_VERTEX.getIDNamespace(),
-                PoolType.PARTITIONED_VERTEX.getCountBound(idManager), renewTimeoutMS, renewBufferPercentage);
+        schemaIdPool = createIDPool(IDManager.SCHEMA_PARTITION, PoolType.SCHEMA.getIDNamespace(),
+                IDManager.getSchemaCountBound());
+        partitionVertexIdPool = createIDPool(IDManager.PARTITIONED_VERTEX_PARTITION, PoolType.PARTITIONED_VERTEX.getIDNamespace(),
+                PoolType.PARTITIONED_VERTEX.getCountBound(idManager));
         setLocalPartitions(partitionBits);
     }
 
+    private IDPool createIDPool(int partition, int idNamespace, long idUpperBound) {
+        if (prefetchBlocks > 0) {
+            return new ConcurrentIDPool(idAuthority, partition, idNamespace, idUpperBound, renewTimeoutMS,
+                    prefetchBlocks, metricsPrefix);
+        }
+        return new StandardIDPool(idAuthority, partition, idNamespace, idUpperBound, renewTimeoutMS, renewBufferPercentage);
+    }
+
     private void setLocalPartitionsToGlobal(int partitionBits) {
         placementStrategy.setLocalPartitionBounds(PartitionIDRange.getGlobalRange(partitionBits));
     }
@@ -308,7 +320,7 @@ public class VertexIDAssigner implements AutoCloseable {
         } else {
             PartitionIDPool partitionPool = idPools.get(partitionID);
             if (partitionPool == null) {
-                partitionPool = new PartitionIDPool(partitionID, idAuthority, idManager, renewTimeoutMS, renewBufferPercentage);
+                partitionPool = new PartitionIDPool(partitionID);
                 idPools.putIfAbsent(partitionID,partitionPool);
                 partitionPool = idPools.get(partitionID);
             }
@@ -447,16 +459,16 @@ public class VertexIDAssigner implements AutoCloseable {
 
     }
 
-    private static class PartitionIDPool extends EnumMap<PoolType,IDPool> {
+    private class PartitionIDPool extends EnumMap<PoolType,IDPool> {
 
         private volatile long lastAccess;
         private volatile boolean exhausted;
 
-        PartitionIDPool(int partitionID, IDAuthority idAuthority, IDManager idManager, Duration renewTimeoutMS, double renewBufferPercentage) {
+        PartitionIDPool(int partitionID) {
             super(PoolType.class);
             for (PoolType type : PoolType.values()) {
                 if (!type.hasOnePerPartition()) continue;
-                put(type,new StandardIDPool(idAuthority, partitionID, type.getIDNamespace(), type.getCountBound(idManager), renewTimeoutMS, renewBufferPercentage));
+                put(type,createIDPool(partitionID, type.getIDNamespace(), type.getCountBound(idManager)));
             }
         }
 
@@ -35,6 +35,7 @@ import org.janusgraph.graphdb.internal.*;
 import org.janusgraph.graphdb.olap.VertexJobConverter;
 import org.janusgraph.graphdb.olap.job.IndexRemoveJob;
 import org.janusgraph.graphdb.olap.job.IndexRepairJob;
+import org.janusgraph.graphdb.olap.job.IndexStatisticsJob;
 import org.janusgraph.graphdb.query.QueryUtil;
 import org.janusgraph.graphdb.transaction.StandardJanusGraphTx;
 import org.janusgraph.graphdb.types.*;
@@ -828,6 +829,7 @@ public class ManagementSystem implements JanusGraphManagement {
                 builder = graph.getBackend().buildEdgeScanJob();
                 builder.setFinishJob(indexId.getIndexJobFinisher(graph, SchemaAction.ENABLE_INDEX));
                 builder.setJobId(indexId);
+                graph.getBackend().configureScanCheckpointing(builder);
                 builder.setJob(VertexJobConverter.convert(graph, new IndexRepairJob(indexId.indexName, indexId.relationTypeName)));
                 try {
                     future = builder.execute();
@@ -859,6 +861,7 @@ public class ManagementSystem implements JanusGraphManagement {
                 }
                 builder.setFinishJob(indexId.getIndexJobFinisher());
                 builder.setJobId(indexId);
+                graph.getBackend().configureScanCheckpointing(builder);
                 builder.setJob(new IndexRemoveJob(graph, indexId.indexName, indexId.relationTypeName));
                 try {
                     future = builder.execute();
@@ -866,6 +869,24 @@ public class ManagementSystem implements JanusGraphManagement {
                     throw new JanusGraphException(e);
                 }
                 break;
+            case UPDATE_STATISTICS:
+                if (index instanceof RelationTypeIndex || ((JanusGraphIndex) index).isMixedIndex())
+                    throw new UnsupportedOperationException("Statistics can only be collected for composite graph indexes.");
+                final IndexStatisticsJob statisticsJob = new IndexStatisticsJob(graph, (CompositeIndexType) schemaVertex.asIndexType());
+                final Consumer<ScanMetrics> finisher = indexId.getIndexJobFinisher();
+                builder = graph.getBackend().buildGraphIndexScanJob();
+                builder.setFinishJob(metrics -> {
+                    if (metrics.get(ScanMetrics.Metric.FAILURE) == 0) statisticsJob.persistStatistics(metrics);
+                    finisher.accept(metrics);
+                });
+                builder.setJobId(indexId);
+                builder.setJob(statisticsJob);
+                try {
+                    future = builder.execute();
+                } catch (BackendException e) {
+                    throw new JanusGraphException(e);
+                }
+                break;
             default:
                 throw new UnsupportedOperationException("Update action not supported: " + updateAction);
         }
@@ -0,0 +1,155 @@
+// Copyright 2017 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.olap.computer;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
+import org.janusgraph.diskstorage.EntryList;
+import org.janusgraph.graphdb.idmanagement.IDManager;
+import org.apache.tinkerpop.gremlin.process.computer.MessageCombiner;
+import org.apache.tinkerpop.gremlin.process.computer.MessageScope;
+import org.apache.tinkerpop.gremlin.process.computer.VertexComputeKey;
+import org.apache.tinkerpop.gremlin.process.computer.VertexProgram;
+import org.cliffc.high_scale_lib.NonBlockingHashMapLong;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The vertex compute keys and messages of a graph computer job. Subclasses decide how the values of regular vertices
+ * are stored, whereas the message scopes of the current and previous iteration and the aggregates of partitioned
+ * vertices are handled here.
+ */
+public abstract class AbstractFulgoraVertexMemory<M> {
+
+    static final MessageScope.Global GLOBAL_SCOPE = MessageScope.Global.instance();
+
+    private final IDManager idManager;
+    private final Set<VertexComputeKey> computeKeys;
+    protected final Map<String,Integer> elementKeyMap;
+    protected final MessageCombiner<M> combiner;
+    protected Map<MessageScope,Integer> previousScopes;
+    protected Map<MessageScope,Integer> currentScopes;
+    private boolean inExecute;
+
+    private final NonBlockingHashMapLong<PartitionVertexAggregate<M>> partitionVertices;
+
+    protected AbstractFulgoraVertexMemory(final IDManager idManager, final VertexProgram<M> vertexProgram) {
+        Preconditions.checkArgument(vertexProgram!=null && idManager!=null);
+        partitionVertices = new NonBlockingHashMapLong<>(64);
+        this.idManager = idManager;
+        this.combiner = vertexProgram.getMessageCombiner().orElse(null);
+        this.computeKeys = vertexProgram.getVertexComputeKeys();
+        this.elementKeyMap = getIdMap(vertexProgram.getVertexComputeKeys().stream().map(VertexComputeKey::getKey).collect(Collectors.toCollection(HashSet::new)));
+        this.previousScopes = Collections.emptyMap();
+    }
+
+    public long getCanonicalId(long vertexId) {
+        if (!idManager.isPartitionedVertex(vertexId)) return vertexId;
+        else return idManager.getCanonicalVertexId(vertexId);
+    }
+
+    public Set<MessageScope> getPreviousScopes() {
+        return previousScopes.keySet();
+    }
+
+    public abstract <V> void setProperty(long vertexId, String key, V value);
+
+    public abstract <V> V getProperty(long vertexId, String key);
+
+    abstract void sendMessage(long vertexId, M message, MessageScope scope);
+
+    abstract Stream<M> getMessage(long vertexId, MessageScope scope);
+
+    void completeIteration() {
+        completeMessageIteration();
+        partitionVertices.clear();
+        previousScopes = currentScopes;
+        inExecute = false;
+    }
+
+    /**
+     * Makes the messages sent in the current iteration the messages received in the next one
+     */
+    protected abstract void completeMessageIteration();
+
+    void nextIteration(Set<MessageScope> scopes) {
+        currentScopes = getIdMap(normalizeScopes(scopes));
+        partitionVertices.clear();
+        inExecute = true;
+    }
+
+    public abstract Map<Long,Map<String,Object>> getMutableVertexProperties();
+
+    /**
+     * Releases the resources held by this memory once the vertex program and map jobs have completed
+     */
+    abstract void close();
+
+    public Set<String> getMemoryKeys() {
+        return computeKeys.stream().filter(key -> inExecute || !key.isTransient()).map(VertexComputeKey::getKey).collect(Collectors.toSet());
+    }
+
+    static MessageScope normalizeScope(MessageScope scope) {
+        if (scope instanceof MessageScope.Global) return GLOBAL_SCOPE;
+        else return scope;
+    }
+
+    private static Iterable<MessageScope> normalizeScopes(Iterable<MessageScope> scopes) {
+        return Iterables.transform(scopes, AbstractFulgoraVertexMemory::normalizeScope);
+    }
+
+
+    //######## Partitioned Vertices ##########
+
+    private PartitionVertexAggregate<M> getPartitioned(long vertexId) {
+        assert idManager.isPartitionedVertex(vertexId);
+        vertexId=getCanonicalId(vertexId);
+        PartitionVertexAggregate<M> state = partitionVertices.get(vertexId);
+        if (state==null) {
+            partitionVertices.putIfAbsent(vertexId,new PartitionVertexAggregate<>(previousScopes));
+            state = partitionVertices.get(vertexId);
+        }
+        return state;
+    }
+
+    public void setLoadedProperties(long vertexId, EntryList entries) {
+        getPartitioned(vertexId).setLoadedProperties(entries);
+    }
+
+    public void aggregateMessage(long vertexId, M message, MessageScope scope) {
+        getPartitioned(vertexId).addMessage(message,normalizeScope(scope),previousScopes,combiner);
+    }
+
+    Stream<M> getAggregateMessage(long vertexId, MessageScope scope) {
+        return getPartitioned(vertexId).getMessage(normalizeScope(scope),previousScopes);
+    }
+
+    public Map<Long,EntryList> retrievePartitionAggregates() {
+        for (PartitionVertexAggregate agg : partitionVertices.values()) agg.completeIteration();
+        return Maps.transformValues(partitionVertices, PartitionVertexAggregate::getLoadedProperties);
+    }
+
+    public static <K> Map<K,Integer> getIdMap(Iterable<K> elements) {
+        Map<K,Integer> b = new HashMap<>();
+        int size = 0;
+        for (K key : elements) {
+            b.put(key,size++);
+        }
+        return Collections.unmodifiableMap(b);
+    }
+}
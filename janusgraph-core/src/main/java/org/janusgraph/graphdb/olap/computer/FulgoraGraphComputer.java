@@ -56,9 +56,12 @@ import org.apache.tinkerpop.gremlin.structure.util.empty.EmptyGraph;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -82,12 +85,16 @@ public class FulgoraGraphComputer implements JanusGraphComputer {
     private final StandardJanusGraph graph;
     private final int expectedNumVertices = 10000;
     private FulgoraMemory memory;
-    private FulgoraVertexMemory vertexMemory;
+    private AbstractFulgoraVertexMemory vertexMemory;
+    private VertexMemoryType vertexMemoryType = VertexMemoryType.OBJECT;
     private boolean executed = false;
 
     private int numThreads = 1;//Math.max(1,Runtime.getRuntime().availableProcessors());
     private final int readBatchSize;
     private final int writeBatchSize;
+    private final long spillHeapBudget;
+    private final File spillDirectory;
+    private FulgoraSpillContext spillContext;
 
     private ResultGraph resultGraphMode = null;
     private Persist persistMode = null;
@@ -102,6 +109,10 @@ public class FulgoraGraphComputer implements JanusGraphComputer {
         this.graph = graph;
         this.writeBatchSize = configuration.get(GraphDatabaseConfiguration.BUFFER_SIZE);
         this.readBatchSize = this.writeBatchSize * 10;
+        this.spillHeapBudget = configuration.get(GraphDatabaseConfiguration.COMPUTER_SPILL_HEAP_BUDGET);
+        this.spillDirectory = new File(configuration.has(GraphDatabaseConfiguration.COMPUTER_SPILL_DIRECTORY)
+            ? configuration.get(GraphDatabaseConfiguration.COMPUTER_SPILL_DIRECTORY)
+            : System.getProperty("java.io.tmpdir"));
         this.name = "compute" + computerCounter.incrementAndGet();
     }
 
@@ -138,6 +149,13 @@ public class FulgoraGraphComputer implements JanusGraphComputer {
         return this;
     }
 
+    @Override
+    public JanusGraphComputer vertexMemory(VertexMemoryType type) {
+        Preconditions.checkNotNull(type, "Need to specify vertex memory type");
+        vertexMemoryType = type;
+        return this;
+    }
+
     @Override
     public GraphComputer program(final VertexProgram vertexProgram) {
         Preconditions.checkState(this.vertexProgram == null, "A vertex program has already been set");
@@ -195,22 +213,34 @@ public class FulgoraGraphComputer implements JanusGraphComputer {
 
     private ComputerResult submitAsync() {
         final long time = System.currentTimeMillis();
-        executeVertexProgram();
-
-        Map<MapReduce, FulgoraMapEmitter> mapJobs = collectMapJobs();
-        executeMapJobs(mapJobs);
-
-        Graph resultgraph = writeMutatedPropertiesBackIntoGraph();
-        // update runtime and return the newly computed graph
-        this.memory.setRuntime(System.currentTimeMillis() - time);
-        this.memory.complete();
-        return new DefaultComputerResult(resultgraph, this.memory);
+        if (spillHeapBudget > 0) {
+            spillContext = new FulgoraSpillContext(graph.getDataSerializer(), spillDirectory, spillHeapBudget);
+        }
+        try {
+            executeVertexProgram();
+
+            Map<MapReduce, FulgoraMapEmitter> mapJobs = collectMapJobs();
+            executeMapJobs(mapJobs);
+
+            Graph resultgraph = writeMutatedPropertiesBackIntoGraph();
+            // update runtime and return the newly computed graph
+            this.memory.setRuntime(System.currentTimeMillis() - time);
+            this.memory.complete();
+            return new DefaultComputerResult(resultgraph, this.memory);
+        } finally {
+            if (vertexMemory != null) vertexMemory.close();
+        }
     }
 
     private void executeVertexProgram() {
         if (null == vertexProgram) return;
 
-        vertexMemory = new FulgoraVertexMemory(expectedNumVertices, graph.getIDManager(), vertexProgram);
+        if (vertexMemoryType == VertexMemoryType.PRIMITIVE) {
+            vertexMemory = new PrimitiveFulgoraVertexMemory<>(expectedNumVertices, graph.getIDManager(), vertexProgram,
+                spillContext);
+        } else {
+            vertexMemory = new FulgoraVertexMemory<>(expectedNumVertices, graph.getIDManager(), vertexProgram);
+        }
         vertexProgram.setup(memory);
 
         try (VertexProgramScanJob.Executor job = VertexProgramScanJob.getVertexProgramScanJob(graph, memory, vertexMemory, vertexProgram)) {
@@ -289,18 +319,31 @@ public class FulgoraGraphComputer implements JanusGraphComputer {
         Map<MapReduce, FulgoraMapEmitter> mapJobs = new HashMap<>(mapReduces.size());
         for (MapReduce mapReduce : mapReduces) {
             if (mapReduce.doStage(MapReduce.Stage.MAP)) {
-                FulgoraMapEmitter mapEmitter = new FulgoraMapEmitter<>(mapReduce.doStage(MapReduce.Stage.REDUCE));
+                final boolean doReduce = mapReduce.doStage(MapReduce.Stage.REDUCE);
+                FulgoraMapEmitter mapEmitter = new FulgoraMapEmitter<>(doReduce,
+                    getSpillBuffer(doReduce, (Comparator) mapReduce.getMapKeySort().orElse(null)));
                 mapJobs.put(mapReduce, mapEmitter);
             }
         }
         return mapJobs;
     }
 
+    /**
+     * Returns a buffer for map-reduce output which spills to disk, or null if spilling is disabled.
+     */
+    private <K, V> FulgoraSpillBuffer<K, V> getSpillBuffer(boolean grouped, Comparator<K> keySort) {
+        if (spillContext == null) return null;
+        return new FulgoraSpillBuffer<>(spillContext, grouped, keySort);
+    }
+
     private void executeMapJobs(Map<MapReduce, FulgoraMapEmitter> mapJobs) {
         jobId = name + "#map";
         try (VertexMapJob.Executor job = VertexMapJob.getVertexMapJob(graph, vertexMemory, mapJobs)) {
             executeMapJob(job);
             executeReducePhase(mapJobs);
+        } finally {
+            // delete the spilled output of map jobs which failed or were not read completely
+            mapJobs.values().forEach(FulgoraMapEmitter::close);
         }
         memory.attachReferenceElements(graph);
     }
@@ -334,24 +377,37 @@ public class FulgoraGraphComputer implements JanusGraphComputer {
             MapReduce mapReduce = mapJob.getKey();
             mapEmitter.complete(mapReduce); // sort results if a map output sort is defined
             if (mapReduce.doStage(MapReduce.Stage.REDUCE)) {
-                final FulgoraReduceEmitter<?, ?> reduceEmitter = new FulgoraReduceEmitter<>();
-                try (WorkerPool workers = new WorkerPool(numThreads)) {
-                    workers.submit(() -> mapReduce.workerStart(MapReduce.Stage.REDUCE));
-                    for (final Map.Entry queueEntry : mapEmitter.reduceMap.entrySet()) {
-                        if (null == queueEntry) break;
-                        workers.submit(() -> mapReduce.reduce(queueEntry.getKey(),
-                            ((Iterable) queueEntry.getValue()).iterator(), reduceEmitter));
+                final FulgoraReduceEmitter<?, ?> reduceEmitter = new FulgoraReduceEmitter<>(
+                    getSpillBuffer(false, (Comparator) mapReduce.getReduceKeySort().orElse(null)));
+                try {
+                    try (WorkerPool workers = new WorkerPool(numThreads)) {
+                        workers.submit(() -> mapReduce.workerStart(MapReduce.Stage.REDUCE));
+                        final Iterator<? extends Map.Entry<?, ? extends Iterable<?>>> groups = mapEmitter.reduceGroups();
+                        while (groups.hasNext()) {
+                            final Map.Entry<?, ? extends Iterable<?>> queueEntry = groups.next();
+                            if (null == queueEntry) break;
+                            workers.submit(() -> mapReduce.reduce(queueEntry.getKey(),
+                                queueEntry.getValue().iterator(), reduceEmitter));
+                        }
+                        workers.submit(() -> mapReduce.workerEnd(MapReduce.Stage.REDUCE));
+                    } catch (Exception e) {
+                        throw new JanusGraphException("Exception while executing reduce phase", e);
+                    } finally {
+                        mapEmitter.close();
                     }
-                    workers.submit(() -> mapReduce.workerEnd(MapReduce.Stage.REDUCE));
-                } catch (Exception e) {
-                    throw new JanusGraphException("Exception while executing reduce phase", e);
-                }
 //                    mapEmitter.reduceMap.entrySet().parallelStream().forEach(entry -> mapReduce.reduce(entry.getKey(), entry.getValue().iterator(), reduceEmitter));
 
-                reduceEmitter.complete(mapReduce); // sort results if a reduce output sort is defined
-                mapReduce.addResultToMemory(this.memory, reduceEmitter.reduceQueue.iterator());
+                    reduceEmitter.complete(mapReduce); // sort results if a reduce output sort is defined
+                    mapReduce.addResultToMemory(this.memory, reduceEmitter.results());
+                } finally {
+                    reduceEmitter.close();
+                }
             } else {
-                mapReduce.addResultToMemory(this.memory, mapEmitter.mapQueue.iterator());
+                try {
+                    mapReduce.addResultToMemory(this.memory, mapEmitter.mapResults());
+                } finally {
+                    mapEmitter.close();
+                }
             }
         }
     }
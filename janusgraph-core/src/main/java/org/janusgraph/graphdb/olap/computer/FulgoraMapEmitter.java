@@ -18,6 +18,7 @@ import org.apache.tinkerpop.gremlin.process.computer.KeyValue;
 import org.apache.tinkerpop.gremlin.process.computer.MapReduce;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -34,9 +35,20 @@ public class FulgoraMapEmitter<K, V> implements MapReduce.MapEmitter<K, V> {
     public Map<K, Queue<V>> reduceMap;
     public Queue<KeyValue<K, V>> mapQueue;
     private final boolean doReduce;
+    private final FulgoraSpillBuffer<K, V> spillBuffer;
 
     public FulgoraMapEmitter(final boolean doReduce) {
+        this(doReduce, null);
+    }
+
+    /**
+     * @param spillBuffer if not null, all emitted pairs are written to this buffer instead of the in-memory collections
+     */
+    FulgoraMapEmitter(final boolean doReduce, final FulgoraSpillBuffer<K, V> spillBuffer) {
         this.doReduce = doReduce;
+        this.spillBuffer = spillBuffer;
+        if (this.spillBuffer != null)
+            return;
         if (this.doReduce)
             this.reduceMap = new ConcurrentHashMap<>();
         else
@@ -45,13 +57,19 @@ public class FulgoraMapEmitter<K, V> implements MapReduce.MapEmitter<K, V> {
 
     @Override
     public void emit(K key, V value) {
-        if (this.doReduce)
+        if (this.spillBuffer != null)
+            this.spillBuffer.add(key, value);
+        else if (this.doReduce)
             this.reduceMap.computeIfAbsent(key, k -> new ConcurrentLinkedQueue<>()).add(value);
         else
             this.mapQueue.add(new KeyValue<>(key, value));
     }
 
     protected void complete(final MapReduce<K, V, ?, ?, ?> mapReduce) {
+        if (this.spillBuffer != null) {
+            // spilled output is merged into sort order when it is read
+            return;
+        }
         if (!this.doReduce && mapReduce.getMapKeySort().isPresent()) {
             final Comparator<K> comparator = mapReduce.getMapKeySort().get();
             final List<KeyValue<K, V>> list = new ArrayList<>(this.mapQueue);
@@ -66,4 +84,23 @@ public class FulgoraMapEmitter<K, V> implements MapReduce.MapEmitter<K, V> {
             list.forEach(entry -> this.reduceMap.put(entry.getKey(), entry.getValue()));
         }
     }
+
+    /**
+     * Returns the values emitted for each key, to be used as input of the reduce stage.
+     */
+    protected Iterator<? extends Map.Entry<K, ? extends Iterable<V>>> reduceGroups() {
+        return this.spillBuffer != null ? this.spillBuffer.groups() : this.reduceMap.entrySet().iterator();
+    }
+
+    /**
+     * Returns the emitted key-value pairs if there is no reduce stage.
+     */
+    protected Iterator<KeyValue<K, V>> mapResults() {
+        return this.spillBuffer != null ? this.spillBuffer.iterator() : this.mapQueue.iterator();
+    }
+
+    protected void close() {
+        if (this.spillBuffer != null)
+            this.spillBuffer.close();
+    }
 }
@@ -19,6 +19,7 @@ import org.apache.tinkerpop.gremlin.process.computer.KeyValue;
 
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -30,13 +31,32 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 public class FulgoraReduceEmitter<OK, OV> implements MapReduce.ReduceEmitter<OK, OV> {
 
     protected final Queue<KeyValue<OK, OV>> reduceQueue = new ConcurrentLinkedQueue<>();
+    private final FulgoraSpillBuffer<OK, OV> spillBuffer;
+
+    public FulgoraReduceEmitter() {
+        this(null);
+    }
+
+    /**
+     * @param spillBuffer if not null, all emitted pairs are written to this buffer instead of the in-memory queue
+     */
+    FulgoraReduceEmitter(final FulgoraSpillBuffer<OK, OV> spillBuffer) {
+        this.spillBuffer = spillBuffer;
+    }
 
     @Override
     public void emit(final OK key, final OV value) {
-        this.reduceQueue.add(new KeyValue<>(key, value));
+        if (this.spillBuffer != null)
+            this.spillBuffer.add(key, value);
+        else
+            this.reduceQueue.add(new KeyValue<>(key, value));
     }
 
     protected void complete(final MapReduce<?, ?, OK, OV, ?> mapReduce) {
+        if (this.spillBuffer != null) {
+            // spilled output is merged into sort order when it is read
+            return;
+        }
         if (mapReduce.getReduceKeySort().isPresent()) {
             final Comparator<OK> comparator = mapReduce.getReduceKeySort().get();
             final List<KeyValue<OK, OV>> list = new ArrayList<>(this.reduceQueue);
@@ -45,4 +65,16 @@ public class FulgoraReduceEmitter<OK, OV> implements MapReduce.ReduceEmitter<OK,
             this.reduceQueue.addAll(list);
         }
     }
+
+    /**
+     * Returns the emitted key-value pairs.
+     */
+    protected Iterator<KeyValue<OK, OV>> results() {
+        return this.spillBuffer != null ? this.spillBuffer.iterator() : this.reduceQueue.iterator();
+    }
+
+    protected void close() {
+        if (this.spillBuffer != null)
+            this.spillBuffer.close();
+    }
 }
@@ -0,0 +1,335 @@
+// Copyright 2020 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.olap.computer;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+import org.apache.tinkerpop.gremlin.process.computer.KeyValue;
+import org.janusgraph.core.JanusGraphException;
+import org.janusgraph.diskstorage.ReadBuffer;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.util.ReadArrayBuffer;
+import org.janusgraph.graphdb.database.serialize.DataOutput;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Buffers the key-value pairs emitted by a {@link org.apache.tinkerpop.gremlin.process.computer.MapReduce} job and
+ * spills them to sorted run files in the spill directory once the heap budget of the {@link FulgoraSpillContext}
+ * is exhausted. When the buffered output is read back, all runs and the in-memory remainder are merged so that the
+ * output is
+ * <ul>
+ *     <li>ordered by key hash with all values of a key grouped together if the buffer is used as input to the reduce stage,</li>
+ *     <li>ordered by the given key comparator if a sort order is defined, or</li>
+ *     <li>in the order the runs were spilled otherwise.</li>
+ * </ul>
+ * Pairs are encoded when they are added, so that their heap size can be estimated from the encoded size and
+ * spilling only needs to sort and write them. Pairs with a key or value which the graph's serializer cannot encode
+ * are kept on heap for the lifetime of the buffer. Run files are deleted once they have been read completely or the
+ * buffer is closed.
+ */
+class FulgoraSpillBuffer<K, V> {
+
+    private static final int END_OF_RUN = -1;
+    private static final int IO_BUFFER_SIZE = 1 << 16;
+    /**
+     * Estimated heap overhead of a buffered pair in addition to its encoding
+     */
+    private static final int RECORD_OVERHEAD = 64;
+    /**
+     * A buffer holds at least this many bytes before it spills, even if the heap budget is exhausted by others
+     */
+    private static final long MIN_RUN_BYTES = 1 << 20;
+
+    private final FulgoraSpillContext context;
+    private final boolean grouped;
+    private final Comparator<K> keySort;
+    private final Comparator<Record<K, V>> runOrder;
+    private final long minRunBytes;
+
+    private final List<File> runs = new ArrayList<>();
+    private final List<RunIterator> readers = new ArrayList<>();
+    private List<Record<K, V>> buffer = new ArrayList<>();
+    private long bufferedBytes = 0;
+    private final List<Record<K, V>> unencoded = new ArrayList<>();
+    private long unencodedBytes = 0;
+    private boolean closed = false;
+
+    /**
+     * @param context the heap budget and spill directory of the job
+     * @param grouped whether the output should be grouped by key for the reduce stage
+     * @param keySort the order in which the output should be returned, or null for spill order. Ignored if grouped.
+     */
+    FulgoraSpillBuffer(FulgoraSpillContext context, boolean grouped, Comparator<K> keySort) {
+        this.context = context;
+        this.grouped = grouped;
+        this.keySort = grouped ? null : keySort;
+        if (grouped) runOrder = Comparator.comparingInt(r -> r.hash);
+        else if (keySort != null) runOrder = Comparator.comparing(r -> r.key, keySort);
+        else runOrder = null;
+        minRunBytes = Math.min(MIN_RUN_BYTES, context.getHeapBudget());
+    }
+
+    void add(K key, V value) {
+        if (!context.canWrite(key) || !context.canWrite(value)) {
+            addUnencoded(new Record<>(Objects.hashCode(key), key, value, null));
+            return;
+        }
+        //Only keep the key object if it is needed to sort the buffer
+        final Record<K, V> record = new Record<>(Objects.hashCode(key), keySort != null ? key : null, null,
+            encode(key, value));
+        final long size = record.heapSize();
+        final boolean withinBudget = context.tryReserve(size);
+        if (!withinBudget) context.reserve(size);
+        final List<Record<K, V>> full;
+        final long fullBytes;
+        synchronized (this) {
+            if (closed) {
+                context.release(size);
+                throw new IllegalStateException("Spill buffer has been closed");
+            }
+            buffer.add(record);
+            bufferedBytes += size;
+            if (withinBudget || bufferedBytes < minRunBytes) return;
+            full = buffer;
+            fullBytes = bufferedBytes;
+            buffer = new ArrayList<>();
+            bufferedBytes = 0;
+        }
+        //Sort and write the full buffer without blocking other emitters
+        final File run = spill(full);
+        context.release(fullBytes);
+        synchronized (this) {
+            if (closed) run.delete();
+            else runs.add(run);
+        }
+    }
+
+    private void addUnencoded(Record<K, V> record) {
+        final long size = record.heapSize();
+        context.reserve(size);
+        synchronized (this) {
+            if (closed) {
+                context.release(size);
+                throw new IllegalStateException("Spill buffer has been closed");
+            }
+            unencoded.add(record);
+            unencodedBytes += size;
+        }
+    }
+
+    private File spill(List<Record<K, V>> records) {
+        if (runOrder != null) records.sort(runOrder);
+        final File run = context.createFile(".run");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run), IO_BUFFER_SIZE))) {
+            for (Record<K, V> record : records) {
+                out.writeInt(record.hash);
+                out.writeInt(record.bytes.length);
+                out.write(record.bytes);
+            }
+            out.writeInt(0);
+            out.writeInt(END_OF_RUN);
+        } catch (IOException e) {
+            run.delete();
+            throw new JanusGraphException("Could not spill map-reduce output to: " + run, e);
+        }
+        return run;
+    }
+
+    /**
+     * Returns all key-value pairs added to this buffer in the order described above. May only be called once all
+     * pairs have been added.
+     */
+    synchronized Iterator<KeyValue<K, V>> iterator() {
+        return Iterators.transform(records(), r -> new KeyValue<>(r.key, r.value));
+    }
+
+    /**
+     * Returns the values of all keys added to this buffer grouped by key. Only the values of keys with the same hash
+     * are held in memory at any point in time. May only be called once all pairs have been added.
+     */
+    synchronized Iterator<Map.Entry<K, List<V>>> groups() {
+        Preconditions.checkState(grouped, "Spill buffer does not group by key");
+        final PeekingIterator<Record<K, V>> records = Iterators.peekingIterator(records());
+        return new AbstractIterator<Map.Entry<K, List<V>>>() {
+
+            private Iterator<Map.Entry<K, List<V>>> current = Collections.emptyIterator();
+
+            @Override
+            protected Map.Entry<K, List<V>> computeNext() {
+                while (!current.hasNext()) {
+                    if (!records.hasNext()) return endOfData();
+                    final int hash = records.peek().hash;
+                    final Map<K, List<V>> group = new LinkedHashMap<>();
+                    while (records.hasNext() && records.peek().hash == hash) {
+                        final Record<K, V> record = records.next();
+                        group.computeIfAbsent(record.key, k -> new ArrayList<>()).add(record.value);
+                    }
+                    current = group.entrySet().iterator();
+                }
+                final Map.Entry<K, List<V>> entry = current.next();
+                return new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue());
+            }
+        };
+    }
+
+    private Iterator<Record<K, V>> records() {
+        Preconditions.checkState(!closed, "Spill buffer has been closed");
+        if (runOrder != null) buffer.sort(runOrder);
+        final List<Iterator<Record<K, V>>> sources = new ArrayList<>(runs.size() + 1);
+        for (File run : runs) {
+            final RunIterator reader = new RunIterator(run);
+            readers.add(reader);
+            sources.add(reader);
+        }
+        //The in-memory remainder stays reserved until the buffer is closed
+        sources.add(Iterators.transform(buffer.iterator(), r -> decode(r.hash, r.bytes)));
+        buffer = new ArrayList<>();
+        if (runOrder != null) unencoded.sort(runOrder);
+        sources.add(new ArrayList<>(unencoded).iterator());
+        unencoded.clear();
+        if (runOrder == null) return Iterators.concat(sources.iterator());
+        return Iterators.mergeSorted(sources, runOrder);
+    }
+
+    /**
+     * Deletes all run files and releases the heap reserved for the in-memory remainder and the unencoded pairs.
+     */
+    synchronized void close() {
+        if (closed) return;
+        closed = true;
+        readers.forEach(RunIterator::close);
+        readers.clear();
+        runs.forEach(File::delete);
+        runs.clear();
+        buffer = new ArrayList<>();
+        context.release(bufferedBytes);
+        bufferedBytes = 0;
+        unencoded.clear();
+        context.release(unencodedBytes);
+        unencodedBytes = 0;
+    }
+
+    private byte[] encode(K key, V value) {
+        final DataOutput out = context.getDataOutput(64);
+        context.writeObject(out, key);
+        context.writeObject(out, value);
+        return out.getStaticBuffer().as(StaticBuffer.ARRAY_FACTORY);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Record<K, V> decode(int hash, byte[] bytes) {
+        final ReadBuffer in = new ReadArrayBuffer(bytes);
+        final K key = (K) context.readObject(in);
+        final V value = (V) context.readObject(in);
+        return new Record<>(hash, key, value, null);
+    }
+
+    /**
+     * A buffered pair holds its encoding, a pair which is read back or cannot be encoded holds the key and value
+     */
+    private static class Record<K, V> {
+
+        /**
+         * The key hash is recorded when the pair is added since it determines the order of grouped runs and keys
+         * need not have the same identity hash after they have been read back
+         */
+        private final int hash;
+        private final K key;
+        private final V value;
+        private final byte[] bytes;
+
+        private Record(int hash, K key, V value, byte[] bytes) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.bytes = bytes;
+        }
+
+        /**
+         * Estimates the heap used by a buffered pair, counting the encoding twice if the key object is kept as well
+         */
+        private long heapSize() {
+            if (bytes == null) return 2L * RECORD_OVERHEAD;
+            return RECORD_OVERHEAD + (key != null ? 2L : 1L) * bytes.length;
+        }
+    }
+
+    private class RunIterator extends AbstractIterator<Record<K, V>> {
+
+        private final File run;
+        private DataInputStream in;
+        private boolean exhausted = false;
+
+        private RunIterator(File run) {
+            this.run = run;
+        }
+
+        @Override
+        protected Record<K, V> computeNext() {
+            try {
+                if (in == null) {
+                    in = new DataInputStream(new BufferedInputStream(new FileInputStream(run), IO_BUFFER_SIZE));
+                }
+                final int hash = in.readInt();
+                final int length = in.readInt();
+                if (length == END_OF_RUN) {
+                    close();
+                    return endOfData();
+                }
+                final byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                return decode(hash, bytes);
+            } catch (IOException e) {
+                close();
+                throw new JanusGraphException("Could not read spilled map-reduce output from: " + run, e);
+            }
+        }
+
+        /**
+         * Closes the run and deletes its file
+         */
+        private synchronized void close() {
+            if (exhausted) return;
+            exhausted = true;
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    //The run is deleted anyway
+                }
+            }
+            run.delete();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+// Copyright 2020 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.olap.computer;
+
+import com.google.common.base.Preconditions;
+import org.janusgraph.core.JanusGraphException;
+import org.janusgraph.diskstorage.ReadBuffer;
+import org.janusgraph.graphdb.database.serialize.DataOutput;
+import org.janusgraph.graphdb.database.serialize.Serializer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The heap budget and spill files shared by the vertex memory and map-reduce output of one graph computer job.
+ * <p>
+ * Consumers reserve the approximate heap size of what they keep in memory and spill to files in the spill directory
+ * once a reservation would exceed the budget. Values are encoded with the graph's {@link Serializer}, values of
+ * types which are not registered with it cannot be spilled and are kept on heap by the consumers.
+ */
+class FulgoraSpillContext {
+
+    private final Serializer serializer;
+    private final File directory;
+    private final long heapBudget;
+    private final AtomicLong reserved = new AtomicLong();
+
+    /**
+     * @param serializer used to encode spilled values
+     * @param directory the directory to create spill files in
+     * @param heapBudget the approximate number of bytes of heap which may be reserved before spilling
+     */
+    FulgoraSpillContext(Serializer serializer, File directory, long heapBudget) {
+        Preconditions.checkArgument(heapBudget > 0, "Invalid heap budget: %s", heapBudget);
+        Preconditions.checkArgument(directory.isDirectory(), "Spill directory does not exist: %s", directory);
+        this.serializer = serializer;
+        this.directory = directory;
+        this.heapBudget = heapBudget;
+    }
+
+    long getHeapBudget() {
+        return heapBudget;
+    }
+
+    /**
+     * Reserves the given number of bytes if that does not exceed the heap budget.
+     *
+     * @return whether the bytes were reserved
+     */
+    boolean tryReserve(long bytes) {
+        long current;
+        do {
+            current = reserved.get();
+            if (current + bytes > heapBudget) return false;
+        } while (!reserved.compareAndSet(current, current + bytes));
+        return true;
+    }
+
+    /**
+     * Reserves the given number of bytes regardless of the heap budget.
+     */
+    void reserve(long bytes) {
+        reserved.addAndGet(bytes);
+    }
+
+    void release(long bytes) {
+        reserved.addAndGet(-bytes);
+    }
+
+    long getReserved() {
+        return reserved.get();
+    }
+
+    File createFile(String suffix) {
+        try {
+            return File.createTempFile("fulgora", suffix, directory);
+        } catch (IOException e) {
+            throw new JanusGraphException("Could not create spill file in: " + directory, e);
+        }
+    }
+
+    DataOutput getDataOutput(int initialCapacity) {
+        return serializer.getDataOutput(initialCapacity);
+    }
+
+    /**
+     * Whether the value can be written by {@link #writeObject(DataOutput, Object)}
+     */
+    boolean canWrite(Object value) {
+        return value == null || serializer.validDataType(value.getClass());
+    }
+
+    void writeObject(DataOutput out, Object value) {
+        Preconditions.checkArgument(canWrite(value), "Cannot spill value of type: %s", value.getClass().getName());
+        out.writeClassAndObject(value);
+    }
+
+    Object readObject(ReadBuffer in) {
+        return serializer.readClassAndObject(in);
+    }
+}
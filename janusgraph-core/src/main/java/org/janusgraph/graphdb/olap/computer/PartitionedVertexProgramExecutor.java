@@ -41,7 +41,7 @@ public class PartitionedVertexProgramExecutor<M> {
     private final StandardJanusGraph graph;
     private final IDManager idManager;
     private final FulgoraMemory memory;
-    private final FulgoraVertexMemory<M> vertexMemory;
+    private final AbstractFulgoraVertexMemory<M> vertexMemory;
     private final VertexProgram<M> vertexProgram;
 
 
@@ -50,7 +50,7 @@ public class PartitionedVertexProgramExecutor<M> {
     public static final String PARTITION_VERTEX_POSTFAIL = "partition-fail";
 
     public PartitionedVertexProgramExecutor(StandardJanusGraph graph, FulgoraMemory memory,
-                                 FulgoraVertexMemory vertexMemory, VertexProgram<M> vertexProgram) {
+                                 AbstractFulgoraVertexMemory vertexMemory, VertexProgram<M> vertexProgram) {
         this.graph=graph;
         this.idManager = graph.getIDManager();
         this.memory = memory;
@@ -0,0 +1,1114 @@
+// Copyright 2020 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.olap.computer;
+
+import com.google.common.base.Preconditions;
+import org.apache.tinkerpop.gremlin.process.computer.MessageCombiner;
+import org.apache.tinkerpop.gremlin.process.computer.MessageScope;
+import org.apache.tinkerpop.gremlin.process.computer.VertexProgram;
+import org.janusgraph.core.JanusGraphException;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.util.ReadArrayBuffer;
+import org.janusgraph.graphdb.database.serialize.DataOutput;
+import org.janusgraph.graphdb.idmanagement.IDManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * A vertex memory which stores vertex compute keys and messages column-wise instead of in one
+ * {@link VertexState} per vertex like {@link FulgoraVertexMemory}.
+ * <p>
+ * Each vertex is assigned a dense index on first access. Values of a compute key or message scope are stored in
+ * chunked arrays under that index. Values of the first numeric type (Double, Long or Integer) seen for a key or scope
+ * are stored as primitive longs, all other values as objects. Messages with a {@link MessageCombiner} are combined
+ * with compare-and-set instead of locking the receiving vertex.
+ * <p>
+ * If a {@link FulgoraSpillContext} is given, chunks are allocated on heap only while its heap budget permits and in
+ * memory-mapped spill files otherwise. Likewise, messages which are not stored as primitives are kept on heap while
+ * the budget permits and are written to a spill file per message scope and iteration otherwise, provided the graph's
+ * serializer supports their type. Compute keys which are not stored as primitives are kept on heap since vertex
+ * programs may modify them in place.
+ */
+public class PrimitiveFulgoraVertexMemory<M> extends AbstractFulgoraVertexMemory<M> {
+
+    private static final Logger log = LoggerFactory.getLogger(PrimitiveFulgoraVertexMemory.class);
+
+    private static final int CHUNK_BITS = 13;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /**
+     * Encoded value of an empty slot
+     */
+    private static final long EMPTY = 0;
+
+    private static final MessageColumn[] NO_MESSAGES = new MessageColumn[0];
+
+    private final FulgoraSpillContext spill;
+    private final VertexIndex index;
+    private final ValueColumn[] properties;
+    private volatile MessageColumn[] currentMessages;
+    private MessageColumn[] previousMessages;
+
+    public PrimitiveFulgoraVertexMemory(int numVertices, final IDManager idManager, final VertexProgram<M> vertexProgram) {
+        this(numVertices, idManager, vertexProgram, null);
+    }
+
+    /**
+     * @param spill the heap budget and spill directory of the job, or null to keep all values on heap
+     */
+    PrimitiveFulgoraVertexMemory(int numVertices, final IDManager idManager, final VertexProgram<M> vertexProgram,
+                                 final FulgoraSpillContext spill) {
+        super(idManager, vertexProgram);
+        Preconditions.checkArgument(numVertices>=0);
+        this.spill = spill;
+        index = new VertexIndex(numVertices);
+        properties = new ValueColumn[elementKeyMap.size()];
+        for (int i = 0; i < properties.length; i++) properties[i] = new ValueColumn(new ColumnStorage(spill));
+        currentMessages = NO_MESSAGES;
+        previousMessages = NO_MESSAGES;
+    }
+
+    private int getKeyId(String key) {
+        final Integer keyId = elementKeyMap.get(key);
+        assert keyId != null;
+        return keyId;
+    }
+
+    @Override
+    public <V> void setProperty(long vertexId, String key, V value) {
+        assert vertexId==getCanonicalId(vertexId);
+        properties[getKeyId(key)].set(index.getOrCreate(vertexId), value);
+    }
+
+    @Override
+    public <V> V getProperty(long vertexId, String key) {
+        final int vertexIndex = index.get(vertexId);
+        if (vertexIndex < 0) return null;
+        return (V) properties[getKeyId(key)].get(vertexIndex);
+    }
+
+    @Override
+    void sendMessage(long vertexId, M message, MessageScope scope) {
+        assert message!=null && scope!=null;
+        scope = normalizeScope(scope);
+        final Integer scopeId = currentScopes.get(scope);
+        Preconditions.checkArgument(scopeId!=null,"Provided scope was not declared in the VertexProgram: %s",scope);
+        final MessageColumn messages = currentMessages[scopeId];
+        final int vertexIndex = index.getOrCreate(vertexId);
+        if (scope instanceof MessageScope.Global) messages.add(vertexIndex, message, combiner);
+        else messages.set(vertexIndex, message);
+    }
+
+    @Override
+    Stream<M> getMessage(long vertexId, MessageScope scope) {
+        final int vertexIndex = index.get(vertexId);
+        final Integer scopeId = previousScopes.get(normalizeScope(scope));
+        if (vertexIndex < 0 || scopeId == null || scopeId >= previousMessages.length) return Stream.empty();
+        return previousMessages[scopeId].get(vertexIndex, combiner);
+    }
+
+    @Override
+    void nextIteration(Set<MessageScope> scopes) {
+        super.nextIteration(scopes);
+        final MessageColumn[] messages = new MessageColumn[currentScopes.size()];
+        for (int i = 0; i < messages.length; i++) messages[i] = new MessageColumn(new ColumnStorage(spill));
+        currentMessages = messages;
+    }
+
+    @Override
+    protected void completeMessageIteration() {
+        final MessageColumn[] received = previousMessages;
+        previousMessages = currentMessages;
+        currentMessages = NO_MESSAGES;
+        for (MessageColumn messages : received) messages.close();
+    }
+
+    @Override
+    void close() {
+        for (ValueColumn values : properties) values.close();
+        for (MessageColumn messages : previousMessages) messages.close();
+        for (MessageColumn messages : currentMessages) messages.close();
+        previousMessages = NO_MESSAGES;
+        currentMessages = NO_MESSAGES;
+    }
+
+    @Override
+    public Map<Long,Map<String,Object>> getMutableVertexProperties() {
+        return new AbstractMap<Long, Map<String, Object>>() {
+            @Override
+            public Set<Entry<Long, Map<String, Object>>> entrySet() {
+                return new AbstractSet<Entry<Long, Map<String, Object>>>() {
+                    @Override
+                    public Iterator<Entry<Long, Map<String, Object>>> iterator() {
+                        final VertexIndex.EntryIterator entries = index.iterator();
+                        return new Iterator<Entry<Long, Map<String, Object>>>() {
+                            @Override
+                            public boolean hasNext() {
+                                return entries.hasNext();
+                            }
+
+                            @Override
+                            public Entry<Long, Map<String, Object>> next() {
+                                entries.advance();
+                                return new SimpleImmutableEntry<>(entries.vertexId(), getProperties(entries.vertexIndex()));
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return index.size();
+                    }
+                };
+            }
+        };
+    }
+
+    private Map<String,Object> getProperties(int vertexIndex) {
+        final Map<String,Object> values = new HashMap<>(elementKeyMap.size());
+        for (Map.Entry<String,Integer> key : elementKeyMap.entrySet()) {
+            final Object value = properties[key.getValue()].get(vertexIndex);
+            if (value != null) values.put(key.getKey(), value);
+        }
+        return values;
+    }
+
+    //######## Storage ##########
+
+    /**
+     * Encodes values of a numeric type into longs such that no value encodes to {@link #EMPTY}.
+     */
+    private enum Codec {
+        DOUBLE(Double.class) {
+            //A NaN which Double#doubleToLongBits never returns
+            private static final long MASK = 0x7ff0000000000001L;
+
+            @Override
+            long encode(Object value) {
+                return Double.doubleToLongBits((Double) value) ^ MASK;
+            }
+
+            @Override
+            Object decode(long encoded) {
+                return Double.longBitsToDouble(encoded ^ MASK);
+            }
+        },
+        LONG(Long.class) {
+            @Override
+            long encode(Object value) {
+                //Long.MIN_VALUE encodes to EMPTY and is stored as object instead
+                return (Long) value ^ Long.MIN_VALUE;
+            }
+
+            @Override
+            Object decode(long encoded) {
+                return encoded ^ Long.MIN_VALUE;
+            }
+        },
+        INTEGER(Integer.class) {
+            @Override
+            long encode(Object value) {
+                return (long) (Integer) value ^ Long.MIN_VALUE;
+            }
+
+            @Override
+            Object decode(long encoded) {
+                return (int) (encoded ^ Long.MIN_VALUE);
+            }
+        };
+
+        private final Class<?> type;
+
+        Codec(Class<?> type) {
+            this.type = type;
+        }
+
+        abstract long encode(Object value);
+
+        abstract Object decode(long encoded);
+
+        static Codec of(Object value) {
+            for (Codec codec : values()) {
+                if (codec.type == value.getClass()) return codec;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Stores the values of one compute key or message scope for all vertices.
+     */
+    private static class Column {
+
+        private final AtomicReference<Codec> codec = new AtomicReference<>();
+        final ColumnStorage storage;
+        final LongChunks primitives;
+        final ObjectChunks objects = new ObjectChunks();
+
+        Column(ColumnStorage storage) {
+            this.storage = storage;
+            primitives = new LongChunks(storage);
+        }
+
+        /**
+         * Returns the primitive encoding of the value or {@link #EMPTY} if it has to be stored as object.
+         */
+        long encode(Object value) {
+            if (value == null) return EMPTY;
+            Codec current = codec.get();
+            if (current == null) {
+                current = Codec.of(value);
+                if (current == null) return EMPTY;
+                codec.compareAndSet(null, current);
+                current = codec.get();
+            }
+            return current.type == value.getClass() ? current.encode(value) : EMPTY;
+        }
+
+        Object decode(long encoded) {
+            return codec.get().decode(encoded);
+        }
+
+        /**
+         * Sets the value of a vertex. Only one thread may set the value of a given vertex at a time.
+         */
+        void set(int vertexIndex, Object value) {
+            final long encoded = encode(value);
+            if (encoded != EMPTY) {
+                primitives.set(vertexIndex, encoded);
+                objects.clear(vertexIndex);
+            } else {
+                primitives.clear(vertexIndex);
+                if (value != null) objects.set(vertexIndex, value);
+                else objects.clear(vertexIndex);
+            }
+        }
+
+        /**
+         * Deletes the spill files of this column and releases its heap reservation
+         */
+        void close() {
+            storage.close();
+        }
+    }
+
+    private static class ValueColumn extends Column {
+
+        ValueColumn(ColumnStorage storage) {
+            super(storage);
+        }
+
+        Object get(int vertexIndex) {
+            final long encoded = primitives.get(vertexIndex);
+            if (encoded != EMPTY) return decode(encoded);
+            return objects.get(vertexIndex);
+        }
+    }
+
+    /**
+     * Stores the messages of one scope in one iteration. If spilling is enabled, messages which are not stored as
+     * primitives are kept in the objects while the heap budget permits and are written to the message log of the
+     * column otherwise. Combined messages of a vertex are either held in the objects or in a single log record which
+     * is rewritten in place.
+     */
+    private static class MessageColumn extends Column {
+
+        /**
+         * Pointers to the most recent log record of each vertex, records of uncombined messages link to the previous
+         * message of the vertex. Updates lock the chunk of the vertex.
+         */
+        private final LongChunks spilled;
+
+        MessageColumn(ColumnStorage storage) {
+            super(storage);
+            spilled = storage.isSpilling() ? new LongChunks(storage) : null;
+        }
+
+        /**
+         * Whether a message which is not stored as primitive has to be written to the message log since it does not
+         * fit into the heap budget. Otherwise, the heap for the message is reserved.
+         */
+        private boolean spills(Object message) {
+            if (spilled == null) return false;
+            if (storage.canWrite(message)) return !storage.tryReserveMessage();
+            //Messages which cannot be serialized are kept on heap regardless of the budget
+            storage.reserveMessage();
+            return false;
+        }
+
+        @Override
+        void set(int vertexIndex, Object message) {
+            //Replacing a message on heap does not take any additional heap
+            if (encode(message) != EMPTY || objects.get(vertexIndex) != null || !spills(message)) {
+                super.set(vertexIndex, message);
+                if (spilled != null) spilled.clear(vertexIndex);
+                return;
+            }
+            primitives.clear(vertexIndex);
+            spilled.set(vertexIndex, storage.getLog().append(storage.write(message), EMPTY));
+        }
+
+        <M> void add(int vertexIndex, M message, MessageCombiner<M> combiner) {
+            if (combiner == null) {
+                if (spills(message)) {
+                    final byte[] bytes = storage.write(message);
+                    final LongChunk chunk = spilled.getChunk(vertexIndex, true);
+                    final int offset = vertexIndex & CHUNK_MASK;
+                    synchronized (chunk) {
+                        chunk.set(offset, storage.getLog().append(bytes, chunk.get(offset)));
+                    }
+                    return;
+                }
+                final AtomicReferenceArray<Object> chunk = objects.getChunk(vertexIndex, true);
+                final int offset = vertexIndex & CHUNK_MASK;
+                Object current;
+                do {
+                    current = chunk.get(offset);
+                } while (!chunk.compareAndSet(offset, current, current == null ? message : new MessageNode(message, current)));
+                return;
+            }
+            final long encoded = encode(message);
+            if (encoded != EMPTY) {
+                final LongChunk chunk = primitives.getChunk(vertexIndex, true);
+                final int offset = vertexIndex & CHUNK_MASK;
+                while (true) {
+                    final long current = chunk.get(offset);
+                    if (current == EMPTY) {
+                        if (chunk.compareAndSet(offset, EMPTY, encoded)) return;
+                        continue;
+                    }
+                    final M combined = combiner.combine((M) decode(current), message);
+                    final long combinedEncoded = encode(combined);
+                    if (combinedEncoded != EMPTY) {
+                        if (chunk.compareAndSet(offset, current, combinedEncoded)) return;
+                    } else if (chunk.compareAndSet(offset, current, EMPTY)) {
+                        //The combined message cannot be stored as primitive, move it to the objects
+                        addObject(vertexIndex, combined, combiner);
+                        return;
+                    }
+                }
+            }
+            addObject(vertexIndex, message, combiner);
+        }
+
+        private <M> void addObject(int vertexIndex, M message, MessageCombiner<M> combiner) {
+            final AtomicReferenceArray<Object> chunk = objects.getChunk(vertexIndex, true);
+            final int offset = vertexIndex & CHUNK_MASK;
+            //Objects are never cleared while messages are added, hence only the first message of a vertex decides
+            //whether its combined message is kept on heap or in the message log
+            if (spilled != null && chunk.get(offset) == null) {
+                final LongChunk pointers = spilled.getChunk(vertexIndex, true);
+                synchronized (pointers) {
+                    final long pointer = pointers.get(offset);
+                    if (pointer != EMPTY) {
+                        final MessageLog log = storage.getLog();
+                        final LogRecord record = log.read(pointer);
+                        final byte[] combined = storage.write(combiner.combine((M) record.message, message));
+                        pointers.set(offset, log.rewrite(pointer, record, combined));
+                        return;
+                    }
+                    if (chunk.get(offset) == null) {
+                        if (spills(message)) pointers.set(offset, storage.getLog().append(storage.write(message), EMPTY));
+                        else chunk.set(offset, message);
+                        return;
+                    }
+                }
+            }
+            Object current;
+            do {
+                current = chunk.get(offset);
+            } while (!chunk.compareAndSet(offset, current, current == null ? message : combiner.combine((M) current, message)));
+        }
+
+        <M> Stream<M> get(int vertexIndex, MessageCombiner<M> combiner) {
+            final long encoded = primitives.get(vertexIndex);
+            final Object object = objects.get(vertexIndex);
+            final long pointer = spilled == null ? EMPTY : spilled.get(vertexIndex);
+            if (pointer == EMPTY) {
+                if (encoded != EMPTY) {
+                    final M message = (M) decode(encoded);
+                    if (object == null) return Stream.of(message);
+                    //Only combined messages can be spread over primitives and objects
+                    return Stream.of(combiner.combine(message, (M) object));
+                }
+                if (object == null) return Stream.empty();
+                if (!(object instanceof MessageNode)) return Stream.of((M) object);
+            }
+            final List<M> messages = new ArrayList<>();
+            if (encoded != EMPTY) messages.add((M) decode(encoded));
+            Object current = object;
+            while (current instanceof MessageNode) {
+                messages.add((M) ((MessageNode) current).message);
+                current = ((MessageNode) current).next;
+            }
+            if (current != null) messages.add((M) current);
+            for (long next = pointer; next != EMPTY; ) {
+                final LogRecord record = storage.getLog().read(next);
+                messages.add((M) record.message);
+                next = record.next;
+            }
+            if (combiner == null || messages.size() <= 1) return messages.stream();
+            return Stream.of(messages.stream().reduce(combiner::combine).get());
+        }
+    }
+
+    /**
+     * Links messages which are not combined
+     */
+    private static class MessageNode {
+
+        private final Object message;
+        private final Object next;
+
+        private MessageNode(Object message, Object next) {
+            this.message = message;
+            this.next = next;
+        }
+    }
+
+    /**
+     * A chunk of primitive values of a column
+     */
+    private interface LongChunk {
+
+        long get(int offset);
+
+        void set(int offset, long value);
+
+        boolean compareAndSet(int offset, long expect, long update);
+    }
+
+    private static class HeapLongChunk extends AtomicLongArray implements LongChunk {
+
+        private HeapLongChunk() {
+            super(CHUNK_SIZE);
+        }
+    }
+
+    /**
+     * A chunk in a memory-mapped spill file. Direct buffers offer no compare-and-set on Java 8, hence updates lock
+     * the chunk.
+     */
+    private static class MappedLongChunk implements LongChunk {
+
+        private final LongBuffer values;
+
+        private MappedLongChunk(LongBuffer values) {
+            this.values = values;
+        }
+
+        @Override
+        public long get(int offset) {
+            return values.get(offset);
+        }
+
+        @Override
+        public synchronized void set(int offset, long value) {
+            values.put(offset, value);
+        }
+
+        @Override
+        public synchronized boolean compareAndSet(int offset, long expect, long update) {
+            if (values.get(offset) != expect) return false;
+            values.put(offset, update);
+            return true;
+        }
+    }
+
+    private static class LongChunks {
+
+        private final ColumnStorage storage;
+        private volatile LongChunk[] chunks = new LongChunk[0];
+
+        LongChunks(ColumnStorage storage) {
+            this.storage = storage;
+        }
+
+        long get(int vertexIndex) {
+            final LongChunk chunk = getChunk(vertexIndex, false);
+            return chunk == null ? EMPTY : chunk.get(vertexIndex & CHUNK_MASK);
+        }
+
+        void set(int vertexIndex, long value) {
+            getChunk(vertexIndex, true).set(vertexIndex & CHUNK_MASK, value);
+        }
+
+        void clear(int vertexIndex) {
+            final LongChunk chunk = getChunk(vertexIndex, false);
+            if (chunk != null) chunk.set(vertexIndex & CHUNK_MASK, EMPTY);
+        }
+
+        LongChunk getChunk(int vertexIndex, boolean create) {
+            final int chunkIndex = vertexIndex >>> CHUNK_BITS;
+            LongChunk[] current = chunks;
+            if (chunkIndex < current.length && current[chunkIndex] != null) return current[chunkIndex];
+            if (!create) return null;
+            synchronized (this) {
+                current = chunks;
+                if (chunkIndex >= current.length) {
+                    current = Arrays.copyOf(current, Math.max(chunkIndex + 1, 2 * current.length));
+                }
+                if (current[chunkIndex] == null) current[chunkIndex] = storage.allocate();
+                chunks = current;
+                return current[chunkIndex];
+            }
+        }
+    }
+
+    /**
+     * Allocates the chunks of a column on heap while the heap budget of the spill context permits and in a
+     * memory-mapped spill file otherwise, accounts for the messages of the column which are kept on heap and holds
+     * the message log of the column.
+     */
+    private static class ColumnStorage {
+
+        private static final int CHUNK_BYTES = CHUNK_SIZE * Long.BYTES;
+        private static final int CHUNKS_PER_REGION = 64;
+        /**
+         * Estimated heap used by a message which is kept as object
+         */
+        private static final int MESSAGE_BYTES = 64;
+
+        private final FulgoraSpillContext spill;
+        private final AtomicLong heapBytes = new AtomicLong();
+        private File file;
+        private RandomAccessFile chunkFile;
+        private final List<MappedByteBuffer> regions = new ArrayList<>();
+        private int regionChunks = CHUNKS_PER_REGION;
+        private MessageLog log;
+
+        /**
+         * @param spill the spill context or null if spilling is disabled
+         */
+        ColumnStorage(FulgoraSpillContext spill) {
+            this.spill = spill;
+        }
+
+        boolean isSpilling() {
+            return spill != null;
+        }
+
+        boolean canWrite(Object value) {
+            return spill.canWrite(value);
+        }
+
+        byte[] write(Object value) {
+            final DataOutput out = spill.getDataOutput(32);
+            spill.writeObject(out, value);
+            return out.getStaticBuffer().as(StaticBuffer.ARRAY_FACTORY);
+        }
+
+        Object read(byte[] bytes) {
+            return spill.readObject(new ReadArrayBuffer(bytes));
+        }
+
+        /**
+         * Reserves the heap for a message if that does not exceed the heap budget.
+         *
+         * @return whether the heap was reserved
+         */
+        boolean tryReserveMessage() {
+            if (!spill.tryReserve(MESSAGE_BYTES)) return false;
+            heapBytes.addAndGet(MESSAGE_BYTES);
+            return true;
+        }
+
+        /**
+         * Reserves the heap for a message regardless of the heap budget
+         */
+        void reserveMessage() {
+            spill.reserve(MESSAGE_BYTES);
+            heapBytes.addAndGet(MESSAGE_BYTES);
+        }
+
+        synchronized LongChunk allocate() {
+            if (spill == null) return new HeapLongChunk();
+            if (spill.tryReserve(CHUNK_BYTES)) {
+                heapBytes.addAndGet(CHUNK_BYTES);
+                return new HeapLongChunk();
+            }
+            try {
+                if (regionChunks == CHUNKS_PER_REGION) {
+                    if (chunkFile == null) {
+                        file = spill.createFile(".col");
+                        chunkFile = new RandomAccessFile(file, "rw");
+                    }
+                    regions.add(chunkFile.getChannel().map(FileChannel.MapMode.READ_WRITE,
+                        (long) regions.size() * CHUNKS_PER_REGION * CHUNK_BYTES, (long) CHUNKS_PER_REGION * CHUNK_BYTES));
+                    regionChunks = 0;
+                }
+            } catch (IOException e) {
+                throw new JanusGraphException("Could not map vertex memory to: " + file, e);
+            }
+            final ByteBuffer chunk = regions.get(regions.size() - 1).duplicate();
+            chunk.position(regionChunks * CHUNK_BYTES);
+            chunk.limit((regionChunks + 1) * CHUNK_BYTES);
+            regionChunks++;
+            return new MappedLongChunk(chunk.slice().order(ByteOrder.nativeOrder()).asLongBuffer());
+        }
+
+        synchronized MessageLog getLog() {
+            if (log == null) log = new MessageLog(this, spill.createFile(".msg"));
+            return log;
+        }
+
+        /**
+         * Unmaps the mapped regions and deletes the spill files. The chunks of the column must not be accessed
+         * afterwards.
+         */
+        synchronized void close() {
+            if (spill == null) return;
+            spill.release(heapBytes.getAndSet(0));
+            regions.forEach(UNMAPPER);
+            regions.clear();
+            if (chunkFile != null) {
+                closeQuietly(chunkFile);
+                chunkFile = null;
+                file.delete();
+            }
+            if (log != null) {
+                log.close();
+                log = null;
+            }
+        }
+    }
+
+    /**
+     * Unmaps a memory-mapped buffer right away instead of once it is garbage collected, or does nothing if the JVM
+     * offers no means to do so
+     */
+    private static final Consumer<ByteBuffer> UNMAPPER = getUnmapper();
+
+    private static Consumer<ByteBuffer> getUnmapper() {
+        try {
+            //Java 9 and later
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            final Object unsafe = theUnsafe.get(null);
+            return buffer -> invokeQuietly(invokeCleaner, unsafe, buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            //Fall back to the cleaner of the buffer on Java 8
+        }
+        try {
+            final Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+            final Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+            return buffer -> invokeQuietly(clean, invokeQuietly(cleaner, buffer));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.warn("Memory-mapped vertex memory cannot be unmapped explicitly and is unmapped on garbage collection", e);
+            return buffer -> {};
+        }
+    }
+
+    private static Object invokeQuietly(Method method, Object target, Object... args) {
+        if (target == null) return null;
+        try {
+            return method.invoke(target, args);
+        } catch (ReflectiveOperationException e) {
+            log.warn("Could not unmap vertex memory", e);
+            return null;
+        }
+    }
+
+    private static void closeQuietly(RandomAccessFile file) {
+        try {
+            file.close();
+        } catch (IOException e) {
+            //The file is deleted anyway
+        }
+    }
+
+    private static class LogRecord {
+
+        private final Object message;
+        private final long next;
+        private final int capacity;
+
+        private LogRecord(Object message, long next, int capacity) {
+            this.message = message;
+            this.next = next;
+            this.capacity = capacity;
+        }
+    }
+
+    /**
+     * A file of encoded messages. Each record consists of the pointer to the next record of the same vertex, the
+     * number of bytes reserved for the message, the length of the encoded message and the message. Pointers are file
+     * positions plus one, so that no pointer is {@link #EMPTY}.
+     * <p>
+     * Records are appended to a write buffer which is written to the file once it is full. Combined messages are
+     * rewritten in place if they fit into the bytes reserved for their record and are appended with twice the
+     * reserved bytes otherwise, so that the log grows with the number of vertices rather than the number of messages.
+     */
+    private static class MessageLog {
+
+        private static final int HEADER_BYTES = Long.BYTES + 2 * Integer.BYTES;
+        private static final int CAPACITY_OFFSET = Long.BYTES;
+        private static final int LENGTH_OFFSET = Long.BYTES + Integer.BYTES;
+        private static final int WRITE_BUFFER_BYTES = 1 << 16;
+
+        private final ColumnStorage storage;
+        private final File file;
+        private final RandomAccessFile log;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_BYTES);
+        /**
+         * The file position of the start of the write buffer. All records before it have been written to the file.
+         */
+        private volatile long flushed = 0;
+
+        MessageLog(ColumnStorage storage, File file) {
+            this.storage = storage;
+            this.file = file;
+            try {
+                log = new RandomAccessFile(file, "rw");
+            } catch (IOException e) {
+                file.delete();
+                throw new JanusGraphException("Could not open message spill file: " + file, e);
+            }
+            channel = log.getChannel();
+        }
+
+        long append(byte[] message, long next) {
+            return append(message, message.length, next);
+        }
+
+        private synchronized long append(byte[] message, int capacity, long next) {
+            final int recordBytes = HEADER_BYTES + capacity;
+            if (recordBytes > buffer.remaining()) flush();
+            final long position = flushed + buffer.position();
+            final ByteBuffer record = recordBytes > buffer.remaining() ? ByteBuffer.allocate(recordBytes) : buffer;
+            final int start = record.position();
+            record.putLong(next).putInt(capacity).putInt(message.length).put(message);
+            record.position(start + recordBytes);
+            if (record != buffer) {
+                record.flip();
+                write(record, position);
+                flushed += recordBytes;
+            }
+            return position + 1;
+        }
+
+        /**
+         * Replaces the message of the given record with the combined message.
+         *
+         * @return the pointer to the record holding the combined message
+         */
+        synchronized long rewrite(long pointer, LogRecord record, byte[] combined) {
+            if (combined.length > record.capacity) {
+                return append(combined, Math.max(combined.length, 2 * record.capacity), record.next);
+            }
+            final long position = pointer - 1;
+            if (position >= flushed) {
+                final ByteBuffer message = buffer.duplicate();
+                message.position((int) (position - flushed) + LENGTH_OFFSET);
+                message.putInt(combined.length).put(combined);
+            } else {
+                final ByteBuffer message = ByteBuffer.allocate(Integer.BYTES + combined.length);
+                message.putInt(combined.length).put(combined);
+                message.flip();
+                write(message, position + LENGTH_OFFSET);
+            }
+            return pointer;
+        }
+
+        private void flush() {
+            buffer.flip();
+            final int bytes = buffer.remaining();
+            write(buffer, flushed);
+            buffer.clear();
+            flushed += bytes;
+        }
+
+        private void write(ByteBuffer bytes, long position) {
+            try {
+                while (bytes.hasRemaining()) position += channel.write(bytes, position);
+            } catch (IOException e) {
+                throw new JanusGraphException("Could not spill message to: " + file, e);
+            }
+        }
+
+        LogRecord read(long pointer) {
+            final long position = pointer - 1;
+            if (position >= flushed) {
+                synchronized (this) {
+                    if (position >= flushed) {
+                        final ByteBuffer record = buffer.duplicate();
+                        record.position((int) (position - flushed));
+                        final long next = record.getLong();
+                        final int capacity = record.getInt();
+                        final byte[] message = new byte[record.getInt()];
+                        record.get(message);
+                        return new LogRecord(storage.read(message), next, capacity);
+                    }
+                }
+            }
+            try {
+                final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                readFully(header, position);
+                final ByteBuffer message = ByteBuffer.allocate(header.getInt(LENGTH_OFFSET));
+                readFully(message, position + HEADER_BYTES);
+                return new LogRecord(storage.read(message.array()), header.getLong(0), header.getInt(CAPACITY_OFFSET));
+            } catch (IOException e) {
+                throw new JanusGraphException("Could not read spilled message from: " + file, e);
+            }
+        }
+
+        private void readFully(ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                final int read = channel.read(buffer, position);
+                if (read < 0) throw new IOException("Unexpected end of file at position " + position);
+                position += read;
+            }
+        }
+
+        void close() {
+            closeQuietly(log);
+            file.delete();
+        }
+    }
+
+    private static class ObjectChunks {
+
+        private volatile AtomicReferenceArray<Object>[] chunks = new AtomicReferenceArray[0];
+
+        Object get(int vertexIndex) {
+            final AtomicReferenceArray<Object> chunk = getChunk(vertexIndex, false);
+            return chunk == null ? null : chunk.get(vertexIndex & CHUNK_MASK);
+        }
+
+        void set(int vertexIndex, Object value) {
+            getChunk(vertexIndex, true).set(vertexIndex & CHUNK_MASK, value);
+        }
+
+        void clear(int vertexIndex) {
+            final AtomicReferenceArray<Object> chunk = getChunk(vertexIndex, false);
+            if (chunk != null) chunk.set(vertexIndex & CHUNK_MASK, null);
+        }
+
+        AtomicReferenceArray<Object> getChunk(int vertexIndex, boolean create) {
+            final int chunkIndex = vertexIndex >>> CHUNK_BITS;
+            AtomicReferenceArray<Object>[] current = chunks;
+            if (chunkIndex < current.length && current[chunkIndex] != null) return current[chunkIndex];
+            if (!create) return null;
+            synchronized (this) {
+                current = chunks;
+                if (chunkIndex >= current.length) {
+                    current = Arrays.copyOf(current, Math.max(chunkIndex + 1, 2 * current.length));
+                }
+                if (current[chunkIndex] == null) current[chunkIndex] = new AtomicReferenceArray<>(CHUNK_SIZE);
+                chunks = current;
+                return current[chunkIndex];
+            }
+        }
+    }
+
+    /**
+     * Maps vertex ids to dense indexes. Lookups of existing vertices are optimistic and do not lock.
+     */
+    private static class VertexIndex {
+
+        private static final int SEGMENT_BITS = 6;
+        private static final int MIN_SEGMENT_CAPACITY = 16;
+
+        private final Segment[] segments;
+        private final AtomicInteger size = new AtomicInteger();
+
+        VertexIndex(int expectedSize) {
+            final int segmentCapacity = Math.max(MIN_SEGMENT_CAPACITY,
+                Integer.highestOneBit(Math.max(1, (expectedSize >>> SEGMENT_BITS) * 2 - 1)) << 1);
+            segments = new Segment[1 << SEGMENT_BITS];
+            for (int i = 0; i < segments.length; i++) segments[i] = new Segment(segmentCapacity);
+        }
+
+        private static long hash(long vertexId) {
+            final long h = vertexId * 0x9E3779B97F4A7C15L;
+            return h ^ (h >>> 32);
+        }
+
+        private Segment getSegment(long hash) {
+            return segments[(int) (hash >>> (64 - SEGMENT_BITS))];
+        }
+
+        int get(long vertexId) {
+            final long hash = hash(vertexId);
+            return getSegment(hash).get(vertexId, (int) hash);
+        }
+
+        int getOrCreate(long vertexId) {
+            final long hash = hash(vertexId);
+            final Segment segment = getSegment(hash);
+            final int vertexIndex = segment.get(vertexId, (int) hash);
+            return vertexIndex >= 0 ? vertexIndex : segment.insert(vertexId, (int) hash, size);
+        }
+
+        int size() {
+            return size.get();
+        }
+
+        EntryIterator iterator() {
+            return new EntryIterator();
+        }
+
+        /**
+         * Iterates over all indexed vertices. Must not be used while vertices are added.
+         */
+        class EntryIterator {
+
+            private int segment = -1;
+            private Table table;
+            private int position;
+            private int next = -1;
+
+            boolean hasNext() {
+                while (next < 0) {
+                    if (table != null) {
+                        for (position++; position < table.keys.length; position++) {
+                            if (table.keys[position] != 0) {
+                                next = position;
+                                return true;
+                            }
+                        }
+                    }
+                    if (++segment >= segments.length) return false;
+                    table = segments[segment].table;
+                    position = -1;
+                }
+                return true;
+            }
+
+            void advance() {
+                if (!hasNext()) throw new NoSuchElementException();
+                next = -1;
+            }
+
+            long vertexId() {
+                return table.keys[position];
+            }
+
+            int vertexIndex() {
+                return table.values[position];
+            }
+        }
+    }
+
+    private static class Table {
+
+        private final long[] keys;
+        private final int[] values;
+
+        private Table(int capacity) {
+            keys = new long[capacity];
+            values = new int[capacity];
+        }
+
+        int find(long vertexId, int hash) {
+            final int mask = keys.length - 1;
+            for (int pos = hash & mask; keys[pos] != 0; pos = (pos + 1) & mask) {
+                if (keys[pos] == vertexId) return values[pos];
+            }
+            return -1;
+        }
+
+        void put(long vertexId, int hash, int vertexIndex) {
+            final int mask = keys.length - 1;
+            int pos = hash & mask;
+            while (keys[pos] != 0) pos = (pos + 1) & mask;
+            values[pos] = vertexIndex;
+            keys[pos] = vertexId;
+        }
+    }
+
+    private static class Segment {
+
+        private final StampedLock lock = new StampedLock();
+        private volatile Table table;
+        private int size;
+
+        private Segment(int capacity) {
+            table = new Table(capacity);
+        }
+
+        int get(long vertexId, int hash) {
+            final long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                final int vertexIndex = table.find(vertexId, hash);
+                if (lock.validate(stamp)) return vertexIndex;
+            }
+            final long readStamp = lock.readLock();
+            try {
+                return table.find(vertexId, hash);
+            } finally {
+                lock.unlockRead(readStamp);
+            }
+        }
+
+        int insert(long vertexId, int hash, AtomicInteger counter) {
+            final long stamp = lock.writeLock();
+            try {
+                int vertexIndex = table.find(vertexId, hash);
+                if (vertexIndex >= 0) return vertexIndex;
+                if (2 * (size + 1) > table.keys.length) resize();
+                vertexIndex = counter.getAndIncrement();
+                table.put(vertexId, hash, vertexIndex);
+                size++;
+                return vertexIndex;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private void resize() {
+            final Table current = table;
+            final Table resized = new Table(2 * current.keys.length);
+            for (int pos = 0; pos < current.keys.length; pos++) {
+                final long vertexId = current.keys[pos];
+                if (vertexId != 0) resized.put(vertexId, (int) VertexIndex.hash(vertexId), current.values[pos]);
+            }
+            table = resized;
+        }
+    }
+}
@@ -68,12 +68,12 @@ public class VertexMapJob implements VertexScanJob {
 
     private final IDManager idManager;
     private final Map<MapReduce, FulgoraMapEmitter> mapJobs;
-    private final FulgoraVertexMemory vertexMemory;
+    private final AbstractFulgoraVertexMemory vertexMemory;
 
     public static final String MAP_JOB_SUCCESS = "map-success";
     public static final String MAP_JOB_FAILURE = "map-fail";
 
-    private VertexMapJob(IDManager idManager, FulgoraVertexMemory vertexMemory,
+    private VertexMapJob(IDManager idManager, AbstractFulgoraVertexMemory vertexMemory,
                          Map<MapReduce, FulgoraMapEmitter> mapJobs) {
         this.mapJobs = mapJobs;
         this.vertexMemory = vertexMemory;
@@ -131,7 +131,7 @@ public class VertexMapJob implements VertexScanJob {
 
     }
 
-    public static Executor getVertexMapJob(StandardJanusGraph graph, FulgoraVertexMemory vertexMemory,
+    public static Executor getVertexMapJob(StandardJanusGraph graph, AbstractFulgoraVertexMemory vertexMemory,
                                            Map<MapReduce, FulgoraMapEmitter> mapJobs) {
         VertexMapJob job = new VertexMapJob(graph.getIDManager(), vertexMemory, mapJobs);
         for (Map.Entry<MapReduce, FulgoraMapEmitter> mapJob : mapJobs.entrySet()) {
@@ -46,12 +46,12 @@ import java.util.stream.Stream;
  */
 class VertexMemoryHandler<M> implements PreloadedVertex.PropertyMixing, Messenger<M> {
 
-    protected final FulgoraVertexMemory<M> vertexMemory;
+    protected final AbstractFulgoraVertexMemory<M> vertexMemory;
     private final PreloadedVertex vertex;
     protected final long vertexId;
     private boolean inExecute;
 
-    VertexMemoryHandler(FulgoraVertexMemory<M> vertexMemory, PreloadedVertex vertex) {
+    VertexMemoryHandler(AbstractFulgoraVertexMemory<M> vertexMemory, PreloadedVertex vertex) {
         assert vertex!=null && vertexMemory!=null;
         this.vertexMemory = vertexMemory;
         this.vertex = vertex;
@@ -166,7 +166,7 @@ class VertexMemoryHandler<M> implements PreloadedVertex.PropertyMixing, Messenge
 
     static class Partition<M> extends VertexMemoryHandler<M> {
 
-        Partition(FulgoraVertexMemory<M> vertexMemory, PreloadedVertex vertex) {
+        Partition(AbstractFulgoraVertexMemory<M> vertexMemory, PreloadedVertex vertex) {
             super(vertexMemory, vertex);
         }
 
@@ -51,11 +51,11 @@ public class VertexProgramScanJob<M> implements VertexScanJob {
     private final static MessageScope.Global globalScope = MessageScope.Global.instance();
     private final IDManager idManager;
     private final FulgoraMemory memory;
-    private final FulgoraVertexMemory<M> vertexMemory;
+    private final AbstractFulgoraVertexMemory<M> vertexMemory;
     private final VertexProgram<M> vertexProgram;
 
     private VertexProgramScanJob(IDManager idManager, FulgoraMemory memory,
-                                FulgoraVertexMemory vertexMemory, VertexProgram<M> vertexProgram) {
+                                AbstractFulgoraVertexMemory vertexMemory, VertexProgram<M> vertexProgram) {
         this.idManager = idManager;
         this.memory = memory;
         this.vertexMemory = vertexMemory;
@@ -135,7 +135,7 @@ public class VertexProgramScanJob<M> implements VertexScanJob {
     }
 
     public static<M> Executor getVertexProgramScanJob(StandardJanusGraph graph, FulgoraMemory memory,
-                                                  FulgoraVertexMemory vertexMemory, VertexProgram<M> vertexProgram) {
+                                                  AbstractFulgoraVertexMemory vertexMemory, VertexProgram<M> vertexProgram) {
         final VertexProgramScanJob<M> job = new VertexProgramScanJob<>(graph.getIDManager(), memory, vertexMemory, vertexProgram);
         return new Executor(graph,job);
     }
@@ -0,0 +1,159 @@
+// Copyright 2020 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.janusgraph.graphdb.olap.job;
+
+import org.janusgraph.diskstorage.EntryList;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.configuration.BasicConfiguration;
+import org.janusgraph.diskstorage.configuration.ModifiableConfiguration;
+import org.janusgraph.diskstorage.keycolumnvalue.SliceQuery;
+import org.janusgraph.diskstorage.keycolumnvalue.scan.ScanJob;
+import org.janusgraph.diskstorage.keycolumnvalue.scan.ScanMetrics;
+import org.janusgraph.diskstorage.util.BufferUtil;
+import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
+import org.janusgraph.graphdb.database.IndexSerializer;
+import org.janusgraph.graphdb.database.StandardJanusGraph;
+import org.janusgraph.graphdb.query.index.CostBasedIndexSelectionStrategy;
+import org.janusgraph.graphdb.query.index.IndexStatistics;
+import org.janusgraph.graphdb.types.CompositeIndexType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * Scans the rows of a composite index to collect its {@link IndexStatistics}: every row holds the entries of one
+ * index key, hence the number of distinct keys and the number of entries are counted exactly and the most frequent
+ * keys are retained as heavy hitters. The statistics are persisted in the global graph configuration once the scan
+ * completed successfully.
+ */
+public class IndexStatisticsJob implements ScanJob {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexStatisticsJob.class);
+
+    public static final String DISTINCT_KEYS_COUNT = "distinct-keys";
+    public static final String ENTRIES_COUNT = "entries";
+
+    /**
+     * The number of most frequent keys for which the exact number of entries is retained
+     */
+    public static final int NUM_HEAVY_HITTERS = 100;
+
+    private final StandardJanusGraph graph;
+    private final IndexSerializer indexSerializer;
+    private final long graphIndexId;
+    //Shared by all clones of this job
+    private final HeavyHitters heavyHitters;
+
+    public IndexStatisticsJob(StandardJanusGraph graph, CompositeIndexType index) {
+        this.graph = graph;
+        this.indexSerializer = graph.getIndexSerializer();
+        this.graphIndexId = index.getID();
+        this.heavyHitters = new HeavyHitters(NUM_HEAVY_HITTERS);
+    }
+
+    private IndexStatisticsJob(IndexStatisticsJob copy) {
+        this.graph = copy.graph;
+        this.indexSerializer = copy.indexSerializer;
+        this.graphIndexId = copy.graphIndexId;
+        this.heavyHitters = copy.heavyHitters;
+    }
+
+    @Override
+    public void process(StaticBuffer key, Map<SliceQuery, EntryList> entries, ScanMetrics metrics) {
+        final long count = entries.values().iterator().next().size();
+        if (count == 0) return;
+        metrics.incrementCustom(DISTINCT_KEYS_COUNT);
+        metrics.incrementCustom(ENTRIES_COUNT, count);
+        heavyHitters.offer(key, count);
+    }
+
+    @Override
+    public List<SliceQuery> getQueries() {
+        return Collections.singletonList(new SliceQuery(BufferUtil.zeroBuffer(1), BufferUtil.oneBuffer(128)));
+    }
+
+    @Override
+    public Predicate<StaticBuffer> getKeyFilter() {
+        return (k -> {
+            try {
+                return indexSerializer.getIndexIdFromKey(k) == graphIndexId;
+            } catch (RuntimeException e) {
+                log.error("Filtering key {} due to exception", k, e);
+                return false;
+            }
+        });
+    }
+
+    public IndexStatistics getStatistics(ScanMetrics metrics) {
+        return new IndexStatistics(metrics.getCustom(DISTINCT_KEYS_COUNT), metrics.getCustom(ENTRIES_COUNT),
+            heavyHitters.get());
+    }
+
+    /**
+     * Persists the statistics collected by a successful scan and makes them available to the index selection
+     * strategy of this graph instance. Other graph instances pick them up when they are opened the next time.
+     */
+    public void persistStatistics(ScanMetrics metrics) {
+        final IndexStatistics statistics = getStatistics(metrics);
+        final ModifiableConfiguration globalConfig = new ModifiableConfiguration(GraphDatabaseConfiguration.ROOT_NS,
+            graph.getBackend().getGlobalSystemConfig(), BasicConfiguration.Restriction.GLOBAL);
+        globalConfig.set(CostBasedIndexSelectionStrategy.INDEX_STATISTICS, statistics.encode(), String.valueOf(graphIndexId));
+        if (graph.getIndexSelector() instanceof CostBasedIndexSelectionStrategy) {
+            ((CostBasedIndexSelectionStrategy) graph.getIndexSelector()).setStatistics(graphIndexId, statistics);
+        }
+        log.info("Collected statistics of index with id {}: {}", graphIndexId, statistics);
+    }
+
+    @Override
+    public IndexStatisticsJob clone() {
+        return new IndexStatisticsJob(this);
+    }
+
+    private static class HeavyHitters {
+
+        private final int capacity;
+        private final PriorityQueue<Map.Entry<StaticBuffer, Long>> heap;
+        //The smallest count in a full heap - keys with fewer entries are rejected without acquiring the lock
+        private volatile long threshold = 0;
+
+        private HeavyHitters(int capacity) {
+            this.capacity = capacity;
+            this.heap = new PriorityQueue<>(capacity + 1, Map.Entry.comparingByValue());
+        }
+
+        private void offer(StaticBuffer key, long count) {
+            if (count <= threshold) return;
+            synchronized (this) {
+                heap.add(new AbstractMap.SimpleImmutableEntry<>(key, count));
+                if (heap.size() > capacity) heap.poll();
+                if (heap.size() == capacity) threshold = heap.peek().getValue();
+            }
+        }
+
+        private synchronized Map<StaticBuffer, Long> get() {
+            final Map<StaticBuffer, Long> result = new HashMap<>(heap.size());
+            for (Map.Entry<StaticBuffer, Long> entry : heap) result.put(entry.getKey(), entry.getValue());
+            return result;
+        }
+    }
+}
@@ -14,16 +14,22 @@
 
 package org.janusgraph.graphdb.query;
 
+import com.carrotsearch.hppc.LongHashSet;
+import com.carrotsearch.hppc.cursors.LongCursor;
 import com.google.common.base.Preconditions;
 import org.janusgraph.core.*;
 import org.janusgraph.core.attribute.Cmp;
 import org.janusgraph.core.attribute.Contain;
+import org.janusgraph.diskstorage.BackendTransaction;
 import org.janusgraph.graphdb.internal.InternalRelationType;
 import org.janusgraph.graphdb.predicate.AndJanusPredicate;
 import org.janusgraph.graphdb.predicate.OrJanusPredicate;
 import org.janusgraph.graphdb.query.condition.*;
 import org.janusgraph.graphdb.transaction.StandardJanusGraphTx;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 /**
  * Utility methods used in query optimization and processing.
@@ -336,49 +342,139 @@ public class QueryUtil {
     }
 
 
-    public static <R> List<R> processIntersectingRetrievals(List<IndexCall<R>> retrievals, final int limit) {
+    public static <R> Collection<R> processIntersectingRetrievals(List<IndexCall<R>> retrievals, final int limit) {
+        return processIntersectingRetrievals(retrievals, limit, null);
+    }
+
+    /**
+     * Computes the intersection of the results of the given retrievals. If an executor is given, the retrievals are
+     * dispatched to it concurrently with the first retrieval being executed by the calling thread. The returned
+     * collection is a set; if all results are longs (i.e. vertex ids) they are intersected as primitives.
+     */
+    public static <R> Collection<R> processIntersectingRetrievals(List<IndexCall<R>> retrievals, final int limit,
+                                                                  final Executor executor) {
         Preconditions.checkArgument(!retrievals.isEmpty());
         Preconditions.checkArgument(limit >= 0, "Invalid limit: %s", limit);
-        List<R> results;
-        /*
-         * Iterate over the clauses in the and collection
-         * query.getCondition().getChildren(), taking the intersection
-         * of current results with cumulative results on each iteration.
-         */
+        Collection<R> results;
         //TODO: smarter limit estimation
         final int multiplier = Math.min(16, (int) Math.pow(2, retrievals.size() - 1));
         int subLimit = Integer.MAX_VALUE;
         if (Integer.MAX_VALUE / multiplier >= limit) subLimit = limit * multiplier;
         boolean exhaustedResults;
         do {
+            final List<Collection<R>> subResults = callRetrievals(retrievals, subLimit, executor);
             exhaustedResults = true;
-            results = null;
-            for (final IndexCall<R> call : retrievals) {
-                Collection<R> subResult;
-                try {
-                    subResult = call.call(subLimit);
-                } catch (final Exception e) {
-                    throw new JanusGraphException("Could not process individual retrieval call ", e);
-                }
-
+            for (final Collection<R> subResult : subResults) {
                 if (subResult.size() >= subLimit) exhaustedResults = false;
-                if (results == null) {
-                    results = new ArrayList<>(subResult);
-                } else {
-                    final Set<R> subResultSet;
-                    if(subResult instanceof Set){
-                        subResultSet = (Set<R>) subResult;
-                    } else {
-                        subResultSet = new HashSet<>(subResult);
-                    }
-                    results.removeIf(o -> !subResultSet.contains(o));
-                }
             }
+            results = intersect(subResults);
             subLimit = (int) Math.min(Integer.MAX_VALUE - 1, Math.max(Math.pow(subLimit, 1.5),(subLimit+1)*2));
-        } while (results != null && results.size() < limit && !exhaustedResults);
+        } while (results.size() < limit && !exhaustedResults);
         return results;
     }
 
+    private static <R> List<Collection<R>> callRetrievals(List<IndexCall<R>> retrievals, int limit, Executor executor) {
+        final List<Collection<R>> subResults = new ArrayList<>(retrievals.size());
+        if (executor == null || retrievals.size() < BackendTransaction.MIN_TASKS_TO_PARALLELIZE) {
+            for (final IndexCall<R> call : retrievals) {
+                subResults.add(callRetrieval(call, limit));
+            }
+            return subResults;
+        }
+        final List<CompletableFuture<Collection<R>>> futures = new ArrayList<>(retrievals.size() - 1);
+        for (final IndexCall<R> call : retrievals.subList(1, retrievals.size())) {
+            futures.add(CompletableFuture.supplyAsync(() -> callRetrieval(call, limit), executor));
+        }
+        subResults.add(callRetrieval(retrievals.get(0), limit));
+        for (final CompletableFuture<Collection<R>> future : futures) {
+            try {
+                subResults.add(future.join());
+            } catch (final CompletionException e) {
+                if (e.getCause() instanceof JanusGraphException) throw (JanusGraphException) e.getCause();
+                throw new JanusGraphException("Could not process individual retrieval call ", e.getCause());
+            }
+        }
+        return subResults;
+    }
+
+    private static <R> Collection<R> callRetrieval(IndexCall<R> call, int limit) {
+        try {
+            return call.call(limit);
+        } catch (final Exception e) {
+            throw new JanusGraphException("Could not process individual retrieval call ", e);
+        }
+    }
+
+    /**
+     * Intersects the given collections by probing the elements of each collection against the intersection of the
+     * smaller ones, starting with the smallest collection.
+     */
+    @SuppressWarnings("unchecked")
+    private static <R> Collection<R> intersect(List<Collection<R>> subResults) {
+        final List<Collection<R>> bySize = new ArrayList<>(subResults);
+        bySize.sort(Comparator.comparingInt(Collection::size));
+        final Collection<R> smallest = bySize.get(0);
+        if (smallest.stream().allMatch(r -> r instanceof Long)) {
+            LongHashSet intersection = new LongHashSet(smallest.size());
+            for (final R r : smallest) intersection.add((Long) r);
+            for (int i = 1; i < bySize.size() && !intersection.isEmpty(); i++) {
+                final LongHashSet next = new LongHashSet(intersection.size());
+                for (final R r : bySize.get(i)) {
+                    if (r instanceof Long && intersection.contains((Long) r)) next.add((Long) r);
+                }
+                intersection = next;
+            }
+            return (Collection<R>) new LongSetView(intersection);
+        }
+        Set<R> intersection = new HashSet<>(smallest);
+        for (int i = 1; i < bySize.size() && !intersection.isEmpty(); i++) {
+            final Set<R> next = new HashSet<>();
+            for (final R r : bySize.get(i)) {
+                if (intersection.contains(r)) next.add(r);
+            }
+            intersection = next;
+        }
+        return intersection;
+    }
+
+    /**
+     * Read-only {@link Set} view of a primitive long set.
+     */
+    private static class LongSetView extends AbstractSet<Long> {
+
+        private final LongHashSet set;
+
+        private LongSetView(LongHashSet set) {
+            this.set = set;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Long && set.contains((Long) o);
+        }
+
+        @Override
+        public Iterator<Long> iterator() {
+            final Iterator<LongCursor> cursors = set.iterator();
+            return new Iterator<Long>() {
+                @Override
+                public boolean hasNext() {
+                    return cursors.hasNext();
+                }
+
+                @Override
+                public Long next() {
+                    return cursors.next().value;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return set.size();
+        }
+    }
+
 
     public interface IndexCall<R> {
 
@@ -38,6 +38,10 @@ public class MultiKeySliceQuery extends BaseQuery implements BackendQuery<MultiK
         this.queries = queries;
     }
 
+    public List<KeySliceQuery> getQueries() {
+        return queries;
+    }
+
     @Override
     public MultiKeySliceQuery updateLimit(int newLimit) {
         MultiKeySliceQuery newQuery = new MultiKeySliceQuery(queries);
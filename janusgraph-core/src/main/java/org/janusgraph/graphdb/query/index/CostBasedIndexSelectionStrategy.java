@@ -0,0 +1,197 @@
+// Copyright 2020 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.janusgraph.graphdb.query.index;
+
+import org.janusgraph.core.Cardinality;
+import org.janusgraph.core.JanusGraphElement;
+import org.janusgraph.diskstorage.configuration.ConfigNamespace;
+import org.janusgraph.diskstorage.configuration.ConfigOption;
+import org.janusgraph.diskstorage.configuration.Configuration;
+import org.janusgraph.diskstorage.keycolumnvalue.KeySliceQuery;
+import org.janusgraph.graphdb.database.IndexSerializer;
+import org.janusgraph.graphdb.internal.OrderList;
+import org.janusgraph.graphdb.query.condition.Condition;
+import org.janusgraph.graphdb.query.condition.MultiCondition;
+import org.janusgraph.graphdb.query.graph.JointIndexQuery;
+import org.janusgraph.graphdb.types.CompositeIndexType;
+import org.janusgraph.graphdb.types.IndexType;
+import org.janusgraph.graphdb.types.MixedIndexType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.QUERY_NS;
+
+/**
+ * Selects indexes based on the number of elements they are estimated to return. Estimates are derived from the
+ * {@link IndexStatistics} of composite indexes, which are collected by
+ * {@link org.janusgraph.core.schema.SchemaAction#UPDATE_STATISTICS}, and from the number of looked up keys for unique
+ * indexes.
+ * <p>
+ * The most selective index is queried first. Further indexes with an estimate are only intersected with it if
+ * retrieving their entries is cheaper than filtering the elements of the first index in memory. Indexes without an
+ * estimate, such as mixed indexes, are added if they cover additional clauses. If none of the index candidates has an
+ * estimate, the selection is left to {@link ThresholdBasedIndexSelectionStrategy}.
+ */
+public class CostBasedIndexSelectionStrategy extends AbstractIndexSelectionStrategy {
+
+    private static final Logger log = LoggerFactory.getLogger(CostBasedIndexSelectionStrategy.class);
+
+    public static final String NAME = "cost-based";
+
+    public static final ConfigNamespace INDEX_STATISTICS_NS = new ConfigNamespace(QUERY_NS, "index-statistics",
+        "Statistics of composite indexes used by the `" + NAME + "` index select strategy. The namespace is the id of " +
+            "the index.", true);
+
+    public static final ConfigOption<String> INDEX_STATISTICS = new ConfigOption<>(INDEX_STATISTICS_NS, "summary",
+        "Encoded statistics of the composite index. Maintained by the UPDATE_STATISTICS index action and not meant to " +
+            "be set manually.",
+        ConfigOption.Type.GLOBAL, String.class);
+
+    /**
+     * The cost of filtering an element in memory relative to the cost of retrieving an index entry
+     */
+    private static final double FILTER_COST = 10;
+
+    private final ConcurrentMap<Long, IndexStatistics> statistics = new ConcurrentHashMap<>();
+    private final IndexSelectionStrategy fallback;
+
+    public CostBasedIndexSelectionStrategy(Configuration config) {
+        super(config);
+        this.fallback = new ThresholdBasedIndexSelectionStrategy(config);
+        for (String indexId : config.getContainedNamespaces(INDEX_STATISTICS_NS)) {
+            try {
+                statistics.put(Long.parseLong(indexId), IndexStatistics.decode(config.get(INDEX_STATISTICS, indexId)));
+            } catch (RuntimeException e) {
+                log.warn("Ignoring invalid statistics of index with id {}", indexId, e);
+            }
+        }
+    }
+
+    public IndexStatistics getStatistics(long indexId) {
+        return statistics.get(indexId);
+    }
+
+    /**
+     * Makes the given statistics available to subsequent index selections
+     */
+    public void setStatistics(long indexId, IndexStatistics indexStatistics) {
+        statistics.put(indexId, indexStatistics);
+    }
+
+    @Override
+    public SelectedIndexQuery selectIndices(final Set<IndexType> rawCandidates,
+                                            final MultiCondition<JanusGraphElement> conditions,
+                                            final Set<Condition> coveredClauses, OrderList orders,
+                                            IndexSerializer serializer) {
+        final List<IndexCandidate> estimated = new ArrayList<>(rawCandidates.size());
+        final List<IndexCandidate> unestimated = new ArrayList<>(rawCandidates.size());
+        for (final IndexType index : rawCandidates) {
+            final IndexCandidate ic = createIndexCandidate(index, conditions, serializer);
+            if (ic == null) {
+                continue;
+            }
+            final double estimate = estimateResultSize(ic, serializer);
+            if (Double.isNaN(estimate)) {
+                ic.setScore(calculateIndexCandidateScore(ic));
+                unestimated.add(ic);
+            } else {
+                // the fewer elements an index returns, the better
+                ic.setScore(-estimate);
+                estimated.add(ic);
+            }
+        }
+        if (estimated.isEmpty()) {
+            return fallback.selectIndices(rawCandidates, conditions, coveredClauses, orders, serializer);
+        }
+
+        final Comparator<IndexCandidate> byScore = Comparator.comparingDouble(IndexCandidate::getScore).reversed();
+        estimated.sort(byScore);
+        unestimated.sort(byScore);
+
+        final List<IndexCandidate> selected = new ArrayList<>(estimated.size() + unestimated.size());
+        final double bestEstimate = -estimated.get(0).getScore();
+        for (final IndexCandidate ic : estimated) {
+            if (coveredClauses.containsAll(ic.getSubCover())) {
+                continue;
+            }
+            if (!selected.isEmpty() && -ic.getScore() > FILTER_COST * bestEstimate) {
+                // cheaper to filter the elements retrieved so far than to retrieve and intersect this index
+                continue;
+            }
+            coveredClauses.addAll(ic.getSubCover());
+            selected.add(ic);
+        }
+        for (final IndexCandidate ic : unestimated) {
+            if (!coveredClauses.containsAll(ic.getSubCover())) {
+                coveredClauses.addAll(ic.getSubCover());
+                selected.add(ic);
+            }
+        }
+
+        final JointIndexQuery jointQuery = new JointIndexQuery();
+        for (final IndexCandidate ic : selected) {
+            addToJointQuery(ic, jointQuery, serializer, orders);
+        }
+        if (selected.isEmpty()) {
+            return new SelectedIndexQuery(jointQuery, orders.isEmpty());
+        }
+        // isSorted depends on the first index subquery
+        final IndexType first = selected.get(0).getIndex();
+        final boolean isSorted = orders.isEmpty() ||
+            first.isMixedIndex() && IndexSelectionUtil.indexCoversOrder((MixedIndexType) first, orders);
+        return new SelectedIndexQuery(jointQuery, isSorted);
+    }
+
+    /**
+     * Returns the estimated number of elements the index candidate retrieves, or {@link Double#NaN} if there is no
+     * basis for an estimate.
+     */
+    private double estimateResultSize(final IndexCandidate ic, final IndexSerializer serializer) {
+        if (!ic.getIndex().isCompositeIndex()) {
+            return Double.NaN;
+        }
+        final CompositeIndexType index = (CompositeIndexType) ic.getIndex();
+        final List<Object[]> values = (List<Object[]>) ic.getSubCondition();
+        if (index.getCardinality() == Cardinality.SINGLE) {
+            // unique index
+            return values.size();
+        }
+        final IndexStatistics indexStatistics = statistics.get(index.getID());
+        if (indexStatistics == null) {
+            return Double.NaN;
+        }
+        double estimate = 0;
+        for (final KeySliceQuery query : serializer.getQuery(index, values).getQueries()) {
+            estimate += indexStatistics.estimateEntries(query.getKey());
+        }
+        return estimate;
+    }
+
+    private double calculateIndexCandidateScore(final IndexCandidate ic) {
+        double score = 0.0;
+        for (final Condition c : ic.getSubCover()) {
+            score += getConditionBasicScore(c) + getIndexTypeScore(ic.getIndex());
+        }
+        return score;
+    }
+}
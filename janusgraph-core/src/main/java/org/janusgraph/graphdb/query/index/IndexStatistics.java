@@ -0,0 +1,113 @@
+// Copyright 2020 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.janusgraph.graphdb.query.index;
+
+import com.google.common.base.Preconditions;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.util.StaticArrayBuffer;
+
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Summarizes the data distribution of a composite index: the number of distinct index keys, the total number of
+ * index entries and the number of entries of the most frequent keys. Used by {@link CostBasedIndexSelectionStrategy}
+ * to estimate how many elements an index lookup returns.
+ */
+public class IndexStatistics {
+
+    private static final String FIELD_SEPARATOR = ";";
+    private static final String HEAVY_HITTER_SEPARATOR = ",";
+    private static final String COUNT_SEPARATOR = ":";
+
+    private final long distinctKeys;
+    private final long entries;
+    private final Map<StaticBuffer, Long> heavyHitters;
+    private final long heavyHitterEntries;
+
+    /**
+     * @param distinctKeys the number of distinct keys in the index
+     * @param entries the number of entries in the index
+     * @param heavyHitters the number of entries of the most frequent keys
+     */
+    public IndexStatistics(long distinctKeys, long entries, Map<StaticBuffer, Long> heavyHitters) {
+        Preconditions.checkArgument(distinctKeys >= heavyHitters.size(), "More heavy hitters than keys: %s", distinctKeys);
+        this.distinctKeys = distinctKeys;
+        this.entries = entries;
+        this.heavyHitters = Collections.unmodifiableMap(heavyHitters);
+        this.heavyHitterEntries = heavyHitters.values().stream().mapToLong(Long::longValue).sum();
+        Preconditions.checkArgument(entries >= heavyHitterEntries, "More heavy hitter entries than entries: %s", entries);
+    }
+
+    public long getDistinctKeys() {
+        return distinctKeys;
+    }
+
+    public long getEntries() {
+        return entries;
+    }
+
+    public Map<StaticBuffer, Long> getHeavyHitters() {
+        return heavyHitters;
+    }
+
+    /**
+     * Estimates the number of entries stored under the given index key. The count is exact for heavy hitters, all
+     * other keys are assumed to share the remaining entries evenly.
+     */
+    public double estimateEntries(StaticBuffer key) {
+        final Long count = heavyHitters.get(key);
+        if (count != null) return count;
+        final long remainingKeys = distinctKeys - heavyHitters.size();
+        if (remainingKeys <= 0) return 0;
+        return (double) (entries - heavyHitterEntries) / remainingKeys;
+    }
+
+    public String encode() {
+        final StringBuilder s = new StringBuilder();
+        s.append(distinctKeys).append(FIELD_SEPARATOR).append(entries).append(FIELD_SEPARATOR);
+        boolean first = true;
+        for (Map.Entry<StaticBuffer, Long> heavyHitter : heavyHitters.entrySet()) {
+            if (!first) s.append(HEAVY_HITTER_SEPARATOR);
+            first = false;
+            s.append(Base64.getEncoder().encodeToString(heavyHitter.getKey().as(StaticBuffer.ARRAY_FACTORY)))
+                .append(COUNT_SEPARATOR).append(heavyHitter.getValue());
+        }
+        return s.toString();
+    }
+
+    public static IndexStatistics decode(String encoded) {
+        final String[] fields = encoded.split(FIELD_SEPARATOR, -1);
+        Preconditions.checkArgument(fields.length == 3, "Invalid index statistics: %s", encoded);
+        final Map<StaticBuffer, Long> heavyHitters = new HashMap<>();
+        if (!fields[2].isEmpty()) {
+            for (String heavyHitter : fields[2].split(HEAVY_HITTER_SEPARATOR)) {
+                final int pos = heavyHitter.lastIndexOf(COUNT_SEPARATOR);
+                Preconditions.checkArgument(pos > 0, "Invalid heavy hitter: %s", heavyHitter);
+                heavyHitters.put(StaticArrayBuffer.of(Base64.getDecoder().decode(heavyHitter.substring(0, pos))),
+                    Long.parseLong(heavyHitter.substring(pos + 1)));
+            }
+        }
+        return new IndexStatistics(Long.parseLong(fields[0]), Long.parseLong(fields[1]), heavyHitters);
+    }
+
+    @Override
+    public String toString() {
+        return "IndexStatistics[keys=" + distinctKeys + ", entries=" + entries + ", heavyHitters=" + heavyHitters.size() + "]";
+    }
+}
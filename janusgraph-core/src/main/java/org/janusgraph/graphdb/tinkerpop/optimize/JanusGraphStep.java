@@ -18,6 +18,7 @@ import org.apache.tinkerpop.gremlin.process.traversal.step.map.CountGlobalStep;
 import org.apache.tinkerpop.gremlin.structure.Graph;
 import org.janusgraph.core.JanusGraphEdge;
 import org.janusgraph.core.JanusGraphElement;
+import org.janusgraph.core.JanusGraphMultiVertexQuery;
 import org.janusgraph.core.JanusGraphQuery;
 import org.janusgraph.core.JanusGraphTransaction;
 import org.janusgraph.core.JanusGraphVertex;
@@ -27,11 +28,13 @@ import org.janusgraph.graphdb.query.JanusGraphPredicateUtils;
 import org.janusgraph.graphdb.query.graph.GraphCentricQuery;
 import org.janusgraph.graphdb.query.graph.GraphCentricQueryBuilder;
 import org.janusgraph.graphdb.query.profile.QueryProfiler;
+import org.janusgraph.graphdb.query.vertex.BasicVertexCentricQueryBuilder;
 import org.janusgraph.graphdb.tinkerpop.profile.TP3ProfileWrapper;
 import org.janusgraph.graphdb.util.MultiDistinctOrderedIterator;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Multimap;
 
 import org.apache.tinkerpop.gremlin.process.traversal.Order;
@@ -46,6 +49,7 @@ import org.apache.tinkerpop.gremlin.structure.util.StringFactory;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -64,6 +68,7 @@ public class JanusGraphStep<S, E extends Element> extends GraphStep<S, E> implem
     private int highLimit = BaseQuery.NO_LIMIT;
     private final List<OrderEntry> orders = new ArrayList<>();
     private QueryProfiler queryProfiler = QueryProfiler.NO_OP;
+    private int propertyPrefetchSize = 0;
 
 
     public JanusGraphStep(final GraphStep<S, E> originalStep) {
@@ -94,10 +99,27 @@ public class JanusGraphStep<S, E extends Element> extends GraphStep<S, E> implem
             final List<Iterator<E>> responses = new ArrayList<>();
             queries.entries().forEach(q ->  executeGraphCentricQuery(builder, responses, q));
 
-            return new MultiDistinctOrderedIterator<E>(lowLimit, highLimit, responses, orders);
+            final Iterator<E> results = new MultiDistinctOrderedIterator<E>(lowLimit, highLimit, responses, orders);
+            return propertyPrefetchSize > 0 ? prefetchProperties(tx, results) : results;
         });
     }
 
+    /**
+     * Pulls the vertices returned by the query in chunks and loads the properties of all vertices of a chunk into
+     * the transaction with a single multiQuery before they are passed on, so that subsequent steps reading their
+     * properties don't have to go to the storage backend for each vertex.
+     */
+    private Iterator<E> prefetchProperties(final JanusGraphTransaction tx, final Iterator<E> results) {
+        return Iterators.concat(Iterators.transform(Iterators.partition(results, propertyPrefetchSize), chunk -> {
+            if (chunk.size() > 1) {
+                final JanusGraphMultiVertexQuery multiQuery = tx.multiQuery((Collection<JanusGraphVertex>) chunk);
+                ((BasicVertexCentricQueryBuilder) multiQuery).profiler(queryProfiler);
+                multiQuery.preFetch();
+            }
+            return chunk.iterator();
+        }));
+    }
+
     private GraphCentricQuery buildGlobalGraphCentricQuery(final JanusGraphTransaction tx) {
         //If a query have a local offset or have a local order without a global order and if a query have a limit lower than the global different from other query we can not build globalquery
         final Iterator<QueryInfo> itQueryInfo =  hasLocalContainers.values().iterator();
@@ -266,6 +288,20 @@ public class JanusGraphStep<S, E extends Element> extends GraphStep<S, E> implem
         return orders;
     }
 
+    /**
+     * Sets the number of vertices whose properties are pre-fetched together, or 0 to disable the pre-fetching.
+     * Only applicable if this step returns vertices.
+     */
+    public void setPropertyPrefetchSize(int propertyPrefetchSize) {
+        Preconditions.checkArgument(propertyPrefetchSize == 0 || returnsVertex(),
+            "Properties can only be pre-fetched for vertices");
+        this.propertyPrefetchSize = propertyPrefetchSize;
+    }
+
+    public int getPropertyPrefetchSize() {
+        return propertyPrefetchSize;
+    }
+
     private <A extends Element> Iterator<A> iteratorList(final Iterator<A> iterator) {
         final List<A> list = new ArrayList<>();
         while (iterator.hasNext()) {
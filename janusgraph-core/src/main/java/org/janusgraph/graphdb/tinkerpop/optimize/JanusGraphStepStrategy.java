@@ -14,10 +14,17 @@
 
 package org.janusgraph.graphdb.tinkerpop.optimize;
 
+import org.janusgraph.graphdb.database.StandardJanusGraph;
 import org.janusgraph.graphdb.tinkerpop.ElementUtils;
+import org.janusgraph.graphdb.transaction.StandardJanusGraphTx;
+import org.apache.tinkerpop.gremlin.process.traversal.Step;
 import org.apache.tinkerpop.gremlin.process.traversal.Traversal;
 import org.apache.tinkerpop.gremlin.process.traversal.TraversalStrategy;
+import org.apache.tinkerpop.gremlin.process.traversal.step.filter.HasStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.ElementMapStep;
 import org.apache.tinkerpop.gremlin.process.traversal.step.map.GraphStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.PropertiesStep;
+import org.apache.tinkerpop.gremlin.process.traversal.step.map.PropertyMapStep;
 import org.apache.tinkerpop.gremlin.process.traversal.strategy.AbstractTraversalStrategy;
 import org.apache.tinkerpop.gremlin.process.traversal.util.TraversalHelper;
 import org.apache.tinkerpop.gremlin.structure.Element;
@@ -47,6 +54,7 @@ public class JanusGraphStepStrategy extends AbstractTraversalStrategy<TraversalS
                 HasStepFolder.foldInHasContainer(janusGraphStep, traversal, traversal);
                 HasStepFolder.foldInOrder(janusGraphStep, janusGraphStep.getNextStep(), traversal, traversal, janusGraphStep.returnsVertex(), null);
                 HasStepFolder.foldInRange(janusGraphStep, JanusGraphTraversalUtil.getNextNonIdentityStep(janusGraphStep), traversal, null);
+                applyPropertyPrefetching(traversal, janusGraphStep);
             } else {
                 //Make sure that any provided "start" elements are instantiated in the current transaction
                 final Object[] ids = originalGraphStep.getIds();
@@ -66,6 +74,23 @@ public class JanusGraphStepStrategy extends AbstractTraversalStrategy<TraversalS
         });
     }
 
+    /**
+     * If the vertices returned by the step are passed to a step which reads their properties, the properties are
+     * pre-fetched in chunks of the configured size rather than loaded for each vertex individually.
+     */
+    private static void applyPropertyPrefetching(final Traversal.Admin<?, ?> traversal, final JanusGraphStep<?, ?> janusGraphStep) {
+        if (!janusGraphStep.returnsVertex() || !traversal.getGraph().isPresent()) return;
+        final Graph graph = traversal.getGraph().get();
+        if (!(graph instanceof StandardJanusGraph || graph instanceof StandardJanusGraphTx)) return;
+        final StandardJanusGraph janusGraph = graph instanceof StandardJanusGraphTx ? ((StandardJanusGraphTx) graph).getGraph() : (StandardJanusGraph) graph;
+        final int prefetchSize = janusGraph.getConfiguration().getIndexPropertyPrefetchSize();
+        final Step<?, ?> nextStep = JanusGraphTraversalUtil.getNextNonIdentityStep(janusGraphStep);
+        if (prefetchSize > 0 && (nextStep instanceof PropertiesStep || nextStep instanceof PropertyMapStep
+                || nextStep instanceof ElementMapStep || nextStep instanceof HasStep)) {
+            janusGraphStep.setPropertyPrefetchSize(prefetchSize);
+        }
+    }
+
     public static JanusGraphStepStrategy instance() {
         return INSTANCE;
     }
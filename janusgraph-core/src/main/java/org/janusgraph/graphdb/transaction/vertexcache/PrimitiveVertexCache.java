@@ -0,0 +1,296 @@
+// Copyright 2020 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.transaction.vertexcache;
+
+import com.google.common.base.Preconditions;
+import org.cliffc.high_scale_lib.NonBlockingHashMapLong;
+import org.janusgraph.graphdb.internal.InternalVertex;
+import org.janusgraph.graphdb.vertices.AbstractVertex;
+import org.janusgraph.util.datastructures.Retriever;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * {@link VertexCache} which keeps the recently-used vertices in an open-addressing hash table keyed by the primitive
+ * vertex id. Unlike {@link GuavaVertexCache}, cache hits neither box the vertex id nor allocate any entry objects.
+ * <p>
+ * When the cache is full, a vertex is evicted using the CLOCK algorithm: every cached vertex has a reference bit which
+ * is set when the vertex is retrieved from the cache and the clock hand sweeps over the table clearing reference bits
+ * until it finds a vertex whose bit is not set. Vertices which are added to the cache start without the reference bit,
+ * hence vertices that are only visited once (e.g. by a scan over many vertices) are evicted before vertices which are
+ * accessed repeatedly.
+ * <p>
+ * Cache hits do not lock: the table is read optimistically under a {@link StampedLock} and the lookup is repeated under
+ * the read lock only if the table was modified concurrently. The reference bit is set without synchronization since
+ * losing or misplacing a bit only affects which vertex is evicted next. Inserts and evictions take the write lock,
+ * vertices are retrieved outside of the lock on cache misses.
+ */
+public class PrimitiveVertexCache implements VertexCache {
+
+    private static final Logger log = LoggerFactory.getLogger(PrimitiveVertexCache.class);
+
+    /**
+     * Marks empty slots in the table. Vertex ids are never 0.
+     */
+    private static final long EMPTY = 0;
+    private static final int INITIAL_TABLE_SIZE = 16;
+    private static final int MAX_TABLE_SIZE = 1 << 30;
+
+    private final NonBlockingHashMapLong<InternalVertex> volatileVertices;
+    private final int maxSize;
+
+    private final StampedLock lock = new StampedLock();
+    private volatile Table table = new Table(INITIAL_TABLE_SIZE);
+    private int size;
+    private int hand;
+
+    public PrimitiveVertexCache(final long maxCacheSize, final int initialDirtySize) {
+        Preconditions.checkArgument(maxCacheSize >= 0, "Invalid cache size: %s", maxCacheSize);
+        volatileVertices = new NonBlockingHashMapLong<>(initialDirtySize);
+        log.debug("Created dirty vertex map with initial size {}", initialDirtySize);
+
+        //The table is kept at most half full
+        maxSize = (int) Math.min(maxCacheSize, MAX_TABLE_SIZE / 2);
+        log.debug("Created primitive vertex cache with max size {}", maxSize);
+    }
+
+    @Override
+    public boolean contains(long id) {
+        return getCached(id) != null || volatileVertices.containsKey(id);
+    }
+
+    @Override
+    public InternalVertex get(final long id, final Retriever<Long, InternalVertex> retriever) {
+        final InternalVertex cached = getCached(id);
+        if (cached != null) return cached;
+
+        InternalVertex newVertex = volatileVertices.get(id);
+        if (newVertex == null) {
+            newVertex = retriever.get(id);
+        }
+        assert newVertex != null;
+
+        final long stamp = lock.writeLock();
+        try {
+            //Another thread might have cached the vertex in the meantime
+            final Table current = table;
+            final int slot = current.slot(id);
+            if (current.keys[slot] == id) return current.values[slot];
+            insert(id, newVertex);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        return newVertex;
+    }
+
+    /**
+     * Returns the cached vertex with the given id and sets its reference bit, or null if it is not cached
+     */
+    private InternalVertex getCached(long id) {
+        final long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            final Table current = table;
+            final int slot = current.find(id);
+            final InternalVertex vertex = slot < 0 ? null : current.values[slot];
+            if (lock.validate(stamp)) {
+                if (vertex != null) current.referenced[slot] = true;
+                return vertex;
+            }
+        }
+        final long readStamp = lock.readLock();
+        try {
+            final Table current = table;
+            final int slot = current.find(id);
+            if (slot < 0) return null;
+            current.referenced[slot] = true;
+            return current.values[slot];
+        } finally {
+            lock.unlockRead(readStamp);
+        }
+    }
+
+    @Override
+    public void add(InternalVertex vertex, long id) {
+        Preconditions.checkNotNull(vertex);
+        Preconditions.checkArgument(id != 0);
+
+        final long stamp = lock.writeLock();
+        try {
+            final Table current = table;
+            final int slot = current.slot(id);
+            if (current.keys[slot] == id) {
+                final InternalVertex previous = current.values[slot];
+                current.values[slot] = vertex;
+                if (previous != vertex) evicted(id, previous);
+            } else {
+                insert(id, vertex);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        if (vertex.isNew() || vertex.hasAddedRelations())
+            volatileVertices.put(id, vertex);
+    }
+
+    @Override
+    public List<InternalVertex> getAllNew() {
+        final List<InternalVertex> vertices = new ArrayList<>(10);
+        for (InternalVertex v : volatileVertices.values()) {
+            if (v.isNew()) vertices.add(v);
+        }
+        return vertices;
+    }
+
+    @Override
+    public void close() {
+        final long stamp = lock.writeLock();
+        try {
+            volatileVertices.clear();
+            table = new Table(INITIAL_TABLE_SIZE);
+            size = 0;
+            hand = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private static int hash(long id) {
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+
+    /**
+     * Must hold the write lock
+     */
+    private void insert(long id, InternalVertex vertex) {
+        if (maxSize == 0) return;
+        if (size == maxSize) evict();
+        Table current = table;
+        if ((size + 1) * 2 > current.keys.length) current = resize(current.keys.length * 2);
+        final int slot = current.slot(id);
+        current.keys[slot] = id;
+        current.values[slot] = vertex;
+        current.referenced[slot] = false;
+        size++;
+    }
+
+    /**
+     * Must hold the write lock
+     */
+    private void evict() {
+        final Table current = table;
+        while (true) {
+            hand = (hand + 1) & current.mask;
+            if (current.keys[hand] == EMPTY) continue;
+            if (current.referenced[hand]) {
+                current.referenced[hand] = false;
+                continue;
+            }
+            final long id = current.keys[hand];
+            final InternalVertex vertex = current.values[hand];
+            current.remove(hand);
+            size--;
+            //Removing the vertex may have shifted another vertex into this slot, hence look at it again next time
+            hand = (hand - 1) & current.mask;
+            evicted(id, vertex);
+            return;
+        }
+    }
+
+    private void evicted(long id, InternalVertex vertex) {
+        if (((AbstractVertex) vertex).isTxOpen() && (vertex.isModified() || vertex.isRemoved())) {
+            volatileVertices.putIfAbsent(id, vertex);
+        }
+    }
+
+    private Table resize(int tableSize) {
+        final Table current = table;
+        final Table resized = new Table(tableSize);
+        for (int i = 0; i < current.keys.length; i++) {
+            if (current.keys[i] == EMPTY) continue;
+            final int slot = resized.slot(current.keys[i]);
+            resized.keys[slot] = current.keys[i];
+            resized.values[slot] = current.values[i];
+            resized.referenced[slot] = current.referenced[i];
+        }
+        hand &= resized.mask;
+        table = resized;
+        return resized;
+    }
+
+    /**
+     * The open-addressing table. The arrays are replaced as a whole on resize, so that an optimistic reader never
+     * combines arrays and a mask of different sizes.
+     */
+    private static class Table {
+
+        private final long[] keys;
+        private final InternalVertex[] values;
+        private final boolean[] referenced;
+        private final int mask;
+
+        private Table(int tableSize) {
+            keys = new long[tableSize];
+            values = new InternalVertex[tableSize];
+            referenced = new boolean[tableSize];
+            mask = tableSize - 1;
+        }
+
+        /**
+         * Returns the slot which holds the given id or the empty slot at which the id would be inserted.
+         */
+        private int slot(long id) {
+            int slot = hash(id) & mask;
+            while (keys[slot] != EMPTY && keys[slot] != id) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        /**
+         * Returns the slot which holds the given id or -1 if it is not contained. Since the table is never more than
+         * half full, the probe sequence ends at an empty slot even if the table is modified concurrently.
+         */
+        private int find(long id) {
+            final int slot = slot(id);
+            return keys[slot] == id ? slot : -1;
+        }
+
+        /**
+         * Removes the vertex in the given slot and shifts back the vertices in the subsequent slots of the probe
+         * sequence so that no tombstones are needed.
+         */
+        private void remove(int slot) {
+            int gap = slot;
+            int next = (gap + 1) & mask;
+            while (keys[next] != EMPTY) {
+                final int home = hash(keys[next]) & mask;
+                if (((next - home) & mask) >= ((next - gap) & mask)) {
+                    keys[gap] = keys[next];
+                    values[gap] = values[next];
+                    referenced[gap] = referenced[next];
+                    gap = next;
+                }
+                next = (next + 1) & mask;
+            }
+            keys[gap] = EMPTY;
+            values[gap] = null;
+            referenced[gap] = false;
+        }
+    }
+}
@@ -18,6 +18,7 @@
 package org.janusgraph.graphdb.util;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.function.Function;
@@ -51,7 +52,7 @@ public class SubqueryIterator implements Iterator<JanusGraphElement>, AutoClosea
 
     public SubqueryIterator(JointIndexQuery.Subquery subQuery, IndexSerializer indexSerializer, BackendTransaction tx,
             Cache<JointIndexQuery.Subquery, List<Object>> indexCache, int limit,
-            Function<Object, ? extends JanusGraphElement> function, List<Object> otherResults) {
+            Function<Object, ? extends JanusGraphElement> function, Collection<Object> otherResults) {
         this.subQuery = subQuery;
         this.indexCache = indexCache;
         final List<Object> cacheResponse = indexCache.getIfPresent(subQuery);
@@ -15,40 +15,90 @@
 package org.janusgraph.graphdb.vertices;
 
 import org.janusgraph.diskstorage.EntryList;
+import org.janusgraph.diskstorage.StaticBuffer;
 import org.janusgraph.diskstorage.keycolumnvalue.SliceQuery;
 import org.janusgraph.graphdb.transaction.StandardJanusGraphTx;
 import org.janusgraph.util.datastructures.Retriever;
 
-import java.util.HashMap;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 /**
  * @author Matthias Broecheler (me@matthiasb.com)
  */
 
 public class CacheVertex extends StandardVertex {
-    // We don't try to be smart and match with previous queries
-    // because that would waste more cycles on lookup than save actual memory
-    // We use a normal map with synchronization since the likelihood of contention
-    // is super low in a single transaction
+    // The results of all queries are held in a concurrent map for exact lookups.
+    // To find a cached query that subsumes a new one, the cached queries are additionally indexed by slice bounds.
+    // All lookups are lock-free, updates synchronize on the query cache since the likelihood
+    // of contention is super low in a single transaction
     protected final Map<SliceQuery, EntryList> queryCache;
 
+    /**
+     * Cached queries without limit keyed by slice start. Only queries which are not subsumed by another cached query
+     * without limit are retained, hence both slice starts and slice ends increase strictly in key order and the query
+     * with the greatest slice start not after the start of a requested slice is the only candidate to subsume it.
+     * Created on first use.
+     */
+    private volatile NavigableMap<StaticBuffer, Map.Entry<SliceQuery, EntryList>> unlimitedSlices;
+
+    /**
+     * Cached queries with limit keyed by slice start, since these only subsume queries with the same slice start.
+     * Created on first use.
+     */
+    private volatile ConcurrentMap<StaticBuffer, Map.Entry<SliceQuery, EntryList>[]> limitedSlices;
+
     public CacheVertex(StandardJanusGraphTx tx, long id, byte lifecycle) {
         super(tx, id, lifecycle);
-        queryCache = new HashMap<>(4);
+        queryCache = new ConcurrentHashMap<>(4);
     }
 
     protected void addToQueryCache(final SliceQuery query, final EntryList entries) {
+        //TODO: become smarter about what to cache and when (e.g. memory pressure)
+        if (entries == null) return;
         synchronized (queryCache) {
-            //TODO: become smarter about what to cache and when (e.g. memory pressure)
             queryCache.put(query, entries);
+            final Map.Entry<SliceQuery, EntryList> slice = new AbstractMap.SimpleImmutableEntry<>(query, entries);
+            if (query.hasLimit()) addLimitedSlice(slice);
+            else addUnlimitedSlice(slice);
         }
     }
 
-    protected int getQueryCacheSize() {
-        synchronized (queryCache) {
-            return queryCache.size();
+    private void addUnlimitedSlice(final Map.Entry<SliceQuery, EntryList> slice) {
+        final SliceQuery query = slice.getKey();
+        if (unlimitedSlices == null) unlimitedSlices = new ConcurrentSkipListMap<>();
+        else if (findUnlimitedSuperset(query) != null) return;
+        unlimitedSlices.put(query.getSliceStart(), slice);
+        //Remove the cached slices which are subsumed by the new one. Those are still found by exact lookups.
+        final Iterator<Map.Entry<SliceQuery, EntryList>> subsequent =
+            unlimitedSlices.tailMap(query.getSliceStart(), false).values().iterator();
+        while (subsequent.hasNext() && subsequent.next().getKey().getSliceEnd().compareTo(query.getSliceEnd()) <= 0) {
+            subsequent.remove();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addLimitedSlice(final Map.Entry<SliceQuery, EntryList> slice) {
+        if (limitedSlices == null) limitedSlices = new ConcurrentHashMap<>(4);
+        final Map.Entry<SliceQuery, EntryList>[] existing = limitedSlices.get(slice.getKey().getSliceStart());
+        final Map.Entry<SliceQuery, EntryList>[] updated;
+        if (existing == null) {
+            updated = new Map.Entry[]{slice};
+        } else {
+            updated = Arrays.copyOf(existing, existing.length + 1);
+            updated[existing.length] = slice;
         }
+        limitedSlices.put(slice.getKey().getSliceStart(), updated);
+    }
+
+    protected int getQueryCacheSize() {
+        return queryCache.size();
     }
 
     @Override
@@ -56,10 +106,7 @@ public class CacheVertex extends StandardVertex {
         if (isNew())
             return EntryList.EMPTY_LIST;
 
-        EntryList result;
-        synchronized (queryCache) {
-            result = queryCache.get(query);
-        }
+        EntryList result = queryCache.get(query);
         if (result == null) {
             //First check for super
             Map.Entry<SliceQuery, EntryList> superset = getSuperResultSet(query);
@@ -76,21 +123,31 @@ public class CacheVertex extends StandardVertex {
 
     @Override
     public boolean hasLoadedRelations(final SliceQuery query) {
-        synchronized (queryCache) {
-            return queryCache.get(query) != null || getSuperResultSet(query) != null;
-        }
+        return queryCache.get(query) != null || getSuperResultSet(query) != null;
     }
 
     private Map.Entry<SliceQuery, EntryList> getSuperResultSet(final SliceQuery query) {
-
-        synchronized (queryCache) {
-            if (queryCache.size() > 0) {
-                for (Map.Entry<SliceQuery, EntryList> entry : queryCache.entrySet()) {
-                    if (entry.getKey().subsumes(query)) return entry;
+        final Map.Entry<SliceQuery, EntryList> superset = findUnlimitedSuperset(query);
+        if (superset != null) return superset;
+        final ConcurrentMap<StaticBuffer, Map.Entry<SliceQuery, EntryList>[]> limited = limitedSlices;
+        if (limited != null) {
+            final Map.Entry<SliceQuery, EntryList>[] candidates = limited.get(query.getSliceStart());
+            if (candidates != null) {
+                for (Map.Entry<SliceQuery, EntryList> candidate : candidates) {
+                    if (candidate.getKey().subsumes(query)) return candidate;
                 }
             }
         }
         return null;
     }
 
+    private Map.Entry<SliceQuery, EntryList> findUnlimitedSuperset(final SliceQuery query) {
+        final NavigableMap<StaticBuffer, Map.Entry<SliceQuery, EntryList>> unlimited = unlimitedSlices;
+        if (unlimited == null) return null;
+        final Map.Entry<StaticBuffer, Map.Entry<SliceQuery, EntryList>> candidate =
+            unlimited.floorEntry(query.getSliceStart());
+        if (candidate != null && candidate.getValue().getKey().subsumes(query)) return candidate.getValue();
+        return null;
+    }
+
 }
@@ -48,9 +48,12 @@ import static org.janusgraph.diskstorage.cql.CQLTransaction.getTransaction;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -78,6 +81,7 @@ import com.datastax.driver.core.DataType;
 import com.datastax.driver.core.Metadata;
 import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.ResultSetFuture;
 import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Session;
 import com.datastax.driver.core.Statement;
@@ -87,13 +91,20 @@ import com.datastax.driver.core.schemabuilder.Create.Options;
 import com.datastax.driver.core.schemabuilder.TableOptions.CompactionOptions;
 import com.datastax.driver.core.schemabuilder.TableOptions.CompressionOptions;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import io.vavr.Lazy;
 import io.vavr.Tuple;
+import io.vavr.Tuple2;
 import io.vavr.Tuple3;
 import io.vavr.collection.Array;
 import io.vavr.collection.Iterator;
+import io.vavr.collection.Seq;
 import io.vavr.concurrent.Future;
+import io.vavr.concurrent.Promise;
 import io.vavr.control.Try;
 
 /**
@@ -272,22 +283,120 @@ public class CQLKeyColumnValueStore implements KeyColumnValueStore {
 
     @Override
     public EntryList getSlice(final KeySliceQuery query, final StoreTransaction txh) throws BackendException {
-        final Future<EntryList> result = Future.fromJavaFuture(
-                this.executorService,
-                this.session.executeAsync(this.getSlice.bind()
-                        .setBytes(KEY_BINDING, query.getKey().asByteBuffer())
-                        .setBytes(SLICE_START_BINDING, query.getSliceStart().asByteBuffer())
-                        .setBytes(SLICE_END_BINDING, query.getSliceEnd().asByteBuffer())
-                        .setInt(LIMIT_BINDING, query.getLimit())
-                        .setConsistencyLevel(getTransaction(txh).getReadConsistencyLevel())))
-                .map(resultSet -> fromResultSet(resultSet, this.getter));
+        final Future<EntryList> result = getSliceFuture(query.getKey(), query, txh);
         interruptibleWait(result);
         return result.getValue().get().getOrElseThrow(EXCEPTION_MAPPER);
     }
 
+    /**
+     * Completes the returned future on the executor of the store, as {@link #getSliceFuture} does, so that the
+     * continuations of callers never run on a driver I/O thread.
+     */
+    @Override
+    public CompletableFuture<EntryList> getSliceAsync(final KeySliceQuery query, final StoreTransaction txh) {
+        final CompletableFuture<EntryList> result = new CompletableFuture<>();
+        readSlice(query.getKey(), query, txh, new FutureCallback<EntryList>() {
+            @Override
+            public void onSuccess(final EntryList entries) {
+                completeOnExecutor(() -> result.complete(entries));
+            }
+
+            @Override
+            public void onFailure(final Throwable cause) {
+                completeOnExecutor(() -> result.completeExceptionally(EXCEPTION_MAPPER.apply(cause)));
+            }
+        });
+        return result;
+    }
+
+    private void completeOnExecutor(final Runnable completion) {
+        try {
+            this.executorService.execute(completion);
+        } catch (final RejectedExecutionException e) {
+            //The store is being closed, complete on the calling thread rather than leaving the future pending
+            completion.run();
+        }
+    }
+
+    /**
+     * Issues one asynchronous slice statement per key and waits for all of them at once, so that a multi-query does not
+     * need a separate thread per key. The slices are completed by driver callbacks, hence no thread is blocked per key.
+     */
     @Override
     public Map<StaticBuffer, EntryList> getSlice(final List<StaticBuffer> keys, final SliceQuery query, final StoreTransaction txh) throws BackendException {
-        throw new UnsupportedOperationException("The CQL backend does not support multi-key queries");
+        final Future<Seq<Tuple2<StaticBuffer, EntryList>>> result = Future.sequence(
+                this.executorService,
+                Iterator.ofAll(keys).map(key -> getSliceFuture(key, query, txh).map(entries -> Tuple.of(key, entries))));
+        interruptibleWait(result);
+        final Seq<Tuple2<StaticBuffer, EntryList>> slices = result.getValue().get().getOrElseThrow(EXCEPTION_MAPPER);
+        final Map<StaticBuffer, EntryList> entries = new HashMap<>(keys.size());
+        slices.forEach(keyAndEntries -> entries.put(keyAndEntries._1, keyAndEntries._2));
+        return entries;
+    }
+
+    private Future<EntryList> getSliceFuture(final StaticBuffer key, final SliceQuery query, final StoreTransaction txh) {
+        final Promise<EntryList> result = Promise.make(this.executorService);
+        readSlice(key, query, txh, new FutureCallback<EntryList>() {
+            @Override
+            public void onSuccess(final EntryList entries) {
+                result.success(entries);
+            }
+
+            @Override
+            public void onFailure(final Throwable cause) {
+                result.failure(cause);
+            }
+        });
+        return result.future();
+    }
+
+    /**
+     * Reads the slice of the given key asynchronously and passes it to the given callback once all of its pages have
+     * been fetched. The callback is invoked on a driver thread which must not be blocked, hence further pages are
+     * requested asynchronously as well.
+     */
+    private void readSlice(final StaticBuffer key, final SliceQuery query, final StoreTransaction txh, final FutureCallback<EntryList> callback) {
+        final ResultSetFuture resultSet;
+        try {
+            resultSet = this.session.executeAsync(this.getSlice.bind()
+                    .setBytes(KEY_BINDING, key.asByteBuffer())
+                    .setBytes(SLICE_START_BINDING, query.getSliceStart().asByteBuffer())
+                    .setBytes(SLICE_END_BINDING, query.getSliceEnd().asByteBuffer())
+                    .setInt(LIMIT_BINDING, query.getLimit())
+                    .setConsistencyLevel(getTransaction(txh).getReadConsistencyLevel()));
+        } catch (final RuntimeException e) {
+            callback.onFailure(e);
+            return;
+        }
+        readRows(resultSet, new ArrayList<>(), callback);
+    }
+
+    private void readRows(final ListenableFuture<ResultSet> page, final List<Row> rows, final FutureCallback<EntryList> callback) {
+        Futures.addCallback(page, new FutureCallback<ResultSet>() {
+            @Override
+            public void onSuccess(final ResultSet resultSet) {
+                final EntryList entries;
+                try {
+                    for (int available = resultSet.getAvailableWithoutFetching(); available > 0; available--) {
+                        rows.add(resultSet.one());
+                    }
+                    if (!resultSet.isFullyFetched()) {
+                        readRows(resultSet.fetchMoreResults(), rows, callback);
+                        return;
+                    }
+                    entries = fromRows(rows, CQLKeyColumnValueStore.this.getter);
+                } catch (final RuntimeException e) {
+                    callback.onFailure(e);
+                    return;
+                }
+                callback.onSuccess(entries);
+            }
+
+            @Override
+            public void onFailure(final Throwable cause) {
+                callback.onFailure(cause);
+            }
+        }, MoreExecutors.directExecutor());
     }
 
     /**
@@ -309,16 +418,16 @@ public class CQLKeyColumnValueStore implements KeyColumnValueStore {
         }
     }
 
-    private static EntryList fromResultSet(final ResultSet resultSet, final GetColVal<Tuple3<StaticBuffer, StaticBuffer, Row>, StaticBuffer> getter) {
-        return StaticArrayEntryList.ofStaticBuffer(new CQLResultSetIterator(resultSet), getter);
+    private static EntryList fromRows(final List<Row> rows, final GetColVal<Tuple3<StaticBuffer, StaticBuffer, Row>, StaticBuffer> getter) {
+        return StaticArrayEntryList.ofStaticBuffer(new CQLResultSetIterator(rows), getter);
     }
 
     private static class CQLResultSetIterator implements RecordIterator<Tuple3<StaticBuffer, StaticBuffer, Row>> {
 
         private java.util.Iterator<Row> resultSetIterator;
 
-        public CQLResultSetIterator(ResultSet rs) {
-            resultSetIterator = rs.iterator();
+        public CQLResultSetIterator(Iterable<Row> rows) {
+            resultSetIterator = rows.iterator();
         }
 
         @Override
@@ -201,7 +201,7 @@ public class CQLStoreManager extends DistributedStoreManager implements KeyColum
         fb.keyConsistent((onlyUseLocalConsistency ? local : global), local);
         fb.locking(useExternalLocking);
         fb.optimisticLocking(true);
-        fb.multiQuery(false);
+        fb.multiQuery(true);
 
         final String partitioner = this.cluster.getMetadata().getPartitioner();
         switch (partitioner.substring(partitioner.lastIndexOf('.') + 1)) {
@@ -0,0 +1,256 @@
+// Copyright 2020 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.cql;
+
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.janusgraph.diskstorage.EntryList;
+import org.janusgraph.diskstorage.EntryMetaData;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.TemporaryBackendException;
+import org.janusgraph.diskstorage.keycolumnvalue.KeySliceQuery;
+import org.janusgraph.diskstorage.keycolumnvalue.SliceQuery;
+import org.janusgraph.diskstorage.keycolumnvalue.StoreTransaction;
+import org.janusgraph.diskstorage.util.BufferUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the slice reads of {@link CQLKeyColumnValueStore} against a mocked session whose statements are only completed
+ * once the test completes them.
+ */
+public class CQLKeyColumnValueStoreTest {
+
+    private static final int POOL_SIZE = 2;
+    private static final int NUM_READS = 10 * POOL_SIZE;
+
+    private final List<PendingResultSet> pendingReads = new CopyOnWriteArrayList<>();
+
+    private ExecutorService executorService;
+    private CQLKeyColumnValueStore store;
+    private StoreTransaction txh;
+
+    @BeforeEach
+    public void setUp() {
+        executorService = Executors.newFixedThreadPool(POOL_SIZE);
+        final Session session = mock(Session.class);
+        final PreparedStatement statement = mock(PreparedStatement.class);
+        when(session.prepare(any(RegularStatement.class))).thenReturn(statement);
+        when(statement.bind()).thenAnswer(invocation -> mock(BoundStatement.class, RETURNS_SELF));
+        when(session.executeAsync(any(Statement.class))).thenAnswer(invocation -> {
+            final PendingResultSet read = new PendingResultSet();
+            pendingReads.add(read);
+            return read;
+        });
+        final CQLStoreManager manager = mock(CQLStoreManager.class);
+        when(manager.getExecutorService()).thenReturn(executorService);
+        when(manager.getSession()).thenReturn(session);
+        when(manager.getKeyspaceName()).thenReturn("janusgraph");
+        when(manager.getMetaDataSchema(anyString())).thenReturn(new EntryMetaData[0]);
+        store = new CQLKeyColumnValueStore(manager, "edgestore", null, () -> {}, () -> false);
+        txh = mock(CQLTransaction.class);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    private static SliceQuery getQuery() {
+        return new SliceQuery(BufferUtil.zeroBuffer(1), BufferUtil.oneBuffer(4));
+    }
+
+    private static Row getRow(int column) {
+        final Row row = mock(Row.class);
+        when(row.getBytes(CQLKeyColumnValueStore.COLUMN_COLUMN_NAME)).thenReturn(ByteBuffer.wrap(new byte[]{(byte) column}));
+        when(row.getBytes(CQLKeyColumnValueStore.VALUE_COLUMN_NAME)).thenReturn(ByteBuffer.wrap(new byte[]{(byte) column}));
+        return row;
+    }
+
+    /**
+     * Returns a result set holding the given rows of which the first one is returned on the first page and the
+     * remaining ones are fetched asynchronously
+     */
+    private static ResultSet getResultSet(Row first, Row... more) {
+        final ResultSet resultSet = mock(ResultSet.class);
+        if (more.length > 0) {
+            final Row[] rest = new Row[more.length - 1];
+            System.arraycopy(more, 1, rest, 0, rest.length);
+            final ResultSet nextPage = getResultSet(more[0], rest);
+            when(resultSet.fetchMoreResults()).thenReturn(Futures.immediateFuture(nextPage));
+        }
+        when(resultSet.getAvailableWithoutFetching()).thenReturn(1);
+        when(resultSet.one()).thenReturn(first);
+        when(resultSet.isFullyFetched()).thenReturn(more.length == 0);
+        return resultSet;
+    }
+
+    /**
+     * Asserts that a task submitted to the executor of the store runs although all reads are still in flight
+     */
+    private void assertExecutorIsAvailable() throws Exception {
+        final CompletableFuture<Void> probe = new CompletableFuture<>();
+        for (int i = 0; i < POOL_SIZE; i++) {
+            executorService.submit(() -> probe.complete(null));
+        }
+        probe.get(10, TimeUnit.SECONDS);
+    }
+
+    private void awaitPendingReads(int numReads) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (pendingReads.size() < numReads && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        assertEquals(numReads, pendingReads.size());
+    }
+
+    @Test
+    public void testMultiKeySliceDoesNotBlockExecutor() throws Exception {
+        final List<StaticBuffer> keys = new ArrayList<>(NUM_READS);
+        for (int i = 0; i < NUM_READS; i++) keys.add(BufferUtil.getIntBuffer(i));
+        final CompletableFuture<Map<StaticBuffer, EntryList>> result = CompletableFuture.supplyAsync(() -> {
+            try {
+                return store.getSlice(keys, getQuery(), txh);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        awaitPendingReads(NUM_READS);
+        assertExecutorIsAvailable();
+        assertFalse(result.isDone());
+
+        for (PendingResultSet read : pendingReads) read.set(getResultSet(getRow(1), getRow(2), getRow(3)));
+        final Map<StaticBuffer, EntryList> slices = result.get(10, TimeUnit.SECONDS);
+        assertEquals(NUM_READS, slices.size());
+        for (StaticBuffer key : keys) assertEquals(3, slices.get(key).size());
+    }
+
+    @Test
+    public void testMultiKeySliceFailure() throws Exception {
+        final CompletableFuture<Map<StaticBuffer, EntryList>> result = CompletableFuture.supplyAsync(() -> {
+            try {
+                return store.getSlice(Arrays.asList(BufferUtil.getIntBuffer(1), BufferUtil.getIntBuffer(2)), getQuery(), txh);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        awaitPendingReads(2);
+        pendingReads.get(0).set(getResultSet(getRow(1)));
+        pendingReads.get(1).setException(new IllegalStateException("read failed"));
+        assertThrows(ExecutionException.class, () -> result.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testAsyncSlicesDoNotBlockExecutor() throws Exception {
+        final List<CompletableFuture<EntryList>> results = new ArrayList<>(NUM_READS);
+        for (int i = 0; i < NUM_READS; i++) {
+            results.add(store.getSliceAsync(new KeySliceQuery(BufferUtil.getIntBuffer(i), getQuery()), txh));
+        }
+        //More reads are in flight than the executor has threads
+        assertEquals(NUM_READS, pendingReads.size());
+        assertExecutorIsAvailable();
+        for (CompletableFuture<EntryList> result : results) assertFalse(result.isDone());
+
+        for (PendingResultSet read : pendingReads) read.set(getResultSet(getRow(1), getRow(2)));
+        for (CompletableFuture<EntryList> result : results) {
+            assertEquals(2, result.get(10, TimeUnit.SECONDS).size());
+        }
+    }
+
+    @Test
+    public void testAsyncSliceContinuationsRunOnExecutor() throws Exception {
+        final CompletableFuture<Thread> success = store.getSliceAsync(
+            new KeySliceQuery(BufferUtil.getIntBuffer(1), getQuery()), txh).thenApply(entries -> Thread.currentThread());
+        final CompletableFuture<Thread> failure = store.getSliceAsync(
+            new KeySliceQuery(BufferUtil.getIntBuffer(2), getQuery()), txh).handle((entries, e) -> Thread.currentThread());
+        //The test thread stands in for the driver I/O thread completing the reads
+        pendingReads.get(0).set(getResultSet(getRow(1)));
+        pendingReads.get(1).setException(new IllegalStateException("read failed"));
+        assertNotSame(Thread.currentThread(), success.get(10, TimeUnit.SECONDS));
+        assertNotSame(Thread.currentThread(), failure.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testAsyncSliceFailure() {
+        final CompletableFuture<EntryList> result = store.getSliceAsync(
+            new KeySliceQuery(BufferUtil.getIntBuffer(1), getQuery()), txh);
+        pendingReads.get(0).setException(new IllegalStateException("read failed"));
+        final ExecutionException failure = assertThrows(ExecutionException.class, () -> result.get(10, TimeUnit.SECONDS));
+        assertTrue(failure.getCause() instanceof TemporaryBackendException);
+    }
+
+    private static class PendingResultSet extends AbstractFuture<ResultSet> implements ResultSetFuture {
+
+        @Override
+        public boolean set(ResultSet resultSet) {
+            return super.set(resultSet);
+        }
+
+        @Override
+        public boolean setException(Throwable cause) {
+            return super.setException(cause);
+        }
+
+        @Override
+        public ResultSet getUninterruptibly() {
+            try {
+                return Uninterruptibles.getUninterruptibly(this);
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+        }
+
+        @Override
+        public ResultSet getUninterruptibly(long timeout, TimeUnit unit) throws TimeoutException {
+            try {
+                return Uninterruptibles.getUninterruptibly(this, timeout, unit);
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+        }
+    }
+}
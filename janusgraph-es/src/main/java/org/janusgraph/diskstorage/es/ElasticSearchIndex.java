@@ -112,6 +112,38 @@ public class ElasticSearchIndex implements IndexProvider {
             "Elasticsearch bulk API refresh setting used to control when changes made by this request are made " +
             "visible to search", ConfigOption.Type.MASKABLE, "false");
 
+    public static final ConfigOption<Integer> BULK_CHUNK_SIZE_LIMIT_BYTES =
+            new ConfigOption<>(ELASTICSEARCH_NS, "bulk-chunk-size-limit-bytes",
+            "The maximum size (in bytes) of a single bulk request sent to Elasticsearch. Larger batches of mutations " +
+            "are split into several bulk requests. A single mutation which exceeds this size is sent in a bulk request " +
+            "of its own. This should be at most the http.max_content_length setting of the Elasticsearch cluster.",
+            ConfigOption.Type.MASKABLE, 100_000_000, ConfigOption.positiveInt());
+
+    public static final ConfigOption<Integer> BULK_MAX_CONCURRENT_REQUESTS =
+            new ConfigOption<>(ELASTICSEARCH_NS, "bulk-max-concurrent-requests",
+            "The maximum number of bulk requests which are in flight concurrently for a single batch of mutations " +
+            "that has been split into several bulk requests. The mutations of a document are always sent in the " +
+            "same bulk request.", ConfigOption.Type.MASKABLE, 1, ConfigOption.positiveInt());
+
+    public static final ConfigOption<Long> BULK_TARGET_LATENCY =
+            new ConfigOption<>(ELASTICSEARCH_NS, "bulk-target-latency",
+            "If set, the size of bulk requests is adapted to the observed response times such that a bulk request " +
+            "takes about this long (in milliseconds) to complete. The size never exceeds " +
+            "bulk-chunk-size-limit-bytes. Bulk requests are sent with a fixed maximum size otherwise.",
+            ConfigOption.Type.MASKABLE, Long.class, ConfigOption.positiveLong());
+
+    public static final ConfigOption<Integer> BULK_RETRY_LIMIT =
+            new ConfigOption<>(ELASTICSEARCH_NS, "bulk-retry-limit",
+            "How many times a bulk request, or the items of a bulk request, rejected by Elasticsearch with status " +
+            "429 (Too Many Requests) are retried before the mutation fails.",
+            ConfigOption.Type.MASKABLE, 3, ConfigOption.nonnegativeInt());
+
+    public static final ConfigOption<Long> BULK_RETRY_INITIAL_WAIT =
+            new ConfigOption<>(ELASTICSEARCH_NS, "bulk-retry-initial-wait",
+            "How long (in milliseconds) to wait before the first retry of a rejected bulk request. " +
+            "The wait time doubles with every further retry.",
+            ConfigOption.Type.MASKABLE, 100L, ConfigOption.positiveLong());
+
     public static final ConfigNamespace ES_CREATE_NS =
             new ConfigNamespace(ELASTICSEARCH_NS, "create", "Settings related to index creation");
 
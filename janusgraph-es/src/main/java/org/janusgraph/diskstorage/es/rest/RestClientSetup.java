@@ -81,6 +81,14 @@ public class RestClientSetup {
         Integer retryOnConflict = config.has(ElasticSearchIndex.RETRY_ON_CONFLICT) ? config.get(ElasticSearchIndex.RETRY_ON_CONFLICT) : null;
         client.setRetryOnConflict(retryOnConflict);
 
+        client.setBulkChunkSizeLimitBytes(config.get(ElasticSearchIndex.BULK_CHUNK_SIZE_LIMIT_BYTES));
+        client.setBulkMaxConcurrentRequests(config.get(ElasticSearchIndex.BULK_MAX_CONCURRENT_REQUESTS));
+        if (config.has(ElasticSearchIndex.BULK_TARGET_LATENCY)) {
+            client.setBulkTargetLatency(config.get(ElasticSearchIndex.BULK_TARGET_LATENCY));
+        }
+        client.setBulkRetry(config.get(ElasticSearchIndex.BULK_RETRY_LIMIT),
+            config.get(ElasticSearchIndex.BULK_RETRY_INITIAL_WAIT));
+
         return client;
     }
 
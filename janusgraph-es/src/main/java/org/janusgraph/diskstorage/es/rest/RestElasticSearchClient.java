@@ -14,13 +14,16 @@
 
 package org.janusgraph.diskstorage.es.rest;
 
+import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import org.apache.http.HttpEntity;
 import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.ContentType;
 import org.apache.tinkerpop.shaded.jackson.annotation.JsonIgnoreProperties;
+import org.apache.tinkerpop.shaded.jackson.core.JsonGenerator;
 import org.apache.tinkerpop.shaded.jackson.core.JsonParseException;
 import org.apache.tinkerpop.shaded.jackson.core.type.TypeReference;
 import org.apache.tinkerpop.shaded.jackson.databind.JsonMappingException;
@@ -32,10 +35,12 @@ import org.apache.tinkerpop.shaded.jackson.databind.module.SimpleModule;
 import org.elasticsearch.client.Request;
 import org.elasticsearch.client.Response;
 import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.ResponseListener;
 import org.elasticsearch.client.RestClient;
 import org.janusgraph.core.attribute.Geoshape;
 import org.janusgraph.diskstorage.es.ElasticMajorVersion;
 import org.janusgraph.diskstorage.es.ElasticSearchClient;
+import org.janusgraph.diskstorage.es.ElasticSearchIndex;
 import org.janusgraph.diskstorage.es.ElasticSearchMutation;
 import org.janusgraph.diskstorage.es.mapping.IndexMapping;
 import org.janusgraph.diskstorage.es.mapping.TypedIndexMappings;
@@ -48,14 +53,24 @@ import org.slf4j.LoggerFactory;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
-import static org.janusgraph.util.encoding.StringEncoding.UTF8_CHARSET;
 
 public class RestElasticSearchClient implements ElasticSearchClient {
 
@@ -72,7 +87,17 @@ public class RestElasticSearchClient implements ElasticSearchClient {
 
     public static final String INCLUDE_TYPE_NAME_PARAMETER = "include_type_name";
 
-    private static final byte[] NEW_LINE_BYTES = "\n".getBytes(UTF8_CHARSET);
+    private static final char NEW_LINE = '\n';
+
+    private static final int INITIAL_BULK_BUFFER_BYTES = 64 * 1024;
+
+    private static final int MAX_POOLED_BULK_BUFFER_BYTES = 16 * 1024 * 1024;
+
+    private static final int MAX_POOLED_BULK_BUFFERS = 4;
+
+    private static final int MIN_ADAPTIVE_BULK_CHUNK_BYTES = 64 * 1024;
+
+    private static final int TOO_MANY_REQUESTS = 429;
 
     private static final Request INFO_REQUEST = new Request(REQUEST_TYPE_GET, REQUEST_SEPARATOR);
 
@@ -112,6 +137,23 @@ public class RestElasticSearchClient implements ElasticSearchClient {
 
     private final String retryOnConflictKey;
 
+    private int bulkChunkSizeLimitBytes = ElasticSearchIndex.BULK_CHUNK_SIZE_LIMIT_BYTES.getDefaultValue();
+
+    private volatile int adaptiveBulkChunkSize = bulkChunkSizeLimitBytes;
+
+    private int bulkMaxConcurrentRequests = ElasticSearchIndex.BULK_MAX_CONCURRENT_REQUESTS.getDefaultValue();
+
+    private long bulkTargetLatencyMillis = 0;
+
+    private int bulkRetryLimit = ElasticSearchIndex.BULK_RETRY_LIMIT.getDefaultValue();
+
+    private long bulkRetryInitialWaitMillis = ElasticSearchIndex.BULK_RETRY_INITIAL_WAIT.getDefaultValue();
+
+    private final Queue<BulkBuffer> bulkBufferPool = new ConcurrentLinkedQueue<>();
+
+    private final ScheduledExecutorService bulkRetryExecutor = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("elasticsearch-bulk-retry-%d").build());
+
     public RestElasticSearchClient(RestClient delegate, int scrollKeepAlive, boolean useMappingTypesForES7) {
         this.delegate = delegate;
         majorVersion = getMajorVersion();
@@ -123,6 +165,7 @@ public class RestElasticSearchClient implements ElasticSearchClient {
 
     @Override
     public void close() throws IOException {
+        bulkRetryExecutor.shutdownNow();
         delegate.close();
     }
 
@@ -359,32 +402,6 @@ public class RestElasticSearchClient implements ElasticSearchClient {
 
     @Override
     public void bulkRequest(List<ElasticSearchMutation> requests, String ingestPipeline) throws IOException {
-        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        for (final ElasticSearchMutation request : requests) {
-            Map<String, Object> requestData = new HashMap<>();
-            if (useMappingTypes) {
-                requestData.put("_index", request.getIndex());
-                requestData.put("_type", request.getType());
-                requestData.put("_id", request.getId());
-            } else {
-                requestData.put("_index", request.getIndex());
-                requestData.put("_id", request.getId());
-            }
-
-            if (retryOnConflict != null && request.getRequestType() == ElasticSearchMutation.RequestType.UPDATE) {
-                requestData.put(retryOnConflictKey, retryOnConflict);
-            }
-
-            outputStream.write(mapWriter.writeValueAsBytes(
-                ImmutableMap.of(request.getRequestType().name().toLowerCase(), requestData))
-            );
-            outputStream.write(NEW_LINE_BYTES);
-            if (request.getSource() != null) {
-                outputStream.write(mapWriter.writeValueAsBytes(request.getSource()));
-                outputStream.write(NEW_LINE_BYTES);
-            }
-        }
-
         final StringBuilder builder = new StringBuilder();
         if (ingestPipeline != null) {
             APPEND_OP.apply(builder).append("pipeline=").append(ingestPipeline);
@@ -394,20 +411,113 @@ public class RestElasticSearchClient implements ElasticSearchClient {
         }
         builder.insert(0, REQUEST_SEPARATOR + "_bulk");
 
-        final Response response = performRequest(REQUEST_TYPE_POST, builder.toString(), outputStream.toByteArray());
-        try (final InputStream inputStream = response.getEntity().getContent()) {
-            final RestBulkResponse bulkResponse = mapper.readValue(inputStream, RestBulkResponse.class);
-            final List<Object> errors = bulkResponse.getItems().stream()
-                .flatMap(item -> item.values().stream())
-                .filter(item -> item.getError() != null && item.getStatus() != 404)
-                .map(RestBulkItemResponse::getError).collect(Collectors.toList());
-            if (!errors.isEmpty()) {
-                errors.forEach(error -> log.error("Failed to execute ES query: {}", error));
-                throw new IOException("Failure(s) in Elasticsearch bulk request: " + errors);
-            }
+        final BulkDispatch dispatch = new BulkDispatch(builder.toString());
+        try {
+            dispatch.submit(requests);
+        } finally {
+            dispatch.arrive();
+        }
+        dispatch.await();
+    }
+
+    /**
+     * Writes the action line of the given mutation, followed by its source line if it has one, in the
+     * newline-delimited format of the bulk API.
+     */
+    private void writeBulkMutation(JsonGenerator generator, ElasticSearchMutation request) throws IOException {
+        generator.writeStartObject();
+        generator.writeObjectFieldStart(request.getRequestType().name().toLowerCase());
+        generator.writeStringField("_index", request.getIndex());
+        if (useMappingTypes) {
+            generator.writeStringField("_type", request.getType());
+        }
+        generator.writeStringField("_id", request.getId());
+        if (retryOnConflict != null && request.getRequestType() == ElasticSearchMutation.RequestType.UPDATE) {
+            generator.writeNumberField(retryOnConflictKey, retryOnConflict);
+        }
+        generator.writeEndObject();
+        generator.writeEndObject();
+        generator.writeRaw(NEW_LINE);
+        if (request.getSource() != null) {
+            mapWriter.writeValue(generator, request.getSource());
+            generator.writeRaw(NEW_LINE);
         }
     }
 
+    private static JsonGenerator createBulkGenerator(BulkBuffer buffer) throws IOException {
+        final JsonGenerator generator = mapper.getFactory().createGenerator(buffer);
+        generator.setRootValueSeparator(null);
+        return generator;
+    }
+
+    private static boolean isSameDocument(ElasticSearchMutation first, ElasticSearchMutation second) {
+        return first.getId().equals(second.getId()) && first.getIndex().equals(second.getIndex());
+    }
+
+    private BulkBuffer acquireBulkBuffer() {
+        final BulkBuffer buffer = bulkBufferPool.poll();
+        return buffer != null ? buffer : new BulkBuffer();
+    }
+
+    private void releaseBulkBuffer(BulkBuffer buffer) {
+        // Buffers which grew with an unusually large bulk are left to the garbage collector
+        if (buffer.capacity() <= MAX_POOLED_BULK_BUFFER_BYTES && bulkBufferPool.size() < MAX_POOLED_BULK_BUFFERS) {
+            buffer.reset();
+            bulkBufferPool.offer(buffer);
+        }
+    }
+
+    private int getBulkChunkSize() {
+        return bulkTargetLatencyMillis > 0 ? adaptiveBulkChunkSize : bulkChunkSizeLimitBytes;
+    }
+
+    /**
+     * Moves the adaptive bulk size towards the number of bytes which could have been sent within the target latency
+     * at the throughput observed for the given bulk request.
+     */
+    private void adaptBulkChunkSize(int length, long latencyMillis) {
+        if (bulkTargetLatencyMillis <= 0) return;
+        final long achievable = length * bulkTargetLatencyMillis / Math.max(latencyMillis, 1);
+        setAdaptiveBulkChunkSize((adaptiveBulkChunkSize + achievable) / 2);
+    }
+
+    private void setAdaptiveBulkChunkSize(long size) {
+        adaptiveBulkChunkSize = (int) Math.max(Math.min(size, bulkChunkSizeLimitBytes),
+            Math.min(MIN_ADAPTIVE_BULK_CHUNK_BYTES, bulkChunkSizeLimitBytes));
+    }
+
+    private static boolean isRejection(Exception e) {
+        return e instanceof ResponseException
+            && ((ResponseException) e).getResponse().getStatusLine().getStatusCode() == TOO_MANY_REQUESTS;
+    }
+
+    public void setBulkChunkSizeLimitBytes(int bulkChunkSizeLimitBytes) {
+        Preconditions.checkArgument(bulkChunkSizeLimitBytes > 0,
+            "Invalid bulk chunk size limit: %s", bulkChunkSizeLimitBytes);
+        this.bulkChunkSizeLimitBytes = bulkChunkSizeLimitBytes;
+        this.adaptiveBulkChunkSize = bulkChunkSizeLimitBytes;
+    }
+
+    public void setBulkMaxConcurrentRequests(int bulkMaxConcurrentRequests) {
+        Preconditions.checkArgument(bulkMaxConcurrentRequests > 0,
+            "Invalid number of concurrent bulk requests: %s", bulkMaxConcurrentRequests);
+        this.bulkMaxConcurrentRequests = bulkMaxConcurrentRequests;
+    }
+
+    public void setBulkTargetLatency(long bulkTargetLatencyMillis) {
+        Preconditions.checkArgument(bulkTargetLatencyMillis > 0,
+            "Invalid bulk target latency: %s", bulkTargetLatencyMillis);
+        this.bulkTargetLatencyMillis = bulkTargetLatencyMillis;
+    }
+
+    public void setBulkRetry(int bulkRetryLimit, long bulkRetryInitialWaitMillis) {
+        Preconditions.checkArgument(bulkRetryLimit >= 0, "Invalid bulk retry limit: %s", bulkRetryLimit);
+        Preconditions.checkArgument(bulkRetryInitialWaitMillis > 0,
+            "Invalid bulk retry wait time: %s", bulkRetryInitialWaitMillis);
+        this.bulkRetryLimit = bulkRetryLimit;
+        this.bulkRetryInitialWaitMillis = bulkRetryInitialWaitMillis;
+    }
+
     public void setRetryOnConflict(Integer retryOnConflict) {
             this.retryOnConflict = retryOnConflict;
     }
@@ -478,6 +588,11 @@ public class RestElasticSearchClient implements ElasticSearchClient {
 
         final HttpEntity entity = requestData != null ? new ByteArrayEntity(requestData, ContentType.APPLICATION_JSON) : null;
 
+        return performRequestWithEntity(request, entity);
+    }
+
+    private Response performRequestWithEntity(Request request, HttpEntity entity) throws IOException {
+
         request.setEntity(entity);
 
         final Response response = delegate.performRequest(request);
@@ -488,6 +603,265 @@ public class RestElasticSearchClient implements ElasticSearchClient {
         return response;
     }
 
+    /**
+     * A batch of mutations sent with a single bulk request, together with the buffer holding the encoded request.
+     */
+    private static final class BulkChunk {
+
+        private BulkBuffer buffer;
+        private List<ElasticSearchMutation> mutations;
+        private int attempt = 0;
+        private long sentAt;
+
+        private BulkChunk(BulkBuffer buffer, List<ElasticSearchMutation> mutations) {
+            this.buffer = buffer;
+            this.mutations = mutations;
+        }
+    }
+
+    /**
+     * Sends the bulk requests for one call of {@link #bulkRequest(List, String)} asynchronously, keeping at most
+     * the configured number of them in flight, and collects their results. Chunks or items of chunks which are
+     * rejected with status 429 are retried with exponential back-off while holding on to their permit, which also
+     * slows down the submission of further chunks. A rejected item is retried together with all later items of the
+     * same document so that the mutations of a document are applied in order.
+     */
+    private final class BulkDispatch {
+
+        private final String path;
+        private final Semaphore inFlight = new Semaphore(bulkMaxConcurrentRequests);
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+        private final Queue<Object> errors = new ConcurrentLinkedQueue<>();
+        private volatile Throwable failure;
+
+        private BulkDispatch(String path) {
+            this.path = path;
+        }
+
+        private boolean hasFailed() {
+            return failure != null || !errors.isEmpty();
+        }
+
+        /**
+         * Encodes the given mutations into chunks of at most the current bulk size and sends each chunk as soon as
+         * it is complete. Chunks are only cut between documents so that the mutations of a document are applied
+         * in order.
+         */
+        private void submit(List<ElasticSearchMutation> requests) throws IOException {
+            BulkBuffer buffer = acquireBulkBuffer();
+            JsonGenerator generator = createBulkGenerator(buffer);
+            int chunkStart = 0, documentStart = 0, documentOffset = 0;
+            try {
+                for (int i = 0; i < requests.size() && !hasFailed(); i++) {
+                    if (i > 0 && !isSameDocument(requests.get(i - 1), requests.get(i))) {
+                        documentStart = i;
+                        documentOffset = buffer.size();
+                    }
+                    writeBulkMutation(generator, requests.get(i));
+                    generator.flush();
+                    if (buffer.size() > getBulkChunkSize() && documentOffset > 0) {
+                        // move the current document to a new buffer and send everything written before it
+                        final BulkBuffer next = acquireBulkBuffer();
+                        next.write(buffer.array(), documentOffset, buffer.size() - documentOffset);
+                        buffer.truncate(documentOffset);
+                        final BulkChunk chunk = new BulkChunk(buffer, requests.subList(chunkStart, documentStart));
+                        generator.close();
+                        buffer = next;
+                        generator = createBulkGenerator(next);
+                        chunkStart = documentStart;
+                        documentOffset = 0;
+                        send(chunk);
+                    }
+                }
+                generator.close();
+                if (buffer.size() > 0 && !hasFailed()) {
+                    final BulkChunk chunk = new BulkChunk(buffer, requests.subList(chunkStart, requests.size()));
+                    buffer = null;
+                    send(chunk);
+                }
+            } finally {
+                if (buffer != null) releaseBulkBuffer(buffer);
+            }
+        }
+
+        private void send(BulkChunk chunk) throws IOException {
+            try {
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                releaseBulkBuffer(chunk.buffer);
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to send a bulk request");
+            }
+            pending.incrementAndGet();
+            if (chunk.buffer.size() > bulkChunkSizeLimitBytes) {
+                log.warn("Bulk request of {} bytes exceeds the bulk chunk size limit of {} bytes",
+                    chunk.buffer.size(), bulkChunkSizeLimitBytes);
+            }
+            perform(chunk);
+        }
+
+        private void perform(BulkChunk chunk) {
+            final Request request = new Request(REQUEST_TYPE_POST, path);
+            request.setEntity(chunk.buffer.toEntity());
+            chunk.sentAt = System.nanoTime();
+            delegate.performRequestAsync(request, new ResponseListener() {
+                @Override
+                public void onSuccess(Response response) {
+                    handleResponse(chunk, response);
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    if (isRejection(e)) {
+                        retry(chunk, chunk.mutations);
+                    } else {
+                        failure = e;
+                        complete(chunk);
+                    }
+                }
+            });
+        }
+
+        private void handleResponse(BulkChunk chunk, Response response) {
+            final List<ElasticSearchMutation> rejected = new ArrayList<>();
+            try (final InputStream inputStream = response.getEntity().getContent()) {
+                adaptBulkChunkSize(chunk.buffer.size(), (System.nanoTime() - chunk.sentAt) / 1_000_000);
+                final RestBulkResponse bulkResponse = mapper.readValue(inputStream, RestBulkResponse.class);
+                final List<Map<String, RestBulkItemResponse>> items = bulkResponse.getItems();
+                // Once a mutation of a document has been rejected, all later mutations of that document in the
+                // chunk are sent again as well, since they must not be applied before the rejected one
+                boolean documentRejected = false;
+                for (int i = 0; i < items.size(); i++) {
+                    final boolean known = i < chunk.mutations.size();
+                    if (known && i > 0 && !isSameDocument(chunk.mutations.get(i - 1), chunk.mutations.get(i))) {
+                        documentRejected = false;
+                    }
+                    for (final RestBulkItemResponse item : items.get(i).values()) {
+                        if (known && item.getStatus() == TOO_MANY_REQUESTS) {
+                            documentRejected = true;
+                        }
+                        if (known && documentRejected) {
+                            rejected.add(chunk.mutations.get(i));
+                        } else if (item.getError() != null && item.getStatus() != 404) {
+                            errors.add(item.getError());
+                        }
+                    }
+                }
+            } catch (final Throwable e) {
+                failure = e;
+            }
+            if (rejected.isEmpty()) {
+                complete(chunk);
+            } else {
+                retry(chunk, rejected);
+            }
+        }
+
+        /**
+         * Schedules the given mutations of the chunk to be sent again, or fails the chunk if it has been retried
+         * too often. The callbacks of the HTTP client must not block, hence the rejected mutations are re-encoded
+         * on the retry thread.
+         */
+        private void retry(BulkChunk chunk, List<ElasticSearchMutation> mutations) {
+            if (chunk.attempt >= bulkRetryLimit) {
+                failure = new IOException("Elasticsearch bulk request rejected after " + (chunk.attempt + 1)
+                    + " attempt(s) with status " + TOO_MANY_REQUESTS);
+                complete(chunk);
+                return;
+            }
+            if (bulkTargetLatencyMillis > 0) {
+                setAdaptiveBulkChunkSize(adaptiveBulkChunkSize / 2);
+            }
+            final long wait = bulkRetryInitialWaitMillis << Math.min(chunk.attempt, 20);
+            log.debug("Elasticsearch rejected {} bulk mutation(s), retrying in {} ms", mutations.size(), wait);
+            chunk.attempt++;
+            try {
+                bulkRetryExecutor.schedule(() -> {
+                    try {
+                        if (mutations != chunk.mutations) {
+                            chunk.buffer.reset();
+                            try (final JsonGenerator generator = createBulkGenerator(chunk.buffer)) {
+                                for (final ElasticSearchMutation mutation : mutations) {
+                                    writeBulkMutation(generator, mutation);
+                                }
+                            }
+                            chunk.mutations = mutations;
+                        }
+                        perform(chunk);
+                    } catch (final Throwable e) {
+                        failure = e;
+                        complete(chunk);
+                    }
+                }, wait, TimeUnit.MILLISECONDS);
+            } catch (final RejectedExecutionException e) {
+                failure = e;
+                complete(chunk);
+            }
+        }
+
+        private void complete(BulkChunk chunk) {
+            releaseBulkBuffer(chunk.buffer);
+            inFlight.release();
+            arrive();
+        }
+
+        /**
+         * Called once for every chunk that has been completed and once after all chunks have been submitted.
+         */
+        private void arrive() {
+            if (pending.decrementAndGet() == 0) {
+                completion.complete(null);
+            }
+        }
+
+        private void await() throws IOException {
+            try {
+                completion.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for bulk requests to complete");
+            } catch (final ExecutionException e) {
+                throw new IOException(e.getCause());
+            }
+            if (!errors.isEmpty()) {
+                errors.forEach(error -> log.error("Failed to execute ES query: {}", error));
+                throw new IOException("Failure(s) in Elasticsearch bulk request: " + errors);
+            }
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            } else if (failure != null) {
+                throw new IOException(failure);
+            }
+        }
+    }
+
+    /**
+     * Reusable buffer for the body of bulk requests whose content is handed to the HTTP client without copying it.
+     */
+    private static final class BulkBuffer extends ByteArrayOutputStream {
+
+        private BulkBuffer() {
+            super(INITIAL_BULK_BUFFER_BYTES);
+        }
+
+        private int capacity() {
+            return buf.length;
+        }
+
+        private byte[] array() {
+            return buf;
+        }
+
+        private HttpEntity toEntity() {
+            return new ByteArrayEntity(buf, 0, count, ContentType.APPLICATION_JSON);
+        }
+
+        private void truncate(int length) {
+            count = length;
+        }
+    }
+
     @JsonIgnoreProperties(ignoreUnknown=true)
     private static final class ClusterInfo {
 
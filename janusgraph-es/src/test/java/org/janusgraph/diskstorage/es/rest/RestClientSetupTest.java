@@ -78,6 +78,12 @@ public class RestClientSetupTest {
 
     private static final Integer RETRY_ON_CONFLICT = ElasticSearchIndex.RETRY_ON_CONFLICT.getDefaultValue();
 
+    private static final int ES_BULK_CHUNK_SIZE_LIMIT =
+            ElasticSearchIndex.BULK_CHUNK_SIZE_LIMIT_BYTES.getDefaultValue() / 2;
+    private static final int ES_BULK_MAX_CONCURRENT_REQUESTS =
+            ElasticSearchIndex.BULK_MAX_CONCURRENT_REQUESTS.getDefaultValue() + 3;
+    private static final long ES_BULK_TARGET_LATENCY = 500L;
+
     private static final AtomicInteger instanceCount = new AtomicInteger();
 
     @Captor
@@ -156,6 +162,7 @@ public class RestClientSetupTest {
                 scrollKACaptor.getValue().intValue());
 
         verify(restElasticSearchClientMock, never()).setBulkRefresh(anyString());
+        verify(restElasticSearchClientMock, never()).setBulkTargetLatency(anyLong());
     }
 
     @Test
@@ -193,6 +200,9 @@ public class RestClientSetupTest {
                 put("index." + INDEX_NAME + ".elasticsearch.scroll-keep-alive", String.valueOf(ES_SCROLL_KA)).
                 put("index." + INDEX_NAME + ".elasticsearch.bulk-refresh", ES_BULK_REFRESH).
                 put("index." + INDEX_NAME + ".elasticsearch.retry_on_conflict", String.valueOf(RETRY_ON_CONFLICT)).
+                put("index." + INDEX_NAME + ".elasticsearch.bulk-chunk-size-limit-bytes", String.valueOf(ES_BULK_CHUNK_SIZE_LIMIT)).
+                put("index." + INDEX_NAME + ".elasticsearch.bulk-max-concurrent-requests", String.valueOf(ES_BULK_MAX_CONCURRENT_REQUESTS)).
+                put("index." + INDEX_NAME + ".elasticsearch.bulk-target-latency", String.valueOf(ES_BULK_TARGET_LATENCY)).
                 build());
 
         assertNotNull(hostsConfigured);
@@ -209,6 +219,11 @@ public class RestClientSetupTest {
 
         verify(restElasticSearchClientMock).setBulkRefresh(eq(ES_BULK_REFRESH));
         verify(restElasticSearchClientMock).setRetryOnConflict(eq(RETRY_ON_CONFLICT));
+        verify(restElasticSearchClientMock).setBulkChunkSizeLimitBytes(eq(ES_BULK_CHUNK_SIZE_LIMIT));
+        verify(restElasticSearchClientMock).setBulkMaxConcurrentRequests(eq(ES_BULK_MAX_CONCURRENT_REQUESTS));
+        verify(restElasticSearchClientMock).setBulkTargetLatency(eq(ES_BULK_TARGET_LATENCY));
+        verify(restElasticSearchClientMock).setBulkRetry(eq(ElasticSearchIndex.BULK_RETRY_LIMIT.getDefaultValue()),
+                eq(ElasticSearchIndex.BULK_RETRY_INITIAL_WAIT.getDefaultValue()));
 
     }
 
@@ -0,0 +1,347 @@
+// Copyright 2020 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.janusgraph.diskstorage.es.rest;
+
+import com.google.common.collect.ImmutableMap;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpHost;
+import org.apache.tinkerpop.shaded.jackson.databind.ObjectMapper;
+import org.elasticsearch.client.RestClient;
+import org.janusgraph.diskstorage.es.ElasticSearchMutation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the encoding of bulk requests against a stub HTTP server which records the bulk request bodies.
+ */
+public class RestElasticSearchClientTest {
+
+    private static final String INDEX_NAME = "janusgraph_test";
+    private static final String STORE_NAME = "test";
+
+    private static final String BULK_SUCCESS = "{\"errors\":false,\"items\":[]}";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final List<String> bulkBodies = Collections.synchronizedList(new ArrayList<>());
+    private volatile BulkResponder bulkResponder = body -> new StubResponse(200, BULK_SUCCESS);
+
+    private final ExecutorService serverExecutor = Executors.newCachedThreadPool();
+
+    private HttpServer server;
+    private RestElasticSearchClient client;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> respond(exchange, "{\"version\":{\"number\":\"7.6.2\"}}"));
+        server.createContext("/_bulk", exchange -> {
+            final String body = IOUtils.toString(exchange.getRequestBody(), StandardCharsets.UTF_8);
+            bulkBodies.add(body);
+            final StubResponse response;
+            try {
+                response = bulkResponder.respond(body);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            respond(exchange, response.status, response.body);
+        });
+        server.setExecutor(serverExecutor);
+        server.start();
+        final RestClient restClient = RestClient.builder(new HttpHost("localhost", server.getAddress().getPort())).build();
+        client = new RestElasticSearchClient(restClient, 60, false);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        client.close();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        respond(exchange, 200, body);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (final OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static ElasticSearchMutation indexRequest(int id, String value) {
+        return ElasticSearchMutation.createIndexRequest(INDEX_NAME, STORE_NAME, "doc" + id,
+            ImmutableMap.of("name", value, "age", id));
+    }
+
+    private List<Map> parseLines(String body) throws IOException {
+        assertTrue(body.endsWith("\n"));
+        final List<Map> lines = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            lines.add(mapper.readValue(line, Map.class));
+        }
+        return lines;
+    }
+
+    @Test
+    public void testBulkRequestEncoding() throws IOException {
+        client.setRetryOnConflict(3);
+        client.bulkRequest(Arrays.asList(
+            indexRequest(1, "a\"b\nc"),
+            ElasticSearchMutation.createDeleteRequest(INDEX_NAME, STORE_NAME, "doc2"),
+            ElasticSearchMutation.createUpdateRequest(INDEX_NAME, STORE_NAME, "doc3",
+                ImmutableMap.of("doc", ImmutableMap.of("name", "d")))), null);
+
+        assertEquals(1, bulkBodies.size());
+        final List<Map> lines = parseLines(bulkBodies.get(0));
+        assertEquals(Arrays.asList(
+            ImmutableMap.of("index", ImmutableMap.of("_index", INDEX_NAME, "_id", "doc1")),
+            ImmutableMap.of("name", "a\"b\nc", "age", 1),
+            ImmutableMap.of("delete", ImmutableMap.of("_index", INDEX_NAME, "_id", "doc2")),
+            ImmutableMap.of("update", ImmutableMap.of("_index", INDEX_NAME, "_id", "doc3", "retry_on_conflict", 3)),
+            ImmutableMap.of("doc", ImmutableMap.of("name", "d"))), lines);
+    }
+
+    @Test
+    public void testBulkRequestIsSplitByByteSize() throws IOException {
+        final int limit = 400;
+        client.setBulkChunkSizeLimitBytes(limit);
+        final List<ElasticSearchMutation> requests = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            requests.add(indexRequest(i, "value" + i));
+        }
+        client.bulkRequest(requests, null);
+
+        assertTrue(bulkBodies.size() > 1);
+        final List<Map> lines = new ArrayList<>();
+        for (String body : bulkBodies) {
+            assertTrue(body.getBytes(StandardCharsets.UTF_8).length <= limit);
+            lines.addAll(parseLines(body));
+        }
+        assertEquals(2 * requests.size(), lines.size());
+        for (int i = 0; i < requests.size(); i++) {
+            assertEquals(ImmutableMap.of("index", ImmutableMap.of("_index", INDEX_NAME, "_id", "doc" + i)), lines.get(2 * i));
+            assertEquals(ImmutableMap.of("name", "value" + i, "age", i), lines.get(2 * i + 1));
+        }
+
+        // The buffer is reused for the next bulk request
+        bulkBodies.clear();
+        client.bulkRequest(requests.subList(0, 1), null);
+        assertEquals(1, bulkBodies.size());
+        assertEquals(2, parseLines(bulkBodies.get(0)).size());
+    }
+
+    @Test
+    public void testOversizedMutationIsSentOnItsOwn() throws IOException {
+        client.setBulkChunkSizeLimitBytes(100);
+        final char[] large = new char[500];
+        Arrays.fill(large, 'x');
+        client.bulkRequest(Arrays.asList(indexRequest(1, "a"), indexRequest(2, new String(large)),
+            indexRequest(3, "c")), null);
+
+        assertEquals(3, bulkBodies.size());
+        for (int i = 0; i < 3; i++) {
+            final List<Map> lines = parseLines(bulkBodies.get(i));
+            assertEquals(2, lines.size());
+            assertEquals(ImmutableMap.of("index", ImmutableMap.of("_index", INDEX_NAME, "_id", "doc" + (i + 1))),
+                lines.get(0));
+        }
+    }
+
+    @Test
+    public void testBulkRequestFailure() {
+        bulkResponder = body -> new StubResponse(200, "{\"errors\":true,\"items\":[{\"index\":{\"status\":400," +
+            "\"error\":{\"type\":\"mapper_parsing_exception\"}}}]}");
+        assertThrows(IOException.class, () -> client.bulkRequest(Collections.singletonList(indexRequest(1, "a")), null));
+    }
+
+    @Test
+    public void testMutationsOfADocumentAreNotSplit() throws IOException {
+        client.setBulkChunkSizeLimitBytes(100);
+        final List<ElasticSearchMutation> requests = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            requests.add(ElasticSearchMutation.createDeleteRequest(INDEX_NAME, STORE_NAME, "doc" + i));
+            requests.add(indexRequest(i, "value" + i));
+        }
+        client.bulkRequest(requests, null);
+
+        assertEquals(10, bulkBodies.size());
+        for (int i = 0; i < 10; i++) {
+            final List<Map> lines = parseLines(bulkBodies.get(i));
+            assertEquals(3, lines.size());
+            assertEquals(ImmutableMap.of("delete", ImmutableMap.of("_index", INDEX_NAME, "_id", "doc" + i)), lines.get(0));
+            assertEquals(ImmutableMap.of("index", ImmutableMap.of("_index", INDEX_NAME, "_id", "doc" + i)), lines.get(1));
+        }
+    }
+
+    @Test
+    public void testConcurrentBulkRequests() throws IOException {
+        final int maxConcurrentRequests = 3;
+        client.setBulkChunkSizeLimitBytes(100);
+        client.setBulkMaxConcurrentRequests(maxConcurrentRequests);
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final CountDownLatch concurrent = new CountDownLatch(maxConcurrentRequests);
+        bulkResponder = body -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            concurrent.countDown();
+            // Hold the first requests until the maximum number of requests is in flight
+            concurrent.await(10, TimeUnit.SECONDS);
+            inFlight.decrementAndGet();
+            return new StubResponse(200, BULK_SUCCESS);
+        };
+        final List<ElasticSearchMutation> requests = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            requests.add(indexRequest(i, "value" + i));
+        }
+        client.bulkRequest(requests, null);
+
+        assertEquals(20, bulkBodies.size());
+        assertEquals(maxConcurrentRequests, maxInFlight.get());
+    }
+
+    @Test
+    public void testRejectedBulkRequestIsRetried() throws IOException {
+        client.setBulkRetry(2, 10);
+        final AtomicInteger attempts = new AtomicInteger();
+        bulkResponder = body -> attempts.incrementAndGet() < 3
+            ? new StubResponse(429, "{\"error\":\"es_rejected_execution_exception\"}")
+            : new StubResponse(200, BULK_SUCCESS);
+        client.bulkRequest(Collections.singletonList(indexRequest(1, "a")), null);
+
+        assertEquals(3, bulkBodies.size());
+        assertEquals(bulkBodies.get(0), bulkBodies.get(2));
+    }
+
+    @Test
+    public void testRejectedBulkRequestFailsAfterRetryLimit() {
+        client.setBulkRetry(1, 10);
+        bulkResponder = body -> new StubResponse(429, "{\"error\":\"es_rejected_execution_exception\"}");
+        assertThrows(IOException.class, () -> client.bulkRequest(Collections.singletonList(indexRequest(1, "a")), null));
+        assertEquals(2, bulkBodies.size());
+    }
+
+    @Test
+    public void testRejectedBulkItemsAreRetried() throws IOException {
+        client.setBulkRetry(1, 10);
+        final AtomicInteger attempts = new AtomicInteger();
+        bulkResponder = body -> new StubResponse(200, attempts.incrementAndGet() == 1
+            ? "{\"errors\":true,\"items\":[{\"index\":{\"status\":201}}," +
+                "{\"index\":{\"status\":429,\"error\":{\"type\":\"es_rejected_execution_exception\"}}}," +
+                "{\"index\":{\"status\":201}}]}"
+            : BULK_SUCCESS);
+        client.bulkRequest(Arrays.asList(indexRequest(1, "a"), indexRequest(2, "b"), indexRequest(3, "c")), null);
+
+        assertEquals(2, bulkBodies.size());
+        assertEquals(6, parseLines(bulkBodies.get(0)).size());
+        final List<Map> retried = parseLines(bulkBodies.get(1));
+        assertEquals(Arrays.asList(ImmutableMap.of("index", ImmutableMap.of("_index", INDEX_NAME, "_id", "doc2")),
+            ImmutableMap.of("name", "b", "age", 2)), retried);
+    }
+
+    @Test
+    public void testRejectedBulkItemIsRetriedWithLaterMutationsOfItsDocument() throws IOException {
+        client.setBulkRetry(1, 10);
+        final AtomicInteger attempts = new AtomicInteger();
+        bulkResponder = body -> new StubResponse(200, attempts.incrementAndGet() == 1
+            ? "{\"errors\":true,\"items\":[" +
+                "{\"update\":{\"status\":429,\"error\":{\"type\":\"es_rejected_execution_exception\"}}}," +
+                "{\"update\":{\"status\":200}}," +
+                "{\"index\":{\"status\":201}}]}"
+            : BULK_SUCCESS);
+        // The first mutation of doc1 removes the old value, the second one sets the new value
+        client.bulkRequest(Arrays.asList(
+            ElasticSearchMutation.createUpdateRequest(INDEX_NAME, STORE_NAME, "doc1",
+                ImmutableMap.of("script", ImmutableMap.of("source", "ctx._source.remove(\"name\")"))),
+            ElasticSearchMutation.createUpdateRequest(INDEX_NAME, STORE_NAME, "doc1",
+                ImmutableMap.of("doc", ImmutableMap.of("name", "b"))),
+            indexRequest(2, "c")), null);
+
+        assertEquals(2, bulkBodies.size());
+        assertEquals(6, parseLines(bulkBodies.get(0)).size());
+        // The accepted update of doc1 must not be overwritten by the retried removal, hence both are sent in order
+        assertEquals(Arrays.asList(
+            ImmutableMap.of("update", ImmutableMap.of("_index", INDEX_NAME, "_id", "doc1")),
+            ImmutableMap.of("script", ImmutableMap.of("source", "ctx._source.remove(\"name\")")),
+            ImmutableMap.of("update", ImmutableMap.of("_index", INDEX_NAME, "_id", "doc1")),
+            ImmutableMap.of("doc", ImmutableMap.of("name", "b"))), parseLines(bulkBodies.get(1)));
+    }
+
+    @Test
+    public void testBulkSizeAdaptsToLatency() throws IOException {
+        final int limit = 200 * 1024;
+        client.setBulkChunkSizeLimitBytes(limit);
+        client.setBulkTargetLatency(1);
+        bulkResponder = body -> {
+            Thread.sleep(20);
+            return new StubResponse(200, BULK_SUCCESS);
+        };
+        final List<ElasticSearchMutation> requests = new ArrayList<>();
+        for (int i = 0; i < 8000; i++) {
+            requests.add(indexRequest(i, "value" + i));
+        }
+        client.bulkRequest(requests, null);
+
+        assertTrue(bulkBodies.size() > 4);
+        assertTrue(bulkBodies.get(0).length() > limit * 0.9);
+        // Responses take far longer than the target latency, hence the bulk size shrinks with every response.
+        // The second bulk request is encoded while the first one is still in flight.
+        assertTrue(bulkBodies.get(2).length() < limit * 0.6);
+        for (String body : bulkBodies.subList(3, bulkBodies.size())) {
+            assertTrue(body.length() < limit * 0.4);
+        }
+    }
+
+    private interface BulkResponder {
+        StubResponse respond(String body) throws InterruptedException;
+    }
+
+    private static class StubResponse {
+
+        private final int status;
+        private final String body;
+
+        private StubResponse(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
@@ -99,6 +99,9 @@ public class InMemoryGraphTest extends JanusGraphTest {
     @Override @Test @Disabled
     public void testIndexUpdateSyncWithMultipleInstances() {}
 
+    @Override @Test @Disabled
+    public void testCacheInvalidationWithMultipleInstances() {}
+
     @Override @Test @Disabled
     public void testClearStorage() {}
 
@@ -22,15 +22,17 @@ import org.janusgraph.core.attribute.Geoshape;
 import org.janusgraph.core.attribute.Text;
 import org.janusgraph.core.schema.Mapping;
 import org.janusgraph.diskstorage.*;
+import org.janusgraph.diskstorage.configuration.ConfigNamespace;
+import org.janusgraph.diskstorage.configuration.ConfigOption;
 import org.janusgraph.diskstorage.configuration.Configuration;
 import org.janusgraph.diskstorage.indexing.*;
 import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
+import org.janusgraph.graphdb.configuration.PreInitializeConfigOptions;
 import org.janusgraph.graphdb.database.serialize.AttributeUtils;
 import org.janusgraph.graphdb.internal.Order;
 import org.janusgraph.graphdb.query.JanusGraphPredicate;
 import org.janusgraph.graphdb.query.condition.*;
 import org.janusgraph.graphdb.types.ParameterType;
-import org.janusgraph.util.system.IOUtils;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Iterators;
@@ -68,22 +70,40 @@ import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration.INDEX_NS;
+
 /**
  * @author Matthias Broecheler (me@matthiasb.com)
  */
 
+@PreInitializeConfigOptions
 public class LuceneIndex implements IndexProvider {
     private static final Logger log = LoggerFactory.getLogger(LuceneIndex.class);
 
+    public static final ConfigNamespace LUCENE_NS =
+            new ConfigNamespace(INDEX_NS, "lucene", "Lucene index configuration");
+
+    public static final ConfigOption<Duration> COMMIT_INTERVAL =
+            new ConfigOption<>(LUCENE_NS, "commit-interval",
+            "Interval at which changes to the Lucene index are committed to disk. Changes are visible to queries " +
+            "as soon as the transaction that made them has been persisted, but changes which have not been committed " +
+            "yet are lost if the JVM crashes. If set to zero, the changes of every transaction are committed before " +
+            "the transaction returns, while concurrent transactions share a single commit.",
+            ConfigOption.Type.MASKABLE, Duration.ZERO);
+
     static final String DOCID = "_____elementid";
     private static final String STRING_SUFFIX = "_____s";
     private static final String GEOID = "_____geo";
@@ -114,7 +134,9 @@ public class LuceneIndex implements IndexProvider {
     private static final Map<Geo, SpatialOperation> SPATIAL_PREDICATES = spatialPredicates();
 
     private final Map<String, IndexWriter> writers = new HashMap<>(4);
+    private final Map<String, SearcherManager> searcherManagers = new ConcurrentHashMap<>(4);
     private final ReentrantLock writerLock = new ReentrantLock();
+    private final ScheduledExecutorService commitExecutor;
 
     private final Map<String, SpatialStrategy> spatial = new ConcurrentHashMap<>(12);
     private final SpatialContext ctx = Geoshape.getSpatialContext();
@@ -134,6 +156,20 @@ public class LuceneIndex implements IndexProvider {
         }
         basePath = directory.getAbsolutePath();
         log.debug("Configured Lucene to use base directory [{}]", basePath);
+
+        final Duration commitInterval = config.get(COMMIT_INTERVAL);
+        Preconditions.checkArgument(!commitInterval.isNegative(), "Invalid commit interval: %s", commitInterval);
+        if (commitInterval.isZero()) {
+            commitExecutor = null;
+        } else {
+            commitExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                final Thread thread = new Thread(r, "LuceneIndex-commit-" + basePath);
+                thread.setDaemon(true);
+                return thread;
+            });
+            commitExecutor.scheduleWithFixedDelay(this::commitWriters, commitInterval.toMillis(),
+                commitInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
     }
 
     private Directory getStoreDirectory(String store) throws BackendException {
@@ -160,6 +196,7 @@ public class LuceneIndex implements IndexProvider {
             iwc.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
             try {
                 writer = new IndexWriter(getStoreDirectory(store), iwc);
+                searcherManagers.put(store, new SearcherManager(writer, true, true, null));
                 writers.put(store, writer);
             } catch (final IOException e) {
                 throw new PermanentBackendException("Could not create writer", e);
@@ -168,6 +205,55 @@ public class LuceneIndex implements IndexProvider {
         return writer;
     }
 
+    /**
+     * Returns the {@link SearcherManager} that provides near real-time searchers over the given store, or null if
+     * no index has been written to the store yet.
+     */
+    private SearcherManager getSearcherManager(String store, KeyInformation.IndexRetriever informations) throws BackendException {
+        SearcherManager manager = searcherManagers.get(store);
+        if (manager != null) return manager;
+        writerLock.lock();
+        try {
+            if (!writers.containsKey(store)) {
+                try (final Directory directory = getStoreDirectory(store)) {
+                    if (!DirectoryReader.indexExists(directory)) return null;
+                } catch (final IOException e) {
+                    throw new PermanentBackendException("Could not open index reader on store: " + store, e);
+                }
+                getWriter(store, informations);
+            }
+            return searcherManagers.get(store);
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    /**
+     * Commits the given writers to disk. Since {@link IndexWriter#commit()} waits for any commit in progress and does
+     * not write anything if there are no uncommitted changes, the changes of concurrent transactions are made durable
+     * by a single commit.
+     */
+    private void commit(Collection<IndexWriter> toCommit) throws IOException {
+        for (final IndexWriter writer : toCommit) {
+            if (writer.isOpen() && writer.hasUncommittedChanges()) writer.commit();
+        }
+    }
+
+    private void commitWriters() {
+        final List<IndexWriter> toCommit;
+        writerLock.lock();
+        try {
+            toCommit = new ArrayList<>(writers.values());
+        } finally {
+            writerLock.unlock();
+        }
+        try {
+            commit(toCommit);
+        } catch (final IOException | RuntimeException e) {
+            log.error("Could not commit Lucene index in " + basePath, e);
+        }
+    }
+
     private SpatialStrategy getSpatialStrategy(String key, KeyInformation ki) {
         SpatialStrategy strategy = spatial.get(key);
         final Mapping mapping = Mapping.getMapping(ki);
@@ -215,10 +301,11 @@ public class LuceneIndex implements IndexProvider {
     @Override
     public void mutate(Map<String, Map<String, IndexMutation>> mutations, KeyInformation.IndexRetriever information, BaseTransaction tx) throws BackendException {
         final Transaction ltx = (Transaction) tx;
+        final List<IndexWriter> updated = new ArrayList<>(mutations.size());
         writerLock.lock();
         try {
             for (final Map.Entry<String, Map<String, IndexMutation>> stores : mutations.entrySet()) {
-                mutateStores(stores, information);
+                updated.add(mutateStores(stores, information));
             }
             ltx.postCommit();
         } catch (final IOException e) {
@@ -226,15 +313,24 @@ public class LuceneIndex implements IndexProvider {
         } finally {
             writerLock.unlock();
         }
+        commitIfSynchronous(updated);
     }
 
-    private void mutateStores(Map.Entry<String, Map<String, IndexMutation>> stores, KeyInformation.IndexRetriever information) throws IOException, BackendException {
-        IndexReader reader = null;
+    private void commitIfSynchronous(List<IndexWriter> updated) throws BackendException {
+        if (commitExecutor != null) return;
+        try {
+            commit(updated);
+        } catch (final IOException e) {
+            throw new TemporaryBackendException("Could not commit Lucene index", e);
+        }
+    }
+
+    private IndexWriter mutateStores(Map.Entry<String, Map<String, IndexMutation>> stores, KeyInformation.IndexRetriever information) throws IOException, BackendException {
+        final String storeName = stores.getKey();
+        final IndexWriter writer = getWriter(storeName, information);
+        final SearcherManager manager = searcherManagers.get(storeName);
+        final IndexSearcher searcher = manager.acquire();
         try {
-            final String storeName = stores.getKey();
-            final IndexWriter writer = getWriter(storeName, information);
-            reader = DirectoryReader.open(writer, true, true);
-            final IndexSearcher searcher = new IndexSearcher(reader);
             final KeyInformation.StoreRetriever storeRetriever = information.get(storeName);
             for (final Map.Entry<String, IndexMutation> entry : stores.getValue().entrySet()) {
                 final String documentId = entry.getKey();
@@ -266,24 +362,26 @@ public class LuceneIndex implements IndexProvider {
                 //write the old document to the index with the modifications
                 writer.updateDocument(new Term(DOCID, documentId), doc);
             }
-            writer.commit();
         } finally {
-            IOUtils.closeQuietly(reader);
+            manager.release(searcher);
         }
+        //make the changes visible to the next batch and to new transactions before the writer lock is released
+        manager.maybeRefreshBlocking();
+        return writer;
     }
 
     @Override
     public void restore(Map<String, Map<String, List<IndexEntry>>> documents, KeyInformation.IndexRetriever information, BaseTransaction tx) throws BackendException {
+        final List<IndexWriter> updated = new ArrayList<>(documents.size());
         writerLock.lock();
         try {
             for (final Map.Entry<String, Map<String, List<IndexEntry>>> stores : documents.entrySet()) {
-                IndexReader reader = null;
+                final String store = stores.getKey();
+                final IndexWriter writer = getWriter(store, information);
+                final KeyInformation.StoreRetriever storeRetriever = information.get(store);
+                final SearcherManager manager = searcherManagers.get(store);
+                final IndexSearcher searcher = manager.acquire();
                 try {
-                    final String store = stores.getKey();
-                    final IndexWriter writer = getWriter(store, information);
-                    final KeyInformation.StoreRetriever storeRetriever = information.get(store);
-                    reader = DirectoryReader.open(writer, true, true);
-                    final IndexSearcher searcher = new IndexSearcher(reader);
 
                     for (final Map.Entry<String, List<IndexEntry>> entry : stores.getValue().entrySet()) {
                         final String docID = entry.getKey();
@@ -304,17 +402,19 @@ public class LuceneIndex implements IndexProvider {
                         //write the old document to the index with the modifications
                         writer.updateDocument(new Term(DOCID, docID), doc);
                     }
-                    writer.commit();
                 } finally {
-                    IOUtils.closeQuietly(reader);
+                    manager.release(searcher);
                 }
+                manager.maybeRefreshBlocking();
+                updated.add(writer);
             }
-            tx.commit();
         } catch (final IOException e) {
             throw new TemporaryBackendException("Could not update Lucene index", e);
         } finally {
             writerLock.unlock();
         }
+        commitIfSynchronous(updated);
+        tx.commit();
     }
 
     private Document retrieveOrCreate(String docID, IndexSearcher searcher) throws IOException {
@@ -539,7 +639,7 @@ public class LuceneIndex implements IndexProvider {
         final SearchParams searchParams = convertQuery(query.getCondition(), information.get(store), delegatingAnalyzer);
 
         try {
-            final IndexSearcher searcher = ((Transaction) tx).getSearcher(query.getStore());
+            final IndexSearcher searcher = ((Transaction) tx).getSearcher(query.getStore(), information);
             if (searcher == null) {
                 return Collections.unmodifiableList(new ArrayList<String>()).stream(); //Index does not yet exist
             }
@@ -832,7 +932,7 @@ public class LuceneIndex implements IndexProvider {
         }
 
         try {
-            final IndexSearcher searcher = ((Transaction) tx).getSearcher(query.getStore());
+            final IndexSearcher searcher = ((Transaction) tx).getSearcher(query.getStore(), information);
             if (searcher == null) {
                 return Collections.unmodifiableList(new ArrayList<RawQuery.Result<String>>()).stream(); //Index does not yet exist
             }
@@ -870,7 +970,7 @@ public class LuceneIndex implements IndexProvider {
         }
 
         try {
-            final IndexSearcher searcher = ((Transaction) tx).getSearcher(query.getStore());
+            final IndexSearcher searcher = ((Transaction) tx).getSearcher(query.getStore(), information);
             if (searcher == null) return 0L; //Index does not yet exist
 
             final long time = System.currentTimeMillis();
@@ -949,10 +1049,25 @@ public class LuceneIndex implements IndexProvider {
 
     @Override
     public void close() throws BackendException {
+        if (commitExecutor != null) {
+            commitExecutor.shutdown();
+            try {
+                commitExecutor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        writerLock.lock();
         try {
+            for (final SearcherManager manager : searcherManagers.values()) manager.close();
+            searcherManagers.clear();
+            //closing a writer commits all pending changes
             for (final IndexWriter w : writers.values()) w.close();
+            writers.clear();
         } catch (final IOException e) {
             throw new PermanentBackendException("Could not close writers", e);
+        } finally {
+            writerLock.unlock();
         }
     }
 
@@ -1009,25 +1124,29 @@ public class LuceneIndex implements IndexProvider {
         private final BaseTransactionConfig config;
         private final Set<String> updatedStores = Sets.newHashSet();
         private final Map<String, IndexSearcher> searchers = new HashMap<>(4);
+        private final Map<IndexSearcher, SearcherManager> acquired = new HashMap<>(4);
 
         private Transaction(BaseTransactionConfig config) {
             this.config = config;
         }
 
-        private synchronized IndexSearcher getSearcher(String store) throws BackendException {
-            IndexSearcher searcher = searchers.get(store);
-            if (searcher == null) {
-                final IndexReader reader;
-                try {
-                    reader = DirectoryReader.open(getStoreDirectory(store));
-                    searcher = new IndexSearcher(reader);
-                } catch (final IndexNotFoundException e) {
-                    searcher = null;
-                } catch (final IOException e) {
-                    throw new PermanentBackendException("Could not open index reader on store: " + store, e);
-                }
-                searchers.put(store, searcher);
+        /**
+         * Returns the searcher this transaction uses for the given store, acquiring it from the store's shared
+         * {@link SearcherManager} on first access so that all queries of the transaction see the same point-in-time
+         * view of the index.
+         */
+        private synchronized IndexSearcher getSearcher(String store, KeyInformation.IndexRetriever informations) throws BackendException {
+            if (searchers.containsKey(store)) return searchers.get(store);
+            final SearcherManager manager = getSearcherManager(store, informations);
+            if (manager == null) return null; //Index does not yet exist, check again on next access
+            final IndexSearcher searcher;
+            try {
+                searcher = manager.acquire();
+            } catch (final IOException e) {
+                throw new PermanentBackendException("Could not open index reader on store: " + store, e);
             }
+            searchers.put(store, searcher);
+            acquired.put(searcher, manager);
             return searcher;
         }
 
@@ -1046,13 +1165,15 @@ public class LuceneIndex implements IndexProvider {
             close();
         }
 
-        private void close() throws BackendException {
+        private synchronized void close() throws BackendException {
             try {
-                for (final IndexSearcher searcher : searchers.values()) {
-                    if (searcher != null) searcher.getIndexReader().close();
+                for (final Map.Entry<IndexSearcher, SearcherManager> entry : acquired.entrySet()) {
+                    entry.getValue().release(entry.getKey());
                 }
             } catch (final IOException e) {
                 throw new PermanentBackendException("Could not close searcher", e);
+            } finally {
+                acquired.clear();
             }
         }
 
@@ -24,12 +24,20 @@ import org.janusgraph.diskstorage.configuration.ModifiableConfiguration;
 import org.janusgraph.diskstorage.indexing.IndexProvider;
 import org.janusgraph.diskstorage.indexing.IndexProviderTest;
 import org.janusgraph.core.schema.Mapping;
+import org.janusgraph.diskstorage.indexing.IndexQuery;
 import org.janusgraph.graphdb.configuration.GraphDatabaseConfiguration;
+import org.janusgraph.graphdb.query.condition.PredicateCondition;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
 
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.Date;
 
 import java.util.UUID;
@@ -48,9 +56,11 @@ public class LuceneIndexTest extends IndexProviderTest {
     private static char REPLACEMENT_CHAR = '\u2022';
     private static final String MAPPING = "mapping";
 
+    private Duration commitInterval = Duration.ZERO;
+
     @Override
     public IndexProvider openIndex() throws BackendException {
-        return new LuceneIndex(getLocalLuceneTestConfig());
+        return new LuceneIndex(getLocalLuceneTestConfig(commitInterval));
     }
 
     @Override
@@ -69,12 +79,37 @@ public class LuceneIndexTest extends IndexProviderTest {
     }
 
     public static Configuration getLocalLuceneTestConfig() {
+        return getLocalLuceneTestConfig(Duration.ZERO);
+    }
+
+    private static Configuration getLocalLuceneTestConfig(Duration commitInterval) {
         final String index = "lucene";
         ModifiableConfiguration config = GraphDatabaseConfiguration.buildGraphConfiguration();
         config.set(GraphDatabaseConfiguration.INDEX_DIRECTORY, StorageSetup.getHomeDir("lucene"),index);
+        config.set(LuceneIndex.COMMIT_INTERVAL, commitInterval, index);
         return config.restrictTo(index);
     }
 
+    @Test
+    public void testDeferredCommit() throws Exception {
+        final String store = "vertex";
+        commitInterval = Duration.ofHours(1);
+        clopen();
+        initialize(store);
+        tx.add(store, "doc1", NAME, "network", true);
+        newTx();
+
+        //The change is visible to new transactions although it has not been committed to disk yet
+        assertEquals(1, tx.queryStream(new IndexQuery(store, PredicateCondition.of(NAME, Cmp.EQUAL, "network"))).count());
+        try (final Directory directory = FSDirectory.open(Paths.get(StorageSetup.getHomeDir("lucene"), store))) {
+            assertFalse(DirectoryReader.indexExists(directory));
+        }
+
+        //Pending changes are committed when the index is closed
+        clopen();
+        assertEquals(1, tx.queryStream(new IndexQuery(store, PredicateCondition.of(NAME, Cmp.EQUAL, "network"))).count());
+    }
+
     @Test
     public void testSupport() {
         // DEFAULT(=TEXT) support
@@ -14,6 +14,7 @@
 
 package org.janusgraph.diskstorage.cache;
 
+import com.google.common.collect.Lists;
 import org.janusgraph.diskstorage.BackendException;
 import org.janusgraph.diskstorage.Entry;
 import org.janusgraph.diskstorage.EntryList;
@@ -37,6 +38,12 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -158,6 +165,105 @@ public abstract class KCVSCacheTest {
         assertEquals(4,store.getSliceCalls());
     }
 
+    @Test
+    public void testAsyncSlice() throws Exception {
+        final int numKeys = 10, numCols = 10;
+        loadStore(numKeys,numCols);
+
+        CacheTransaction tx = getCacheTx();
+        for (int i=1;i<=numKeys;i++) {
+            assertEquals(3,cache.getSliceAsync(getQuery(i,2,5),tx).get().size());
+        }
+        assertEquals(numKeys,store.getSliceCalls());
+        //Repeated reads are answered from the cache, regardless of whether they are issued synchronously
+        for (int i=1;i<=numKeys;i++) {
+            assertEquals(3,cache.getSliceAsync(getQuery(i,2,5),tx).get().size());
+            assertEquals(3,cache.getSlice(getQuery(i,2,5),tx).size());
+        }
+        assertEquals(numKeys,store.getSliceCalls());
+        //Bypassing the cache always hits the store
+        assertEquals(3,cache.getSliceNoCacheAsync(getQuery(1,2,5),tx).get().size());
+        assertEquals(numKeys+1,store.getSliceCalls());
+        tx.commit();
+    }
+
+    @Test
+    public void testInvalidationDuringRead() throws Exception {
+        for (ReadMode mode : ReadMode.values()) {
+            testInvalidationDuringRead(mode);
+        }
+    }
+
+    private enum ReadMode { SYNC, ASYNC, MULTI_KEY }
+
+    private static EntryList read(KCVSCache cache, ReadMode mode, KeySliceQuery query, CacheTransaction tx) throws Exception {
+        switch (mode) {
+            case SYNC: return cache.getSlice(query,tx);
+            case ASYNC: return cache.getSliceAsync(query,tx).get();
+            case MULTI_KEY: return cache.getSlice(Lists.newArrayList(query.getKey()),query,tx).get(query.getKey());
+            default: throw new AssertionError(mode);
+        }
+    }
+
+    private void testInvalidationDuringRead(ReadMode mode) throws Exception {
+        loadStore(10,10);
+        final AtomicBoolean block = new AtomicBoolean(true);
+        final CountDownLatch readDone = new CountDownLatch(1), releaseRead = new CountDownLatch(1);
+        //Holds on to the result of the first read until the key has been mutated and invalidated
+        final KeyColumnValueStore blockingStore = new CounterKCVS(store) {
+            @Override
+            public EntryList getSlice(KeySliceQuery query, StoreTransaction txh) throws BackendException {
+                final EntryList result = super.getSlice(query, txh);
+                awaitRelease();
+                return result;
+            }
+
+            @Override
+            public Map<StaticBuffer, EntryList> getSlice(List<StaticBuffer> keys, SliceQuery query, StoreTransaction txh) throws BackendException {
+                final Map<StaticBuffer, EntryList> result = super.getSlice(keys, query, txh);
+                awaitRelease();
+                return result;
+            }
+
+            private void awaitRelease() {
+                if (!block.getAndSet(false)) return;
+                readDone.countDown();
+                try {
+                    assertTrue(releaseRead.await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        };
+        //Caches are tested without a grace period, hence only the invalidation itself prevents the stale result from being cached
+        cache = getCache(blockingStore);
+        final KeySliceQuery query = getQuery(4,2,8);
+
+        final ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            final Future<EntryList> staleRead = reader.submit(() -> {
+                final CacheTransaction tx = getCacheTx();
+                final EntryList result = read(cache, mode, query, tx);
+                tx.commit();
+                return result;
+            });
+            assertTrue(readDone.await(10, TimeUnit.SECONDS));
+            final CacheTransaction mutation = getCacheTx();
+            cache.mutateEntries(query.getKey(), KeyColumnValueStore.NO_ADDITIONS, Lists.newArrayList(getEntry(3,3)), mutation);
+            mutation.commit();
+            releaseRead.countDown();
+            assertEquals(6, staleRead.get(10, TimeUnit.SECONDS).size());
+        } finally {
+            reader.shutdownNow();
+        }
+
+        //The result read before the invalidation must not have been cached
+        final CacheTransaction tx = getCacheTx();
+        assertEquals(5, read(cache, mode, query, tx).size());
+        assertEquals(5, cache.getSlice(query, tx).size());
+        tx.commit();
+        cache.clearCache();
+    }
 
     public static KeySliceQuery getQuery(int key, int startCol, int endCol) {
         return new KeySliceQuery(BufferUtil.getIntBuffer(key),getQuery(startCol, endCol));
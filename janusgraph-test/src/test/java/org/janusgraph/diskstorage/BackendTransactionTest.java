@@ -0,0 +1,122 @@
+// Copyright 2020 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage;
+
+import org.janusgraph.diskstorage.indexing.IndexTransaction;
+import org.janusgraph.diskstorage.keycolumnvalue.cache.CacheTransaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class BackendTransactionTest {
+
+    private ExecutorService threadPool;
+    private CacheTransaction storeTx;
+    private IndexTransaction index1;
+    private IndexTransaction index2;
+    private Map<String, IndexTransaction> indexTx;
+
+    @BeforeEach
+    public void setUp() {
+        threadPool = Executors.newFixedThreadPool(2);
+        storeTx = mock(CacheTransaction.class);
+        index1 = mock(IndexTransaction.class);
+        index2 = mock(IndexTransaction.class);
+        indexTx = new HashMap<>();
+        indexTx.put("index1", index1);
+        indexTx.put("index2", index2);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        threadPool.shutdownNow();
+    }
+
+    private BackendTransaction openTransaction() {
+        return new BackendTransaction(storeTx, null, null, null, null, null,
+            Duration.ofSeconds(10), indexTx, threadPool);
+    }
+
+    @Test
+    public void testIndexesAreCommittedConcurrently() throws Exception {
+        final CountDownLatch bothStarted = new CountDownLatch(2);
+        doAnswer(invocation -> {
+            bothStarted.countDown();
+            assertTrue(bothStarted.await(10, TimeUnit.SECONDS));
+            return null;
+        }).when(index1).commit();
+        doAnswer(invocation -> {
+            bothStarted.countDown();
+            assertTrue(bothStarted.await(10, TimeUnit.SECONDS));
+            return null;
+        }).when(index2).commit();
+
+        assertTrue(openTransaction().commitIndexes().isEmpty());
+        verify(index1).commit();
+        verify(index2).commit();
+    }
+
+    @Test
+    public void testIndexCommitFailuresAreCapturedPerIndex() throws Exception {
+        final BackendException failure = new PermanentBackendException("index2 failed");
+        doThrow(failure).when(index2).commit();
+
+        final Map<String, Throwable> exceptions = openTransaction().commitIndexes();
+
+        assertEquals(1, exceptions.size());
+        assertSame(failure, exceptions.get("index2"));
+        verify(index1).commit();
+    }
+
+    @Test
+    public void testCommitRethrowsIndexFailure() throws Exception {
+        final BackendException failure = new TemporaryBackendException("index1 failed");
+        doThrow(failure).when(index1).commit();
+
+        final BackendException thrown = assertThrows(BackendException.class, () -> openTransaction().commit());
+
+        assertSame(failure, thrown);
+        verify(storeTx).commit();
+        verify(index2).commit();
+    }
+
+    @Test
+    public void testCommitPrefersStorageFailure() throws Exception {
+        final BackendException storageFailure = new PermanentBackendException("storage failed");
+        doThrow(storageFailure).when(storeTx).commit();
+        doThrow(new PermanentBackendException("index1 failed")).when(index1).commit();
+
+        final BackendException thrown = assertThrows(BackendException.class, () -> openTransaction().commit());
+
+        assertSame(storageFailure, thrown);
+    }
+}
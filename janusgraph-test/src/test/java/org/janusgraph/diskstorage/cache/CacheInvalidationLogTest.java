@@ -0,0 +1,232 @@
+// Copyright 2020 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.cache;
+
+import com.google.common.collect.Lists;
+import org.janusgraph.diskstorage.BackendException;
+import org.janusgraph.diskstorage.Entry;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.inmemory.InMemoryStoreManager;
+import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStore;
+import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStoreManager;
+import org.janusgraph.diskstorage.keycolumnvalue.StoreTransaction;
+import org.janusgraph.diskstorage.keycolumnvalue.cache.CacheInvalidationLog;
+import org.janusgraph.diskstorage.keycolumnvalue.cache.CacheTransaction;
+import org.janusgraph.diskstorage.keycolumnvalue.cache.ExpirationKCVSCache;
+import org.janusgraph.diskstorage.keycolumnvalue.cache.KCVSCache;
+import org.janusgraph.diskstorage.log.Log;
+import org.janusgraph.diskstorage.log.Message;
+import org.janusgraph.diskstorage.util.BufferUtil;
+import org.janusgraph.diskstorage.util.StandardBaseTransactionConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.janusgraph.diskstorage.cache.KCVSCacheTest.MAX_WRITE_TIME;
+import static org.janusgraph.diskstorage.cache.KCVSCacheTest.getEntry;
+import static org.janusgraph.diskstorage.cache.KCVSCacheTest.getQuery;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CacheInvalidationLogTest {
+
+    private static final long CACHE_SIZE = 1024*1024*48; //48 MB
+    private static final int NUM_KEYS = 10, NUM_COLS = 10;
+
+    private KeyColumnValueStoreManager storeManager;
+    private KCVSCacheTest.CounterKCVS store;
+    private final List<KCVSCache> caches = new ArrayList<>();
+    private final List<CacheInvalidationLog> readers = new ArrayList<>();
+
+    @BeforeEach
+    public void setup() throws Exception {
+        storeManager = new InMemoryStoreManager();
+        store = new KCVSCacheTest.CounterKCVS(storeManager.openDatabase(KCVSCacheTest.STORE_NAME));
+        final StoreTransaction tx = getStoreTx();
+        for (int i=1;i<=NUM_KEYS;i++) {
+            final List<Entry> adds = new ArrayList<>(NUM_COLS);
+            for (int j=1;j<=NUM_COLS;j++) adds.add(getEntry(j,j));
+            store.mutate(BufferUtil.getIntBuffer(i),adds,KeyColumnValueStore.NO_DELETIONS,tx);
+        }
+        tx.commit();
+    }
+
+    @AfterEach
+    public void shutdown() throws Exception {
+        for (KCVSCache cache : caches) cache.clearCache();
+        storeManager.close();
+    }
+
+    private StoreTransaction getStoreTx() throws BackendException {
+        return storeManager.beginTransaction(StandardBaseTransactionConfig.of(KCVSCacheTest.times));
+    }
+
+    private CacheTransaction getCacheTx(CacheInvalidationLog invalidationLog) throws BackendException {
+        return new CacheTransaction(getStoreTx(), storeManager, 1024, MAX_WRITE_TIME, false, 1, null, 1,
+            invalidationLog);
+    }
+
+    private KCVSCache getCache(KeyColumnValueStore store) {
+        final KCVSCache cache = new ExpirationKCVSCache(store, null, Duration.ofDays(1).toMillis(), 0, CACHE_SIZE);
+        caches.add(cache);
+        return cache;
+    }
+
+    private static Message getMessage(String senderId, StaticBuffer content) {
+        final Message message = mock(Message.class);
+        when(message.getSenderId()).thenReturn(senderId);
+        when(message.getContent()).thenReturn(content);
+        return message;
+    }
+
+    /**
+     * Returns a log which delivers every message added to it to all readers, including the sender's own
+     */
+    private Log getLog(String senderId) {
+        final Log log = mock(Log.class);
+        doAnswer(invocation -> {
+            final Message message = getMessage(senderId, invocation.getArgument(0));
+            for (CacheInvalidationLog reader : readers) reader.read(message);
+            return null;
+        }).when(log).add(any(StaticBuffer.class));
+        return log;
+    }
+
+    private CacheInvalidationLog getInvalidationLog(String senderId, KCVSCache cache) {
+        final CacheInvalidationLog invalidationLog = new CacheInvalidationLog(getLog(senderId), senderId, cache);
+        readers.add(invalidationLog);
+        return invalidationLog;
+    }
+
+    private void readAll(KCVSCache cache, CacheInvalidationLog invalidationLog, int... mutatedKeys) throws Exception {
+        final CacheTransaction tx = getCacheTx(invalidationLog);
+        for (int i=1;i<=NUM_KEYS;i++) {
+            boolean mutated = false;
+            for (int key : mutatedKeys) mutated |= key == i;
+            assertEquals(mutated ? 5 : 6, cache.getSlice(getQuery(i,2,8),tx).size());
+        }
+        tx.commit();
+    }
+
+    private static void deleteColumn(KCVSCache cache, CacheTransaction tx, int key, int column) throws Exception {
+        cache.mutateEntries(BufferUtil.getIntBuffer(key), KeyColumnValueStore.NO_ADDITIONS,
+            Lists.newArrayList(getEntry(column,column)), tx);
+    }
+
+    @Test
+    public void testRemoteMutationsAreInvalidated() throws Exception {
+        //Two instances with their own cache on the same store
+        final KCVSCache cache = getCache(store), remoteCache = getCache(store);
+        final CacheInvalidationLog invalidationLog = getInvalidationLog("local", cache);
+        final CacheInvalidationLog remoteInvalidationLog = getInvalidationLog("remote", remoteCache);
+
+        readAll(cache, invalidationLog);
+        store.resetCounter();
+
+        final CacheTransaction tx = getCacheTx(remoteInvalidationLog);
+        deleteColumn(remoteCache, tx, 4, 3);
+        deleteColumn(remoteCache, tx, 7, 5);
+        tx.commit();
+
+        readAll(cache, invalidationLog, 4, 7);
+        //Only the queries on the keys mutated by the other instance went to the store
+        assertEquals(2,store.getSliceCalls());
+    }
+
+    @Test
+    public void testInvalidationsArePublishedOnCommit() throws Exception {
+        final KCVSCache cache = getCache(store);
+        final Log log = mock(Log.class);
+        final CacheInvalidationLog invalidationLog = new CacheInvalidationLog(log, "local", cache);
+
+        //Read-only transactions do not publish anything
+        readAll(cache, invalidationLog);
+        verify(log, never()).add(any(StaticBuffer.class));
+
+        final CacheTransaction tx = getCacheTx(invalidationLog);
+        deleteColumn(cache, tx, 4, 3);
+        verify(log, never()).add(any(StaticBuffer.class));
+        tx.commit();
+        verify(log).add(any(StaticBuffer.class));
+    }
+
+    @Test
+    public void testOwnMessagesAreIgnored() throws Exception {
+        final KCVSCache cache = getCache(store);
+        final Log log = mock(Log.class);
+        final CacheInvalidationLog invalidationLog = new CacheInvalidationLog(log, "local", cache);
+
+        final CacheTransaction tx = getCacheTx(invalidationLog);
+        deleteColumn(cache, tx, 4, 3);
+        tx.commit();
+        final ArgumentCaptor<StaticBuffer> content = ArgumentCaptor.forClass(StaticBuffer.class);
+        verify(log).add(content.capture());
+
+        readAll(cache, invalidationLog, 4);
+        store.resetCounter();
+        //The cache of this instance has already been invalidated when the mutation was persisted
+        invalidationLog.read(getMessage("local", content.getValue()));
+        readAll(cache, invalidationLog, 4);
+        assertEquals(0,store.getSliceCalls());
+        //The same message sent by another instance invalidates the key
+        invalidationLog.read(getMessage("remote", content.getValue()));
+        readAll(cache, invalidationLog, 4);
+        assertEquals(1,store.getSliceCalls());
+    }
+
+    @Test
+    public void testUnknownStoresAreIgnored() throws Exception {
+        final KCVSCache cache = getCache(store);
+        final CacheInvalidationLog invalidationLog = getInvalidationLog("local", cache);
+        //Another instance caching a store which is not cached by this instance
+        final KCVSCache otherCache = getCache(storeManager.openDatabase("other"));
+        final CacheInvalidationLog otherInvalidationLog = getInvalidationLog("remote", otherCache);
+
+        readAll(cache, invalidationLog);
+        store.resetCounter();
+
+        final CacheTransaction tx = getCacheTx(otherInvalidationLog);
+        deleteColumn(otherCache, tx, 4, 3);
+        tx.commit();
+
+        readAll(cache, invalidationLog);
+        assertEquals(0,store.getSliceCalls());
+    }
+
+    @Test
+    public void testLargeTransactionsAreSplitIntoMultipleMessages() throws Exception {
+        final KCVSCache cache = getCache(store);
+        final Log log = mock(Log.class);
+        final CacheInvalidationLog invalidationLog = new CacheInvalidationLog(log, "local", cache);
+
+        final int numKeys = 2500;
+        final CacheTransaction tx = getCacheTx(invalidationLog);
+        for (int i=1;i<=numKeys;i++) deleteColumn(cache, tx, i, 3);
+        tx.commit();
+        //Each message holds up to 1000 keys
+        verify(log, times(3)).add(any(StaticBuffer.class));
+    }
+}
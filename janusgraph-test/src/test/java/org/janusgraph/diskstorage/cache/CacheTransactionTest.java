@@ -0,0 +1,133 @@
+// Copyright 2020 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.cache;
+
+import com.google.common.collect.Lists;
+import org.janusgraph.core.JanusGraphException;
+import org.janusgraph.diskstorage.Entry;
+import org.janusgraph.diskstorage.PermanentBackendException;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.keycolumnvalue.KCVMutation;
+import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStore;
+import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStoreManager;
+import org.janusgraph.diskstorage.keycolumnvalue.StoreTransaction;
+import org.janusgraph.diskstorage.keycolumnvalue.cache.CacheTransaction;
+import org.janusgraph.diskstorage.keycolumnvalue.cache.KCVSCache;
+import org.janusgraph.diskstorage.keycolumnvalue.cache.NoKCVSCache;
+import org.janusgraph.diskstorage.util.BufferUtil;
+import org.janusgraph.diskstorage.util.StaticArrayEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class CacheTransactionTest {
+
+    private static final int CHUNK_SIZE = 10;
+
+    private ExecutorService writeBehindExecutor;
+    private KeyColumnValueStoreManager manager;
+    private StoreTransaction storeTx;
+    private KCVSCache store;
+
+    @BeforeEach
+    public void setUp() {
+        writeBehindExecutor = Executors.newFixedThreadPool(4);
+        manager = mock(KeyColumnValueStoreManager.class);
+        storeTx = mock(StoreTransaction.class);
+        store = new NoKCVSCache(mock(KeyColumnValueStore.class));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        writeBehindExecutor.shutdownNow();
+    }
+
+    private CacheTransaction openTransaction() {
+        return new CacheTransaction(storeTx, manager, CHUNK_SIZE, Duration.ofSeconds(10), true, 1,
+            writeBehindExecutor, 2);
+    }
+
+    private void mutate(CacheTransaction tx, int key) throws Exception {
+        final StaticBuffer column = BufferUtil.getIntBuffer(key);
+        final List<Entry> additions = Lists.newArrayList(StaticArrayEntry.of(column, column));
+        store.mutateEntries(BufferUtil.getIntBuffer(key), additions, KeyColumnValueStore.NO_ADDITIONS, tx);
+    }
+
+    @Test
+    public void testWriteBehindPersistsChunksInOrder() throws Exception {
+        final CountDownLatch firstChunkStarted = new CountDownLatch(1);
+        final CountDownLatch releaseFirstChunk = new CountDownLatch(1);
+        final List<Integer> persistedKeys = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> {
+            final Map<String, Map<StaticBuffer, KCVMutation>> mutations = invocation.getArgument(0);
+            if (persistedKeys.isEmpty()) {
+                firstChunkStarted.countDown();
+                assertTrue(releaseFirstChunk.await(10, TimeUnit.SECONDS));
+            }
+            for (Map<StaticBuffer, KCVMutation> storeMutations : mutations.values()) {
+                for (StaticBuffer key : storeMutations.keySet()) persistedKeys.add(key.getInt(0));
+            }
+            return null;
+        }).when(manager).mutateMany(any(), any());
+
+        final CacheTransaction tx = openTransaction();
+        for (int i = 0; i < CHUNK_SIZE; i++) mutate(tx, i);
+        assertTrue(firstChunkStarted.await(10, TimeUnit.SECONDS));
+        //The first chunk is still being persisted while the next one gets built
+        for (int i = CHUNK_SIZE; i < 2 * CHUNK_SIZE + 5; i++) mutate(tx, i);
+        assertTrue(persistedKeys.isEmpty());
+
+        releaseFirstChunk.countDown();
+        tx.commit();
+
+        assertEquals(2 * CHUNK_SIZE + 5, persistedKeys.size());
+        for (int chunk = 0; chunk < 3; chunk++) {
+            for (int i = chunk * CHUNK_SIZE; i < Math.min((chunk + 1) * CHUNK_SIZE, persistedKeys.size()); i++) {
+                //Keys within a chunk may be persisted in any order but never before the keys of a previous chunk
+                assertEquals(chunk, persistedKeys.get(i) / CHUNK_SIZE);
+            }
+        }
+        verify(storeTx).commit();
+    }
+
+    @Test
+    public void testWriteBehindFailureIsThrownOnCommit() throws Exception {
+        doThrow(new PermanentBackendException("write failed")).when(manager).mutateMany(any(), any());
+
+        final CacheTransaction tx = openTransaction();
+        for (int i = 0; i < CHUNK_SIZE; i++) mutate(tx, i);
+
+        assertThrows(JanusGraphException.class, tx::commit);
+    }
+}
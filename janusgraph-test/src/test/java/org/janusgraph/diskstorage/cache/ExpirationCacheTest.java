@@ -34,6 +34,7 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 /**
@@ -106,7 +107,6 @@ public class ExpirationCacheTest extends KCVSCacheTest {
     }
 
     private void testGracePeriod(Duration graceWait) throws Exception {
-        final int minCleanupTriggerCalls = 5;
         final int numKeys = 100, numCols = 10;
         loadStore(numKeys,numCols);
         //Replace cache with proper times
@@ -128,17 +128,21 @@ public class ExpirationCacheTest extends KCVSCacheTest {
         store.resetCounter();
         //...invalidation should happen and the result set is updated immediately
         verifyResults(key, keys, query, 5);
-        assertEquals(2,store.getSliceCalls());
-        //however, the key is expired and hence repeated calls need to go through to the store
-        verifyResults(key, keys, query, 5);
-        assertEquals(4,store.getSliceCalls());
+        if (graceWait.isZero()) {
+            //without a grace period, the fresh result is cached right away
+            assertEquals(1,store.getSliceCalls());
+            verifyResults(key, keys, query, 5);
+            assertEquals(1,store.getSliceCalls());
+        } else {
+            assertEquals(2,store.getSliceCalls());
+            //however, the key is expired and hence repeated calls need to go through to the store
+            verifyResults(key, keys, query, 5);
+            assertEquals(4,store.getSliceCalls());
+        }
 
-        //however, when we sleep past the grace wait time and trigger a cleanup...
+        //however, when we sleep past the grace wait time...
         times.sleepPast(utime.plus(graceWait));
-        for (int t=0; t<minCleanupTriggerCalls;t++) {
-            assertEquals(5,cache.getSlice(new KeySliceQuery(key,query),tx).size());
-            times.sleepFor(Duration.ofMillis(5));
-        }
+        assertEquals(5,cache.getSlice(new KeySliceQuery(key,query),tx).size());
         //...the cache should cache results again
         store.resetCounter();
         verifyResults(key, keys, query, 5);
@@ -147,6 +151,32 @@ public class ExpirationCacheTest extends KCVSCacheTest {
         assertEquals(0,store.getSliceCalls());
     }
 
+    @Test
+    public void testInvalidationOnlyAffectsKey() throws Exception {
+        final int numKeys = 10, numCols = 10;
+        loadStore(numKeys,numCols);
+        CacheTransaction tx = getCacheTx();
+        for (int i=1;i<=numKeys;i++) {
+            assertEquals(6,cache.getSlice(getQuery(i,2,8),tx).size());
+            assertEquals(3,cache.getSlice(getQuery(i,2,5),tx).size());
+        }
+        tx.commit();
+        store.resetCounter();
+
+        tx = getCacheTx();
+        cache.mutateEntries(BufferUtil.getIntBuffer(4), KeyColumnValueStore.NO_ADDITIONS, Lists.newArrayList(getEntry(3,3)), tx);
+        tx.commit();
+
+        tx = getCacheTx();
+        for (int i=1;i<=numKeys;i++) {
+            assertEquals(i==4?5:6,cache.getSlice(getQuery(i,2,8),tx).size());
+            assertEquals(i==4?2:3,cache.getSlice(getQuery(i,2,5),tx).size());
+        }
+        tx.commit();
+        //Only the two queries on the invalidated key went to the store
+        assertEquals(2,store.getSliceCalls());
+    }
+
     private void verifyResults(StaticBuffer key, List<StaticBuffer> keys, SliceQuery query, int expectedResults) throws Exception {
         CacheTransaction tx = getCacheTx();
         assertEquals(expectedResults,cache.getSlice(new KeySliceQuery(key,query),tx).size());
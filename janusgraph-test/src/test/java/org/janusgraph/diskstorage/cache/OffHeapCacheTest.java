@@ -0,0 +1,246 @@
+// Copyright 2020 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.cache;
+
+import com.google.common.collect.Lists;
+import org.janusgraph.diskstorage.Entry;
+import org.janusgraph.diskstorage.EntryList;
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.keycolumnvalue.KeyColumnValueStore;
+import org.janusgraph.diskstorage.keycolumnvalue.KeySliceQuery;
+import org.janusgraph.diskstorage.keycolumnvalue.SliceQuery;
+import org.janusgraph.diskstorage.keycolumnvalue.StoreTransaction;
+import org.janusgraph.diskstorage.keycolumnvalue.cache.CacheTransaction;
+import org.janusgraph.diskstorage.keycolumnvalue.cache.KCVSCache;
+import org.janusgraph.diskstorage.keycolumnvalue.cache.OffHeapKCVSCache;
+import org.janusgraph.diskstorage.util.BufferUtil;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OffHeapCacheTest extends KCVSCacheTest {
+
+    public static final String METRICS_STRING = "metrics";
+    public static final long CACHE_SIZE = 1024*1024*48; //48 MB
+
+    @Override
+    public KCVSCache getCache(KeyColumnValueStore store) {
+        return getCache(store, Duration.ofDays(1), Duration.ZERO, CACHE_SIZE);
+    }
+
+    private static OffHeapKCVSCache getCache(KeyColumnValueStore store, Duration expirationTime, Duration graceWait, long cacheSize) {
+        return new OffHeapKCVSCache(store,METRICS_STRING,expirationTime.toMillis(),graceWait.toMillis(),cacheSize);
+    }
+
+    @Test
+    public void testCachedEntriesAreEqual() throws Exception {
+        loadStore(10,10);
+        CacheTransaction tx = getCacheTx();
+        KeySliceQuery query = getQuery(3,2,8);
+        EntryList first = cache.getSlice(query,tx);
+        EntryList second = cache.getSlice(query,tx);
+        assertEquals(1,store.getSliceCalls());
+        assertEquals(first.size(),second.size());
+        for (int i=0;i<first.size();i++) {
+            Entry e1 = first.get(i), e2 = second.get(i);
+            assertEquals(e1,e2);
+            assertEquals(e1.getValue(),e2.getValue());
+        }
+        assertEquals(0,cache.getSlice(getQuery(3,20,30),tx).size());
+        assertEquals(0,cache.getSlice(getQuery(3,20,30),tx).size());
+        assertEquals(2,store.getSliceCalls());
+        tx.commit();
+    }
+
+    @Test
+    public void testInvalidationOnlyAffectsKey() throws Exception {
+        final int numKeys = 10, numCols = 10;
+        loadStore(numKeys,numCols);
+        CacheTransaction tx = getCacheTx();
+        for (int i=1;i<=numKeys;i++) {
+            assertEquals(6,cache.getSlice(getQuery(i,2,8),tx).size());
+            assertEquals(3,cache.getSlice(getQuery(i,2,5),tx).size());
+        }
+        tx.commit();
+        store.resetCounter();
+
+        tx = getCacheTx();
+        cache.mutateEntries(BufferUtil.getIntBuffer(4), KeyColumnValueStore.NO_ADDITIONS, Lists.newArrayList(getEntry(3,3)), tx);
+        tx.commit();
+
+        tx = getCacheTx();
+        for (int i=1;i<=numKeys;i++) {
+            assertEquals(i==4?5:6,cache.getSlice(getQuery(i,2,8),tx).size());
+            assertEquals(i==4?2:3,cache.getSlice(getQuery(i,2,5),tx).size());
+        }
+        tx.commit();
+        //Only the two queries on the invalidated key went to the store
+        assertEquals(2,store.getSliceCalls());
+    }
+
+    @Test
+    public void testSizeBound() throws Exception {
+        final int numKeys = 500, numCols = 10;
+        final long cacheSize = OffHeapKCVSCache.BLOCK_SIZE * 64;
+        loadStore(numKeys,numCols);
+        cache.clearCache();
+        OffHeapKCVSCache offHeapCache = getCache(store, Duration.ofDays(1), Duration.ZERO, cacheSize);
+        cache = offHeapCache;
+
+        CacheTransaction tx = getCacheTx();
+        for (int t=0;t<3;t++) {
+            for (int i=1;i<=numKeys;i++) {
+                assertEquals(6,cache.getSlice(getQuery(i,2,8),tx).size());
+                assertTrue(offHeapCache.getUsedBytes()<=cacheSize);
+            }
+        }
+        tx.commit();
+        //The cache cannot hold all results, hence some of the repeated queries had to go to the store
+        assertTrue(store.getSliceCalls()>numKeys);
+    }
+
+    @Test
+    public void testFrequentEntriesAreRetained() throws Exception {
+        final int numKeys = 2000, numCols = 10, numHot = 10;
+        final long cacheSize = OffHeapKCVSCache.BLOCK_SIZE * 64;
+        loadStore(numKeys,numCols);
+        cache.clearCache();
+        cache = getCache(store, Duration.ofDays(1), Duration.ZERO, cacheSize);
+
+        CacheTransaction tx = getCacheTx();
+        //Make a few keys hot...
+        for (int t=0;t<5;t++) {
+            for (int i=1;i<=numHot;i++) cache.getSlice(getQuery(i,2,8),tx);
+        }
+        //...then scan over many keys which are each only accessed once while the hot keys keep being accessed
+        //less often than it takes the scan to cycle through the cache
+        for (int i=numHot+1;i<=numKeys;i++) {
+            cache.getSlice(getQuery(i,2,8),tx);
+            if (i%100==0) {
+                for (int j=1;j<=numHot;j++) cache.getSlice(getQuery(j,2,8),tx);
+            }
+        }
+        store.resetCounter();
+        //The scan must not have flushed the hot keys out of the cache
+        for (int i=1;i<=numHot;i++) cache.getSlice(getQuery(i,2,8),tx);
+        assertEquals(0,store.getSliceCalls());
+        tx.commit();
+    }
+
+    @Test
+    public void testRejectedCandidateDoesNotEvict() throws Exception {
+        //200 blocks per segment yield a window of two blocks, all queries are on the same key and hence segment
+        final int numCols = 250, segmentBlocks = 200, hotAccesses = 6;
+        loadStore(1,numCols);
+        cache.clearCache();
+        cache = getCache(store, Duration.ofDays(1), Duration.ZERO, OffHeapKCVSCache.BLOCK_SIZE * 16L * segmentBlocks);
+
+        CacheTransaction tx = getCacheTx();
+        //Fill the segment with single block results: a cold one, followed by a hot one, followed by fillers
+        cache.getSlice(getQuery(1,1,2),tx);
+        for (int t=0;t<hotAccesses;t++) cache.getSlice(getQuery(1,2,3),tx);
+        for (int j=3;j<=segmentBlocks;j++) cache.getSlice(getQuery(1,j,j+1),tx);
+        //A two block result which is accessed more often than the cold but less often than the hot result
+        for (int t=0;t<3;t++) cache.getSlice(getQuery(1,1,21),tx);
+        //Push it out of the window: admitting it would require evicting both the cold and the hot result
+        cache.getSlice(getQuery(1,segmentBlocks+1,segmentBlocks+2),tx);
+
+        store.resetCounter();
+        //The candidate is rejected without evicting the cold result
+        assertEquals(1,cache.getSlice(getQuery(1,1,2),tx).size());
+        assertEquals(1,cache.getSlice(getQuery(1,2,3),tx).size());
+        assertEquals(0,store.getSliceCalls());
+        assertEquals(20,cache.getSlice(getQuery(1,1,21),tx).size());
+        assertEquals(1,store.getSliceCalls());
+        tx.commit();
+    }
+
+    @Test
+    public void testExpiration() throws Exception {
+        final Duration expirationTime = Duration.ofMillis(200);
+        loadStore(100,10);
+        cache.clearCache();
+        cache = getCache(store, expirationTime, Duration.ZERO, CACHE_SIZE);
+
+        final StaticBuffer key = BufferUtil.getIntBuffer(81);
+        final List<StaticBuffer> keys = new ArrayList<>();
+        keys.add(key);
+        keys.add(BufferUtil.getIntBuffer(37));
+        SliceQuery query = getQuery(2,8);
+
+        verifyResults(key,keys,query,6);
+        //Modify store directly
+        StoreTransaction txs = getStoreTx();
+        store.mutate(key,KeyColumnValueStore.NO_ADDITIONS, Lists.newArrayList(BufferUtil.getIntBuffer(5)),txs);
+        txs.commit();
+        Instant utime = times.getTime();
+
+        //Should still see cached results
+        verifyResults(key,keys,query,6);
+        times.sleepPast(utime.plus(expirationTime));
+        times.sleepFor(Duration.ofMillis(5));
+        //Now the results should be different
+        verifyResults(key,keys,query,5);
+    }
+
+    @Test
+    public void testGracePeriod() throws Exception {
+        final Duration graceWait = Duration.ofMillis(200);
+        loadStore(100,10);
+        cache.clearCache();
+        cache = getCache(store, Duration.ofDays(200), graceWait, CACHE_SIZE);
+
+        final StaticBuffer key = BufferUtil.getIntBuffer(81);
+        final List<StaticBuffer> keys = new ArrayList<>();
+        keys.add(key);
+        keys.add(BufferUtil.getIntBuffer(37));
+        SliceQuery query = getQuery(2,8);
+
+        verifyResults(key,keys,query,6);
+        CacheTransaction tx = getCacheTx();
+        cache.mutateEntries(key,KeyColumnValueStore.NO_ADDITIONS, Lists.newArrayList(getEntry(4,4)),tx);
+        tx.commit();
+        Instant utime = times.getTime();
+        store.resetCounter();
+        //During the grace period, the invalidated key is always read from the store
+        verifyResults(key,keys,query,5);
+        assertEquals(2,store.getSliceCalls());
+        verifyResults(key,keys,query,5);
+        assertEquals(4,store.getSliceCalls());
+
+        //After the grace period, results are cached again
+        times.sleepPast(utime.plus(graceWait));
+        verifyResults(key,keys,query,5);
+        store.resetCounter();
+        verifyResults(key,keys,query,5);
+        assertEquals(0,store.getSliceCalls());
+    }
+
+    private void verifyResults(StaticBuffer key, List<StaticBuffer> keys, SliceQuery query, int expectedResults) throws Exception {
+        CacheTransaction tx = getCacheTx();
+        assertEquals(expectedResults,cache.getSlice(new KeySliceQuery(key,query),tx).size());
+        Map<StaticBuffer,EntryList> results = cache.getSlice(keys,query,tx);
+        assertEquals(keys.size(),results.size());
+        assertEquals(expectedResults, results.get(key).size());
+        tx.commit();
+    }
+}
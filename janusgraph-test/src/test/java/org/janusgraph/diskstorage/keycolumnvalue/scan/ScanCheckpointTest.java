@@ -0,0 +1,96 @@
+// Copyright 2020 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.diskstorage.keycolumnvalue.scan;
+
+import com.google.common.collect.ImmutableMap;
+import org.janusgraph.diskstorage.configuration.WriteConfiguration;
+import org.janusgraph.diskstorage.configuration.backend.CommonsConfiguration;
+import org.janusgraph.diskstorage.util.BufferUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ScanCheckpointTest {
+
+    @Test
+    public void testEncoding() {
+        final List<ScanCheckpoint.Range> ranges = Arrays.asList(
+                new ScanCheckpoint.Range(BufferUtil.zeroBuffer(1), BufferUtil.getIntBuffer(7), BufferUtil.getLongBuffer(3), true),
+                new ScanCheckpoint.Range(BufferUtil.getIntBuffer(7), BufferUtil.oneBuffer(128), null, false));
+        final Map<ScanMetrics.Metric, Long> metrics = new EnumMap<>(ScanMetrics.Metric.class);
+        metrics.put(ScanMetrics.Metric.SUCCESS, 42L);
+        metrics.put(ScanMetrics.Metric.FAILURE, 1L);
+        final Map<String, Long> customMetrics = ImmutableMap.of("adds", 5L, "with:separators,|", 6L);
+
+        final ScanCheckpoint checkpoint = ScanCheckpoint.decode(new ScanCheckpoint(ranges, metrics, customMetrics).encode());
+        assertEquals(2, checkpoint.getRanges().size());
+        final ScanCheckpoint.Range first = checkpoint.getRanges().get(0), second = checkpoint.getRanges().get(1);
+        assertEquals(BufferUtil.zeroBuffer(1), first.start);
+        assertEquals(BufferUtil.getIntBuffer(7), first.end);
+        assertEquals(BufferUtil.getLongBuffer(3), first.processedUntil);
+        assertTrue(first.completed);
+        assertEquals(BufferUtil.getIntBuffer(7), second.start);
+        assertEquals(BufferUtil.oneBuffer(128), second.end);
+        assertNull(second.processedUntil);
+        assertFalse(second.completed);
+        assertEquals(metrics, checkpoint.getMetrics());
+        assertEquals(customMetrics, checkpoint.getCustomMetrics());
+    }
+
+    @Test
+    public void testEmptyCheckpoint() {
+        final ScanCheckpoint checkpoint = ScanCheckpoint.decode(new ScanCheckpoint(Collections.emptyList(),
+                new EnumMap<>(ScanMetrics.Metric.class), Collections.emptyMap()).encode());
+        assertTrue(checkpoint.getRanges().isEmpty());
+        assertTrue(checkpoint.getMetrics().isEmpty());
+        assertTrue(checkpoint.getCustomMetrics().isEmpty());
+    }
+
+    @Test
+    public void testInvalidCheckpoint() {
+        assertThrows(IllegalArgumentException.class, () -> ScanCheckpoint.decode("0|||"));
+        assertThrows(IllegalArgumentException.class, () -> ScanCheckpoint.decode("1||"));
+    }
+
+    @Test
+    public void testPersistence() {
+        final WriteConfiguration checkpoints = new CommonsConfiguration();
+        assertNull(ScanCheckpoint.read(checkpoints, "job"));
+
+        final ScanCheckpoint checkpoint = new ScanCheckpoint(Arrays.asList(
+                new ScanCheckpoint.Range(BufferUtil.zeroBuffer(1), BufferUtil.getIntBuffer(7), null, true),
+                new ScanCheckpoint.Range(BufferUtil.getIntBuffer(7), BufferUtil.oneBuffer(128), BufferUtil.getLongBuffer(9), false)),
+                new EnumMap<>(ScanMetrics.Metric.class), ImmutableMap.of("keys", 9L));
+        checkpoint.write(checkpoints, "job");
+        assertNull(ScanCheckpoint.read(checkpoints, "other-job"));
+        final ScanCheckpoint read = ScanCheckpoint.read(checkpoints, "job");
+        assertEquals(2, read.getRanges().size());
+        assertEquals(BufferUtil.getLongBuffer(9), read.getRanges().get(1).processedUntil);
+        assertEquals(9L, (long) read.getCustomMetrics().get("keys"));
+
+        ScanCheckpoint.remove(checkpoints, "job");
+        assertNull(ScanCheckpoint.read(checkpoints, "job"));
+    }
+}
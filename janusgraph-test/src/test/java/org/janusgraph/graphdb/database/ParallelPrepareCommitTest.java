@@ -0,0 +1,75 @@
+// Copyright 2020 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.database;
+
+import org.janusgraph.core.JanusGraphFactory;
+import org.janusgraph.graphdb.internal.InternalRelation;
+import org.janusgraph.graphdb.transaction.StandardJanusGraphTx;
+import org.janusgraph.graphdb.transaction.StandardTransactionBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ParallelPrepareCommitTest {
+
+    private StandardJanusGraph graph;
+
+    private StandardJanusGraph open(boolean parallelPrepareCommit) {
+        JanusGraphFactory.Builder builder = JanusGraphFactory.build();
+        builder.set("storage.backend", "inmemory");
+        builder.set("tx.parallel-prepare-commit", parallelPrepareCommit);
+        return (StandardJanusGraph) builder.open();
+    }
+
+    @AfterEach
+    public void closeGraph() {
+        if (null != graph) graph.close();
+    }
+
+    private static Collection<InternalRelation> relations(int count) {
+        return Collections.nCopies(count, null);
+    }
+
+    @Test
+    public void testLargeMultiThreadedTransactionsArePreparedInParallel() {
+        graph = open(true);
+        StandardJanusGraphTx tx = (StandardJanusGraphTx) graph.newTransaction();
+        assertTrue(graph.isParallelPrepareCommit(relations(1000), relations(0), tx));
+        assertTrue(graph.isParallelPrepareCommit(relations(500), relations(500), tx));
+        assertFalse(graph.isParallelPrepareCommit(relations(999), relations(0), tx));
+        tx.rollback();
+    }
+
+    @Test
+    public void testThreadBoundTransactionsArePreparedOnCommittingThread() {
+        graph = open(true);
+        StandardJanusGraphTx tx = (StandardJanusGraphTx) ((StandardTransactionBuilder) graph.buildTransaction()).threadBound().start();
+        assertFalse(graph.isParallelPrepareCommit(relations(10000), relations(0), tx));
+        tx.rollback();
+    }
+
+    @Test
+    public void testParallelPrepareCommitDisabledByDefault() {
+        graph = open(false);
+        StandardJanusGraphTx tx = (StandardJanusGraphTx) graph.newTransaction();
+        assertFalse(graph.isParallelPrepareCommit(relations(10000), relations(0), tx));
+        tx.rollback();
+    }
+}
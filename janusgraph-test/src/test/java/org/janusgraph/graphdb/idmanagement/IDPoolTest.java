@@ -20,6 +20,8 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.codahale.metrics.Timer;
+
 import java.time.Duration;
 import java.util.List;
 import java.util.Random;
@@ -35,10 +37,13 @@ import org.easymock.IMocksControl;
 import org.junit.jupiter.api.Test;
 
 import org.janusgraph.core.JanusGraphException;
+import org.janusgraph.graphdb.database.idassigner.ConcurrentIDPool;
+import org.janusgraph.graphdb.database.idassigner.IDPool;
 import org.janusgraph.graphdb.database.idassigner.IDPoolExhaustedException;
 import org.janusgraph.graphdb.database.idassigner.StandardIDPool;
 import org.janusgraph.util.datastructures.IntHashSet;
 import org.janusgraph.util.datastructures.IntSet;
+import org.janusgraph.util.stats.MetricManager;
 
 /**
  * @author Matthias Broecheler (me@matthiasb.com)
@@ -67,11 +72,29 @@ public class IDPoolTest {
         testIDPoolWith(partitionID -> new StandardIDPool(idAuthority, partitionID, partitionID, Integer.MAX_VALUE, Duration.ofMillis(2000), 0.2), 10, 20, 100000);
     }
 
+    @Test
+    public void testConcurrentIDPool1() throws InterruptedException {
+        final MockIDAuthority idAuthority = new MockIDAuthority(200);
+        testIDPoolWith(partitionID -> new ConcurrentIDPool(idAuthority, partitionID, partitionID, Integer.MAX_VALUE, Duration.ofMillis(2000L), 2, null), 1000, 6, 100000);
+    }
+
+    @Test
+    public void testConcurrentIDPool2() throws InterruptedException {
+        final MockIDAuthority idAuthority = new MockIDAuthority(10000, Integer.MAX_VALUE, 2000);
+        testIDPoolWith(partitionID -> new ConcurrentIDPool(idAuthority, partitionID, partitionID, Integer.MAX_VALUE, Duration.ofMillis(4000), 1, null), 2, 5, 10000);
+    }
+
+    @Test
+    public void testConcurrentIDPool3() throws InterruptedException {
+        final MockIDAuthority idAuthority = new MockIDAuthority(200);
+        testIDPoolWith(partitionID -> new ConcurrentIDPool(idAuthority, partitionID, partitionID, Integer.MAX_VALUE, Duration.ofMillis(2000), 4, null), 10, 20, 100000);
+    }
+
     private void testIDPoolWith(IDPoolFactory poolFactory, final int numPartitions,
                                        final int numThreads, final int attemptsPerThread) throws InterruptedException {
         final Random random = new Random();
         final IntSet[] ids = new IntSet[numPartitions];
-        final StandardIDPool[] idPools = new StandardIDPool[numPartitions];
+        final IDPool[] idPools = new IDPool[numPartitions];
         for (int i = 0; i < numPartitions; i++) {
             ids[i] = new IntHashSet(attemptsPerThread * numThreads / numPartitions);
             int partition = i*100;
@@ -96,7 +119,7 @@ public class IDPoolTest {
             threads[i].start();
         }
         for (int i = 0; i < numThreads; i++) threads[i].join();
-        for (final StandardIDPool idPool : idPools) idPool.close();
+        for (final IDPool idPool : idPools) idPool.close();
         //Verify consecutive id assignment
         for (int i = 0; i < ids.length; i++) {
             IntSet set = ids[i];
@@ -216,8 +239,72 @@ public class IDPoolTest {
         }
     }
 
+    @Test
+    public void testConcurrentAllocationTimeout() {
+        final MockIDAuthority idAuthority = new MockIDAuthority(10000, Integer.MAX_VALUE, 5000);
+        ConcurrentIDPool pool = new ConcurrentIDPool(idAuthority, 1, 1, Integer.MAX_VALUE, Duration.ofMillis(4000), 2, null);
+
+        assertThrows(JanusGraphException.class, pool::nextID);
+    }
+
+    @Test
+    public void testConcurrentPoolExhaustion1() {
+        MockIDAuthority idAuthority = new MockIDAuthority(200);
+        int idUpper = 10000;
+        ConcurrentIDPool pool = new ConcurrentIDPool(idAuthority, 0, 1, idUpper, Duration.ofMillis(2000), 2, null);
+        for (int i = 1; i < idUpper * 2; i++) {
+            try {
+                long id = pool.nextID();
+                assertTrue(id < idUpper);
+            } catch (IDPoolExhaustedException e) {
+                assertEquals(idUpper, i);
+                break;
+            }
+        }
+        pool.close();
+    }
+
+    @Test
+    public void testConcurrentPoolExhaustion2() {
+        int idUpper = 10000;
+        MockIDAuthority idAuthority = new MockIDAuthority(200, idUpper);
+        ConcurrentIDPool pool = new ConcurrentIDPool(idAuthority, 0, 1, Integer.MAX_VALUE, Duration.ofMillis(2000), 2, null);
+        for (int i = 1; i < idUpper * 2; i++) {
+            try {
+                long id = pool.nextID();
+                assertTrue(id < idUpper);
+            } catch (IDPoolExhaustedException e) {
+                assertEquals(idUpper, i);
+                break;
+            }
+        }
+        pool.close();
+    }
+
+    @Test
+    public void testConcurrentPoolPrefetchesBlocks() throws InterruptedException {
+        final MockIDAuthority idAuthority = new MockIDAuthority(100, Integer.MAX_VALUE, 200);
+        final String metricsPrefix = "testConcurrentPoolPrefetchesBlocks";
+        ConcurrentIDPool pool = new ConcurrentIDPool(idAuthority, 0, 1, Integer.MAX_VALUE, Duration.ofMillis(2000), 3, metricsPrefix);
+        assertEquals(1, pool.nextID());
+        //Wait until the renewer has acquired the pre-fetched blocks in addition to the one in use
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (idAuthority.getServedBlocks() < 1 + 3) {
+            assertTrue(System.currentTimeMillis() < deadline, "Pre-fetched blocks were not acquired in time");
+            Thread.sleep(10);
+        }
+        //Taking the next blocks does not require waiting on the id authority
+        final Timer blockWait = MetricManager.INSTANCE.getTimer(metricsPrefix, ConcurrentIDPool.METRICS_NAME, "1",
+            ConcurrentIDPool.M_BLOCK_WAIT);
+        final long waited = blockWait.getSnapshot().getMax();
+        for (int i = 2; i <= 300; i++) assertEquals(i, pool.nextID());
+        assertEquals(3, blockWait.getCount());
+        assertTrue(blockWait.getSnapshot().getMax() <= waited);
+        pool.close();
+    }
+
     interface IDPoolFactory {
-        StandardIDPool get(int partitionID);
+        IDPool get(int partitionID);
     }
 
 }
@@ -25,6 +25,7 @@ import org.janusgraph.graphdb.database.idassigner.StaticIDBlockSizer;
 import java.time.Duration;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -36,6 +37,7 @@ public class MockIDAuthority implements IDAuthority {
     private static final int BLOCK_SIZE_LIMIT = Integer.MAX_VALUE;
 
     private final ConcurrentHashMap<Long, AtomicLong> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger servedBlocks = new AtomicInteger();
     private IDBlockSizer blockSizer;
     private final int blockSizeLimit;
     private final int delayAcquisitionMS;
@@ -84,9 +86,17 @@ public class MockIDAuthority implements IDAuthority {
         if (lowerBound >= blockSizeLimit) {
             throw new IDPoolExhaustedException("Reached partition limit: " + blockSizeLimit);
         }
+        servedBlocks.incrementAndGet();
         return new MockIDBlock(lowerBound,Math.min(size,blockSizeLimit-lowerBound));
     }
 
+    /**
+     * Returns the number of id blocks this authority has handed out so far.
+     */
+    public int getServedBlocks() {
+        return servedBlocks.get();
+    }
+
     private static class MockIDBlock implements IDBlock {
 
         private final long start;
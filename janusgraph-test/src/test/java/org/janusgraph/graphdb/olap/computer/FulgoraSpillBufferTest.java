@@ -0,0 +1,130 @@
+// Copyright 2020 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.olap.computer;
+
+import org.apache.tinkerpop.gremlin.process.computer.KeyValue;
+import org.janusgraph.graphdb.database.serialize.StandardSerializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FulgoraSpillBufferTest {
+
+    private static final int NUM_PAIRS = 10000;
+    private static final int NUM_KEYS = 100;
+
+    @TempDir
+    File spillDirectory;
+
+    private FulgoraSpillContext spill;
+
+    @BeforeEach
+    public void setUp() {
+        spill = new FulgoraSpillContext(new StandardSerializer(), spillDirectory, 4096);
+    }
+
+    private void addPairs(FulgoraSpillBuffer<String, Integer> buffer) {
+        IntStream.range(0, NUM_PAIRS).parallel().forEach(i -> buffer.add("k" + (i % NUM_KEYS), i));
+        assertTrue(spillDirectory.listFiles().length > 1);
+    }
+
+    private void assertClosed(FulgoraSpillBuffer<String, Integer> buffer) {
+        buffer.close();
+        assertEquals(0, spillDirectory.listFiles().length);
+        assertEquals(0, spill.getReserved());
+    }
+
+    @Test
+    public void testGroupedRuns() {
+        final FulgoraSpillBuffer<String, Integer> buffer = new FulgoraSpillBuffer<>(spill, true, null);
+        addPairs(buffer);
+
+        final Map<String, Integer> sums = new HashMap<>();
+        final Iterator<Map.Entry<String, List<Integer>>> groups = buffer.groups();
+        while (groups.hasNext()) {
+            final Map.Entry<String, List<Integer>> group = groups.next();
+            assertEquals(NUM_PAIRS / NUM_KEYS, group.getValue().size());
+            //Each key forms exactly one group
+            assertNull(sums.put(group.getKey(), group.getValue().stream().mapToInt(Integer::intValue).sum()));
+        }
+        assertEquals(NUM_KEYS, sums.size());
+        for (int key = 0; key < NUM_KEYS; key++) {
+            final int k = key;
+            assertEquals(IntStream.range(0, NUM_PAIRS).filter(i -> i % NUM_KEYS == k).sum(), sums.get("k" + key).intValue());
+        }
+        //Runs are deleted once read
+        assertEquals(0, spillDirectory.listFiles().length);
+        assertClosed(buffer);
+    }
+
+    @Test
+    public void testSortedRuns() {
+        final FulgoraSpillBuffer<String, Integer> buffer = new FulgoraSpillBuffer<>(spill, false, Comparator.<String>naturalOrder());
+        addPairs(buffer);
+
+        final List<String> keys = new ArrayList<>();
+        buffer.iterator().forEachRemaining(pair -> keys.add(pair.getKey()));
+        assertEquals(NUM_PAIRS, keys.size());
+        final List<String> sorted = new ArrayList<>(keys);
+        sorted.sort(Comparator.naturalOrder());
+        assertEquals(sorted, keys);
+        assertClosed(buffer);
+    }
+
+    @Test
+    public void testUnencodedPairsRemainOnHeap() {
+        final FulgoraSpillBuffer<String, Object> buffer = new FulgoraSpillBuffer<>(spill, true, null);
+        final Object unencoded = new Unencoded();
+        IntStream.range(0, NUM_PAIRS).parallel().forEach(i -> buffer.add("k" + (i % NUM_KEYS), (i / NUM_KEYS) % 2 == 0 ? i : unencoded));
+
+        int pairs = 0;
+        final Iterator<Map.Entry<String, List<Object>>> groups = buffer.groups();
+        while (groups.hasNext()) {
+            final List<Object> values = groups.next().getValue();
+            pairs += values.size();
+            assertEquals(NUM_PAIRS / NUM_KEYS / 2, values.stream().filter(v -> v == unencoded).count());
+        }
+        assertEquals(NUM_PAIRS, pairs);
+        buffer.close();
+        assertEquals(0, spillDirectory.listFiles().length);
+        assertEquals(0, spill.getReserved());
+    }
+
+    @Test
+    public void testCloseDeletesUnreadRuns() {
+        final FulgoraSpillBuffer<String, Integer> buffer = new FulgoraSpillBuffer<>(spill, false, null);
+        addPairs(buffer);
+
+        final Iterator<KeyValue<String, Integer>> pairs = buffer.iterator();
+        pairs.next();
+        assertClosed(buffer);
+    }
+
+    private static class Unencoded {
+    }
+}
@@ -0,0 +1,209 @@
+// Copyright 2020 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.olap.computer;
+
+import org.apache.tinkerpop.gremlin.process.computer.MessageCombiner;
+import org.apache.tinkerpop.gremlin.process.computer.MessageScope;
+import org.apache.tinkerpop.gremlin.process.computer.VertexComputeKey;
+import org.apache.tinkerpop.gremlin.process.computer.VertexProgram;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
+import org.janusgraph.graphdb.database.serialize.StandardSerializer;
+import org.janusgraph.graphdb.idmanagement.IDManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PrimitiveFulgoraVertexMemoryTest {
+
+    private static final String KEY = "value";
+    private static final MessageScope GLOBAL = MessageScope.Global.instance();
+    //Spans several chunks
+    private static final int NUM_VERTICES = 20000;
+
+    @TempDir
+    File spillDirectory;
+
+    private final IDManager idManager = new IDManager();
+    private FulgoraSpillContext spill;
+
+    @BeforeEach
+    public void setUp() {
+        //Nothing fits into the heap budget, so all chunks are memory-mapped
+        spill = new FulgoraSpillContext(new StandardSerializer(), spillDirectory, 1);
+    }
+
+    private long vertexId(int vertex) {
+        return idManager.getVertexID(vertex + 1, 0, IDManager.VertexIDType.NormalVertex);
+    }
+
+    private long spillFileBytes(String suffix) {
+        return Arrays.stream(spillDirectory.listFiles((dir, name) -> name.endsWith(suffix))).mapToLong(File::length).sum();
+    }
+
+    @SuppressWarnings("unchecked")
+    private PrimitiveFulgoraVertexMemory<Object> getMemory(MessageCombiner<Object> combiner) {
+        final VertexProgram<Object> program = mock(VertexProgram.class);
+        when(program.getMessageCombiner()).thenReturn(Optional.ofNullable(combiner));
+        when(program.getVertexComputeKeys()).thenReturn(Collections.singleton(VertexComputeKey.of(KEY, false)));
+        return new PrimitiveFulgoraVertexMemory<>(NUM_VERTICES, idManager, program, spill);
+    }
+
+    private void assertClosed(PrimitiveFulgoraVertexMemory<Object> memory) {
+        memory.close();
+        assertEquals(0, spillDirectory.listFiles().length);
+        assertEquals(0, spill.getReserved());
+    }
+
+    @Test
+    public void testMappedPrimitiveValuesAndMessages() {
+        final PrimitiveFulgoraVertexMemory<Object> memory = getMemory((a, b) -> (Double) a + (Double) b);
+        memory.nextIteration(Collections.singleton(GLOBAL));
+        IntStream.range(0, NUM_VERTICES).parallel().forEach(vertex -> {
+            memory.setProperty(vertexId(vertex), KEY, (double) vertex);
+            //All vertices message the same few vertices concurrently
+            memory.sendMessage(vertexId(vertex % 10), 1D, GLOBAL);
+            memory.sendMessage(vertexId(vertex), 0.5D, GLOBAL);
+        });
+        memory.completeIteration();
+        assertTrue(spillDirectory.listFiles((dir, name) -> name.endsWith(".col")).length > 0);
+
+        for (int vertex = 0; vertex < NUM_VERTICES; vertex++) {
+            assertEquals((double) vertex, memory.<Double>getProperty(vertexId(vertex), KEY));
+            final double expected = vertex < 10 ? NUM_VERTICES / 10 + 0.5 : 0.5;
+            assertEquals(Collections.singletonList(expected),
+                memory.getMessage(vertexId(vertex), GLOBAL).collect(Collectors.toList()));
+        }
+        assertClosed(memory);
+    }
+
+    @Test
+    public void testSpilledUncombinedMessages() {
+        final PrimitiveFulgoraVertexMemory<Object> memory = getMemory(null);
+        final Object unserializable = new Unserializable();
+        memory.nextIteration(Collections.singleton(GLOBAL));
+        IntStream.range(0, NUM_VERTICES).parallel().forEach(vertex -> {
+            memory.sendMessage(vertexId(vertex % 100), "m" + vertex, GLOBAL);
+            if (vertex < 100) memory.sendMessage(vertexId(vertex), unserializable, GLOBAL);
+        });
+        memory.completeIteration();
+        assertTrue(spillDirectory.listFiles((dir, name) -> name.endsWith(".msg")).length > 0);
+
+        for (int vertex = 0; vertex < 100; vertex++) {
+            final List<Object> messages = memory.getMessage(vertexId(vertex), GLOBAL).collect(Collectors.toList());
+            assertEquals(NUM_VERTICES / 100 + 1, messages.size());
+            //Messages which cannot be serialized remain on heap
+            assertTrue(messages.contains(unserializable));
+            for (int sender = vertex; sender < NUM_VERTICES; sender += 100) {
+                assertTrue(messages.contains("m" + sender));
+            }
+        }
+        assertEquals(0, memory.getMessage(vertexId(100), GLOBAL).count());
+        assertNull(memory.getProperty(vertexId(0), KEY));
+
+        //The messages of an iteration are deleted once the next iteration completes
+        memory.nextIteration(Collections.emptySet());
+        memory.completeIteration();
+        assertEquals(0, spillDirectory.listFiles((dir, name) -> name.endsWith(".msg")).length);
+        assertClosed(memory);
+    }
+
+    @Test
+    public void testSpilledCombinedMessages() {
+        final PrimitiveFulgoraVertexMemory<Object> memory = getMemory((a, b) -> ((String) a).compareTo((String) b) <= 0 ? a : b);
+        final MessageScope local = MessageScope.Local.of(__::inE);
+        memory.nextIteration(new HashSet<>(Arrays.asList(GLOBAL, local)));
+        IntStream.range(0, NUM_VERTICES).parallel().forEach(vertex -> {
+            memory.sendMessage(vertexId(vertex % 100), String.format("m%05d", vertex), GLOBAL);
+            memory.sendMessage(vertexId(vertex), "local" + vertex, local);
+        });
+        memory.completeIteration();
+
+        for (int vertex = 0; vertex < 100; vertex++) {
+            assertEquals(Collections.singletonList(String.format("m%05d", vertex)),
+                memory.getMessage(vertexId(vertex), GLOBAL).collect(Collectors.toList()));
+            assertEquals(Collections.singletonList("local" + vertex),
+                memory.getMessage(vertexId(vertex), local).collect(Collectors.toList()));
+        }
+        assertClosed(memory);
+    }
+
+    @Test
+    public void testSpilledCombinedMessagesAreRewritten() {
+        final PrimitiveFulgoraVertexMemory<Object> memory = getMemory((a, b) -> ((String) a).compareTo((String) b) <= 0 ? a : b);
+        final int receivers = NUM_VERTICES / 4;
+        memory.nextIteration(Collections.singleton(GLOBAL));
+        IntStream.range(0, NUM_VERTICES).parallel().forEach(vertex ->
+            memory.sendMessage(vertexId(vertex % receivers), String.format("m%05d", vertex), GLOBAL));
+        memory.completeIteration();
+        //Combined messages are rewritten in place, so the log holds one record per receiving vertex
+        assertTrue(spillFileBytes(".msg") < receivers * 32L);
+
+        for (int vertex = 0; vertex < receivers; vertex++) {
+            assertEquals(Collections.singletonList(String.format("m%05d", vertex)),
+                memory.getMessage(vertexId(vertex), GLOBAL).collect(Collectors.toList()));
+        }
+        assertClosed(memory);
+    }
+
+    @Test
+    public void testSpilledGrowingCombinedMessages() {
+        final PrimitiveFulgoraVertexMemory<Object> memory = getMemory((a, b) -> (String) a + b);
+        memory.nextIteration(Collections.singleton(GLOBAL));
+        IntStream.range(0, NUM_VERTICES).parallel().forEach(vertex -> memory.sendMessage(vertexId(vertex % 10), "x", GLOBAL));
+        memory.completeIteration();
+
+        for (int vertex = 0; vertex < 10; vertex++) {
+            final List<Object> messages = memory.getMessage(vertexId(vertex), GLOBAL).collect(Collectors.toList());
+            assertEquals(1, messages.size());
+            assertEquals(NUM_VERTICES / 10, ((String) messages.get(0)).length());
+        }
+        assertClosed(memory);
+    }
+
+    @Test
+    public void testMessagesWithinHeapBudget() {
+        spill = new FulgoraSpillContext(new StandardSerializer(), spillDirectory, 1L << 30);
+        final PrimitiveFulgoraVertexMemory<Object> memory = getMemory(null);
+        memory.nextIteration(Collections.singleton(GLOBAL));
+        IntStream.range(0, NUM_VERTICES).parallel().forEach(vertex -> memory.sendMessage(vertexId(vertex % 100), "m" + vertex, GLOBAL));
+        memory.completeIteration();
+        //Messages are only spilled once the heap budget is exhausted
+        assertEquals(0, spillDirectory.listFiles().length);
+        assertTrue(spill.getReserved() > 0);
+
+        for (int vertex = 0; vertex < 100; vertex++) {
+            assertEquals(NUM_VERTICES / 100, memory.getMessage(vertexId(vertex), GLOBAL).count());
+        }
+        assertClosed(memory);
+    }
+
+    private static class Unserializable {
+    }
+}
@@ -0,0 +1,127 @@
+// Copyright 2020 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.query;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import org.janusgraph.core.JanusGraphException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class QueryUtilTest {
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static List<Object> range(long start, long end, long step) {
+        return LongStream.range(start, end).filter(i -> i % step == 0).boxed().collect(Collectors.toList());
+    }
+
+    @Test
+    public void testIntersectIds() {
+        final List<QueryUtil.IndexCall<Object>> retrievals = ImmutableList.of(
+            limit -> range(0, 1000, 2), limit -> range(0, 1000, 3), limit -> range(500, 2000, 5));
+        final Set<Object> expected = range(500, 1000, 30).stream().collect(Collectors.toSet());
+
+        for (ExecutorService exec : new ExecutorService[]{null, executor}) {
+            final Collection<Object> result = QueryUtil.processIntersectingRetrievals(retrievals, Query.NO_LIMIT, exec);
+            assertEquals(expected.size(), result.size());
+            assertEquals(expected, Sets.newHashSet(result));
+            for (Object id : expected) assertTrue(result.contains(id));
+            assertFalse(result.contains(2L));
+            assertFalse(result.contains("510"));
+        }
+    }
+
+    @Test
+    public void testIntersectObjects() {
+        final List<QueryUtil.IndexCall<Object>> retrievals = ImmutableList.of(
+            limit -> ImmutableList.of("a", "b", "c", "d"), limit -> ImmutableSet.of("d", "c", "x"), limit -> ImmutableList.of("c", "d", "e"));
+        final Collection<Object> result = QueryUtil.processIntersectingRetrievals(retrievals, Query.NO_LIMIT, executor);
+        assertEquals(ImmutableSet.of("c", "d"), Sets.newHashSet(result));
+    }
+
+    @Test
+    public void testEmptyIntersection() {
+        final List<QueryUtil.IndexCall<Object>> retrievals = ImmutableList.of(
+            limit -> range(0, 100, 1), limit -> Collections.emptyList());
+        assertTrue(QueryUtil.processIntersectingRetrievals(retrievals, Query.NO_LIMIT, executor).isEmpty());
+    }
+
+    @Test
+    public void testRetrievalsAreDispatchedConcurrently() {
+        final int numRetrievals = 3;
+        final CountDownLatch allStarted = new CountDownLatch(numRetrievals);
+        final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        final List<QueryUtil.IndexCall<Object>> retrievals = new ArrayList<>();
+        for (int i = 0; i < numRetrievals; i++) {
+            retrievals.add(limit -> {
+                threads.add(Thread.currentThread());
+                allStarted.countDown();
+                try {
+                    //Only returns if all retrievals are running at the same time
+                    assertTrue(allStarted.await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+                return range(0, 10, 1);
+            });
+        }
+        assertEquals(10, QueryUtil.processIntersectingRetrievals(retrievals, Query.NO_LIMIT, executor).size());
+        assertEquals(numRetrievals, threads.size());
+        assertTrue(threads.contains(Thread.currentThread()));
+    }
+
+    @Test
+    public void testRetrievalFailure() {
+        final List<QueryUtil.IndexCall<Object>> retrievals = ImmutableList.of(
+            limit -> range(0, 10, 1), limit -> {
+                throw new IllegalStateException("index failure");
+            });
+        assertThrows(JanusGraphException.class,
+            () -> QueryUtil.processIntersectingRetrievals(retrievals, Query.NO_LIMIT, executor));
+        assertThrows(JanusGraphException.class,
+            () -> QueryUtil.processIntersectingRetrievals(retrievals, Query.NO_LIMIT));
+    }
+}
@@ -0,0 +1,63 @@
+// Copyright 2020 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.janusgraph.graphdb.query.index;
+
+import org.janusgraph.diskstorage.StaticBuffer;
+import org.janusgraph.diskstorage.util.BufferUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class IndexStatisticsTest {
+
+    @Test
+    public void testEstimateEntries() {
+        final Map<StaticBuffer, Long> heavyHitters = new HashMap<>();
+        heavyHitters.put(BufferUtil.getLongBuffer(1), 500L);
+        heavyHitters.put(BufferUtil.getLongBuffer(2), 100L);
+        final IndexStatistics statistics = new IndexStatistics(12, 700, heavyHitters);
+
+        assertEquals(500, statistics.estimateEntries(BufferUtil.getLongBuffer(1)));
+        assertEquals(100, statistics.estimateEntries(BufferUtil.getLongBuffer(2)));
+        //The remaining 100 entries are shared by the remaining 10 keys
+        assertEquals(10, statistics.estimateEntries(BufferUtil.getLongBuffer(3)));
+
+        //All keys are heavy hitters
+        assertEquals(0, new IndexStatistics(2, 600, heavyHitters).estimateEntries(BufferUtil.getLongBuffer(3)));
+    }
+
+    @Test
+    public void testEncoding() {
+        final Map<StaticBuffer, Long> heavyHitters = new HashMap<>();
+        heavyHitters.put(BufferUtil.getLongBuffer(1), 500L);
+        heavyHitters.put(BufferUtil.getIntBuffer(new int[]{-1, 0, 7}), 100L);
+        final IndexStatistics statistics = IndexStatistics.decode(new IndexStatistics(12, 700, heavyHitters).encode());
+
+        assertEquals(12, statistics.getDistinctKeys());
+        assertEquals(700, statistics.getEntries());
+        assertEquals(heavyHitters, statistics.getHeavyHitters());
+
+        final IndexStatistics empty = IndexStatistics.decode(new IndexStatistics(0, 0, new HashMap<>()).encode());
+        assertEquals(0, empty.getDistinctKeys());
+        assertEquals(0, empty.getHeavyHitters().size());
+
+        assertThrows(IllegalArgumentException.class, () -> IndexStatistics.decode("1;2"));
+    }
+}
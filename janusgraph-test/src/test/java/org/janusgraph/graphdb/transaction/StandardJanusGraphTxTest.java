@@ -68,7 +68,7 @@ public class StandardJanusGraphTxTest extends EasyMockSupport {
         DefaultSchemaMaker defaultSchemaMaker = createMock(DefaultSchemaMaker.class);
         IndexSelectionStrategy indexSelectionStrategy = createMock(ThresholdBasedIndexSelectionStrategy.class);
 
-        expect(mockGraph.getConfiguration()).andReturn(gdbConfig);
+        expect(mockGraph.getConfiguration()).andReturn(gdbConfig).times(2);
         expect(mockGraph.isOpen()).andReturn(true).anyTimes();
         expect(mockGraph.getDataSerializer()).andReturn(mockSerializer);
         expect(mockGraph.getEdgeSerializer()).andReturn(mockEdgeSerializer);
@@ -77,6 +77,7 @@ public class StandardJanusGraphTxTest extends EasyMockSupport {
         expect(mockGraph.getIndexSelector()).andReturn(indexSelectionStrategy);
 
         expect(gdbConfig.getTimestampProvider()).andReturn(tsProvider);
+        expect(gdbConfig.isTxVertexCachePrimitive()).andReturn(false);
 
         expect(txConfig.isSingleThreaded()).andReturn(true);
         expect(txConfig.hasPreloadedData()).andReturn(false);
@@ -0,0 +1,197 @@
+// Copyright 2020 JanusGraph Authors
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.janusgraph.graphdb.transaction.vertexcache;
+
+import org.janusgraph.core.JanusGraph;
+import org.janusgraph.core.JanusGraphFactory;
+import org.janusgraph.graphdb.internal.ElementLifeCycle;
+import org.janusgraph.graphdb.internal.InternalVertex;
+import org.janusgraph.graphdb.transaction.StandardJanusGraphTx;
+import org.janusgraph.graphdb.vertices.StandardVertex;
+import org.janusgraph.util.datastructures.Retriever;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PrimitiveVertexCacheTest {
+
+    private JanusGraph graph;
+    private StandardJanusGraphTx tx;
+    private CountingRetriever retriever;
+
+    @BeforeEach
+    public void setUp() {
+        graph = JanusGraphFactory.open("inmemory");
+        tx = (StandardJanusGraphTx) graph.newTransaction();
+        retriever = new CountingRetriever();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        tx.rollback();
+        graph.close();
+    }
+
+    @Test
+    public void testRetrievesVertexOnlyOnMiss() {
+        final VertexCache cache = new PrimitiveVertexCache(100, 10);
+        assertFalse(cache.contains(1));
+        final InternalVertex vertex = cache.get(1, retriever);
+        assertEquals(1, retriever.calls);
+        assertTrue(cache.contains(1));
+        assertSame(vertex, cache.get(1, retriever));
+        assertEquals(1, retriever.calls);
+
+        final InternalVertex added = new StandardVertex(tx, 2, ElementLifeCycle.Loaded);
+        cache.add(added, 2);
+        assertSame(added, cache.get(2, retriever));
+        assertEquals(1, retriever.calls);
+
+        cache.close();
+        assertFalse(cache.contains(1));
+        assertFalse(cache.contains(2));
+    }
+
+    @Test
+    public void testSizeBound() {
+        final int cacheSize = 50, numVertices = 1000;
+        final VertexCache cache = new PrimitiveVertexCache(cacheSize, 10);
+        for (long id = 1; id <= numVertices; id++) {
+            assertEquals(id, cache.get(id, retriever).longId());
+        }
+        int cached = 0;
+        for (long id = 1; id <= numVertices; id++) {
+            if (cache.contains(id)) cached++;
+        }
+        assertEquals(cacheSize, cached);
+        //The most recently retrieved vertex is always cached
+        assertTrue(cache.contains(numVertices));
+    }
+
+    @Test
+    public void testFrequentVerticesAreRetained() {
+        final int cacheSize = 100, numHot = 10, numVertices = 5000;
+        final VertexCache cache = new PrimitiveVertexCache(cacheSize, 10);
+        for (int t = 0; t < 2; t++) {
+            for (long id = 1; id <= numHot; id++) cache.get(id, retriever);
+        }
+        //Scan over many vertices which are each only retrieved once while the hot vertices keep being retrieved
+        for (long id = numHot + 1; id <= numVertices; id++) {
+            cache.get(id, retriever);
+            if (id % 20 == 0) {
+                for (long hot = 1; hot <= numHot; hot++) cache.get(hot, retriever);
+            }
+        }
+        assertEquals(numVertices, retriever.calls);
+        for (long id = 1; id <= numHot; id++) assertTrue(cache.contains(id));
+    }
+
+    @Test
+    public void testModifiedVerticesSurviveEviction() {
+        final VertexCache cache = new PrimitiveVertexCache(10, 10);
+        final StandardVertex modified = new StandardVertex(tx, 1, ElementLifeCycle.Loaded);
+        modified.updateLifeCycle(ElementLifeCycle.Event.REMOVED_RELATION);
+        cache.add(modified, 1);
+        final InternalVertex created = new StandardVertex(tx, 2, ElementLifeCycle.New);
+        cache.add(created, 2);
+
+        for (long id = 3; id <= 1000; id++) cache.get(id, retriever);
+        final int calls = retriever.calls;
+        assertTrue(cache.contains(1));
+        assertSame(modified, cache.get(1, retriever));
+        assertSame(created, cache.get(2, retriever));
+        assertEquals(calls, retriever.calls);
+        assertEquals(1, cache.getAllNew().size());
+        assertSame(created, cache.getAllNew().get(0));
+    }
+
+    @Test
+    public void testRandomAccess() {
+        final int cacheSize = 200;
+        final VertexCache cache = new PrimitiveVertexCache(cacheSize, 10);
+        final Random random = new Random(42);
+        final Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 100000; i++) {
+            //Ids which are multiples of a power of two collide in the table more often
+            final long id = (random.nextInt(1000) + 1) * (random.nextBoolean() ? 1L : 1L << 20);
+            ids.add(id);
+            assertEquals(id, cache.get(id, retriever).longId());
+        }
+        int cached = 0;
+        for (long id : ids) {
+            if (cache.contains(id)) {
+                cached++;
+                assertEquals(id, cache.get(id, retriever).longId());
+            }
+        }
+        assertEquals(cacheSize, cached);
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        final int cacheSize = 100, numThreads = 4, numAccesses = 50000;
+        final VertexCache cache = new PrimitiveVertexCache(cacheSize, 10);
+        final Retriever<Long, InternalVertex> concurrentRetriever = id -> new StandardVertex(tx, id, ElementLifeCycle.Loaded);
+        final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            final List<Future<?>> results = new ArrayList<>(numThreads);
+            for (int t = 0; t < numThreads; t++) {
+                final long seed = t;
+                results.add(executor.submit(() -> {
+                    final Random random = new Random(seed);
+                    for (int i = 0; i < numAccesses; i++) {
+                        //Hits on few hot vertices race with inserts and evictions of many cold ones
+                        final long id = random.nextBoolean() ? random.nextInt(10) + 1 : random.nextInt(10000) + 1;
+                        assertEquals(id, cache.get(id, concurrentRetriever).longId());
+                    }
+                }));
+            }
+            for (Future<?> result : results) result.get(60, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        int cached = 0;
+        for (long id = 1; id <= 10000; id++) {
+            if (cache.contains(id)) cached++;
+        }
+        assertEquals(cacheSize, cached);
+    }
+
+    private class CountingRetriever implements Retriever<Long, InternalVertex> {
+
+        private int calls;
+
+        @Override
+        public InternalVertex get(Long id) {
+            calls++;
+            return new StandardVertex(tx, id, ElementLifeCycle.Loaded);
+        }
+    }
+}
@@ -15,15 +15,28 @@
 package org.janusgraph.graphdb.vertices;
 
 import org.easymock.EasyMockSupport;
+import org.janusgraph.diskstorage.Entry;
+import org.janusgraph.diskstorage.EntryList;
+import org.janusgraph.diskstorage.StaticBuffer;
 import org.janusgraph.diskstorage.keycolumnvalue.SliceQuery;
+import org.janusgraph.diskstorage.util.BufferUtil;
+import org.janusgraph.diskstorage.util.EntryArrayList;
+import org.janusgraph.diskstorage.util.StaticArrayEntry;
 import org.janusgraph.graphdb.transaction.StandardJanusGraphTx;
 import org.janusgraph.util.datastructures.Retriever;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.isA;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class CacheVertexTest extends EasyMockSupport {
 
@@ -52,4 +65,74 @@ public class CacheVertexTest extends EasyMockSupport {
         verify(mockRetriever);
     }
 
+    @Test
+    public void testSupersetLookupWithSubsumedSlices() {
+        final CacheVertex cacheVertex = createLoadedVertex();
+        final AtomicInteger retrievals = new AtomicInteger();
+        final Retriever<SliceQuery, EntryList> retriever = query -> {
+            retrievals.incrementAndGet();
+            return getEntries(query.getSliceStart().getInt(0), query.getSliceEnd().getInt(0));
+        };
+
+        assertEquals(10, cacheVertex.loadRelations(getQuery(10, 20), retriever).size());
+        assertEquals(10, cacheVertex.loadRelations(getQuery(40, 50), retriever).size());
+        assertEquals(100, cacheVertex.loadRelations(getQuery(0, 100), retriever).size());
+        assertEquals(3, retrievals.get());
+
+        //Answered by the slices cached above
+        assertEquals(5, cacheVertex.loadRelations(getQuery(12, 17), retriever).size());
+        assertEquals(30, cacheVertex.loadRelations(getQuery(30, 60), retriever).size());
+        assertEquals(10, cacheVertex.loadRelations(getQuery(40, 50), retriever).size());
+        assertTrue(cacheVertex.hasLoadedRelations(getQuery(90, 100)));
+        assertEquals(3, retrievals.get());
+
+        assertFalse(cacheVertex.hasLoadedRelations(getQuery(90, 101)));
+        assertEquals(11, cacheVertex.loadRelations(getQuery(90, 101), retriever).size());
+        assertEquals(4, retrievals.get());
+    }
+
+    @Test
+    public void testSupersetLookupWithLimit() {
+        final CacheVertex cacheVertex = createLoadedVertex();
+        final AtomicInteger retrievals = new AtomicInteger();
+        final Retriever<SliceQuery, EntryList> retriever = query -> {
+            retrievals.incrementAndGet();
+            final int start = query.getSliceStart().getInt(0);
+            return getEntries(start, Math.min(query.getSliceEnd().getInt(0), start + query.getLimit()));
+        };
+
+        assertEquals(5, cacheVertex.loadRelations(getQuery(10, 50).setLimit(5), retriever).size());
+        assertEquals(1, retrievals.get());
+
+        //A limited slice only subsumes slices with the same start and a smaller limit
+        assertEquals(3, cacheVertex.loadRelations(getQuery(10, 30).setLimit(3), retriever).size());
+        assertEquals(1, retrievals.get());
+        assertFalse(cacheVertex.hasLoadedRelations(getQuery(11, 30).setLimit(3)));
+        assertFalse(cacheVertex.hasLoadedRelations(getQuery(10, 30).setLimit(6)));
+        assertFalse(cacheVertex.hasLoadedRelations(getQuery(10, 30)));
+    }
+
+    private CacheVertex createLoadedVertex() {
+        final CacheVertex cacheVertex = createMockBuilder(CacheVertex.class)
+            .withConstructor(createMock(StandardJanusGraphTx.class), 0l, (byte) 0)
+            .addMockedMethod("isNew")
+            .createMock();
+        expect(cacheVertex.isNew()).andReturn(false).anyTimes();
+        replay(cacheVertex);
+        return cacheVertex;
+    }
+
+    private static SliceQuery getQuery(int start, int end) {
+        return new SliceQuery(BufferUtil.getIntBuffer(start), BufferUtil.getIntBuffer(end));
+    }
+
+    private static EntryList getEntries(int start, int end) {
+        final List<Entry> entries = new ArrayList<>();
+        for (int i = start; i < end; i++) {
+            final StaticBuffer column = BufferUtil.getIntBuffer(i);
+            entries.add(StaticArrayEntry.of(column, column));
+        }
+        return EntryArrayList.of(entries);
+    }
+
 }